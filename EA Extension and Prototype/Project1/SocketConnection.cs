@@ -34,7 +34,8 @@ namespace EA_Neo4j_SafetyAnalysis_AddIn
         private static readonly string singleSeparator = ",S,";
         private static readonly string partSeparator = ",P,";
         private static readonly string tgSeparator = ",T,";
-        private static readonly int maxStringLength = 4096;
+        private static readonly int maxStringLength = 1048576;
+        private const byte frameStart = 0x02;
 
         private readonly object masterLock = new object();
 
@@ -220,7 +221,10 @@ namespace EA_Neo4j_SafetyAnalysis_AddIn
         {
             try
             {
+                // Every message is sent as a frame (0x02 followed by the big-endian length) so Java can read messages of any length.
                 byte[] senddata = System.Text.Encoding.UTF8.GetBytes(data);
+                byte[] header = new byte[] { frameStart, (byte)(senddata.Length >> 24), (byte)(senddata.Length >> 16), (byte)(senddata.Length >> 8), (byte)senddata.Length };
+                ns.Write(header, 0, header.Length);
                 ns.Write(senddata, 0, senddata.Length);
             }
             catch (IOException e)
@@ -0,0 +1,314 @@
+package neo4jBDD;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * This class manages the nodes of reduced ordered binary decision diagrams (ROBDD).<br>
+ * A BDD represents a boolean function of variables. Here the variables are events of a CFT.<br>
+ * Every BDD node is identified by an int. The node {@code FALSE} is the constant false function and the node {@code TRUE} is the constant true function.<br>
+ * Nodes are stored in int arrays and are unique so equal functions are always represented by the same node.<br>
+ * Variables with a lower number are closer to the root.<br>
+ * All operations are cached for the lifetime of the BDD so one BDD should only be used for one analysis.<br>
+ *
+ * @author Kevin Bartik
+ *
+ */
+final class BDD
+{
+
+    /**
+     * The constant false function.<br>
+     */
+    static final int FALSE = 0;
+
+    /**
+     * The constant true function.<br>
+     */
+    static final int TRUE = 1;
+
+    /**
+     * The variable of the terminal nodes. It is higher than every other variable.<br>
+     */
+    private static final int TERMINAL_VARIABLE = Integer.MAX_VALUE;
+
+    /**
+     * The variable of each node.<br>
+     */
+    private int[] nodeVariable;
+
+    /**
+     * The low child of each node. It represents the function if the variable is false.<br>
+     */
+    private int[] nodeLow;
+
+    /**
+     * The high child of each node. It represents the function if the variable is true.<br>
+     */
+    private int[] nodeHigh;
+
+    /**
+     * The number of nodes including the terminal nodes.<br>
+     */
+    private int nodeCount;
+
+    /**
+     * The unique table. An open addressing hash table that stores node numbers. {@code 0} marks a free slot.<br>
+     */
+    private int[] uniqueTable;
+
+    private final HashMap<Long, Integer> andCache = new HashMap<Long, Integer>();
+
+    private final HashMap<Long, Integer> orCache = new HashMap<Long, Integer>();
+
+    private final HashMap<Integer, Integer> notCache = new HashMap<Integer, Integer>();
+
+    /**
+     * Creates a BDD manager that only contains the terminal nodes.<br>
+     */
+    BDD()
+    {
+	nodeVariable = new int[1024];
+	nodeLow = new int[1024];
+	nodeHigh = new int[1024];
+	uniqueTable = new int[2048];
+	nodeVariable[FALSE] = TERMINAL_VARIABLE;
+	nodeVariable[TRUE] = TERMINAL_VARIABLE;
+	nodeCount = 2;
+    }
+
+    /**
+     * Returns the number of nodes including the terminal nodes.<br>
+     *
+     * @return The number of nodes.
+     */
+    int getNodeCount()
+    {
+	return nodeCount;
+    }
+
+    int getVariable(int f)
+    {
+	return nodeVariable[f];
+    }
+
+    int getLow(int f)
+    {
+	return nodeLow[f];
+    }
+
+    int getHigh(int f)
+    {
+	return nodeHigh[f];
+    }
+
+    /**
+     * Returns the function that is true if the variable is true.<br>
+     *
+     * @param variable
+     *            The variable.
+     * @return The BDD of the variable.
+     */
+    int variable(int variable)
+    {
+	return getNode(variable, FALSE, TRUE);
+    }
+
+    /**
+     * Returns the negation of a function.<br>
+     *
+     * @param f
+     *            The function.
+     * @return The negated function.
+     */
+    int not(int f)
+    {
+	if (f == FALSE)
+	{
+	    return TRUE;
+	}
+	if (f == TRUE)
+	{
+	    return FALSE;
+	}
+	Integer cached = notCache.get(f);
+	if (cached != null)
+	{
+	    return cached;
+	}
+	int result = getNode(nodeVariable[f], not(nodeLow[f]), not(nodeHigh[f]));
+	notCache.put(f, result);
+	return result;
+    }
+
+    /**
+     * Returns the conjunction of two functions.<br>
+     *
+     * @param f
+     *            The first function.
+     * @param g
+     *            The second function.
+     * @return The conjunction of both functions.
+     */
+    int and(int f, int g)
+    {
+	if (f == FALSE || g == FALSE)
+	{
+	    return FALSE;
+	}
+	if (f == TRUE || f == g)
+	{
+	    return g;
+	}
+	if (g == TRUE)
+	{
+	    return f;
+	}
+	return apply(f, g, andCache, true);
+    }
+
+    /**
+     * Returns the disjunction of two functions.<br>
+     *
+     * @param f
+     *            The first function.
+     * @param g
+     *            The second function.
+     * @return The disjunction of both functions.
+     */
+    int or(int f, int g)
+    {
+	if (f == TRUE || g == TRUE)
+	{
+	    return TRUE;
+	}
+	if (f == FALSE || f == g)
+	{
+	    return g;
+	}
+	if (g == FALSE)
+	{
+	    return f;
+	}
+	return apply(f, g, orCache, false);
+    }
+
+    /**
+     * Applies the conjunction or disjunction to two non-terminal functions by Shannon decomposition on the lowest variable.<br>
+     *
+     * @param f
+     *            The first function.
+     * @param g
+     *            The second function.
+     * @param cache
+     *            The cache of the operation.
+     * @param conjunction
+     *            True for the conjunction and false for the disjunction.
+     * @return The result of the operation.
+     */
+    private int apply(int f, int g, HashMap<Long, Integer> cache, boolean conjunction)
+    {
+	if (f > g)
+	{
+	    int swap = f;
+	    f = g;
+	    g = swap;
+	}
+	Long key = ((long) f << 32) | (g & 0xFFFFFFFFL);
+	Integer cached = cache.get(key);
+	if (cached != null)
+	{
+	    return cached;
+	}
+	int variableF = nodeVariable[f];
+	int variableG = nodeVariable[g];
+	int variable = Math.min(variableF, variableG);
+	int lowF = variableF == variable ? nodeLow[f] : f;
+	int highF = variableF == variable ? nodeHigh[f] : f;
+	int lowG = variableG == variable ? nodeLow[g] : g;
+	int highG = variableG == variable ? nodeHigh[g] : g;
+	int result;
+	if (conjunction)
+	{
+	    result = getNode(variable, and(lowF, lowG), and(highF, highG));
+	}
+	else
+	{
+	    result = getNode(variable, or(lowF, lowG), or(highF, highG));
+	}
+	cache.put(key, result);
+	return result;
+    }
+
+    /**
+     * Returns the unique node with the variable and the children.<br>
+     * If both children are equal then the child is returned.<br>
+     *
+     * @param variable
+     *            The variable. Must be lower than the variables of both children.
+     * @param low
+     *            The low child.
+     * @param high
+     *            The high child.
+     * @return The unique node.
+     */
+    private int getNode(int variable, int low, int high)
+    {
+	if (low == high)
+	{
+	    return low;
+	}
+	int mask = uniqueTable.length - 1;
+	int slot = hash(variable, low, high) & mask;
+	while (uniqueTable[slot] != 0)
+	{
+	    int node = uniqueTable[slot];
+	    if (nodeVariable[node] == variable && nodeLow[node] == low && nodeHigh[node] == high)
+	    {
+		return node;
+	    }
+	    slot = (slot + 1) & mask;
+	}
+	if (nodeCount == nodeVariable.length)
+	{
+	    nodeVariable = Arrays.copyOf(nodeVariable, nodeCount * 2);
+	    nodeLow = Arrays.copyOf(nodeLow, nodeCount * 2);
+	    nodeHigh = Arrays.copyOf(nodeHigh, nodeCount * 2);
+	}
+	int node = nodeCount++;
+	nodeVariable[node] = variable;
+	nodeLow[node] = low;
+	nodeHigh[node] = high;
+	uniqueTable[slot] = node;
+	if (nodeCount * 2 > uniqueTable.length)
+	{
+	    resizeUniqueTable();
+	}
+	return node;
+    }
+
+    /**
+     * Doubles the size of the unique table and inserts all nodes again.<br>
+     */
+    private void resizeUniqueTable()
+    {
+	uniqueTable = new int[uniqueTable.length * 2];
+	int mask = uniqueTable.length - 1;
+	for (int node = 2; node < nodeCount; node++)
+	{
+	    int slot = hash(nodeVariable[node], nodeLow[node], nodeHigh[node]) & mask;
+	    while (uniqueTable[slot] != 0)
+	    {
+		slot = (slot + 1) & mask;
+	    }
+	    uniqueTable[slot] = node;
+	}
+    }
+
+    private static int hash(int variable, int low, int high)
+    {
+	int hash = variable * 0x9E3779B1 + low * 0x85EBCA6B + high * 0xC2B2AE35;
+	return hash ^ (hash >>> 16);
+    }
+
+}
@@ -0,0 +1,280 @@
+package neo4jBDD;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.neo4j.graphdb.Node;
+
+import neo4jDatabase.DBUtility;
+import neo4jGateSets.GateSet;
+import neo4jGateSets.MOONSet;
+import neo4jUtility.PrintUtility;
+
+/**
+ * This class calculates the exact probability of a GateSet with a BDD.<br>
+ * The recursive calculation in {@code calculateBasicFailureProbability()} multiplies the probabilities of the inputs which is only exact if no event occurs more than once in the GateSet.<br>
+ * Here the GateSet and all lower GateSets are compiled into one BDD so events that are shared between GateSets are only counted once.<br>
+ * Every GateSet type is compiled with the same boolean function that {@code calculateBasicFailureProbability()} uses.<br>
+ * The variables are given in the order in which the events are first found in the GateSet.<br>
+ *
+ * @author Kevin Bartik
+ *
+ */
+public class BDDAnalysis
+{
+
+    private final BDD bdd = new BDD();
+
+    /**
+     * Maps each event Node to its variable.<br>
+     */
+    private final HashMap<Node, Integer> eventIndexMap = new HashMap<Node, Integer>();
+
+    /**
+     * The event Nodes ordered by their variable.<br>
+     */
+    private final ArrayList<Node> eventList = new ArrayList<Node>();
+
+    /**
+     * The compiled BDD of each GateSet.<br>
+     */
+    private final IdentityHashMap<GateSet, Integer> compiledMap = new IdentityHashMap<GateSet, Integer>();
+
+    /**
+     * The BDD of the analyzed GateSet.<br>
+     */
+    private final int root;
+
+    /**
+     * Compiles the GateSet into a BDD.<br>
+     *
+     * @param gateSet
+     *            The GateSet that is analyzed.
+     */
+    public BDDAnalysis(GateSet gateSet)
+    {
+	indexEvents(gateSet);
+	root = compile(gateSet);
+    }
+
+    /**
+     * Returns the number of BDD nodes that were created during the analysis.<br>
+     *
+     * @return The number of BDD nodes.
+     */
+    public int getBDDNodeCount()
+    {
+	return bdd.getNodeCount();
+    }
+
+    /**
+     * Returns the exact probability of the GateSet.<br>
+     * The probability of every event is read once from the database.<br>
+     *
+     * @return The probability of the GateSet.
+     */
+    public double calculateProbability()
+    {
+	HashMap<Node, Double> probabilityMap = new HashMap<Node, Double>();
+	for (Node node : eventList)
+	{
+	    probabilityMap.put(node, DBUtility.findProbability(node));
+	}
+	return calculateProbability(probabilityMap);
+    }
+
+    /**
+     * Returns the exact probability of the GateSet with the specified event probabilities.<br>
+     *
+     * @param probabilityMap
+     *            Maps every event Node of the GateSet to its probability.
+     * @return The probability of the GateSet.
+     */
+    public double calculateProbability(Map<Node, Double> probabilityMap)
+    {
+	double[] probabilities = new double[eventList.size()];
+	for (int i = 0; i < probabilities.length; i++)
+	{
+	    probabilities[i] = probabilityMap.get(eventList.get(i));
+	}
+	return calculateProbability(root, probabilities, new HashMap<Integer, Double>());
+    }
+
+    /**
+     * Shannon decomposition: {@code P(f) = p * P(high) + (1 - p) * P(low)}.<br>
+     *
+     * @param f
+     *            The BDD.
+     * @param probabilities
+     *            The probability of each variable.
+     * @param probabilityCache
+     *            The already calculated probabilities of BDD nodes.
+     * @return The probability of the BDD.
+     */
+    private double calculateProbability(int f, double[] probabilities, HashMap<Integer, Double> probabilityCache)
+    {
+	if (f == BDD.FALSE)
+	{
+	    return 0;
+	}
+	if (f == BDD.TRUE)
+	{
+	    return 1;
+	}
+	Double cached = probabilityCache.get(f);
+	if (cached != null)
+	{
+	    return cached;
+	}
+	double p = probabilities[bdd.getVariable(f)];
+	double probability = p * calculateProbability(bdd.getHigh(f), probabilities, probabilityCache) + (1 - p) * calculateProbability(bdd.getLow(f), probabilities, probabilityCache);
+	probabilityCache.put(f, probability);
+	return probability;
+    }
+
+    /**
+     * Gives every event Node in the GateSet and all lower GateSets a variable in the order in which the Nodes are found.<br>
+     *
+     * @param gateSet
+     *            The GateSet.
+     */
+    private void indexEvents(GateSet gateSet)
+    {
+	for (Node node : gateSet.getNodeSet())
+	{
+	    if (!eventIndexMap.containsKey(node))
+	    {
+		eventIndexMap.put(node, eventList.size());
+		eventList.add(node);
+	    }
+	}
+	for (GateSet lowerGateSet : gateSet.getLowerGateSets())
+	{
+	    indexEvents(lowerGateSet);
+	}
+    }
+
+    /**
+     * Returns the BDD of a GateSet.<br>
+     *
+     * @param gateSet
+     *            The GateSet.
+     * @return The BDD of the GateSet.
+     */
+    private int compile(GateSet gateSet)
+    {
+	Integer compiled = compiledMap.get(gateSet);
+	if (compiled != null)
+	{
+	    return compiled;
+	}
+	ArrayList<Integer> inputs = getInputs(gateSet);
+	int result;
+	switch (gateSet.getGateType())
+	{
+	    case 1: // AND
+	    case 6: // Connector
+		result = inputs.isEmpty() ? BDD.FALSE : BDD.TRUE;
+		for (int input : inputs)
+		{
+		    result = bdd.and(result, input);
+		}
+		break;
+	    case 2: // OR
+		result = BDD.FALSE;
+		for (int input : inputs)
+		{
+		    result = bdd.or(result, input);
+		}
+		break;
+	    case 3: // NOT
+		result = BDD.TRUE;
+		for (int input : inputs)
+		{
+		    result = bdd.and(result, bdd.not(input));
+		}
+		break;
+	    case 4: // XOR
+		result = exactly(inputs, 1);
+		break;
+	    case 5: // MOON
+		int moonNumber = ((MOONSet) gateSet).getMOONNumber();
+		if (moonNumber > inputs.size())
+		{
+		    result = BDD.FALSE;
+		}
+		else if (moonNumber <= 0)
+		{
+		    result = BDD.TRUE;
+		}
+		else
+		{
+		    result = exactly(inputs, moonNumber);
+		}
+		break;
+	    case 7: // Result
+		result = inputs.size() == 1 ? inputs.get(0) : BDD.FALSE;
+		break;
+	    default:
+		PrintUtility.printError("The GateSet type " + gateSet.getGateType() + " is not supported by the BDD analysis!");
+		result = BDD.FALSE;
+	}
+	compiledMap.put(gateSet, result);
+	return result;
+    }
+
+    /**
+     * Exactly k inputs are true.<br>
+     * {@code exactly[j]} is the BDD of exactly j of the already processed inputs being true.<br>
+     * Returns {@code FALSE} if there are no inputs.<br>
+     *
+     * @param inputs
+     *            The inputs.
+     * @param k
+     *            The number of true inputs.
+     * @return The BDD of exactly k true inputs.
+     */
+    private int exactly(ArrayList<Integer> inputs, int k)
+    {
+	if (inputs.isEmpty())
+	{
+	    return BDD.FALSE;
+	}
+	int[] exactly = new int[k + 1];
+	exactly[0] = BDD.TRUE;
+	for (int input : inputs)
+	{
+	    int negatedInput = bdd.not(input);
+	    for (int j = k; j > 0; j--)
+	    {
+		exactly[j] = bdd.or(bdd.and(exactly[j], negatedInput), bdd.and(exactly[j - 1], input));
+	    }
+	    exactly[0] = bdd.and(exactly[0], negatedInput);
+	}
+	return exactly[k];
+    }
+
+    /**
+     * Returns the variables of all Nodes followed by the BDDs of all lower GateSets.<br>
+     *
+     * @param gateSet
+     *            The GateSet.
+     * @return The inputs of the GateSet.
+     */
+    private ArrayList<Integer> getInputs(GateSet gateSet)
+    {
+	ArrayList<Integer> inputs = new ArrayList<Integer>(gateSet.getNodeSet().size() + gateSet.getLowerGateSets().size());
+	for (Node node : gateSet.getNodeSet())
+	{
+	    inputs.add(bdd.variable(eventIndexMap.get(node)));
+	}
+	for (GateSet lowerGateSet : gateSet.getLowerGateSets())
+	{
+	    inputs.add(compile(lowerGateSet));
+	}
+	return inputs;
+    }
+
+}
@@ -0,0 +1,500 @@
+package neo4jDatabase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.unsafe.batchinsert.BatchInserter;
+
+import neo4jEnum.NodeLabels;
+import neo4jEnum.RelTypes;
+import neo4jUtility.GeneralLogger;
+import neo4jUtility.GeneralUtility;
+import neo4jUtility.PrintUtility;
+
+/**
+ * This class imports the elements and connectors of a full update from the EA extension with a pipeline of three stages.
+ * The thread that reads the socket groups the records of a message into chunks and hands them to the parser thread.
+ * The parser thread turns the records into element and connector records and hands them to the inserter thread.
+ * The inserter thread is the only thread that uses the batch inserter because a batch inserter is not thread safe.
+ * The stages are connected by bounded queues so a stage waits if the next stage falls behind and the memory of the pipeline stays bounded.
+ * The records are inserted in the order they were read so the elements of a full update are always inserted before its connectors.
+ * Records that cannot be parsed or inserted are skipped and counted.
+ * @author Kevin Bartik
+ *
+ */
+public final class DBBatchImport
+{
+
+    /**
+     * The number of records in a chunk.
+     */
+    private static final int chunkSize = 1000;
+
+    /**
+     * The number of chunks that can wait between two stages.
+     */
+    private static final int queueCapacity = 16;
+
+    /**
+     * Marks the end of the import in both queues.
+     */
+    private static final ArrayList<Object> endOfImport = new ArrayList<Object>(0);
+
+    /**
+     * The used part separator.
+     */
+    private final String partSeparator;
+
+    /**
+     * The used tagged value separator.
+     */
+    private final String tgSeparator;
+
+    /**
+     * The chunks of records that were read and wait for the parser.
+     * The first entry of a chunk is true if the chunk contains connectors.
+     */
+    private final BlockingQueue<ArrayList<Object>> readChunks = new ArrayBlockingQueue<ArrayList<Object>>(queueCapacity);
+
+    /**
+     * The chunks of parsed records that wait for the inserter.
+     */
+    private final BlockingQueue<ArrayList<Object>> parsedChunks = new ArrayBlockingQueue<ArrayList<Object>>(queueCapacity);
+
+    /**
+     * The parser thread.
+     */
+    private final Thread parser;
+
+    /**
+     * The inserter thread.
+     */
+    private final Thread inserter;
+
+    /**
+     * The number of inserted elements. Only changed by the inserter thread.
+     */
+    private volatile long insertedElements = 0;
+
+    /**
+     * The number of inserted connectors. Only changed by the inserter thread.
+     */
+    private volatile long insertedConnectors = 0;
+
+    /**
+     * The number of records that were skipped because of an error. Changed by the parser and the inserter thread.
+     */
+    private volatile long skippedRecords = 0;
+
+    /**
+     * Starts the parser and inserter thread of an import.
+     * The batch inserter must be started before the first record is added.
+     * @param _partSeparator The used part separator.
+     * @param _tgSeparator The used tagged value separator.
+     */
+    public DBBatchImport(String _partSeparator, String _tgSeparator)
+    {
+	partSeparator = _partSeparator;
+	tgSeparator = _tgSeparator;
+	parser = new Thread(new Runnable()
+	{
+	    @Override
+	    public void run()
+	    {
+		parse();
+	    }
+	}, "Batch Import Parser");
+	inserter = new Thread(new Runnable()
+	{
+	    @Override
+	    public void run()
+	    {
+		insert();
+	    }
+	}, "Batch Import Inserter");
+	parser.setDaemon(true);
+	inserter.setDaemon(true);
+	parser.start();
+	inserter.start();
+    }
+
+    /**
+     * Hands the elements to the import.
+     * Returns after all elements were read from the iterator. The elements may still be inserted after that.
+     * @param elements The elements.
+     * @return The number of elements that were handed to the import.
+     */
+    public long addElements(Iterator<String> elements)
+    {
+	return addRecords(elements, false);
+    }
+
+    /**
+     * Hands the connectors to the import.
+     * Returns after all connectors were read from the iterator. The connectors may still be inserted after that.
+     * @param connectors The connectors.
+     * @return The number of connectors that were handed to the import.
+     */
+    public long addConnectors(Iterator<String> connectors)
+    {
+	return addRecords(connectors, true);
+    }
+
+    /**
+     * Waits until all records that were handed to the import were inserted and stops the parser and inserter thread.
+     * The batch inserter can be shut down after that.
+     */
+    public void finish()
+    {
+	transfer(readChunks, endOfImport, parser);
+	boolean interrupted = false;
+	while (inserter.isAlive())
+	{
+	    try
+	    {
+		inserter.join();
+	    }
+	    catch (InterruptedException e)
+	    {
+		interrupted = true;
+	    }
+	}
+	if (interrupted)
+	{
+	    Thread.currentThread().interrupt();
+	}
+	GeneralLogger.log(insertedElements + " elements and " + insertedConnectors + " connectors were added!");
+	if (skippedRecords > 0)
+	{
+	    String error = skippedRecords + " records of the full update were skipped because of errors!";
+	    GeneralLogger.log("Error: " + error);
+	    PrintUtility.printError(error);
+	}
+    }
+
+    /**
+     * Groups the records into chunks and hands them to the parser. Empty records are skipped.
+     * @param records The records.
+     * @param connectors true if the records are connectors.
+     * @return The number of records that were handed to the parser.
+     */
+    private long addRecords(Iterator<String> records, boolean connectors)
+    {
+	long count = 0;
+	ArrayList<Object> chunk = newChunk(connectors);
+	while (records.hasNext())
+	{
+	    String record = records.next().trim();
+	    if (record.isEmpty())
+	    {
+		continue;
+	    }
+	    chunk.add(record);
+	    count++;
+	    if (chunk.size() > chunkSize)
+	    {
+		transfer(readChunks, chunk, parser);
+		chunk = newChunk(connectors);
+	    }
+	}
+	if (chunk.size() > 1)
+	{
+	    transfer(readChunks, chunk, parser);
+	}
+	return count;
+    }
+
+    /**
+     * The parser stage. Parses the chunks of records until the end of the import.
+     */
+    private void parse()
+    {
+	while (true)
+	{
+	    ArrayList<Object> chunk = take(readChunks);
+	    if (chunk == endOfImport)
+	    {
+		transfer(parsedChunks, endOfImport, inserter);
+		return;
+	    }
+	    boolean connectors = (Boolean) chunk.get(0);
+	    ArrayList<Object> parsedChunk = new ArrayList<Object>(chunk.size() - 1);
+	    for (int i = 1; i < chunk.size(); i++)
+	    {
+		String record = (String) chunk.get(i);
+		try
+		{
+		    parsedChunk.add(connectors ? ConnectorRecord.parse(record, partSeparator) : ElementRecord.parse(record, partSeparator, tgSeparator));
+		}
+		catch (RuntimeException e)
+		{
+		    skip(record, e);
+		}
+	    }
+	    transfer(parsedChunks, parsedChunk, inserter);
+	}
+    }
+
+    /**
+     * The inserter stage. Inserts the parsed records with the batch inserter until the end of the import.
+     */
+    private void insert()
+    {
+	BatchInserter batchInserter = null;
+	while (true)
+	{
+	    ArrayList<Object> parsedChunk = take(parsedChunks);
+	    if (parsedChunk == endOfImport)
+	    {
+		return;
+	    }
+	    if (batchInserter == null)
+	    {
+		batchInserter = DBConnection.getBatchInserter();
+	    }
+	    for (Object record : parsedChunk)
+	    {
+		try
+		{
+		    if (record instanceof ElementRecord)
+		    {
+			((ElementRecord) record).insert(batchInserter);
+			insertedElements++;
+		    }
+		    else
+		    {
+			((ConnectorRecord) record).insert(batchInserter);
+			insertedConnectors++;
+		    }
+		}
+		catch (RuntimeException e)
+		{
+		    skip(record, e);
+		}
+	    }
+	}
+    }
+
+    /**
+     * Counts a record that was skipped because of an error. Only the first error is logged.
+     * @param record The skipped record.
+     * @param e The error.
+     */
+    private synchronized void skip(Object record, RuntimeException e)
+    {
+	if (skippedRecords == 0)
+	{
+	    GeneralLogger.log("Error: The record " + record + " of the full update was skipped!");
+	    GeneralLogger.logError(e);
+	}
+	skippedRecords++;
+    }
+
+    /**
+     * Creates an empty chunk.
+     * @param connectors true if the chunk will contain connectors.
+     * @return The chunk.
+     */
+    private static ArrayList<Object> newChunk(boolean connectors)
+    {
+	ArrayList<Object> chunk = new ArrayList<Object>(chunkSize + 1);
+	chunk.add(connectors);
+	return chunk;
+    }
+
+    /**
+     * Puts the chunk into the queue and waits while the queue is full.
+     * Throws an IllegalStateException if the thread that takes the chunks from the queue has stopped so the pipeline can never block forever.
+     * @param queue The queue.
+     * @param chunk The chunk.
+     * @param consumer The thread that takes the chunks from the queue.
+     */
+    private static void transfer(BlockingQueue<ArrayList<Object>> queue, ArrayList<Object> chunk, Thread consumer)
+    {
+	boolean interrupted = false;
+	try
+	{
+	    while (true)
+	    {
+		try
+		{
+		    if (queue.offer(chunk, GeneralUtility.waitTime2, TimeUnit.MILLISECONDS))
+		    {
+			return;
+		    }
+		}
+		catch (InterruptedException e)
+		{
+		    interrupted = true;
+		}
+		if (!consumer.isAlive())
+		{
+		    throw new IllegalStateException("The batch import was stopped!");
+		}
+	    }
+	}
+	finally
+	{
+	    if (interrupted)
+	    {
+		Thread.currentThread().interrupt();
+	    }
+	}
+    }
+
+    /**
+     * Takes the next chunk from the queue and waits while the queue is empty.
+     * @param queue The queue.
+     * @return The chunk.
+     */
+    private static ArrayList<Object> take(BlockingQueue<ArrayList<Object>> queue)
+    {
+	while (true)
+	{
+	    try
+	    {
+		return queue.take();
+	    }
+	    catch (InterruptedException e)
+	    {
+		// the pipeline only stops at the end of the import
+	    }
+	}
+    }
+
+    /**
+     * An element of the EA extension that is ready to be inserted.
+     */
+    static final class ElementRecord
+    {
+	/**
+	 * The ElementID of the element. Also used as the id of the node.
+	 */
+	private final long elementID;
+
+	/**
+	 * The label for the stereotype of the element.
+	 */
+	private final NodeLabels label;
+
+	/**
+	 * The properties of the node.
+	 */
+	private final Map<String, Object> properties;
+
+	private ElementRecord(long _elementID, NodeLabels _label, Map<String, Object> _properties)
+	{
+	    elementID = _elementID;
+	    label = _label;
+	    properties = _properties;
+	}
+
+	/**
+	 * Parses an element of the EA extension.
+	 * @param element The element.
+	 * @param partSeparator The used part separator.
+	 * @param tgSeparator The used tagged value separator.
+	 * @return The element record.
+	 */
+	static ElementRecord parse(String element, String partSeparator, String tgSeparator)
+	{
+	    String[] parts = element.split(partSeparator);
+	    long elementid = Long.parseLong(parts[0].trim());
+	    Map<String, Object> properties = new HashMap<String, Object>();
+	    properties.put("ElementID", elementid);
+	    properties.put("Name", parts[1].trim());
+	    NodeLabels label = NodeLabels.getLabelForEA(parts[2].trim(), Long.parseLong(parts[3].trim()) != 0);
+	    for (int j = 4; j < parts.length; j++)
+	    {
+		String[] tg = parts[j].trim().split(tgSeparator);
+		properties.put(tg[0].trim(), tg[1].trim());
+	    }
+	    return new ElementRecord(elementid, label, properties);
+	}
+
+	/**
+	 * Inserts the element. The ElementID is used as the id of the node and cached.
+	 * @param batchInserter The batch inserter.
+	 */
+	void insert(BatchInserter batchInserter)
+	{
+	    batchInserter.createNode(elementID, properties, NodeLabels.Neo4J_EA_Element, label);
+	    DBElementIDCache.put(elementID, elementID);
+	}
+
+	@Override
+	public String toString()
+	{
+	    return "Element " + elementID;
+	}
+    }
+
+    /**
+     * A connector of the EA extension that is ready to be inserted.
+     */
+    static final class ConnectorRecord
+    {
+	/**
+	 * The ConnectorID of the connector.
+	 */
+	private final long connectorID;
+
+	/**
+	 * The relationship type for the stereotype of the connector.
+	 */
+	private final RelTypes relType;
+
+	/**
+	 * The ElementID of the start element.
+	 */
+	private final long startID;
+
+	/**
+	 * The ElementID of the end element.
+	 */
+	private final long endID;
+
+	private ConnectorRecord(long _connectorID, RelTypes _relType, long _startID, long _endID)
+	{
+	    connectorID = _connectorID;
+	    relType = _relType;
+	    startID = _startID;
+	    endID = _endID;
+	}
+
+	/**
+	 * Parses a connector of the EA extension.
+	 * @param connector The connector.
+	 * @param partSeparator The used part separator.
+	 * @return The connector record.
+	 */
+	static ConnectorRecord parse(String connector, String partSeparator)
+	{
+	    String[] parts = connector.split(partSeparator);
+	    return new ConnectorRecord(Long.parseLong(parts[0].trim()), RelTypes.getRelTypeForEA(parts[1].trim()), Long.parseLong(parts[2].trim()), Long.parseLong(parts[3].trim()));
+	}
+
+	/**
+	 * Inserts the connector.
+	 * @param batchInserter The batch inserter.
+	 */
+	void insert(BatchInserter batchInserter)
+	{
+	    Map<String, Object> properties = new HashMap<String, Object>(2);
+	    properties.put("ConnectorID", connectorID);
+	    batchInserter.createRelationship(startID, endID, relType, properties);
+	}
+
+	@Override
+	public String toString()
+	{
+	    return "Connector " + connectorID;
+	}
+    }
+
+}
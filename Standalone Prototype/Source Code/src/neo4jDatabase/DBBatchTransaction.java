@@ -0,0 +1,189 @@
+package neo4jDatabase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+
+import neo4jUtility.PrintUtility;
+import neo4jUtility.SettingsUtility;
+
+/**
+ * This class writes or deletes a large number of records in multiple transactions.<br>
+ * A transaction is committed and a new transaction is started after {@code SettingsUtility.getMaxRecordsPerTransaction()} records so the state of a
+ * transaction does not need more memory than the records of one chunk.<br>
+ * The progress is printed after every committed chunk.<br>
+ * Only the records of the current chunk are rolled back if a write fails. The records of the previous chunks stay in the database.<br>
+ * Must not be used within another transaction because a transaction that is started within a transaction is only committed together with the outer
+ * transaction. The chunks would not be committed and all records would stay in the state of the outer transaction.<br>
+ *
+ * @see DBMCSManager
+ *
+ * @author Kevin Bartik
+ *
+ */
+final class DBBatchTransaction implements AutoCloseable
+{
+
+    /**
+     * The description of the written records that is used for the progress.<br>
+     */
+    private final String description;
+
+    /**
+     * The total number of records that are written.<br>
+     */
+    private final long totalRecords;
+
+    /**
+     * The number of records that were written.<br>
+     */
+    private long writtenRecords = 0;
+
+    /**
+     * The number of records that were written in the current transaction.<br>
+     */
+    private long chunkRecords = 0;
+
+    /**
+     * The current transaction.<br>
+     */
+    private Transaction tx;
+
+    /**
+     * Starts the first transaction.<br>
+     *
+     * @param description
+     *            The description of the written records.
+     * @param totalRecords
+     *            The total number of records that are written.
+     */
+    DBBatchTransaction(String description, long totalRecords)
+    {
+	this.description = description;
+	this.totalRecords = totalRecords;
+	tx = DBConnection.getGraphDB().beginTx();
+    }
+
+    /**
+     * Must be called after every written record.<br>
+     * Commits the current transaction and starts a new transaction if the chunk is full.<br>
+     */
+    void recordWritten()
+    {
+	writtenRecords++;
+	chunkRecords++;
+	if (chunkRecords >= SettingsUtility.getMaxRecordsPerTransaction())
+	{
+	    tx.success();
+	    tx.close();
+	    chunkRecords = 0;
+	    printProgress();
+	    tx = DBConnection.getGraphDB().beginTx();
+	}
+    }
+
+    /**
+     * Marks the current transaction as successful so it is committed when it is closed.<br>
+     */
+    void success()
+    {
+	tx.success();
+    }
+
+    /**
+     * Closes the current transaction.<br>
+     */
+    @Override
+    public void close()
+    {
+	tx.close();
+    }
+
+    private void printProgress()
+    {
+	if (writtenRecords < totalRecords)
+	{
+	    PrintUtility.printInfo(description + ": " + writtenRecords + " of " + totalRecords + " committed.");
+	}
+    }
+
+    /**
+     * Executes a Cypher query that deletes a chunk of nodes again and again in new transactions until no nodes are deleted.<br>
+     * The query must use the parameter {@code limit} to restrict the number of nodes of a chunk and return the number of deleted nodes as
+     * {@code deleted}.<br>
+     * The nodes are found with a label or relationship type scan in the query so no nodes need to be collected before they are deleted.<br>
+     * Must not be called within a transaction.<br>
+     *
+     * @param description
+     *            The description of the deleted nodes that is used for the progress.
+     * @param query
+     *            The query.
+     * @param parameters
+     *            The parameters of the query without {@code limit}.
+     * @return The number of deleted nodes.
+     */
+    static long deleteInChunks(String description, String query, Map<String, Object> parameters)
+    {
+	long limit = SettingsUtility.getMaxRecordsPerTransaction();
+	HashMap<String, Object> chunkParameters = new HashMap<String, Object>(parameters);
+	chunkParameters.put("limit", limit);
+	long deletedNodes = 0;
+	long deleted;
+	do
+	{
+	    try (Transaction tx = DBConnection.getGraphDB().beginTx())
+	    {
+		Result result = DBConnection.getGraphDB().execute(query, chunkParameters);
+		deleted = result.hasNext() ? ((Number) result.next().get("deleted")).longValue() : 0;
+		result.close();
+		tx.success();
+	    }
+	    deletedNodes += deleted;
+	    if (deleted == limit)
+	    {
+		PrintUtility.printInfo(description + ": " + deletedNodes + " deleted.");
+	    }
+	}
+	while (deleted == limit);
+	return deletedNodes;
+    }
+
+    /**
+     * Deletes the nodes with the ids and their relationships in chunks of {@code SettingsUtility.getMaxRecordsPerTransaction()} nodes.<br>
+     * Nodes that do not exist anymore are skipped.<br>
+     * Must not be called within a transaction.<br>
+     *
+     * @param description
+     *            The description of the deleted nodes that is used for the progress.
+     * @param nodeIDs
+     *            The ids of the nodes.
+     * @return The number of deleted nodes.
+     */
+    static long deleteNodesByID(String description, List<Long> nodeIDs)
+    {
+	int limit = Math.max(1, SettingsUtility.getMaxRecordsPerTransaction());
+	long deletedNodes = 0;
+	for (int start = 0; start < nodeIDs.size(); start += limit)
+	{
+	    HashMap<String, Object> parameters = new HashMap<String, Object>();
+	    parameters.put("ids", new ArrayList<Long>(nodeIDs.subList(start, Math.min(start + limit, nodeIDs.size()))));
+	    try (Transaction tx = DBConnection.getGraphDB().beginTx())
+	    {
+		Result result = DBConnection.getGraphDB().execute("MATCH (n) WHERE id(n) IN {ids} DETACH DELETE n RETURN count(n) AS deleted", parameters);
+		deletedNodes += result.hasNext() ? ((Number) result.next().get("deleted")).longValue() : 0;
+		result.close();
+		tx.success();
+	    }
+	    if (start + limit < nodeIDs.size())
+	    {
+		PrintUtility.printInfo(description + ": " + deletedNodes + " deleted.");
+	    }
+	}
+	return deletedNodes;
+    }
+
+}
@@ -0,0 +1,99 @@
+package neo4jDatabase;
+
+import org.neo4j.graphdb.Node;
+
+/**
+ * This class tracks the changes of the database that affect the analysis so analysis results that were kept in memory can be checked before they are used.
+ * A change of the structure of a CFT (e.g. a new failure propagation, a deleted element or a changed gate type) increases the structure version.
+ * A change of the basic failure probability of a node only increases the probability version and the id of the node is recorded.
+ * The last changed node ids are kept in a ring buffer so the probabilities of the changed nodes can be loaded again instead of all probabilities.
+ * @author Kevin Bartik
+ *
+ */
+public final class DBChangeTracker
+{
+
+    /**
+     * The number of changed node ids that are kept.
+     */
+    private static final int maxRecordedChanges = 4096;
+
+    /**
+     * The version of the structure of the CFTs.
+     */
+    private static long structureVersion = 0;
+
+    /**
+     * The version of the basic failure probabilities. Also the number of recorded probability changes.
+     */
+    private static long probabilityVersion = 0;
+
+    /**
+     * The ids of the nodes whose probability was changed. The id of the change with version v is at index {@code (v - 1) % maxRecordedChanges}.
+     */
+    private static final long[] changedNodeIDs = new long[maxRecordedChanges];
+
+    /**
+     * Private constructor so this class cannot be instantiated.
+     */
+    private DBChangeTracker()
+    {
+
+    }
+
+    /**
+     * Returns the current version of the structure of the CFTs.
+     * @return The structure version.
+     */
+    public static synchronized long getStructureVersion()
+    {
+	return structureVersion;
+    }
+
+    /**
+     * Returns the current version of the basic failure probabilities.
+     * @return The probability version.
+     */
+    public static synchronized long getProbabilityVersion()
+    {
+	return probabilityVersion;
+    }
+
+    /**
+     * Returns the ids of the nodes whose probability was changed after the version.
+     * @param version The probability version.
+     * @return The node ids or null if the changes are not recorded anymore.
+     */
+    public static synchronized long[] getChangedNodeIDs(long version)
+    {
+	if (version > probabilityVersion || probabilityVersion - version > maxRecordedChanges)
+	{
+	    return null;
+	}
+	long[] nodeIDs = new long[(int) (probabilityVersion - version)];
+	for (int i = 0; i < nodeIDs.length; i++)
+	{
+	    nodeIDs[i] = changedNodeIDs[(int) ((version + i) % maxRecordedChanges)];
+	}
+	return nodeIDs;
+    }
+
+    /**
+     * Must be called when the structure of a CFT was changed.
+     */
+    static synchronized void structureChanged()
+    {
+	structureVersion++;
+    }
+
+    /**
+     * Must be called when the basic failure probability of the node was changed.
+     * @param node The node.
+     */
+    static synchronized void probabilityChanged(Node node)
+    {
+	changedNodeIDs[(int) (probabilityVersion % maxRecordedChanges)] = node.getId();
+	probabilityVersion++;
+    }
+
+}
@@ -2,16 +2,19 @@ package neo4jDatabase;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Future;
 
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
-import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Transaction;
 
 import neo4jEnum.NodeLabels;
 import neo4jEnum.RelTypes;
 import neo4jUtility.PrintUtility;
+import neo4jUtility.ThreadUtility;
 
 /**
  * This class is used to check the database for errors.
@@ -21,10 +24,14 @@ import neo4jUtility.PrintUtility;
 public final class DBChecker
 {
     /**
-     * List that stores sets of CFT.
-     * Used for finding deep cycles in CFT.
+     * The minimum number of nodes in a partition that is checked by its own thread.
      */
-    private static ArrayList<HashSet<Node>> cftSetList = new ArrayList<HashSet<Node>>();
+    private static final int minNodesPerPartition = 1000;
+
+    /**
+     * The number of nodes that were checked by the last check.
+     */
+    private static int checkedNodeCount = 0;
 
     /**
      * Private constructor so this class cannot be instantiated.
@@ -35,100 +42,41 @@ public final class DBChecker
     
     /**
      * Checks for deep cycles in all CFTs.
-     * Is an alternative to the cycle traversal but does not find all cycles in CFTs.
+     * The CFTs and the cycle and error verdicts of every CFT are checked in a single pass by DBCycleChecker.
+     * The verdicts are cached and only the verdicts of modified CFTs are checked again.
      * @return true if a deep cycle was found. Otherwise false.
      */
     public static boolean hasCFTCycles()
     {
-	if (DBConnection.cftCycleChecked)
+	checkCFTModels();
+	if (!DBConnection.cftCycleChecked)
 	{
-	    return false;
-	}
-	boolean hasCFTCycle = false;
-	try (Transaction tx = DBConnection.getGraphDB().beginTx())
-	{
-	    ResourceIterator<Node> cftNodesIterator = DBConnection.getGraphDB().findNodes(NodeLabels.CFT);
-	    while (cftNodesIterator.hasNext())
-	    {
-		Node cft = cftNodesIterator.next();
-		boolean alreadyChecked = false;
-		for (HashSet<Node> cftSet : cftSetList)
-		{
-		    if (cftSet.contains(cft))
-		    {
-			alreadyChecked = true;
-			break;
-		    }
-		}
-		if (!alreadyChecked)
-		{
-		    cftSetList.add(new HashSet<Node>());
-		    if (!hasCFTCycle)
-		    {
-			hasCFTCycle = hasCFTCycle(cft, cftSetList.size() - 1);
-		    }
-		}
-		if (hasCFTCycle)
-		{
-		    break;
-		}
-	    }
-	    tx.success();
+	    DBCycleChecker.checkCFTs();
+	    DBConnection.cftCycleChecked = true;
 	}
-	DBConnection.cftCycleChecked = !hasCFTCycle;
-	return hasCFTCycle;
+	return DBCycleChecker.hasCFTCycles();
     }
 
     /**
-     * Checks the next CFT for Cycles.
-     * @param cft The CFT that is checked for cycles.
-     * @param index The current index in the cftSetList.
-     * @return true if the CFT has a cycle. Otherwise false.
+     * Returns true if the CFT was checked and has no cycles or errors. Otherwise false.
+     * The cached verdict is only used if the database was not modified after the check.
+     * Then the cycle traversal of the outports of the CFT can be skipped.
+     * @param cft The CFT.
+     * @return true if the CFT was checked and has no cycles or errors. Otherwise false.
      */
-    private static boolean hasCFTCycle(Node cft, int index)
+    public static boolean isValidCFT(Node cft)
     {
-	boolean hasCFTCycle = !cftSetList.get(index).add(cft);
-	if (!hasCFTCycle)
-	{
-	    try (Transaction tx = DBConnection.getGraphDB().beginTx())
-	    {
-		for (Relationship cftInstanceRel : cft.getRelationships(RelTypes.Is_Child_Of, Direction.INCOMING))
-		{
-		    Node cftInstance = cftInstanceRel.getStartNode();
-		    if (cftInstance.hasLabel(NodeLabels.CFT_Instance))
-		    {
-			Node cftFromCFTInstance = cftInstance.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode();
-			boolean alreadyChecked = false;
-			for (HashSet<Node> cftSet : cftSetList)
-			{
-			    if (cftSet.contains(cftFromCFTInstance))
-			    {
-				alreadyChecked = true;
-				if (!hasCFTCycle)
-				{
-				    hasCFTCycle = cftSet.equals(cftSetList.get(index)); // Check if the current CFT set contains the cftFromCFTInstance
-				}
-				break;
-			    }
-			}
-			if (!alreadyChecked)
-			{
-			    cftSetList.add(new HashSet<Node>(cftSetList.get(index)));
-			    if (!hasCFTCycle)
-			    {
-				hasCFTCycle = hasCFTCycle(cftFromCFTInstance, cftSetList.size() - 1);
-			    }
-			}
-			if (hasCFTCycle)
-			{
-			    break;
-			}
-		    }
-		}
-		tx.success();
-	    }
-	}
-	return hasCFTCycle;
+	return cft != null && isCFTCheckCurrent() && DBCycleChecker.isValidCFT(cft);
+    }
+
+    /**
+     * Returns true if the cached verdicts of the CFTs belong to the current database.
+     * Every modification of the database adds the modified nodes to the unchecked nodes.
+     * @return true if the cached verdicts of the CFTs belong to the current database. Otherwise false.
+     */
+    private static boolean isCFTCheckCurrent()
+    {
+	return DBConnection.cftCycleChecked && DBConnection.uncheckedNodes.isEmpty();
     }
 
     /**
@@ -242,177 +190,73 @@ public final class DBChecker
     /**
      * Checks all CFT nodes in the database for errors.
      * Depending on the label the relationships are checked and if there are any inconsistencies then the node is put into a list of error nodes.
+     * The nodes are split into partitions that are checked concurrently in their own transaction if multithreading is used.
+     * All nodes are only checked once. After that only the CFTs with modified nodes are checked again.
      * @return The list of error nodes.
      */
     public static HashSet<Node> checkCFTModels()
     {
-	if (!DBConnection.dbChecked)
+	if (!DBConnection.errorNodesChecked)
 	{
-	    DBConnection.errorNodes = new HashSet<Node>();
+	    long[] nodeIDs;
 	    try (Transaction tx = DBConnection.getGraphDB().beginTx())
 	    {
+		ArrayList<Long> nodeIDList = new ArrayList<Long>();
 		DBConnection.getGraphDB().findNodes(NodeLabels.Neo4J_EA_Element).forEachRemaining(node ->
 		{
-		    if (node.hasLabel(NodeLabels.CFT_Basic_Event) || node.hasLabel(NodeLabels.CFT_AND_Gate) || node.hasLabel(NodeLabels.CFT_OR_Gate) || node.hasLabel(NodeLabels.CFT_MOON_Gate)
-			    || node.hasLabel(NodeLabels.CFT_XOR_Gate) || node.hasLabel(NodeLabels.CFT_NOT_Gate) || node.hasLabel(NodeLabels.CFT_Inport) || node.hasLabel(NodeLabels.CFT_Inport_Instance)
-			    || node.hasLabel(NodeLabels.CFT_Outport) || node.hasLabel(NodeLabels.CFT_Outport_Instance) || node.hasLabel(NodeLabels.CFT) || node.hasLabel(NodeLabels.CFT_Instance))
+		    nodeIDList.add(node.getId());
+		});
+		nodeIDs = new long[nodeIDList.size()];
+		for (int i = 0; i < nodeIDs.length; i++)
+		{
+		    nodeIDs[i] = nodeIDList.get(i);
+		}
+		tx.success();
+	    }
+	    HashSet<Node> errorNodes = new HashSet<Node>();
+	    int partitions = 1;
+	    if (ThreadUtility.getThreadUtility().isMultiThreading())
+	    {
+		partitions = (int) Math.min(Runtime.getRuntime().availableProcessors() * 4L, Math.max(1, nodeIDs.length / minNodesPerPartition));
+	    }
+	    if (partitions == 1)
+	    {
+		errorNodes.addAll(checkPartition(nodeIDs, 0, nodeIDs.length));
+	    }
+	    else
+	    {
+		ArrayList<HashSet<Node>> partitionErrorNodes = new ArrayList<HashSet<Node>>();
+		Set<Future<?>> futureSet = new HashSet<Future<?>>();
+		for (int p = 0; p < partitions; p++)
+		{
+		    int from = (int) ((long) nodeIDs.length * p / partitions);
+		    int to = (int) ((long) nodeIDs.length * (p + 1) / partitions);
+		    HashSet<Node> partitionErrors = new HashSet<Node>();
+		    partitionErrorNodes.add(partitionErrors);
+		    futureSet.add(ThreadUtility.getThreadUtility().submitTask(new Runnable()
 		    {
-			int outfailprop = 0;
-			int infailprop = 0;
-			int child = 0;
-			int instance = 0;
-			for (Relationship rel : node.getRelationships())
-			{
-			    RelTypes type = RelTypes.transformType(rel.getType());
-			    if (rel.getStartNode().equals(node))
-			    {
-				switch (type)
-				{
-				    case Failure_Propagation:
-					if (node.hasLabel(NodeLabels.CFT) || node.hasLabel(NodeLabels.CFT_Instance) || node.hasLabel(NodeLabels.CFT_Outport)
-						|| node.hasLabel(NodeLabels.CFT_Inport_Instance))
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-					else
-					{
-					    outfailprop++;
-					}
-					break;
-				    case Is_Child_Of:
-					child++;
-					if (child > 1)
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-					break;
-				    case Is_CFT_Of:
-					if (!node.hasLabel(NodeLabels.CFT))
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-					break;
-				    case Is_Inside_MCS:
-					if (!node.hasLabel(NodeLabels.CFT_Basic_Event) && !node.hasLabel(NodeLabels.CFT_Inport) && !node.hasLabel(NodeLabels.CFT_Outport_Instance))
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-					break;
-				    case Is_Instance_Of:
-					if (!node.hasLabel(NodeLabels.CFT_Outport_Instance) && !node.hasLabel(NodeLabels.CFT_Inport_Instance) && !node.hasLabel(NodeLabels.CFT_Instance))
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-					else
-					{
-					    instance++;
-					    if (instance > 1)
-					    {
-						DBConnection.errorNodes.add(node);
-					    }
-					}
-					break;
-				    case Port_Propagation:
-					if (!node.hasLabel(NodeLabels.CFT_Inport) && !node.hasLabel(NodeLabels.CFT_Outport))
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-					break;
-				    default: // All other Types!
-					DBConnection.errorNodes.add(node);
-					break;
-				}
-			    }
-			    else
-			    {
-				switch (type)
-				{
-				    case Failure_Propagation:
-					infailprop++;
-					if (node.hasLabel(NodeLabels.CFT_Basic_Event) || node.hasLabel(NodeLabels.CFT_Inport) || node.hasLabel(NodeLabels.CFT_Outport_Instance)
-						|| node.hasLabel(NodeLabels.CFT) || node.hasLabel(NodeLabels.CFT_Instance))
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-					else
-					{
-					    if (infailprop > 1 && (node.hasLabel(NodeLabels.CFT_NOT_Gate) || node.hasLabel(NodeLabels.CFT_Inport_Instance) || node.hasLabel(NodeLabels.CFT_Outport)))
-					    {
-						DBConnection.errorNodes.add(node);
-					    }
-					}
-					break;
-				    case Is_Child_Of:
-					if (!node.hasLabel(NodeLabels.CFT) && !node.hasLabel(NodeLabels.CFT_Instance))
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-					break;
-				    case Is_Instance_Of:
-					if (!node.hasLabel(NodeLabels.CFT_Inport) && !node.hasLabel(NodeLabels.CFT_Outport) && !node.hasLabel(NodeLabels.CFT))
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-					break;
-				    case Is_MCS_Of:
-					if (!node.hasLabel(NodeLabels.CFT_Inport_Instance) && !node.hasLabel(NodeLabels.CFT_Outport))
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-					break;
-				    case Is_Full_MCS_Of:
-					if (!node.hasLabel(NodeLabels.CFT_Outport))
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-					break;
-				    case Port_Propagation:
-					if (!node.hasLabel(NodeLabels.CFT_Inport) && !node.hasLabel(NodeLabels.CFT_Outport))
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-					break;
-				    case Is_Quant_Result_Of:
-					if (!node.hasLabel(NodeLabels.CFT_Outport))
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-					break;
-				    default:
-					DBConnection.errorNodes.add(node);
-					break;
-
-				}
-			    }
-			    if (DBConnection.errorNodes.contains(node))
-			    {
-				break;
-			    }
-			}
-			if (!DBConnection.errorNodes.contains(node))
+			@Override
+			public void run()
 			{
-			    if (child == 0 && !node.hasLabel(NodeLabels.CFT))
-			    {
-				DBConnection.errorNodes.add(node);
-			    }
-			    if (instance == 0 && (node.hasLabel(NodeLabels.CFT_Instance) || node.hasLabel(NodeLabels.CFT_Inport_Instance) || node.hasLabel(NodeLabels.CFT_Outport_Instance)))
-			    {
-				DBConnection.errorNodes.add(node);
-			    }
-			    if (node.hasLabel(NodeLabels.CFT_AND_Gate) || node.hasLabel(NodeLabels.CFT_OR_Gate) || node.hasLabel(NodeLabels.CFT_MOON_Gate) || node.hasLabel(NodeLabels.CFT_XOR_Gate)
-				    || node.hasLabel(NodeLabels.CFT_NOT_Gate))
-			    {
-				if (outfailprop > 0 && infailprop == 0)
-				{
-				    DBConnection.errorNodes.add(node);
-				}
-			    }
+			    partitionErrors.addAll(checkPartition(nodeIDs, from, to));
 			}
-		    }
-		});
-		tx.success();
+		    }));
+		}
+		ThreadUtility.getThreadUtility().waitForSubmittedTasksToFinish(futureSet);
+		for (HashSet<Node> partitionErrors : partitionErrorNodes)
+		{
+		    errorNodes.addAll(partitionErrors);
+		}
+	    }
+	    if (!DBConnection.uncheckedNodes.isEmpty())
+	    {
+		DBConnection.cftCycleChecked = false;
+		DBConnection.uncheckedNodes.clear();
 	    }
+	    DBConnection.errorNodes = errorNodes;
+	    DBConnection.errorNodesChecked = true;
 	    DBConnection.dbChecked = DBConnection.errorNodes.isEmpty();
+	    checkedNodeCount = nodeIDs.length;
 	}
 	else
 	{
@@ -422,177 +266,312 @@ public final class DBChecker
     }
 
     /**
-     * Checks all modified CFT nodes in the database for errors.
-     * Depending on the label the relationships are checked and if there are any inconsistencies then the node is put into a list of error nodes.
+     * Checks a partition of the nodes in its own transaction.
+     * @param nodeIDs The ids of all nodes.
+     * @param from The index of the first node of the partition.
+     * @param to The index after the last node of the partition.
+     * @return The error nodes of the partition.
+     */
+    private static HashSet<Node> checkPartition(long[] nodeIDs, int from, int to)
+    {
+	HashSet<Node> errorNodes = new HashSet<Node>();
+	try (Transaction tx = DBConnection.getGraphDB().beginTx())
+	{
+	    for (int i = from; i < to; i++)
+	    {
+		Node node = DBConnection.getGraphDB().getNodeById(nodeIDs[i]);
+		if (hasErrors(node))
+		{
+		    errorNodes.add(node);
+		}
+	    }
+	    tx.success();
+	}
+	return errorNodes;
+    }
+
+    /**
+     * Checks the CFTs that contain modified nodes and the CFTs that instantiate them or are instantiated by them again.
+     * Every node of these CFTs is checked and removed from the error nodes if it has no errors.
+     * Deleted nodes are removed from the error nodes.
+     * If the verdicts of the CFTs are cached then only the verdicts of these CFTs and the CFTs that instantiate them are checked again.
      * @return The list of error nodes.
      */
     private static HashSet<Node> checkUpdatedCFTModel()
     {
+	if (DBConnection.uncheckedNodes.isEmpty())
+	{
+	    return DBConnection.errorNodes;
+	}
+	HashSet<Node> modifiedCFTs = new HashSet<Node>();
+	HashSet<Node> checkedCFTs;
+	HashSet<Node> deletedNodes = new HashSet<Node>();
+	HashSet<Node> nodesToCheck = new HashSet<Node>();
 	try (Transaction tx = DBConnection.getGraphDB().beginTx())
 	{
 	    for (Node node : DBConnection.uncheckedNodes)
 	    {
-		if (node.hasLabel(NodeLabels.CFT_Basic_Event) || node.hasLabel(NodeLabels.CFT_AND_Gate) || node.hasLabel(NodeLabels.CFT_OR_Gate) || node.hasLabel(NodeLabels.CFT_MOON_Gate)
-			|| node.hasLabel(NodeLabels.CFT_XOR_Gate) || node.hasLabel(NodeLabels.CFT_NOT_Gate) || node.hasLabel(NodeLabels.CFT_Inport) || node.hasLabel(NodeLabels.CFT_Inport_Instance)
-			|| node.hasLabel(NodeLabels.CFT_Outport) || node.hasLabel(NodeLabels.CFT_Outport_Instance) || node.hasLabel(NodeLabels.CFT) || node.hasLabel(NodeLabels.CFT_Instance))
+		try
+		{
+		    addCFTsOfNode(node, modifiedCFTs);
+		    nodesToCheck.add(node);
+		}
+		catch (NotFoundException e)
 		{
-		    int outfailprop = 0;
-		    int infailprop = 0;
-		    int child = 0;
-		    int instance = 0;
-		    for (Relationship rel : node.getRelationships())
+		    deletedNodes.add(node);
+		    DBConnection.errorNodes.remove(node);
+		}
+	    }
+	    checkedCFTs = new HashSet<Node>(modifiedCFTs);
+	    for (Node cft : modifiedCFTs)
+	    {
+		checkedCFTs.addAll(DBCycleChecker.getInstantiatedCFTs(cft));
+		checkedCFTs.addAll(DBCycleChecker.getInstantiatingCFTs(cft));
+	    }
+	    for (Node cft : checkedCFTs)
+	    {
+		nodesToCheck.add(cft);
+		for (Relationship childRel : cft.getRelationships(RelTypes.Is_Child_Of, Direction.INCOMING))
+		{
+		    Node child = childRel.getStartNode();
+		    nodesToCheck.add(child);
+		    if (child.hasLabel(NodeLabels.CFT_Instance))
 		    {
-			RelTypes type = RelTypes.transformType(rel.getType());
-			if (rel.getStartNode().equals(node))
+			for (Relationship portRel : child.getRelationships(RelTypes.Is_Child_Of, Direction.INCOMING))
 			{
-			    switch (type)
+			    nodesToCheck.add(portRel.getStartNode());
+			}
+		    }
+		}
+	    }
+	    for (Node node : nodesToCheck)
+	    {
+		if (hasErrors(node))
+		{
+		    DBConnection.errorNodes.add(node);
+		}
+		else
+		{
+		    DBConnection.errorNodes.remove(node);
+		}
+	    }
+	    tx.success();
+	}
+	checkedNodeCount = nodesToCheck.size();
+	String info = checkedNodeCount + " nodes of " + checkedCFTs.size() + " CFT were checked again.";
+	if (DBConnection.cftCycleChecked)
+	{
+	    info += " The cycles of " + DBCycleChecker.checkCFTs(checkedCFTs, deletedNodes) + " CFT were checked again.";
+	}
+	PrintUtility.printInfo(info);
+	DBConnection.uncheckedNodes.clear();
+	DBConnection.dbChecked = DBConnection.errorNodes.isEmpty();
+	return DBConnection.errorNodes;
+    }
+
+    /**
+     * Adds the CFTs that contain the node to a set.
+     * A CFT contains itself, its children and the children of its CFT instances.
+     * Must be called within a transaction.
+     * @param node The node.
+     * @param cfts The set of CFTs.
+     */
+    private static void addCFTsOfNode(Node node, HashSet<Node> cfts)
+    {
+	if (node.hasLabel(NodeLabels.CFT))
+	{
+	    cfts.add(node);
+	}
+	for (Relationship parentRel : node.getRelationships(RelTypes.Is_Child_Of, Direction.OUTGOING))
+	{
+	    Node parent = parentRel.getEndNode();
+	    if (parent.hasLabel(NodeLabels.CFT))
+	    {
+		cfts.add(parent);
+	    }
+	    else if (parent.hasLabel(NodeLabels.CFT_Instance))
+	    {
+		addCFTsOfNode(parent, cfts);
+	    }
+	}
+    }
+
+    /**
+     * Returns the number of nodes that were checked by the last check of the CFT models.
+     * @return The number of checked nodes.
+     */
+    public static int getCheckedNodeCount()
+    {
+	return checkedNodeCount;
+    }
+
+    /**
+     * Checks a CFT node for errors.
+     * Depending on the label the relationships are checked for inconsistencies.
+     * Nodes that are not CFT nodes have no errors.
+     * Must be called within a transaction.
+     * @param node The node.
+     * @return true if the node has errors. Otherwise false.
+     */
+    private static boolean hasErrors(Node node)
+    {
+	boolean error = false;
+	if (node.hasLabel(NodeLabels.CFT_Basic_Event) || node.hasLabel(NodeLabels.CFT_AND_Gate) || node.hasLabel(NodeLabels.CFT_OR_Gate) || node.hasLabel(NodeLabels.CFT_MOON_Gate)
+		|| node.hasLabel(NodeLabels.CFT_XOR_Gate) || node.hasLabel(NodeLabels.CFT_NOT_Gate) || node.hasLabel(NodeLabels.CFT_Inport) || node.hasLabel(NodeLabels.CFT_Inport_Instance)
+		|| node.hasLabel(NodeLabels.CFT_Outport) || node.hasLabel(NodeLabels.CFT_Outport_Instance) || node.hasLabel(NodeLabels.CFT) || node.hasLabel(NodeLabels.CFT_Instance))
+	{
+	    int outfailprop = 0;
+	    int infailprop = 0;
+	    int child = 0;
+	    int instance = 0;
+	    for (Relationship rel : node.getRelationships())
+	    {
+		RelTypes type = RelTypes.transformType(rel.getType());
+		if (rel.getStartNode().equals(node))
+		{
+		    switch (type)
+		    {
+			case Failure_Propagation:
+			    if (node.hasLabel(NodeLabels.CFT) || node.hasLabel(NodeLabels.CFT_Instance) || node.hasLabel(NodeLabels.CFT_Outport)
+				    || node.hasLabel(NodeLabels.CFT_Inport_Instance))
 			    {
-				case Failure_Propagation:
-				    if (node.hasLabel(NodeLabels.CFT) || node.hasLabel(NodeLabels.CFT_Instance) || node.hasLabel(NodeLabels.CFT_Outport)
-					    || node.hasLabel(NodeLabels.CFT_Inport_Instance))
-				    {
-					DBConnection.errorNodes.add(node);
-				    }
-				    else
-				    {
-					outfailprop++;
-				    }
-				    break;
-				case Is_Child_Of:
-				    child++;
-				    if (child > 1)
-				    {
-					DBConnection.errorNodes.add(node);
-				    }
-				    break;
-				case Is_CFT_Of:
-				    if (!node.hasLabel(NodeLabels.CFT))
-				    {
-					DBConnection.errorNodes.add(node);
-				    }
-				    break;
-				case Is_Inside_MCS:
-				    if (!node.hasLabel(NodeLabels.CFT_Basic_Event) && !node.hasLabel(NodeLabels.CFT_Inport) && !node.hasLabel(NodeLabels.CFT_Outport_Instance))
-				    {
-					DBConnection.errorNodes.add(node);
-				    }
-				    break;
-				case Is_Instance_Of:
-				    if (!node.hasLabel(NodeLabels.CFT_Outport_Instance) && !node.hasLabel(NodeLabels.CFT_Inport_Instance) && !node.hasLabel(NodeLabels.CFT_Instance))
-				    {
-					DBConnection.errorNodes.add(node);
-				    }
-				    else
-				    {
-					instance++;
-					if (instance > 1)
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-				    }
-				    break;
-				case Port_Propagation:
-				    if (!node.hasLabel(NodeLabels.CFT_Inport) && !node.hasLabel(NodeLabels.CFT_Outport))
-				    {
-					DBConnection.errorNodes.add(node);
-				    }
-				    break;
-				default: // All other Types!
-				    DBConnection.errorNodes.add(node);
-				    break;
+				error = true;
 			    }
-			}
-			else
-			{
-			    switch (type)
+			    else
 			    {
-				case Failure_Propagation:
-				    infailprop++;
-				    if (node.hasLabel(NodeLabels.CFT_Basic_Event) || node.hasLabel(NodeLabels.CFT_Inport) || node.hasLabel(NodeLabels.CFT_Outport_Instance)
-					    || node.hasLabel(NodeLabels.CFT) || node.hasLabel(NodeLabels.CFT_Instance))
-				    {
-					DBConnection.errorNodes.add(node);
-				    }
-				    else
-				    {
-					if (infailprop > 1 && (node.hasLabel(NodeLabels.CFT_NOT_Gate) || node.hasLabel(NodeLabels.CFT_Inport_Instance) || node.hasLabel(NodeLabels.CFT_Outport)))
-					{
-					    DBConnection.errorNodes.add(node);
-					}
-				    }
-				    break;
-				case Is_Child_Of:
-				    if (!node.hasLabel(NodeLabels.CFT) && !node.hasLabel(NodeLabels.CFT_Instance))
-				    {
-					DBConnection.errorNodes.add(node);
-				    }
-				    break;
-				case Is_Instance_Of:
-				    if (!node.hasLabel(NodeLabels.CFT_Inport) && !node.hasLabel(NodeLabels.CFT_Outport) && !node.hasLabel(NodeLabels.CFT))
-				    {
-					DBConnection.errorNodes.add(node);
-				    }
-				    break;
-				case Is_MCS_Of:
-				    if (!node.hasLabel(NodeLabels.CFT_Inport_Instance) && !node.hasLabel(NodeLabels.CFT_Outport))
-				    {
-					DBConnection.errorNodes.add(node);
-				    }
-				    break;
-				case Is_Full_MCS_Of:
-				    if (!node.hasLabel(NodeLabels.CFT_Outport))
-				    {
-					DBConnection.errorNodes.add(node);
-				    }
-				    break;
-				case Port_Propagation:
-				    if (!node.hasLabel(NodeLabels.CFT_Inport) && !node.hasLabel(NodeLabels.CFT_Outport))
-				    {
-					DBConnection.errorNodes.add(node);
-				    }
-				    break;
-				case Is_Quant_Result_Of:
-				    if (!node.hasLabel(NodeLabels.CFT_Outport))
-				    {
-					DBConnection.errorNodes.add(node);
-				    }
-				    break;
-				default:
-				    DBConnection.errorNodes.add(node);
-				    break;
-
+				outfailprop++;
 			    }
-			}
-			if (DBConnection.errorNodes.contains(node))
-			{
 			    break;
-			}
+			case Is_Child_Of:
+			    child++;
+			    if (child > 1)
+			    {
+				error = true;
+			    }
+			    break;
+			case Is_CFT_Of:
+			    if (!node.hasLabel(NodeLabels.CFT))
+			    {
+				error = true;
+			    }
+			    break;
+			case Is_Inside_MCS:
+			    if (!node.hasLabel(NodeLabels.CFT_Basic_Event) && !node.hasLabel(NodeLabels.CFT_Inport) && !node.hasLabel(NodeLabels.CFT_Outport_Instance))
+			    {
+				error = true;
+			    }
+			    break;
+			case Is_Instance_Of:
+			    if (!node.hasLabel(NodeLabels.CFT_Outport_Instance) && !node.hasLabel(NodeLabels.CFT_Inport_Instance) && !node.hasLabel(NodeLabels.CFT_Instance))
+			    {
+				error = true;
+			    }
+			    else
+			    {
+				instance++;
+				if (instance > 1)
+				{
+				    error = true;
+				}
+			    }
+			    break;
+			case Port_Propagation:
+			    if (!node.hasLabel(NodeLabels.CFT_Inport) && !node.hasLabel(NodeLabels.CFT_Outport))
+			    {
+				error = true;
+			    }
+			    break;
+			default: // All other Types!
+			    error = true;
+			    break;
 		    }
-		    if (!DBConnection.errorNodes.contains(node))
+		}
+		else
+		{
+		    switch (type)
 		    {
-			if (child == 0 && !node.hasLabel(NodeLabels.CFT))
-			{
-			    DBConnection.errorNodes.add(node);
-			}
-			if (instance == 0 && (node.hasLabel(NodeLabels.CFT_Instance) || node.hasLabel(NodeLabels.CFT_Inport_Instance) || node.hasLabel(NodeLabels.CFT_Outport_Instance)))
-			{
-			    DBConnection.errorNodes.add(node);
-			}
-			if (node.hasLabel(NodeLabels.CFT_AND_Gate) || node.hasLabel(NodeLabels.CFT_OR_Gate) || node.hasLabel(NodeLabels.CFT_MOON_Gate) || node.hasLabel(NodeLabels.CFT_XOR_Gate)
-				|| node.hasLabel(NodeLabels.CFT_NOT_Gate))
-			{
-			    if (outfailprop > 0 && infailprop == 0)
+			case Failure_Propagation:
+			    infailprop++;
+			    if (node.hasLabel(NodeLabels.CFT_Basic_Event) || node.hasLabel(NodeLabels.CFT_Inport) || node.hasLabel(NodeLabels.CFT_Outport_Instance)
+				    || node.hasLabel(NodeLabels.CFT) || node.hasLabel(NodeLabels.CFT_Instance))
 			    {
-				DBConnection.errorNodes.add(node);
+				error = true;
 			    }
-			}
+			    else
+			    {
+				if (infailprop > 1 && (node.hasLabel(NodeLabels.CFT_NOT_Gate) || node.hasLabel(NodeLabels.CFT_Inport_Instance) || node.hasLabel(NodeLabels.CFT_Outport)))
+				{
+				    error = true;
+				}
+			    }
+			    break;
+			case Is_Child_Of:
+			    if (!node.hasLabel(NodeLabels.CFT) && !node.hasLabel(NodeLabels.CFT_Instance))
+			    {
+				error = true;
+			    }
+			    break;
+			case Is_Instance_Of:
+			    if (!node.hasLabel(NodeLabels.CFT_Inport) && !node.hasLabel(NodeLabels.CFT_Outport) && !node.hasLabel(NodeLabels.CFT))
+			    {
+				error = true;
+			    }
+			    break;
+			case Is_MCS_Of:
+			    if (!node.hasLabel(NodeLabels.CFT_Inport_Instance) && !node.hasLabel(NodeLabels.CFT_Outport))
+			    {
+				error = true;
+			    }
+			    break;
+			case Is_Full_MCS_Of:
+			    if (!node.hasLabel(NodeLabels.CFT_Outport))
+			    {
+				error = true;
+			    }
+			    break;
+			case Port_Propagation:
+			    if (!node.hasLabel(NodeLabels.CFT_Inport) && !node.hasLabel(NodeLabels.CFT_Outport))
+			    {
+				error = true;
+			    }
+			    break;
+			case Is_Quant_Result_Of:
+			    if (!node.hasLabel(NodeLabels.CFT_Outport))
+			    {
+				error = true;
+			    }
+			    break;
+			default:
+			    error = true;
+			    break;
+
+		    }
+		}
+		if (error)
+		{
+		    break;
+		}
+	    }
+	    if (!error)
+	    {
+		if (child == 0 && !node.hasLabel(NodeLabels.CFT))
+		{
+		    error = true;
+		}
+		if (instance == 0 && (node.hasLabel(NodeLabels.CFT_Instance) || node.hasLabel(NodeLabels.CFT_Inport_Instance) || node.hasLabel(NodeLabels.CFT_Outport_Instance)))
+		{
+		    error = true;
+		}
+		if (node.hasLabel(NodeLabels.CFT_AND_Gate) || node.hasLabel(NodeLabels.CFT_OR_Gate) || node.hasLabel(NodeLabels.CFT_MOON_Gate) || node.hasLabel(NodeLabels.CFT_XOR_Gate)
+			|| node.hasLabel(NodeLabels.CFT_NOT_Gate))
+		{
+		    if (outfailprop > 0 && infailprop == 0)
+		    {
+			error = true;
 		    }
 		}
 	    }
-	    tx.success();
 	}
-	DBConnection.uncheckedNodes.clear();
-	DBConnection.dbChecked = DBConnection.errorNodes.isEmpty();
-	return DBConnection.errorNodes;
+	return error;
     }
 }
@@ -5,13 +5,21 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.schema.ConstraintDefinition;
+import org.neo4j.graphdb.schema.ConstraintType;
+import org.neo4j.graphdb.schema.IndexDefinition;
 import org.neo4j.unsafe.batchinsert.BatchInserter;
 import org.neo4j.unsafe.batchinsert.BatchInserters;
 
+import neo4jEnum.NodeLabels;
+import neo4jMCS.MCSEventIndex;
 import neo4jUtility.PrintUtility;
 import neo4jUtility.SettingsUtility;
 
@@ -59,6 +67,11 @@ public final class DBConnection
      */
     static Map<String, Object> batchproperties = new HashMap<String, Object>();
 
+    /**
+     * The number of seconds to wait for new indexes to come online.
+     */
+    private static final long indexTimeout = 60;
+
     /**
      * The nodes that need to be checked.
      */
@@ -69,6 +82,12 @@ public final class DBConnection
      */
     static boolean dbChecked = false;
 
+    /**
+     * True if all nodes in the database were checked for errors.
+     * Then only the CFTs of the unchecked nodes need to be checked again.
+     */
+    static boolean errorNodesChecked = false;
+
     /**
      * True if the CFTs in the database were checked for cycles.
      */
@@ -93,9 +112,12 @@ public final class DBConnection
     {
 	uncheckedNodes = new HashSet<Node>();
 	dbChecked = false;
+	errorNodesChecked = false;
 	cftCycleChecked = false;
 	mcsChecked = false;
 	errorNodes = new HashSet<Node>();
+	DBChangeTracker.structureChanged();
+	MCSEventIndex.resetSharedIndex();
 	if (graphDB != null)
 	{
 	    shutdownDB();
@@ -109,6 +131,7 @@ public final class DBConnection
 	{
 	    batchproperties = new HashMap<String, Object>();
 	    currentDBPath = dbpath;
+	    DBElementIDCache.clear();
 	}
 	final File dbpathfile = new File(currentDBPath);
 	graphDB = new GraphDatabaseFactory().newEmbeddedDatabase(dbpathfile);
@@ -153,7 +176,9 @@ public final class DBConnection
 		try
 		{
 		    DBConnection.dbinstance = new DBConnection(dbpath);
+		    createElementIDIndexes();
 		    SettingsUtility.resetTraversal();
+		    DBMCSCache.clear();
 		}
 		catch (IOException e)
 		{
@@ -168,6 +193,69 @@ public final class DBConnection
 	}
     }
 
+    /**
+     * Creates the schema indexes on the ElementID of EA elements and generated elements if they do not exist so nodes can be found by their ElementID with an index lookup.
+     * A normal index is used instead of a uniqueness constraint since the BatchInserter does not check constraints and the generated CFTs may reuse ElementIDs.
+     * A uniqueness constraint on the ElementID of a database that was opened by an older version is replaced by a normal index.
+     * Waits until the indexes are online if they were created.
+     */
+    private static void createElementIDIndexes()
+    {
+	boolean created = false;
+	for (Label label : new Label[] { NodeLabels.Neo4J_EA_Element, NodeLabels.Neo4J_Generated_Element })
+	{
+	    boolean indexed = false;
+	    try (Transaction tx = graphDB.beginTx())
+	    {
+		for (ConstraintDefinition constraint : graphDB.schema().getConstraints(label))
+		{
+		    if (constraint.isConstraintType(ConstraintType.UNIQUENESS) && constraint.getPropertyKeys().iterator().next().equals("ElementID"))
+		    {
+			PrintUtility.printInfo("Replacing the ElementID constraint of " + label.name() + " with an index...");
+			constraint.drop();
+		    }
+		}
+		tx.success();
+	    }
+	    try (Transaction tx = graphDB.beginTx())
+	    {
+		for (IndexDefinition index : graphDB.schema().getIndexes(label))
+		{
+		    for (String propertyKey : index.getPropertyKeys())
+		    {
+			if (propertyKey.equals("ElementID"))
+			{
+			    indexed = true;
+			}
+		    }
+		}
+		tx.success();
+	    }
+	    if (!indexed)
+	    {
+		PrintUtility.printInfo("Creating the ElementID index for " + label.name() + "...");
+		try (Transaction tx = graphDB.beginTx())
+		{
+		    graphDB.schema().indexFor(label).on("ElementID").create();
+		    tx.success();
+		}
+		created = true;
+	    }
+	}
+	if (created)
+	{
+	    try (Transaction tx = graphDB.beginTx())
+	    {
+		graphDB.schema().awaitIndexesOnline(indexTimeout, TimeUnit.SECONDS);
+		tx.success();
+	    }
+	    catch (IllegalStateException e)
+	    {
+		PrintUtility.printInfo("The ElementID indexes are still populated in the background.");
+	    }
+	}
+    }
+
     /**
      * Returns the current file path of the database.
      * @return The current file path of the database.
@@ -0,0 +1,412 @@
+package neo4jDatabase;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import neo4jEnum.NodeLabels;
+import neo4jEnum.RelTypes;
+
+/**
+ * This class checks all CFTs for cycles and errors in a single pass and caches a verdict for every CFT.
+ * The strongly connected components of the graph of CFTs and the CFTs they instantiate are found with the algorithm of Tarjan.
+ * A component with more than one CFT or a CFT that instantiates itself is a deep cycle.
+ * The components are found in the order in which the instantiated CFTs come before the CFTs that instantiate them.
+ * So every CFT is checked after its instantiated CFTs and the verdicts of the instantiated CFTs are used.
+ * A CFT is valid if it is not part of a deep cycle, all CFTs it instantiates are valid and the Failure Propagations that are reached from its
+ * outports contain no error nodes and no cycles.
+ * An outport instance continues with the inport instances whose inports are reached from the outport in the instantiated CFT.
+ * So a cycle through an instantiated CFT is found without traversing the instantiated CFT again.
+ * A valid CFT has no cycles or errors that the cycle traversal of its outports would find.
+ * The verdicts are kept between the checks. After a modification only the modified CFTs and the CFTs that instantiate them directly or indirectly
+ * are checked again because the verdict of a CFT only depends on itself and the CFTs it instantiates.
+ * @see DBChecker
+ * @author Kevin Bartik
+ *
+ */
+final class DBCycleChecker
+{
+    /**
+     * The verdicts of the last check or null if no CFTs were checked.
+     */
+    private static DBCycleChecker checker;
+
+    /**
+     * The CFTs that are valid.
+     */
+    private final HashSet<Node> validCFTs = new HashSet<Node>();
+
+    /**
+     * The CFTs that are part of a deep cycle.
+     */
+    private final HashSet<Node> cyclicCFTs = new HashSet<Node>();
+
+    /**
+     * Maps the outports of the valid CFTs to the inports of their CFT that are reached from them.
+     */
+    private final HashMap<Node, HashSet<Node>> outportInports = new HashMap<Node, HashSet<Node>>();
+
+    /**
+     * Maps the valid CFTs to their outports.
+     */
+    private final HashMap<Node, ArrayList<Node>> cftOutports = new HashMap<Node, ArrayList<Node>>();
+
+    /**
+     * The CFT that is currently checked.
+     */
+    private Node currentCFT;
+
+    /**
+     * Maps the nodes of the current CFT that were checked to the inports that are reached from them.
+     */
+    private final HashMap<Node, HashSet<Node>> reachedInports = new HashMap<Node, HashSet<Node>>();
+
+    /**
+     * The nodes of the current path through the current CFT.
+     */
+    private final HashSet<Node> currentPath = new HashSet<Node>();
+
+    /**
+     * True if the current CFT is valid.
+     */
+    private boolean currentCFTValid;
+
+    /**
+     * Private constructor so this class can only be instantiated by checkCFTs.
+     */
+    private DBCycleChecker()
+    {
+
+    }
+
+    /**
+     * Checks all CFTs in the database and replaces the cached verdicts.
+     * The error nodes of the database must be checked before.
+     */
+    static void checkCFTs()
+    {
+	DBCycleChecker newChecker = new DBCycleChecker();
+	try (Transaction tx = DBConnection.getGraphDB().beginTx())
+	{
+	    newChecker.check(DBUtility.getAllNodesWithLabel(NodeLabels.CFT));
+	    tx.success();
+	}
+	checker = newChecker;
+    }
+
+    /**
+     * Checks the modified CFTs and all CFTs that instantiate them again and keeps the verdicts of all other CFTs.
+     * All CFTs are checked if no CFTs were checked before.
+     * The error nodes of the modified CFTs must be checked before.
+     * @param modifiedCFTs The CFTs that contain modified nodes.
+     * @param deletedNodes The nodes that were deleted.
+     * @return The number of CFTs that were checked again.
+     */
+    static int checkCFTs(Set<Node> modifiedCFTs, Set<Node> deletedNodes)
+    {
+	if (checker == null)
+	{
+	    checkCFTs();
+	    return checker.validCFTs.size() + checker.cyclicCFTs.size();
+	}
+	HashSet<Node> staleCFTs = new HashSet<Node>();
+	try (Transaction tx = DBConnection.getGraphDB().beginTx())
+	{
+	    ArrayDeque<Node> queue = new ArrayDeque<Node>(modifiedCFTs);
+	    while (!queue.isEmpty())
+	    {
+		Node cft = queue.poll();
+		if (staleCFTs.add(cft))
+		{
+		    queue.addAll(getInstantiatingCFTs(cft));
+		}
+	    }
+	    for (Node node : deletedNodes)
+	    {
+		checker.forget(node);
+	    }
+	    for (Node cft : staleCFTs)
+	    {
+		checker.forget(cft);
+	    }
+	    checker.check(staleCFTs);
+	    tx.success();
+	}
+	return staleCFTs.size();
+    }
+
+    /**
+     * Returns true if a deep cycle was found by the last check. Otherwise false.
+     * @return true if a deep cycle was found by the last check. Otherwise false.
+     */
+    static boolean hasCFTCycles()
+    {
+	return checker != null && !checker.cyclicCFTs.isEmpty();
+    }
+
+    /**
+     * Returns true if the CFT was valid in the last check. Otherwise false.
+     * @param cft The CFT.
+     * @return true if the CFT was valid in the last check. Otherwise false.
+     */
+    static boolean isValidCFT(Node cft)
+    {
+	return checker != null && checker.validCFTs.contains(cft);
+    }
+
+    /**
+     * Removes the verdict of a CFT.
+     * @param cft The CFT.
+     */
+    private void forget(Node cft)
+    {
+	validCFTs.remove(cft);
+	cyclicCFTs.remove(cft);
+	ArrayList<Node> outports = cftOutports.remove(cft);
+	if (outports != null)
+	{
+	    for (Node outport : outports)
+	    {
+		outportInports.remove(outport);
+	    }
+	}
+    }
+
+    /**
+     * Checks the CFTs with the algorithm of Tarjan.
+     * Only the instantiated CFTs that are also checked are visited. The verdicts of all other instantiated CFTs must be known.
+     * Must be called within a transaction.
+     * @param cfts The CFTs that are checked.
+     */
+    private void check(Set<Node> cfts)
+    {
+	HashMap<Node, Integer> indices = new HashMap<Node, Integer>();
+	HashMap<Node, Integer> lowLinks = new HashMap<Node, Integer>();
+	ArrayDeque<Node> componentStack = new ArrayDeque<Node>();
+	HashSet<Node> onComponentStack = new HashSet<Node>();
+	ArrayDeque<Node> callStack = new ArrayDeque<Node>();
+	ArrayDeque<Iterator<Node>> successorStack = new ArrayDeque<Iterator<Node>>();
+	for (Node root : cfts)
+	{
+	    if (indices.containsKey(root))
+	    {
+		continue;
+	    }
+	    indices.put(root, indices.size());
+	    lowLinks.put(root, indices.get(root));
+	    componentStack.push(root);
+	    onComponentStack.add(root);
+	    callStack.push(root);
+	    successorStack.push(getInstantiatedCFTs(root).iterator());
+	    while (!callStack.isEmpty())
+	    {
+		Node cft = callStack.peek();
+		Iterator<Node> successors = successorStack.peek();
+		if (successors.hasNext())
+		{
+		    Node next = successors.next();
+		    if (!cfts.contains(next))
+		    {
+			continue;
+		    }
+		    if (!indices.containsKey(next))
+		    {
+			indices.put(next, indices.size());
+			lowLinks.put(next, indices.get(next));
+			componentStack.push(next);
+			onComponentStack.add(next);
+			callStack.push(next);
+			successorStack.push(getInstantiatedCFTs(next).iterator());
+		    }
+		    else if (onComponentStack.contains(next))
+		    {
+			lowLinks.put(cft, Math.min(lowLinks.get(cft), indices.get(next)));
+		    }
+		}
+		else
+		{
+		    callStack.pop();
+		    successorStack.pop();
+		    if (!callStack.isEmpty())
+		    {
+			Node parent = callStack.peek();
+			lowLinks.put(parent, Math.min(lowLinks.get(parent), lowLinks.get(cft)));
+		    }
+		    if (lowLinks.get(cft).equals(indices.get(cft)))
+		    {
+			ArrayList<Node> component = new ArrayList<Node>();
+			Node member;
+			do
+			{
+			    member = componentStack.pop();
+			    onComponentStack.remove(member);
+			    component.add(member);
+			}
+			while (!member.equals(cft));
+			if (component.size() > 1 || getInstantiatedCFTs(cft).contains(cft))
+			{
+			    cyclicCFTs.addAll(component);
+			}
+			else if (isValid(cft))
+			{
+			    validCFTs.add(cft);
+			}
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * Returns the CFTs that are instantiated by the CFT.
+     * @param cft The CFT.
+     * @return The instantiated CFTs.
+     */
+    static ArrayList<Node> getInstantiatedCFTs(Node cft)
+    {
+	ArrayList<Node> instantiatedCFTs = new ArrayList<Node>();
+	for (Relationship childRel : cft.getRelationships(RelTypes.Is_Child_Of, Direction.INCOMING))
+	{
+	    Node cftInstance = childRel.getStartNode();
+	    if (cftInstance.hasLabel(NodeLabels.CFT_Instance))
+	    {
+		Relationship instanceRel = cftInstance.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING);
+		if (instanceRel != null)
+		{
+		    instantiatedCFTs.add(instanceRel.getEndNode());
+		}
+	    }
+	}
+	return instantiatedCFTs;
+    }
+
+    /**
+     * Returns the CFTs that instantiate the CFT.
+     * @param cft The CFT.
+     * @return The instantiating CFTs.
+     */
+    static ArrayList<Node> getInstantiatingCFTs(Node cft)
+    {
+	ArrayList<Node> instantiatingCFTs = new ArrayList<Node>();
+	for (Relationship instanceRel : cft.getRelationships(RelTypes.Is_Instance_Of, Direction.INCOMING))
+	{
+	    Node cftInstance = instanceRel.getStartNode();
+	    if (cftInstance.hasLabel(NodeLabels.CFT_Instance))
+	    {
+		for (Relationship parentRel : cftInstance.getRelationships(RelTypes.Is_Child_Of, Direction.OUTGOING))
+		{
+		    instantiatingCFTs.add(parentRel.getEndNode());
+		}
+	    }
+	}
+	return instantiatingCFTs;
+    }
+
+    /**
+     * Checks if the CFT is valid.
+     * The CFTs that are instantiated by the CFT must be checked before.
+     * @param cft The CFT.
+     * @return true if the CFT is valid. Otherwise false.
+     */
+    private boolean isValid(Node cft)
+    {
+	for (Node instantiatedCFT : getInstantiatedCFTs(cft))
+	{
+	    if (!validCFTs.contains(instantiatedCFT))
+	    {
+		return false;
+	    }
+	}
+	currentCFT = cft;
+	currentCFTValid = true;
+	reachedInports.clear();
+	currentPath.clear();
+	HashMap<Node, HashSet<Node>> cftOutportInports = new HashMap<Node, HashSet<Node>>();
+	for (Relationship childRel : cft.getRelationships(RelTypes.Is_Child_Of, Direction.INCOMING))
+	{
+	    Node outport = childRel.getStartNode();
+	    if (outport.hasLabel(NodeLabels.CFT_Outport))
+	    {
+		cftOutportInports.put(outport, getReachedInports(outport));
+		if (!currentCFTValid)
+		{
+		    return false;
+		}
+	    }
+	}
+	outportInports.putAll(cftOutportInports);
+	cftOutports.put(cft, new ArrayList<Node>(cftOutportInports.keySet()));
+	return true;
+    }
+
+    /**
+     * Returns the inports of the current CFT that are reached from the node.
+     * The current CFT is invalid if an error node, a cycle or an inport of another CFT is reached.
+     * @param node The node.
+     * @return The reached inports.
+     */
+    private HashSet<Node> getReachedInports(Node node)
+    {
+	HashSet<Node> inports = reachedInports.get(node);
+	if (inports != null)
+	{
+	    return inports;
+	}
+	inports = new HashSet<Node>();
+	if (DBConnection.errorNodes.contains(node) || !currentPath.add(node))
+	{
+	    currentCFTValid = false;
+	    return inports;
+	}
+	if (node.hasLabel(NodeLabels.CFT_Inport))
+	{
+	    Relationship parentRel = node.getSingleRelationship(RelTypes.Is_Child_Of, Direction.OUTGOING);
+	    if (parentRel != null && parentRel.getEndNode().equals(currentCFT))
+	    {
+		inports.add(node);
+	    }
+	    else
+	    {
+		currentCFTValid = false;
+	    }
+	}
+	else if (node.hasLabel(NodeLabels.CFT_Outport_Instance))
+	{
+	    Node outport = node.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode();
+	    HashSet<Node> lowerInports = outportInports.get(outport);
+	    if (lowerInports == null)
+	    {
+		currentCFTValid = false;
+	    }
+	    else if (!lowerInports.isEmpty())
+	    {
+		for (Node inportInstance : DBUtility.getInportInstances(node))
+		{
+		    if (lowerInports.contains(inportInstance.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode()))
+		    {
+			inports.addAll(getReachedInports(inportInstance));
+		    }
+		}
+	    }
+	}
+	else
+	{
+	    for (Relationship rel : node.getRelationships(RelTypes.Failure_Propagation, Direction.INCOMING))
+	    {
+		inports.addAll(getReachedInports(rel.getStartNode()));
+	    }
+	}
+	currentPath.remove(node);
+	reachedInports.put(node, inports);
+	return inports;
+    }
+
+}
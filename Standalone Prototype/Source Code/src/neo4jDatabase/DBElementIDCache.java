@@ -0,0 +1,200 @@
+package neo4jDatabase;
+
+import java.util.Arrays;
+
+/**
+ * This class caches the node ids of ElementIDs so a node can be found by its ElementID without a lookup in the schema index.
+ * The ElementIDs and node ids are stored in two primitive long arrays with open addressing and linear probing so no objects are created for the entries.
+ * The cache is filled by the updates and the batch inserter and by every ElementID that is found with the schema index.
+ * A cached node id may be stale after a transaction was rolled back so the node of a cached node id must be checked before it is used.
+ * The cache is cleared when the database is cleared or another database is started.
+ * @author Kevin Bartik
+ *
+ */
+final class DBElementIDCache
+{
+
+    /**
+     * Marks an empty slot in the ElementIDs.
+     */
+    private static final long emptyKey = Long.MIN_VALUE;
+
+    /**
+     * The initial number of slots. Must be a power of two.
+     */
+    private static final int initialCapacity = 1024;
+
+    /**
+     * The ElementIDs of the slots.
+     */
+    private static long[] elementIDs = newElementIDs(initialCapacity);
+
+    /**
+     * The node ids of the slots.
+     */
+    private static long[] nodeIDs = new long[initialCapacity];
+
+    /**
+     * The number of cached ElementIDs.
+     */
+    private static int size = 0;
+
+    /**
+     * Private constructor so this class cannot be instantiated.
+     */
+    private DBElementIDCache()
+    {
+
+    }
+
+    /**
+     * Returns the cached node id of the ElementID.
+     * @param elementID The ElementID.
+     * @return The node id or -1 if the ElementID is not cached.
+     */
+    static synchronized long get(long elementID)
+    {
+	if (elementID != emptyKey)
+	{
+	    int mask = elementIDs.length - 1;
+	    for (int slot = slot(elementID, mask); elementIDs[slot] != emptyKey; slot = (slot + 1) & mask)
+	    {
+		if (elementIDs[slot] == elementID)
+		{
+		    return nodeIDs[slot];
+		}
+	    }
+	}
+	return -1;
+    }
+
+    /**
+     * Caches the node id of the ElementID.
+     * @param elementID The ElementID.
+     * @param nodeID The node id.
+     */
+    static synchronized void put(long elementID, long nodeID)
+    {
+	if (elementID == emptyKey)
+	{
+	    return;
+	}
+	if ((size + 1) * 4L > elementIDs.length * 3L)
+	{
+	    resize(elementIDs.length * 2);
+	}
+	int mask = elementIDs.length - 1;
+	int slot = slot(elementID, mask);
+	while (elementIDs[slot] != emptyKey)
+	{
+	    if (elementIDs[slot] == elementID)
+	    {
+		nodeIDs[slot] = nodeID;
+		return;
+	    }
+	    slot = (slot + 1) & mask;
+	}
+	elementIDs[slot] = elementID;
+	nodeIDs[slot] = nodeID;
+	size++;
+    }
+
+    /**
+     * Removes the ElementID from the cache.
+     * The following entries of the probe sequence are moved back so no slot needs to be marked as deleted.
+     * @param elementID The ElementID.
+     */
+    static synchronized void remove(long elementID)
+    {
+	if (elementID == emptyKey)
+	{
+	    return;
+	}
+	int mask = elementIDs.length - 1;
+	int hole = slot(elementID, mask);
+	while (elementIDs[hole] != elementID)
+	{
+	    if (elementIDs[hole] == emptyKey)
+	    {
+		return;
+	    }
+	    hole = (hole + 1) & mask;
+	}
+	int next = hole;
+	while (true)
+	{
+	    next = (next + 1) & mask;
+	    if (elementIDs[next] == emptyKey)
+	    {
+		break;
+	    }
+	    int home = slot(elementIDs[next], mask);
+	    // the entry is moved if its home slot is not between the hole and its slot
+	    boolean move = next > hole ? (home <= hole || home > next) : (home <= hole && home > next);
+	    if (move)
+	    {
+		elementIDs[hole] = elementIDs[next];
+		nodeIDs[hole] = nodeIDs[next];
+		hole = next;
+	    }
+	}
+	elementIDs[hole] = emptyKey;
+	size--;
+    }
+
+    /**
+     * Removes all ElementIDs from the cache.
+     */
+    static synchronized void clear()
+    {
+	elementIDs = newElementIDs(initialCapacity);
+	nodeIDs = new long[initialCapacity];
+	size = 0;
+    }
+
+    /**
+     * Moves all entries into new arrays with the capacity.
+     * @param capacity The new number of slots. Must be a power of two.
+     */
+    private static void resize(int capacity)
+    {
+	long[] oldElementIDs = elementIDs;
+	long[] oldNodeIDs = nodeIDs;
+	elementIDs = newElementIDs(capacity);
+	nodeIDs = new long[capacity];
+	int mask = capacity - 1;
+	for (int i = 0; i < oldElementIDs.length; i++)
+	{
+	    if (oldElementIDs[i] != emptyKey)
+	    {
+		int slot = slot(oldElementIDs[i], mask);
+		while (elementIDs[slot] != emptyKey)
+		{
+		    slot = (slot + 1) & mask;
+		}
+		elementIDs[slot] = oldElementIDs[i];
+		nodeIDs[slot] = oldNodeIDs[i];
+	    }
+	}
+    }
+
+    /**
+     * Returns the home slot of the ElementID. The ElementIDs are mixed because they are often consecutive.
+     * @param elementID The ElementID.
+     * @param mask The number of slots minus one.
+     * @return The home slot.
+     */
+    private static int slot(long elementID, int mask)
+    {
+	long hash = elementID * 0x9E3779B97F4A7C15L;
+	return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static long[] newElementIDs(int capacity)
+    {
+	long[] newElementIDs = new long[capacity];
+	Arrays.fill(newElementIDs, emptyKey);
+	return newElementIDs;
+    }
+
+}
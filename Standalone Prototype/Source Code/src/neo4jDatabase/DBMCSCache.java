@@ -0,0 +1,367 @@
+package neo4jDatabase;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.neo4j.graphdb.Node;
+
+import neo4jMCS.MCS;
+import neo4jMCS.MCSNode;
+import neo4jMCS.MCSPairSet;
+import neo4jUtility.SettingsUtility;
+
+/**
+ * This class caches the analysis results that DBMCSManager reads from the database.<br>
+ * The results are cached by the id of the node they belong to. The least recently used nodes are removed when the size of the cache is higher than
+ * {@code SettingsUtility.getMaxCachedDBMCS()}. Every node counts with the number of its cached MCS but at least with 1.<br>
+ * The MCS are cached as MCSNode arrays that are never modified. New MCS are created whenever they are read because the MCS of an analysis are
+ * modified and their bit positions belong to the event index of the thread that creates them.<br>
+ * Every change of the stored results must invalidate the node. A result that was read from the database before an invalidation is not cached.<br>
+ *
+ * @see DBMCSManager
+ *
+ * @author Kevin Bartik
+ *
+ */
+final class DBMCSCache
+{
+
+    /**
+     * The cached results of a node.<br>
+     * A null field means that the result is not cached.<br>
+     */
+    private static final class Entry
+    {
+
+	private MCSNode[][] mcsSet;
+
+	private MCSNode[][] negatedMCSSet;
+
+	private MCSNode[][] fullMCSSet;
+
+	private MCSNode[][] fullNegatedMCSSet;
+
+	private Double quantitativeResult;
+
+	/**
+	 * The number of cached MCS but at least 1.<br>
+	 */
+	private long size;
+
+    }
+
+    /**
+     * Maps node ids to their cached results in the order of their last access.<br>
+     */
+    private static final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true);
+
+    /**
+     * The size of all entries.<br>
+     */
+    private static long cacheSize = 0;
+
+    /**
+     * Is increased by every invalidation.<br>
+     * Results are only cached if no invalidation happened since they were read from the database.<br>
+     */
+    private static long generation = 0;
+
+    /**
+     * A lock to prevent multiple threads from changing the cache concurrently.<br>
+     */
+    private static final Object cacheLock = new Object();
+
+    private DBMCSCache()
+    {
+
+    }
+
+    /**
+     * Returns the current generation. Must be called before the results are read from the database.<br>
+     *
+     * @return The current generation.
+     */
+    static long getGeneration()
+    {
+	synchronized (cacheLock)
+	{
+	    return generation;
+	}
+    }
+
+    /**
+     * Returns the cached partial MCS of the node or null if they are not cached.<br>
+     *
+     * @param node
+     *            The node.
+     * @return The partial MCS of the node.
+     */
+    static MCSPairSet getMCSSet(Node node)
+    {
+	MCSNode[][] mcsSet;
+	MCSNode[][] negatedMCSSet;
+	synchronized (cacheLock)
+	{
+	    Entry entry = entries.get(node.getId());
+	    if (entry == null || entry.mcsSet == null)
+	    {
+		return null;
+	    }
+	    mcsSet = entry.mcsSet;
+	    negatedMCSSet = entry.negatedMCSSet;
+	}
+	return new MCSPairSet(createMCSSet(mcsSet), createMCSSet(negatedMCSSet));
+    }
+
+    /**
+     * Returns the cached full MCS of the node or null if they are not cached.<br>
+     *
+     * @param node
+     *            The node.
+     * @return The full MCS of the node.
+     */
+    static MCSPairSet getFullMCSSet(Node node)
+    {
+	MCSNode[][] mcsSet;
+	MCSNode[][] negatedMCSSet;
+	synchronized (cacheLock)
+	{
+	    Entry entry = entries.get(node.getId());
+	    if (entry == null || entry.fullMCSSet == null)
+	    {
+		return null;
+	    }
+	    mcsSet = entry.fullMCSSet;
+	    negatedMCSSet = entry.fullNegatedMCSSet;
+	}
+	return new MCSPairSet(createMCSSet(mcsSet), createMCSSet(negatedMCSSet));
+    }
+
+    /**
+     * Returns the cached quantitative result of the node or null if it is not cached.<br>
+     *
+     * @param node
+     *            The node.
+     * @return The quantitative result of the node.
+     */
+    static Double getQuantitativeResult(Node node)
+    {
+	synchronized (cacheLock)
+	{
+	    Entry entry = entries.get(node.getId());
+	    return entry == null ? null : entry.quantitativeResult;
+	}
+    }
+
+    /**
+     * Caches the partial MCS of the node.<br>
+     *
+     * @param node
+     *            The node.
+     * @param mcsPairSet
+     *            The partial MCS that were read from the database.
+     * @param readGeneration
+     *            The generation before the partial MCS were read.
+     */
+    static void putMCSSet(Node node, MCSPairSet mcsPairSet, long readGeneration)
+    {
+	MCSNode[][] mcsSet = toArray(mcsPairSet.getMCSSet());
+	MCSNode[][] negatedMCSSet = toArray(mcsPairSet.getNegatedMCSSet());
+	synchronized (cacheLock)
+	{
+	    Entry entry = getEntryForUpdate(node, readGeneration);
+	    if (entry != null && entry.mcsSet == null)
+	    {
+		entry.mcsSet = mcsSet;
+		entry.negatedMCSSet = negatedMCSSet;
+		addSize(entry, mcsSet.length + negatedMCSSet.length);
+	    }
+	}
+    }
+
+    /**
+     * Caches the full MCS of the node.<br>
+     *
+     * @param node
+     *            The node.
+     * @param mcsPairSet
+     *            The full MCS that were read from the database.
+     * @param readGeneration
+     *            The generation before the full MCS were read.
+     */
+    static void putFullMCSSet(Node node, MCSPairSet mcsPairSet, long readGeneration)
+    {
+	MCSNode[][] mcsSet = toArray(mcsPairSet.getMCSSet());
+	MCSNode[][] negatedMCSSet = toArray(mcsPairSet.getNegatedMCSSet());
+	synchronized (cacheLock)
+	{
+	    Entry entry = getEntryForUpdate(node, readGeneration);
+	    if (entry != null && entry.fullMCSSet == null)
+	    {
+		entry.fullMCSSet = mcsSet;
+		entry.fullNegatedMCSSet = negatedMCSSet;
+		addSize(entry, mcsSet.length + negatedMCSSet.length);
+	    }
+	}
+    }
+
+    /**
+     * Caches the quantitative result of the node.<br>
+     *
+     * @param node
+     *            The node.
+     * @param result
+     *            The quantitative result that was read from the database.
+     * @param readGeneration
+     *            The generation before the quantitative result was read.
+     */
+    static void putQuantitativeResult(Node node, double result, long readGeneration)
+    {
+	synchronized (cacheLock)
+	{
+	    Entry entry = getEntryForUpdate(node, readGeneration);
+	    if (entry != null)
+	    {
+		entry.quantitativeResult = result;
+		addSize(entry, 0);
+	    }
+	}
+    }
+
+    /**
+     * Removes all cached results of the node.<br>
+     *
+     * @param node
+     *            The node.
+     */
+    static void invalidate(Node node)
+    {
+	synchronized (cacheLock)
+	{
+	    generation++;
+	    Entry entry = entries.remove(node.getId());
+	    if (entry != null)
+	    {
+		cacheSize -= entry.size;
+	    }
+	}
+    }
+
+    /**
+     * Removes the cached quantitative result of the node.<br>
+     *
+     * @param node
+     *            The node.
+     */
+    static void invalidateQuantitativeResult(Node node)
+    {
+	synchronized (cacheLock)
+	{
+	    generation++;
+	    Entry entry = entries.get(node.getId());
+	    if (entry != null)
+	    {
+		entry.quantitativeResult = null;
+	    }
+	}
+    }
+
+    /**
+     * Removes all cached results.<br>
+     */
+    static void clear()
+    {
+	synchronized (cacheLock)
+	{
+	    generation++;
+	    entries.clear();
+	    cacheSize = 0;
+	}
+    }
+
+    /**
+     * Returns the entry of the node and creates it if necessary.<br>
+     * Returns null if an invalidation happened since the generation was read.<br>
+     *
+     * @param node
+     *            The node.
+     * @param readGeneration
+     *            The generation before the results were read.
+     * @return The entry of the node.
+     */
+    private static Entry getEntryForUpdate(Node node, long readGeneration)
+    {
+	if (readGeneration != generation)
+	{
+	    return null;
+	}
+	Entry entry = entries.get(node.getId());
+	if (entry == null)
+	{
+	    entry = new Entry();
+	    entries.put(node.getId(), entry);
+	}
+	return entry;
+    }
+
+    /**
+     * Adds MCS to the size of the entry and removes the least recently used entries until the cache fits the maximum size.<br>
+     * The size of an entry is at least 1 so that entries without MCS are removed as well. The entry itself is removed if it does not fit.<br>
+     *
+     * @param entry
+     *            The entry.
+     * @param size
+     *            The number of added MCS.
+     */
+    private static void addSize(Entry entry, long size)
+    {
+	long addedSize = Math.max(entry.size + size, 1) - entry.size;
+	entry.size += addedSize;
+	cacheSize += addedSize;
+	long maxCachedMCS = SettingsUtility.getMaxCachedDBMCS();
+	Iterator<Entry> iterator = entries.values().iterator();
+	while (cacheSize > maxCachedMCS && iterator.hasNext())
+	{
+	    cacheSize -= iterator.next().size;
+	    iterator.remove();
+	}
+    }
+
+    /**
+     * Converts a MCS HashSet into MCSNode arrays.<br>
+     *
+     * @param mcsSet
+     *            The MCS HashSet.
+     * @return The MCSNode array of every MCS.
+     */
+    private static MCSNode[][] toArray(HashSet<MCS> mcsSet)
+    {
+	MCSNode[][] array = new MCSNode[mcsSet.size()][];
+	int i = 0;
+	for (MCS mcs : mcsSet)
+	{
+	    array[i++] = mcs.getMCSNodeSet().toArray(new MCSNode[0]);
+	}
+	return array;
+    }
+
+    /**
+     * Creates new MCS from MCSNode arrays.<br>
+     *
+     * @param array
+     *            The MCSNode array of every MCS.
+     * @return The MCS HashSet.
+     */
+    private static HashSet<MCS> createMCSSet(MCSNode[][] array)
+    {
+	HashSet<MCS> mcsSet = new HashSet<MCS>();
+	for (MCSNode[] mcsNodes : array)
+	{
+	    mcsSet.add(new MCS(new HashSet<MCSNode>(Arrays.asList(mcsNodes))));
+	}
+	return mcsSet;
+    }
+
+}
@@ -0,0 +1,223 @@
+package neo4jDatabase;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+
+import neo4jMCS.MCS;
+import neo4jMCS.MCSNode;
+import neo4jMCS.MCSPairSet;
+
+/**
+ * This class encodes a MCSPairSet into a compact byte array that is stored as a single property and decodes it again.<br>
+ * The byte array starts with the format version followed by the regular and the negated MCS HashSet.<br>
+ * A MCS HashSet is stored as the number of MCS followed by every MCS.<br>
+ * A MCS is stored as the number of members, the node ids of the members sorted in ascending order and a bitmap that marks the negated members.<br>
+ * The first node id is stored directly and every following node id as the difference to the previous node id.<br>
+ * All numbers are stored as variable length integers with 7 bits per byte so small differences only need one byte.<br>
+ * The MCS are encoded and decoded one after another so no other representation of the whole MCS HashSet is created.<br>
+ *
+ * @see DBMCSManager
+ *
+ * @author Kevin Bartik
+ *
+ */
+final class DBMCSCodec
+{
+
+    /**
+     * The version of the format.<br>
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * Sorts MCSNodes by the id of their node.<br>
+     */
+    private static final Comparator<MCSNode> NODE_ID_ORDER = (mcsNode1, mcsNode2) -> Long.compare(mcsNode1.getNode().getId(), mcsNode2.getNode().getId());
+
+    /**
+     * The encoded bytes.<br>
+     */
+    private byte[] bytes;
+
+    /**
+     * The position of the next byte that is written or read.<br>
+     */
+    private int position = 0;
+
+    private DBMCSCodec(byte[] bytes)
+    {
+	this.bytes = bytes;
+    }
+
+    /**
+     * Encodes the MCSPairSet.<br>
+     *
+     * @param mcsPairSet
+     *            The MCSPairSet.
+     * @return The encoded MCSPairSet.
+     */
+    static byte[] encode(MCSPairSet mcsPairSet)
+    {
+	DBMCSCodec codec = new DBMCSCodec(new byte[256]);
+	codec.writeByte(VERSION);
+	codec.writeMCSSet(mcsPairSet.getMCSSet());
+	codec.writeMCSSet(mcsPairSet.getNegatedMCSSet());
+	return Arrays.copyOf(codec.bytes, codec.position);
+    }
+
+    /**
+     * Decodes a MCSPairSet.<br>
+     * The nodes are read from the database so this method must be called within a transaction.<br>
+     *
+     * @param bytes
+     *            The encoded MCSPairSet.
+     * @param graphDB
+     *            The database that contains the nodes.
+     * @return The decoded MCSPairSet.
+     * @throws IllegalArgumentException
+     *             If the bytes do not have the expected format.
+     */
+    static MCSPairSet decode(byte[] bytes, GraphDatabaseService graphDB)
+    {
+	DBMCSCodec codec = new DBMCSCodec(bytes);
+	if (bytes.length == 0 || codec.readByte() != VERSION)
+	{
+	    throw new IllegalArgumentException("Unknown format of the stored Minimal Cut Sets!");
+	}
+	HashSet<MCS> mcsSet = codec.readMCSSet(graphDB);
+	HashSet<MCS> negatedMCSSet = codec.readMCSSet(graphDB);
+	if (codec.position != bytes.length)
+	{
+	    throw new IllegalArgumentException("The stored Minimal Cut Sets have unexpected trailing bytes!");
+	}
+	return new MCSPairSet(mcsSet, negatedMCSSet);
+    }
+
+    private void writeMCSSet(HashSet<MCS> mcsSet)
+    {
+	writeVarLong(mcsSet.size());
+	for (MCS mcs : mcsSet)
+	{
+	    MCSNode[] mcsNodes = mcs.getMCSNodeSet().toArray(new MCSNode[0]);
+	    Arrays.sort(mcsNodes, NODE_ID_ORDER);
+	    writeVarLong(mcsNodes.length);
+	    long previousId = 0;
+	    for (MCSNode mcsNode : mcsNodes)
+	    {
+		long id = mcsNode.getNode().getId();
+		writeVarLong(id - previousId);
+		previousId = id;
+	    }
+	    for (int i = 0; i < mcsNodes.length; i += 8)
+	    {
+		int negatedBits = 0;
+		for (int j = i; j < mcsNodes.length && j < i + 8; j++)
+		{
+		    if (mcsNodes[j].isNegated())
+		    {
+			negatedBits |= 1 << (j - i);
+		    }
+		}
+		writeByte((byte) negatedBits);
+	    }
+	}
+    }
+
+    private HashSet<MCS> readMCSSet(GraphDatabaseService graphDB)
+    {
+	int mcsCount = readVarInt();
+	HashSet<MCS> mcsSet = new HashSet<MCS>();
+	long[] ids = new long[16];
+	for (int m = 0; m < mcsCount; m++)
+	{
+	    int size = readVarInt();
+	    if (ids.length < size)
+	    {
+		ids = new long[size];
+	    }
+	    long previousId = 0;
+	    for (int i = 0; i < size; i++)
+	    {
+		previousId += readVarLong();
+		ids[i] = previousId;
+	    }
+	    HashSet<MCSNode> mcsNodes = new HashSet<MCSNode>();
+	    for (int i = 0; i < size; i += 8)
+	    {
+		int negatedBits = readByte() & 0xFF;
+		for (int j = i; j < size && j < i + 8; j++)
+		{
+		    mcsNodes.add(new MCSNode(graphDB.getNodeById(ids[j]), (negatedBits & (1 << (j - i))) != 0));
+		}
+	    }
+	    mcsSet.add(new MCS(mcsNodes));
+	}
+	return mcsSet;
+    }
+
+    private void writeVarLong(long value)
+    {
+	while ((value & ~0x7FL) != 0)
+	{
+	    writeByte((byte) ((value & 0x7F) | 0x80));
+	    value >>>= 7;
+	}
+	writeByte((byte) value);
+    }
+
+    private long readVarLong()
+    {
+	long value = 0;
+	int shift = 0;
+	byte b;
+	do
+	{
+	    if (shift > 63)
+	    {
+		throw new IllegalArgumentException("The stored Minimal Cut Sets contain an invalid number!");
+	    }
+	    b = readByte();
+	    value |= (long) (b & 0x7F) << shift;
+	    shift += 7;
+	}
+	while ((b & 0x80) != 0);
+	return value;
+    }
+
+    /**
+     * Reads a number of elements. Every element needs at least one byte so the number cannot be higher than the number of remaining bytes.<br>
+     *
+     * @return The number of elements.
+     */
+    private int readVarInt()
+    {
+	long value = readVarLong();
+	if (value < 0 || value > bytes.length - position)
+	{
+	    throw new IllegalArgumentException("The stored Minimal Cut Sets contain an invalid number!");
+	}
+	return (int) value;
+    }
+
+    private void writeByte(byte b)
+    {
+	if (position == bytes.length)
+	{
+	    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+	}
+	bytes[position++] = b;
+    }
+
+    private byte readByte()
+    {
+	if (position == bytes.length)
+	{
+	    throw new IllegalArgumentException("The stored Minimal Cut Sets end unexpectedly!");
+	}
+	return bytes[position++];
+    }
+
+}
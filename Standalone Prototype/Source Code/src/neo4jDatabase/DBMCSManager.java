@@ -1,10 +1,20 @@
 package neo4jDatabase;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Map.Entry;
 
 import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 
@@ -15,14 +25,28 @@ import neo4jMCS.MCS;
 import neo4jMCS.MCSNode;
 import neo4jMCS.MCSPairSet;
 import neo4jUtility.PrintUtility;
+import neo4jUtility.SettingsUtility;
 
 /**
  * This class manages analysis results that are stored in the database.
+ * Results that were read are kept in the DBMCSCache until they are changed or deleted.
+ * MCS are either stored as one node per MCS or, if the compact MCS storage is used, encoded in a single property of the node they belong to.
+ * Both formats can always be read.
  * @author Kevin Bartik
  *
  */
 public final class DBMCSManager
 {
+
+    /**
+     * The property that contains the encoded partial MCS of a node if the compact MCS storage is used.
+     */
+    static final String MCS_PROPERTY = "MCS_Data";
+
+    /**
+     * The property that contains the encoded full MCS of a node if the compact MCS storage is used.
+     */
+    static final String FULL_MCS_PROPERTY = "Full_MCS_Data";
     
     /**
      * Private constructor so this class cannot be instantiated.
@@ -32,136 +56,227 @@ public final class DBMCSManager
     }
     
     /**
-     * Deletes MCS and Quantitative Results from a node and all nodes that can be reached with failure propagations.
+     * Deletes MCS and Quantitative Results from a node and all nodes that can be reached with failure propagations or are in higher level CFT.
+     * The affected nodes are collected first so every node is visited only once, even if it can be reached on multiple paths.
+     * Then the results of all affected nodes are deleted in chunked transactions.
      * @param node The node where the MCS and Quantitative Results are deleted.
      * @param onlyFullMCS Indicates if only full MCS shall be deleted.
      */
     static void deleteMCSAndResults(Node node, boolean onlyFullMCS)
+    {
+	LinkedHashMap<Node, Boolean> roots = new LinkedHashMap<Node, Boolean>();
+	roots.put(node, onlyFullMCS);
+	deleteMCSAndResults(roots);
+    }
+
+    /**
+     * Deletes MCS and Quantitative Results from the nodes and all nodes that can be reached from them with failure propagations or are in higher level CFT.
+     * The affected nodes of all nodes are collected together so every node is visited only once.
+     * @param roots Maps the nodes where the MCS and Quantitative Results are deleted to true if only their full MCS shall be deleted.
+     */
+    private static void deleteMCSAndResults(LinkedHashMap<Node, Boolean> roots)
     {
 	if (DBUtility.hasMCS())
 	{
-	    PrintUtility.printInfo("Deleting Minimal Cut Sets and Quantitative Analysis Results from the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database...");
-	    HashMap<Node, Boolean> nextHigherNodes = new HashMap<Node, Boolean>();
-	    try (Transaction tx = DBConnection.getGraphDB().beginTx())
+	    PrintUtility.printInfo("Deleting Minimal Cut Sets and Quantitative Analysis Results from " + describe(roots.keySet()) + " in the Neo4j database...");
+	    LinkedHashMap<Node, Boolean> affectedNodes = getAffectedNodes(roots);
+	    ArrayList<Long> partialMCSNodeIDs = new ArrayList<Long>();
+	    ArrayList<Long> fullMCSNodeIDs = new ArrayList<Long>();
+	    try (DBBatchTransaction batch = new DBBatchTransaction("Deleting Quantitative Analysis Results of the affected Nodes", affectedNodes.size()))
 	    {
-		for (Relationship failRel : node.getRelationships(RelTypes.Failure_Propagation, Direction.OUTGOING))
-		{
-		    nextHigherNodes.put(failRel.getEndNode(), onlyFullMCS);
-		}
-		if (node.hasLabel(NodeLabels.CFT_Outport))
+		for (Entry<Node, Boolean> affectedNode : affectedNodes.entrySet())
 		{
-		    for (Relationship instRel : node.getRelationships(RelTypes.Is_Instance_Of, Direction.INCOMING))
+		    Node nextNode = affectedNode.getKey();
+		    if (nextNode.hasLabel(NodeLabels.CFT_Inport_Instance) || nextNode.hasLabel(NodeLabels.CFT_Outport))
 		    {
-			nextHigherNodes.put(instRel.getStartNode(), true);
-		    }
-		}
-		if (node.hasLabel(NodeLabels.CFT_Inport_Instance))
-		{
-		    Node cftInstance = node.getSingleRelationship(RelTypes.Is_Child_Of, Direction.OUTGOING).getEndNode();
-		    for (Relationship outInstRel : cftInstance.getRelationships(RelTypes.Is_Child_Of, Direction.INCOMING))
-		    {
-			Node outInst = outInstRel.getStartNode();
-			if (outInst.hasLabel(NodeLabels.CFT_Outport_Instance))
+			if (!affectedNode.getValue())
 			{
-			    nextHigherNodes.put(outInst, true);
+			    nextNode.removeProperty(MCS_PROPERTY);
+			    partialMCSNodeIDs.add(nextNode.getId());
 			}
+			nextNode.removeProperty(FULL_MCS_PROPERTY);
+			fullMCSNodeIDs.add(nextNode.getId());
+			deleteQuantitativeResult(nextNode);
 		    }
+		    batch.recordWritten();
 		}
-		if (node.hasLabel(NodeLabels.CFT_Inport_Instance) || node.hasLabel(NodeLabels.CFT_Outport))
-		{
-		    if (!onlyFullMCS)
-		    {
-			for (Relationship rel : node.getRelationships(Direction.INCOMING, RelTypes.Is_MCS_Of, RelTypes.Is_Negated_MCS_Of))
-			{
-			    Node mcs = rel.getStartNode();
-			    for (Relationship rel2 : mcs.getRelationships(RelTypes.Is_Inside_MCS, Direction.INCOMING))
-			    {
-				rel2.delete();
-			    }
-			    rel.delete();
-			    mcs.delete();
-			}
-		    }
-		    for (Relationship rel : node.getRelationships(Direction.INCOMING, RelTypes.Is_Full_MCS_Of, RelTypes.Is_Full_Negated_MCS_Of))
-		    {
-			Node mcs = rel.getStartNode();
-			for (Relationship rel2 : mcs.getRelationships(RelTypes.Is_Inside_MCS, Direction.INCOMING))
-			{
-			    rel2.delete();
-			}
-			rel.delete();
-			mcs.delete();
-		    }
-		    Relationship resultRel = node.getSingleRelationship(RelTypes.Is_Quant_Result_Of, Direction.INCOMING);
-		    if (resultRel != null)
-		    {
-			Node result = resultRel.getStartNode();
-			resultRel.delete();
-			result.delete();
-		    }
-		}
-		tx.success();
+		batch.success();
 	    }
-	    for (Node nextNode : nextHigherNodes.keySet())
+	    deleteMCSNodes(partialMCSNodeIDs, RelTypes.Is_MCS_Of, RelTypes.Is_Negated_MCS_Of);
+	    deleteMCSNodes(fullMCSNodeIDs, RelTypes.Is_Full_MCS_Of, RelTypes.Is_Full_Negated_MCS_Of);
+	    for (Node affectedNode : affectedNodes.keySet())
 	    {
-		deleteMCSAndResults(nextNode, nextHigherNodes.get(nextNode)); // Maybe Multithreading
+		DBMCSCache.invalidate(affectedNode);
 	    }
-	    PrintUtility.printInfo("Successfully deleted Minimal Cut Sets and Quantitative Analysis Results from the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database!");
+	    PrintUtility.printInfo("Successfully deleted Minimal Cut Sets and Quantitative Analysis Results from " + affectedNodes.size() + " Nodes in the Neo4j database!");
 	}
+	else
+	{
+	    for (Node node : roots.keySet())
+	    {
+		DBMCSCache.invalidate(node);
+	    }
+	}
+	DBChangeTracker.structureChanged();
     }
     
     /**
      * Deletes only the Qualitative Result of a node and all nodes that are reachable by failure propagation or are in higher level CFT.
+     * The affected nodes are collected first so every node is visited only once, even if it can be reached on multiple paths.
      * @param node The node where Quantitative Results are deleted.
      */
     static void deleteOnlyResults(Node node)
+    {
+	deleteOnlyResults(Collections.singleton(node));
+    }
+
+    /**
+     * Deletes only the Qualitative Result of the nodes and all nodes that are reachable from them by failure propagation or are in higher level CFT.
+     * The affected nodes of all nodes are collected together so every node is visited only once.
+     * @param nodes The nodes where Quantitative Results are deleted.
+     */
+    private static void deleteOnlyResults(Set<Node> nodes)
     {
 	if (DBUtility.hasMCS())
 	{
-	    PrintUtility.printInfo("Quantitative Analysis Results from the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database...");
-	    HashSet<Node> nextHigherNodes = new HashSet<Node>();
-	    try (Transaction tx = DBConnection.getGraphDB().beginTx())
+	    PrintUtility.printInfo("Deleting Quantitative Analysis Results from " + describe(nodes) + " in the Neo4j database...");
+	    LinkedHashMap<Node, Boolean> roots = new LinkedHashMap<Node, Boolean>();
+	    for (Node node : nodes)
 	    {
-		for (Relationship failRel : node.getRelationships(RelTypes.Failure_Propagation, Direction.OUTGOING))
-		{
-		    nextHigherNodes.add(failRel.getEndNode());
-		}
-		if (node.hasLabel(NodeLabels.CFT_Outport))
-		{
-		    for (Relationship instRel : node.getRelationships(RelTypes.Is_Instance_Of, Direction.INCOMING))
-		    {
-			nextHigherNodes.add(instRel.getStartNode());
-		    }
-		}
-		if (node.hasLabel(NodeLabels.CFT_Inport_Instance))
-		{
-		    Node cftInstance = node.getSingleRelationship(RelTypes.Is_Child_Of, Direction.OUTGOING).getEndNode();
-		    for (Relationship outInstRel : cftInstance.getRelationships(RelTypes.Is_Child_Of, Direction.INCOMING))
-		    {
-			Node outInst = outInstRel.getStartNode();
-			if (outInst.hasLabel(NodeLabels.CFT_Outport_Instance))
-			{
-			    nextHigherNodes.add(outInst);
-			}
-		    }
-		}
-		if (node.hasLabel(NodeLabels.CFT_Inport_Instance) || node.hasLabel(NodeLabels.CFT_Outport))
+		roots.put(node, true);
+	    }
+	    LinkedHashMap<Node, Boolean> affectedNodes = getAffectedNodes(roots);
+	    try (DBBatchTransaction batch = new DBBatchTransaction("Deleting Quantitative Analysis Results of the affected Nodes", affectedNodes.size()))
+	    {
+		for (Node affectedNode : affectedNodes.keySet())
 		{
-		    Relationship resultRel = node.getSingleRelationship(RelTypes.Is_Quant_Result_Of, Direction.INCOMING);
-		    if (resultRel != null)
+		    if (affectedNode.hasLabel(NodeLabels.CFT_Inport_Instance) || affectedNode.hasLabel(NodeLabels.CFT_Outport))
 		    {
-			Node result = resultRel.getStartNode();
-			resultRel.delete();
-			result.delete();
+			deleteQuantitativeResult(affectedNode);
 		    }
+		    batch.recordWritten();
 		}
-		tx.success();
+		batch.success();
 	    }
-	    for (Node nextNode : nextHigherNodes)
+	    for (Node affectedNode : affectedNodes.keySet())
 	    {
-		deleteOnlyResults(nextNode);
+		DBMCSCache.invalidateQuantitativeResult(affectedNode);
 	    }
-	    PrintUtility.printInfo("Successfully deleted Quantitative Analysis Results from the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database!");
+	    PrintUtility.printInfo("Successfully deleted Quantitative Analysis Results from " + affectedNodes.size() + " Nodes in the Neo4j database!");
+	}
+	else
+	{
+	    for (Node node : nodes)
+	    {
+		DBMCSCache.invalidateQuantitativeResult(node);
+	    }
+	}
+	for (Node node : nodes)
+	{
+	    DBChangeTracker.probabilityChanged(node);
+	}
+    }
+
+    /**
+     * Describes the nodes whose results are deleted for the printed information.
+     * @param nodes The nodes.
+     * @return The description.
+     */
+    private static String describe(Set<Node> nodes)
+    {
+	if (nodes.size() == 1)
+	{
+	    return "the Node (" + DBUtility.getIDAndName(nodes.iterator().next()) + ")";
+	}
+	return nodes.size() + " Nodes";
+    }
+
+    /**
+     * Returns the nodes and all nodes whose results depend on them.
+     * The nodes are collected with a worklist so every node is only expanded once (or twice if it is reached again with onlyFullMCS false).
+     * @param roots Maps the nodes to true if only their full MCS shall be deleted.
+     * @return Maps every affected node to true if only its full MCS shall be deleted.
+     */
+    private static LinkedHashMap<Node, Boolean> getAffectedNodes(LinkedHashMap<Node, Boolean> roots)
+    {
+	LinkedHashMap<Node, Boolean> affectedNodes = new LinkedHashMap<Node, Boolean>(roots);
+	ArrayDeque<Node> worklist = new ArrayDeque<Node>(roots.keySet());
+	try (Transaction tx = DBConnection.getGraphDB().beginTx())
+	{
+	    while (!worklist.isEmpty())
+	    {
+		Node nextNode = worklist.poll();
+		addDependentNodes(nextNode, affectedNodes.get(nextNode), affectedNodes, worklist);
+	    }
+	    tx.success();
+	}
+	return affectedNodes;
+    }
+
+    /**
+     * Adds the nodes whose results directly depend on the node to the affected nodes. Must be called within a transaction.
+     * @param node The node.
+     * @param onlyFullMCS Indicates if only full MCS of the node shall be deleted.
+     * @param affectedNodes The affected nodes.
+     * @param worklist The nodes that were not expanded yet.
+     */
+    private static void addDependentNodes(Node node, boolean onlyFullMCS, LinkedHashMap<Node, Boolean> affectedNodes, ArrayDeque<Node> worklist)
+    {
+	for (Relationship failRel : node.getRelationships(RelTypes.Failure_Propagation, Direction.OUTGOING))
+	{
+	    addAffectedNode(failRel.getEndNode(), onlyFullMCS, affectedNodes, worklist);
+	}
+	if (node.hasLabel(NodeLabels.CFT_Outport))
+	{
+	    for (Relationship instRel : node.getRelationships(RelTypes.Is_Instance_Of, Direction.INCOMING))
+	    {
+		addAffectedNode(instRel.getStartNode(), true, affectedNodes, worklist);
+	    }
+	}
+	if (node.hasLabel(NodeLabels.CFT_Inport_Instance))
+	{
+	    Node cftInstance = node.getSingleRelationship(RelTypes.Is_Child_Of, Direction.OUTGOING).getEndNode();
+	    for (Relationship outInstRel : cftInstance.getRelationships(RelTypes.Is_Child_Of, Direction.INCOMING))
+	    {
+		Node outInst = outInstRel.getStartNode();
+		if (outInst.hasLabel(NodeLabels.CFT_Outport_Instance))
+		{
+		    addAffectedNode(outInst, true, affectedNodes, worklist);
+		}
+	    }
+	}
+    }
+
+    /**
+     * Adds a node to the affected nodes and the worklist if it was not added yet.
+     * A node that was added with onlyFullMCS true is added again if it is reached with onlyFullMCS false because its partial MCS must be deleted too.
+     * @param node The node.
+     * @param onlyFullMCS Indicates if only full MCS of the node shall be deleted.
+     * @param affectedNodes The affected nodes.
+     * @param worklist The nodes that were not expanded yet.
+     */
+    private static void addAffectedNode(Node node, boolean onlyFullMCS, LinkedHashMap<Node, Boolean> affectedNodes, ArrayDeque<Node> worklist)
+    {
+	Boolean currentOnlyFullMCS = affectedNodes.get(node);
+	if (currentOnlyFullMCS == null || (currentOnlyFullMCS && !onlyFullMCS))
+	{
+	    affectedNodes.put(node, onlyFullMCS);
+	    worklist.add(node);
+	}
+    }
+
+    /**
+     * Deletes the Quantitative Result of a node. Must be called within a transaction.
+     * @param node The node.
+     */
+    private static void deleteQuantitativeResult(Node node)
+    {
+	Relationship resultRel = node.getSingleRelationship(RelTypes.Is_Quant_Result_Of, Direction.INCOMING);
+	if (resultRel != null)
+	{
+	    Node result = resultRel.getStartNode();
+	    resultRel.delete();
+	    result.delete();
 	}
     }
 
@@ -174,49 +289,44 @@ public final class DBMCSManager
 	Node node = resultGateSet.getStartNode();
 	HashSet<MCS> mcsSet = resultGateSet.getMCSSet();
 	HashSet<MCS> negatedMCSSet = resultGateSet.getNegatedMCSSet();
+	boolean addMCSNodes = false;
 	try (Transaction tx = DBConnection.getGraphDB().beginTx())
 	{
-	    if (node.hasLabel(NodeLabels.CFT_Outport) && !node.hasRelationship(Direction.INCOMING, RelTypes.Is_Full_MCS_Of, RelTypes.Is_Full_Negated_MCS_Of))
+	    if (node.hasLabel(NodeLabels.CFT_Outport) && !node.hasRelationship(Direction.INCOMING, RelTypes.Is_Full_MCS_Of, RelTypes.Is_Full_Negated_MCS_Of) && !node.hasProperty(FULL_MCS_PROPERTY))
 	    {
-		PrintUtility.printInfo("Adding Minimal Cut Sets to the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database...");
-		for (MCS set : mcsSet)
+		if (SettingsUtility.isUseCompactMCSStorage())
 		{
-		    Node mcs = DBConnection.getGraphDB().createNode(NodeLabels.Full_MCS);
-		    mcs.createRelationshipTo(node, RelTypes.Is_Full_MCS_Of);
-		    for (MCSNode tnode : set.getMCSNodeSet())
-		    {
-			Relationship mcsRel = tnode.getNode().createRelationshipTo(mcs, RelTypes.Is_Inside_MCS);
-			if (tnode.isNegated())
-			{
-			    mcsRel.setProperty("Negated", "true");
-			}
-			else
-			{
-			    mcsRel.setProperty("Negated", "false");
-			}
-		    }
+		    PrintUtility.printInfo("Adding Minimal Cut Sets to the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database...");
+		    node.setProperty(FULL_MCS_PROPERTY, DBMCSCodec.encode(new MCSPairSet(mcsSet, negatedMCSSet)));
+		    PrintUtility.printInfo("Successfully added Minimal Cut Sets to the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database!");
 		}
-		for (MCS set : negatedMCSSet)
+		else
 		{
-		    Node mcs = DBConnection.getGraphDB().createNode(NodeLabels.Full_Negated_MCS);
-		    mcs.createRelationshipTo(node, RelTypes.Is_Full_Negated_MCS_Of);
-		    for (MCSNode tnode : set.getMCSNodeSet())
-		    {
-			Relationship mcsRel = tnode.getNode().createRelationshipTo(mcs, RelTypes.Is_Inside_MCS);
-			if (tnode.isNegated())
-			{
-			    mcsRel.setProperty("Negated", "true");
-			}
-			else
-			{
-			    mcsRel.setProperty("Negated", "false");
-			}
-		    }
+		    addMCSNodes = true;
 		}
-		PrintUtility.printInfo("Successfully added Minimal Cut Sets to the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database!");
 	    }
 	    tx.success();
 	}
+	if (addMCSNodes)
+	{
+	    String description = "Adding Minimal Cut Sets to the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database";
+	    PrintUtility.printInfo(description + "...");
+	    try (DBBatchTransaction batch = new DBBatchTransaction(description, mcsSet.size() + negatedMCSSet.size()))
+	    {
+		createMCSNodes(batch, node, mcsSet, NodeLabels.Full_MCS, RelTypes.Is_Full_MCS_Of);
+		createMCSNodes(batch, node, negatedMCSSet, NodeLabels.Full_Negated_MCS, RelTypes.Is_Full_Negated_MCS_Of);
+		batch.success();
+	    }
+	    catch (RuntimeException e)
+	    {
+		// The chunks that were already committed would be read as incomplete MCS
+		deleteMCSNodes(Collections.singletonList(node.getId()), RelTypes.Is_Full_MCS_Of, RelTypes.Is_Full_Negated_MCS_Of);
+		DBMCSCache.invalidate(node);
+		throw e;
+	    }
+	    PrintUtility.printInfo("Successfully added Minimal Cut Sets to the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database!");
+	}
+	DBMCSCache.invalidate(node);
     }
 
     /**
@@ -228,49 +338,93 @@ public final class DBMCSManager
 	Node node = resultGateSet.getStartNode();
 	HashSet<MCS> mcsSet = resultGateSet.getMCSSet();
 	HashSet<MCS> negatedMCSSet = resultGateSet.getNegatedMCSSet();
+	boolean addMCSNodes = false;
 	try (Transaction tx = DBConnection.getGraphDB().beginTx())
 	{
 	    if (node.hasLabel(NodeLabels.CFT_Outport) || node.hasLabel(NodeLabels.CFT_Inport_Instance))
 	    {
-		PrintUtility.printInfo("Adding Partial Minimal Cut Sets to the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database...");
-		for (MCS set : mcsSet)
+		if (SettingsUtility.isUseCompactMCSStorage())
 		{
-		    Node mcs = DBConnection.getGraphDB().createNode(NodeLabels.MCS);
-		    mcs.createRelationshipTo(node, RelTypes.Is_MCS_Of);
-		    for (MCSNode tnode : set.getMCSNodeSet())
-		    {
-			Relationship mcsRel = tnode.getNode().createRelationshipTo(mcs, RelTypes.Is_Inside_MCS);
-			if (tnode.isNegated())
-			{
-			    mcsRel.setProperty("Negated", "true");
-			}
-			else
-			{
-			    mcsRel.setProperty("Negated", "false");
-			}
-		    }
+		    PrintUtility.printInfo("Adding Partial Minimal Cut Sets to the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database...");
+		    node.setProperty(MCS_PROPERTY, DBMCSCodec.encode(new MCSPairSet(mcsSet, negatedMCSSet)));
+		    PrintUtility.printInfo("Successfully added Partial Minimal Cut Sets to the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database!");
 		}
-		for (MCS set : negatedMCSSet)
+		else
 		{
-		    Node mcs = DBConnection.getGraphDB().createNode(NodeLabels.Negated_MCS);
-		    mcs.createRelationshipTo(node, RelTypes.Is_Negated_MCS_Of);
-		    for (MCSNode tnode : set.getMCSNodeSet())
-		    {
-			Relationship mcsRel = tnode.getNode().createRelationshipTo(mcs, RelTypes.Is_Inside_MCS);
-			if (tnode.isNegated())
-			{
-			    mcsRel.setProperty("Negated", "true");
-			}
-			else
-			{
-			    mcsRel.setProperty("Negated", "false");
-			}
-		    }
+		    addMCSNodes = true;
 		}
-		PrintUtility.printInfo("Successfully added Partial Minimal Cut Sets to the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database!");
 	    }
 	    tx.success();
 	}
+	if (addMCSNodes)
+	{
+	    String description = "Adding Partial Minimal Cut Sets to the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database";
+	    PrintUtility.printInfo(description + "...");
+	    try (DBBatchTransaction batch = new DBBatchTransaction(description, mcsSet.size() + negatedMCSSet.size()))
+	    {
+		createMCSNodes(batch, node, mcsSet, NodeLabels.MCS, RelTypes.Is_MCS_Of);
+		createMCSNodes(batch, node, negatedMCSSet, NodeLabels.Negated_MCS, RelTypes.Is_Negated_MCS_Of);
+		batch.success();
+	    }
+	    catch (RuntimeException e)
+	    {
+		// The chunks that were already committed would be read as incomplete MCS
+		deleteMCSNodes(Collections.singletonList(node.getId()), RelTypes.Is_MCS_Of, RelTypes.Is_Negated_MCS_Of);
+		DBMCSCache.invalidate(node);
+		throw e;
+	    }
+	    PrintUtility.printInfo("Successfully added Partial Minimal Cut Sets to the Node (" + DBUtility.getIDAndName(node) + ") in the Neo4j database!");
+	}
+	DBMCSCache.invalidate(node);
+    }
+
+    /**
+     * Creates a node for every MCS and connects it to the node and to the members of the MCS.
+     * The MCS are written in chunks of the batch transaction.
+     * @param batch The batch transaction.
+     * @param node The node the MCS belong to.
+     * @param mcsSet The MCS.
+     * @param label The label of the MCS nodes.
+     * @param relType The relationship type from the MCS nodes to the node.
+     */
+    private static void createMCSNodes(DBBatchTransaction batch, Node node, HashSet<MCS> mcsSet, Label label, RelTypes relType)
+    {
+	for (MCS set : mcsSet)
+	{
+	    Node mcs = DBConnection.getGraphDB().createNode(label);
+	    mcs.createRelationshipTo(node, relType);
+	    for (MCSNode tnode : set.getMCSNodeSet())
+	    {
+		Relationship mcsRel = tnode.getNode().createRelationshipTo(mcs, RelTypes.Is_Inside_MCS);
+		if (tnode.isNegated())
+		{
+		    mcsRel.setProperty("Negated", "true");
+		}
+		else
+		{
+		    mcsRel.setProperty("Negated", "false");
+		}
+	    }
+	    batch.recordWritten();
+	}
+    }
+
+    /**
+     * Deletes the MCS nodes of the nodes and their relationships in chunks.
+     * @param nodeIDs The ids of the nodes the MCS belong to.
+     * @param relType The relationship type from the MCS nodes to the node.
+     * @param negatedRelType The relationship type from the negated MCS nodes to the node.
+     */
+    private static void deleteMCSNodes(List<Long> nodeIDs, RelTypes relType, RelTypes negatedRelType)
+    {
+	if (!nodeIDs.isEmpty())
+	{
+	    HashMap<String, Object> parameters = new HashMap<String, Object>();
+	    parameters.put("ids", nodeIDs);
+	    DBBatchTransaction.deleteInChunks("Deleting Minimal Cut Sets from " + nodeIDs.size() + " Nodes in the Neo4j database",
+		    "MATCH (mcs)-[:" + relType.name() + "|" + negatedRelType.name() + "]->(n) WHERE id(n) IN {ids} WITH mcs LIMIT {limit} DETACH DELETE mcs RETURN count(mcs) AS deleted",
+		    parameters);
+	}
     }
 
     /**
@@ -292,6 +446,7 @@ public final class DBMCSManager
 	    }
 	    tx.success();
 	}
+	DBMCSCache.invalidateQuantitativeResult(node);
     }
 
     /**
@@ -301,11 +456,23 @@ public final class DBMCSManager
      */
     public static MCSPairSet getMCSSet(Node node)
     {
+	MCSPairSet cachedMCSSet = DBMCSCache.getMCSSet(node);
+	if (cachedMCSSet != null)
+	{
+	    return cachedMCSSet;
+	}
+	long generation = DBMCSCache.getGeneration();
 	HashSet<MCS> mcsSet = new HashSet<MCS>();
 	HashSet<MCS> negatedMCSSet = new HashSet<MCS>();
 	try (Transaction tx = DBConnection.getGraphDB().beginTx())
 	{
-	    if (node.hasLabel(NodeLabels.CFT_Outport) || node.hasLabel(NodeLabels.CFT_Inport_Instance))
+	    if (node.hasProperty(MCS_PROPERTY))
+	    {
+		MCSPairSet storedMCSSet = decode(node, MCS_PROPERTY);
+		mcsSet = storedMCSSet.getMCSSet();
+		negatedMCSSet = storedMCSSet.getNegatedMCSSet();
+	    }
+	    else if (node.hasLabel(NodeLabels.CFT_Outport) || node.hasLabel(NodeLabels.CFT_Inport_Instance))
 	    {
 		for (Relationship mcsRel : node.getRelationships(RelTypes.Is_MCS_Of, Direction.INCOMING))
 		{
@@ -342,7 +509,9 @@ public final class DBMCSManager
 	    }
 	    tx.success();
 	}
-	return new MCSPairSet(mcsSet, negatedMCSSet);
+	MCSPairSet mcsPairSet = new MCSPairSet(mcsSet, negatedMCSSet);
+	DBMCSCache.putMCSSet(node, mcsPairSet, generation);
+	return mcsPairSet;
     }
 
     /**
@@ -352,11 +521,23 @@ public final class DBMCSManager
      */
     public static MCSPairSet getFullMCSSet(Node node)
     {
+	MCSPairSet cachedMCSSet = DBMCSCache.getFullMCSSet(node);
+	if (cachedMCSSet != null)
+	{
+	    return cachedMCSSet;
+	}
+	long generation = DBMCSCache.getGeneration();
 	HashSet<MCS> mcsSet = new HashSet<MCS>();
 	HashSet<MCS> negatedMCSSet = new HashSet<MCS>();
 	try (Transaction tx = DBConnection.getGraphDB().beginTx())
 	{
-	    if (node.hasLabel(NodeLabels.CFT_Outport))
+	    if (node.hasProperty(FULL_MCS_PROPERTY))
+	    {
+		MCSPairSet storedMCSSet = decode(node, FULL_MCS_PROPERTY);
+		mcsSet = storedMCSSet.getMCSSet();
+		negatedMCSSet = storedMCSSet.getNegatedMCSSet();
+	    }
+	    else if (node.hasLabel(NodeLabels.CFT_Outport))
 	    {
 		for (Relationship mcsRel : node.getRelationships(RelTypes.Is_Full_MCS_Of, Direction.INCOMING))
 		{
@@ -393,7 +574,30 @@ public final class DBMCSManager
 	    }
 	    tx.success();
 	}
-	return new MCSPairSet(mcsSet, negatedMCSSet);
+	MCSPairSet mcsPairSet = new MCSPairSet(mcsSet, negatedMCSSet);
+	DBMCSCache.putFullMCSSet(node, mcsPairSet, generation);
+	return mcsPairSet;
+    }
+
+    /**
+     * Decodes the MCSPairSet that is stored in a property of a node.
+     * Returns an empty MCSPairSet if the property cannot be decoded or contains nodes that were deleted so the MCS are calculated again.
+     * Must be called within a transaction.
+     * @param node The node.
+     * @param property The property that contains the encoded MCSPairSet.
+     * @return The decoded MCSPairSet.
+     */
+    private static MCSPairSet decode(Node node, String property)
+    {
+	try
+	{
+	    return DBMCSCodec.decode((byte[]) node.getProperty(property), DBConnection.getGraphDB());
+	}
+	catch (IllegalArgumentException | ClassCastException | NotFoundException e)
+	{
+	    PrintUtility.printInfo("The stored Minimal Cut Sets of the Node (" + DBUtility.getIDAndName(node) + ") are invalid and are ignored: " + e.getMessage());
+	    return new MCSPairSet(new HashSet<MCS>(), new HashSet<MCS>());
+	}
     }
 
     /**
@@ -403,6 +607,12 @@ public final class DBMCSManager
      */
     public static double getQuantitativeResult(Node node)
     {
+	Double cachedResult = DBMCSCache.getQuantitativeResult(node);
+	if (cachedResult != null)
+	{
+	    return cachedResult;
+	}
+	long generation = DBMCSCache.getGeneration();
 	double result = -1;
 	try (Transaction tx = DBConnection.getGraphDB().beginTx())
 	{
@@ -413,7 +623,165 @@ public final class DBMCSManager
 	    }
 	    tx.success();
 	}
+	DBMCSCache.putQuantitativeResult(node, result, generation);
 	return result;
     }
 
+    /**
+     * Collects the nodes whose results must be deleted because of an update so the results are deleted once at the end of the update.
+     * The collected nodes are expanded together so a node that depends on several changed nodes is only visited once.
+     * @author Kevin Bartik
+     *
+     */
+    static final class ResultInvalidation
+    {
+
+	/**
+	 * Maps the nodes whose MCS and Quantitative Results are deleted to true if only their full MCS shall be deleted.
+	 */
+	private final LinkedHashMap<Node, Boolean> mcsRoots = new LinkedHashMap<Node, Boolean>();
+
+	/**
+	 * The nodes whose Quantitative Results are deleted.
+	 */
+	private final LinkedHashSet<Node> resultRoots = new LinkedHashSet<Node>();
+
+	/**
+	 * The nodes that were deleted by the update.
+	 */
+	private final HashSet<Node> deletedNodes = new HashSet<Node>();
+
+	/**
+	 * The ids of the MCS nodes and Quantitative Result nodes of the deleted nodes.
+	 */
+	private final ArrayList<Long> deletedResultNodeIDs = new ArrayList<Long>();
+
+	/**
+	 * Indicates if the database contains MCS or null if it was not checked yet.
+	 */
+	private Boolean hasMCS;
+
+	/**
+	 * Indicates if the structure of a CFT was changed by the update.
+	 */
+	private boolean structureChanged = false;
+
+	/**
+	 * Must be called if the update changed the structure of a CFT without changing the results of a node.
+	 */
+	void structureChanged()
+	{
+	    structureChanged = true;
+	}
+
+	/**
+	 * Collects a node whose MCS and Quantitative Results must be deleted.
+	 * @param node The node.
+	 * @param onlyFullMCS Indicates if only full MCS shall be deleted.
+	 */
+	void deleteMCSAndResults(Node node, boolean onlyFullMCS)
+	{
+	    Boolean currentOnlyFullMCS = mcsRoots.get(node);
+	    if (currentOnlyFullMCS == null || (currentOnlyFullMCS && !onlyFullMCS))
+	    {
+		mcsRoots.put(node, onlyFullMCS);
+	    }
+	}
+
+	/**
+	 * Collects a node whose Quantitative Results must be deleted.
+	 * @param node The node.
+	 */
+	void deleteOnlyResults(Node node)
+	{
+	    resultRoots.add(node);
+	}
+
+	/**
+	 * Must be called within a transaction before the node is deleted.
+	 * The ids of the MCS nodes and the Quantitative Result node of the node are collected because they cannot be found after the node was deleted.
+	 * They are deleted in chunks by {@link #run()} after the transaction was committed since a transaction that is started within the transaction
+	 * would only be committed together with it.
+	 * The nodes that depend on the node are collected instead of the node.
+	 * @param node The node that will be deleted.
+	 */
+	void deleteNode(Node node)
+	{
+	    structureChanged = true;
+	    if (hasMCS == null)
+	    {
+		hasMCS = DBUtility.hasMCS();
+	    }
+	    if (hasMCS)
+	    {
+		LinkedHashMap<Node, Boolean> dependentNodes = new LinkedHashMap<Node, Boolean>();
+		addDependentNodes(node, false, dependentNodes, new ArrayDeque<Node>());
+		for (Entry<Node, Boolean> dependentNode : dependentNodes.entrySet())
+		{
+		    deleteMCSAndResults(dependentNode.getKey(), dependentNode.getValue());
+		}
+		if (node.hasLabel(NodeLabels.CFT_Inport_Instance) || node.hasLabel(NodeLabels.CFT_Outport))
+		{
+		    for (Relationship rel : node.getRelationships(Direction.INCOMING, RelTypes.Is_MCS_Of, RelTypes.Is_Negated_MCS_Of, RelTypes.Is_Full_MCS_Of,
+			    RelTypes.Is_Full_Negated_MCS_Of, RelTypes.Is_Quant_Result_Of))
+		    {
+			deletedResultNodeIDs.add(rel.getStartNode().getId());
+		    }
+		}
+	    }
+	    mcsRoots.remove(node);
+	    resultRoots.remove(node);
+	    deletedNodes.add(node);
+	    DBMCSCache.invalidate(node);
+	}
+
+	/**
+	 * Adds the nodes that were collected by another ResultInvalidation.
+	 * @param other The other ResultInvalidation.
+	 */
+	void addAll(ResultInvalidation other)
+	{
+	    mcsRoots.keySet().removeAll(other.deletedNodes);
+	    resultRoots.removeAll(other.deletedNodes);
+	    deletedNodes.addAll(other.deletedNodes);
+	    for (Entry<Node, Boolean> mcsRoot : other.mcsRoots.entrySet())
+	    {
+		deleteMCSAndResults(mcsRoot.getKey(), mcsRoot.getValue());
+	    }
+	    resultRoots.addAll(other.resultRoots);
+	    deletedResultNodeIDs.addAll(other.deletedResultNodeIDs);
+	    structureChanged |= other.structureChanged;
+	}
+
+	/**
+	 * Deletes the results of all collected nodes and the nodes that depend on them.
+	 * Must be called after the transactions of the update were closed.
+	 */
+	void run()
+	{
+	    if (!deletedResultNodeIDs.isEmpty())
+	    {
+		DBBatchTransaction.deleteNodesByID("Deleting Minimal Cut Sets and Quantitative Analysis Results of deleted Nodes from the Neo4j database",
+			deletedResultNodeIDs);
+		deletedResultNodeIDs.clear();
+	    }
+	    if (!mcsRoots.isEmpty())
+	    {
+		DBMCSManager.deleteMCSAndResults(mcsRoots);
+	    }
+	    resultRoots.removeAll(mcsRoots.keySet());
+	    if (!resultRoots.isEmpty())
+	    {
+		DBMCSManager.deleteOnlyResults(resultRoots);
+	    }
+	    mcsRoots.clear();
+	    resultRoots.clear();
+	    if (structureChanged)
+	    {
+		DBChangeTracker.structureChanged();
+		structureChanged = false;
+	    }
+	}
+    }
+
 }
@@ -1,7 +1,10 @@
 package neo4jDatabase;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Label;
@@ -19,6 +22,7 @@ import neo4jEnum.NodeLabels;
 import neo4jEnum.RelTypes;
 import neo4jUtility.GeneralLogger;
 import neo4jUtility.PrintUtility;
+import neo4jUtility.SettingsUtility;
 
 /**
  * This class handles all updates to the Neo4j database.
@@ -68,15 +72,19 @@ public final class DBUpdater
 		idSet.add(eaElement.GetElementID());
 		updateEANode(eaElement, connectorMap);
 	    }
+	    DBMCSManager.ResultInvalidation invalidation = new DBMCSManager.ResultInvalidation();
 	    try (Transaction tx = DBConnection.getGraphDB().beginTx())
 	    {
 		DBConnection.getGraphDB().getAllNodes().iterator().forEachRemaining(node ->
 		{
 		    if (node.hasLabel(NodeLabels.Neo4J_EA_Element) && !idSet.contains(Integer.parseInt(node.getProperty("ElementID").toString())))
 		    {
-			DBMCSManager.deleteMCSAndResults(node, false);
+			invalidation.deleteNode(node);
+			DBElementIDCache.remove(Long.parseLong(node.getProperty("ElementID").toString()));
+			DBConnection.uncheckedNodes.add(node);
 			for (Relationship rel : node.getRelationships())
 			{
+			    DBConnection.uncheckedNodes.add(rel.getOtherNode(node));
 			    rel.delete();
 			}
 			node.delete();
@@ -85,6 +93,7 @@ public final class DBUpdater
 		});
 		tx.success();
 	    }
+	    invalidation.run();
 	    for (Node node : connectorMap.keySet())
 	    {
 		updateEARelationships(node, connectorMap.get(node));
@@ -122,6 +131,7 @@ public final class DBUpdater
 		node = DBConnection.getGraphDB().createNode(NodeLabels.Neo4J_EA_Element, label);
 		node.setProperty("ElementID", elementid);
 		node.setProperty("Name", eaElement.GetName());
+		DBElementIDCache.put(elementid, node.getId());
 		changedNodes.add(node);
 		PrintUtility.printInfo("A new EA Element (" + eaElement.GetName() + " | " + label + ") was added to the Neo4j database!");
 	    }
@@ -255,21 +265,32 @@ public final class DBUpdater
      */
     public static void addElementsBatch(String[] elements, String partSeparator, String tgSeparator)
     {
-	for (int i = 2; i < elements.length; i++)
+	addElementsBatch(Arrays.asList(elements).subList(Math.min(2, elements.length), elements.length).iterator(), partSeparator, tgSeparator);
+    }
+
+    /**
+     * Adds elements from the EA extension with a batch inserter.
+     * The elements are added while they are read from the iterator so they can be streamed from the socket.
+     * Empty elements are skipped.
+     * @param elements The elements.
+     * @param partSeparator The used part separator.
+     * @param tgSeparator The used tagged value separator.
+     * @return The number of added elements.
+     */
+    public static long addElementsBatch(Iterator<String> elements, String partSeparator, String tgSeparator)
+    {
+	long count = 0;
+	while (elements.hasNext())
 	{
-	    DBConnection.batchproperties.clear();
-	    String[] parts = elements[i].trim().split(partSeparator);
-	    long elementid = Long.parseLong(parts[0].trim());
-	    DBConnection.batchproperties.put("ElementID", elementid);
-	    DBConnection.batchproperties.put("Name", parts[1].trim());
-	    NodeLabels label = NodeLabels.getLabelForEA(parts[2].trim(), Long.parseLong(parts[3].trim()) != 0);
-	    for (int j = 4; j < parts.length; j++)
+	    String element = elements.next().trim();
+	    if (element.isEmpty())
 	    {
-		String[] tg = parts[j].trim().split(tgSeparator);
-		DBConnection.batchproperties.put(tg[0].trim(), tg[1].trim());
+		continue;
 	    }
-	    DBConnection.getBatchInserter().createNode(elementid, DBConnection.batchproperties, NodeLabels.Neo4J_EA_Element, label);
+	    DBBatchImport.ElementRecord.parse(element, partSeparator, tgSeparator).insert(DBConnection.getBatchInserter());
+	    count++;
 	}
+	return count;
     }
 
     /**
@@ -279,19 +300,41 @@ public final class DBUpdater
      */
     public static void addConnectorsBatch(String[] connectors, String partSeparator)
     {
-	DBConnection.batchproperties.clear();
-	for (int i = 2; i < connectors.length; i++)
+	addConnectorsBatch(Arrays.asList(connectors).subList(Math.min(2, connectors.length), connectors.length).iterator(), partSeparator);
+    }
+
+    /**
+     * Adds connectors from the EA extension with a batch inserter.
+     * The connectors are added while they are read from the iterator so they can be streamed from the socket.
+     * Empty connectors are skipped.
+     * @param connectors The connectors.
+     * @param partSeparator The used part separator.
+     * @return The number of added connectors.
+     */
+    public static long addConnectorsBatch(Iterator<String> connectors, String partSeparator)
+    {
+	long count = 0;
+	while (connectors.hasNext())
 	{
-	    String[] parts = connectors[i].trim().split(partSeparator);
-	    long connectorid = Long.parseLong(parts[0].trim());
-	    DBConnection.batchproperties.put("ConnectorID", connectorid);
-	    RelTypes reltype = RelTypes.getRelTypeForEA(parts[1].trim());
-	    DBConnection.getBatchInserter().createRelationship(Long.parseLong(parts[2].trim()), Long.parseLong(parts[3].trim()), reltype, DBConnection.batchproperties);
+	    String connector = connectors.next().trim();
+	    if (connector.isEmpty())
+	    {
+		continue;
+	    }
+	    DBBatchImport.ConnectorRecord.parse(connector, partSeparator).insert(DBConnection.getBatchInserter());
+	    count++;
 	}
+	return count;
     }
 
     /**
      * The regular update form the EA extension.
+     * All commands of the message are applied in chunked transactions so an update with many commands needs only a few transactions.
+     * The nodes of all ElementIDs in the message are found before the first command is applied.
+     * The results that depend on the changed nodes are deleted once after all commands were applied, even if a chunk could not be committed.
+     * A command that cannot be read is reported as an error and skipped.
+     * A command that fails while it is applied is reported as an error. Its chunk is rolled back and applied again without the command so no partial writes
+     * of the command are committed.
      * @param message The message that contains what needs to be updated.
      * @param singleSeparator The used single command separator.
      * @param partSeparator The used part separator.
@@ -299,282 +342,358 @@ public final class DBUpdater
      */
     public static void updateDB(String[] message, String singleSeparator, String partSeparator, String tgSeparator)
     {
+	ArrayList<String> commands = new ArrayList<String>();
+	ArrayList<String[]> commandParts = new ArrayList<String[]>();
+	HashSet<Long> elementIDs = new HashSet<Long>();
+	ArrayList<String> errors = new ArrayList<String>();
 	for (int i = 2; i < message.length; i++)
 	{
-	    String[] splitCommand = message[i].trim().split(singleSeparator);
-	    String command = splitCommand[0].trim();
-	    String[] parts = splitCommand[1].trim().split(partSeparator);
-	    String error = "";
-	    switch (command)
+	    try
 	    {
-		case "add single element":
-		    if (DBUtility.getNodebyID(Long.parseLong(parts[0].trim())) == null)
+		String[] splitCommand = message[i].trim().split(singleSeparator);
+		String command = splitCommand[0].trim();
+		String[] parts = splitCommand[1].trim().split(partSeparator);
+		if (command.endsWith("element"))
+		{
+		    elementIDs.add(Long.parseLong(parts[0].trim()));
+		}
+		else if (command.endsWith("connector"))
+		{
+		    elementIDs.add(Long.parseLong(parts[2].trim()));
+		    elementIDs.add(Long.parseLong(parts[3].trim()));
+		}
+		commands.add(command);
+		commandParts.add(parts);
+	    }
+	    catch (RuntimeException e)
+	    {
+		errors.add("An update command could not be read (" + message[i].trim() + "): " + e);
+	    }
+	}
+	HashMap<Long, Node> nodes = DBUtility.getNodesByID(elementIDs);
+	DBMCSManager.ResultInvalidation invalidation = new DBMCSManager.ResultInvalidation();
+	int chunkSize = Math.max(1, SettingsUtility.getMaxRecordsPerTransaction());
+	try
+	{
+	    for (int start = 0; start < commands.size(); start += chunkSize)
+	    {
+		ArrayList<Integer> chunk = new ArrayList<Integer>();
+		for (int i = start; i < Math.min(start + chunkSize, commands.size()); i++)
+		{
+		    chunk.add(i);
+		}
+		nodes = updateChunk(commands, commandParts, chunk, tgSeparator, nodes, invalidation, errors);
+		if (start + chunkSize < commands.size())
+		{
+		    PrintUtility.printInfo("Updating the Neo4j database: " + (start + chunkSize) + " of " + commands.size() + " committed.");
+		}
+	    }
+	}
+	finally
+	{
+	    // the chunks that were committed before a failed commit must be invalidated as well
+	    invalidation.run();
+	    for (String error : errors)
+	    {
+		GeneralLogger.log("Error: " + error);
+		PrintUtility.printError(error);
+	    }
+	}
+    }
+
+    /**
+     * Applies a chunk of commands of the regular update in one transaction.
+     * If a command fails then the transaction is rolled back and the chunk is applied again without the failed command.
+     * The nodes and the collected results of a chunk are only kept if the chunk was committed.
+     * @param commands The commands of the update.
+     * @param commandParts The parts of the commands.
+     * @param chunk The indices of the commands of the chunk. Failed commands are removed.
+     * @param tgSeparator The used tagged value separator.
+     * @param nodes Maps the ElementIDs of the update to their nodes before the chunk is applied.
+     * @param invalidation Collects the nodes whose results must be deleted.
+     * @param errors Collects the errors of the update.
+     * @return Maps the ElementIDs of the update to their nodes after the chunk was applied.
+     */
+    private static HashMap<Long, Node> updateChunk(ArrayList<String> commands, ArrayList<String[]> commandParts, ArrayList<Integer> chunk, String tgSeparator,
+	    HashMap<Long, Node> nodes, DBMCSManager.ResultInvalidation invalidation, ArrayList<String> errors)
+    {
+	while (true)
+	{
+	    HashMap<Long, Node> chunkNodes = new HashMap<Long, Node>(nodes);
+	    DBMCSManager.ResultInvalidation chunkInvalidation = new DBMCSManager.ResultInvalidation();
+	    ArrayList<String> chunkErrors = new ArrayList<String>();
+	    int current = 0;
+	    try (Transaction tx = DBConnection.getGraphDB().beginTx())
+	    {
+		for (; current < chunk.size(); current++)
+		{
+		    int i = chunk.get(current);
+		    String error = updateDB(commands.get(i), commandParts.get(i), tgSeparator, chunkNodes, chunkInvalidation);
+		    if (!error.equals(""))
 		    {
-			try (Transaction tx = DBConnection.getGraphDB().beginTx())
-			{
-			    Node node = DBConnection.getGraphDB().createNode(NodeLabels.getLabelForEA(parts[2].trim(), Long.parseLong(parts[3].trim()) != 0));
-			    node.addLabel(NodeLabels.Neo4J_EA_Element);
-			    node.setProperty("ElementID", Long.parseLong(parts[0].trim()));
-			    node.setProperty("Name", parts[1].trim());
-			    for (int j = 4; j < parts.length; j++)
-			    {
-				String[] tg = parts[j].trim().split(tgSeparator);
-				node.setProperty(tg[0].trim(), tg[1].trim());
-			    }
-			    DBConnection.uncheckedNodes.add(node);
-			    tx.success();
-			}
+			chunkErrors.add(error);
+		    }
+		}
+		tx.success();
+	    }
+	    catch (RuntimeException e)
+	    {
+		if (current < chunk.size())
+		{
+		    // the transaction was rolled back so the chunk is applied again without the failed command
+		    int i = chunk.remove(current);
+		    errors.add("The update command (" + commands.get(i) + ") could not be applied: " + e);
+		    continue;
+		}
+		errors.add("A chunk of " + chunk.size() + " update commands could not be committed: " + e);
+		return nodes;
+	    }
+	    errors.addAll(chunkErrors);
+	    invalidation.addAll(chunkInvalidation);
+	    return chunkNodes;
+	}
+    }
+
+    /**
+     * Applies a single command of the regular update. Must be called within a transaction.
+     * @param command The command.
+     * @param parts The parts of the command.
+     * @param tgSeparator The used tagged value separator.
+     * @param nodes Maps the ElementIDs of the update to their nodes. Added and deleted nodes are changed in the map.
+     * @param invalidation Collects the nodes whose results must be deleted.
+     * @return The error or an empty string if the command was applied.
+     */
+    private static String updateDB(String command, String[] parts, String tgSeparator, HashMap<Long, Node> nodes, DBMCSManager.ResultInvalidation invalidation)
+    {
+	String error = "";
+	switch (command)
+	{
+	    case "add single element":
+		long elementID = Long.parseLong(parts[0].trim());
+		if (nodes.get(elementID) == null)
+		{
+		    Node node = DBConnection.getGraphDB().createNode(NodeLabels.getLabelForEA(parts[2].trim(), Long.parseLong(parts[3].trim()) != 0));
+		    node.addLabel(NodeLabels.Neo4J_EA_Element);
+		    node.setProperty("ElementID", elementID);
+		    node.setProperty("Name", parts[1].trim());
+		    for (int j = 4; j < parts.length; j++)
+		    {
+			String[] tg = parts[j].trim().split(tgSeparator);
+			node.setProperty(tg[0].trim(), tg[1].trim());
 		    }
-		    break;
-		case "delete single element":
-		    Node node = DBUtility.getNodebyID(Long.parseLong(parts[0]));
-		    if (node != null)
+		    DBConnection.uncheckedNodes.add(node);
+		    DBElementIDCache.put(elementID, node.getId());
+		    invalidation.structureChanged();
+		    nodes.put(elementID, node);
+		}
+		break;
+	    case "delete single element":
+		Node node = nodes.get(Long.parseLong(parts[0].trim()));
+		if (node != null)
+		{
+		    invalidation.deleteNode(node);
+		    DBConnection.uncheckedNodes.add(node); // the checker removes deleted nodes from the error nodes
+		    for (Relationship rel : node.getRelationships())
 		    {
-			DBMCSManager.deleteMCSAndResults(node, false);
-			DBConnection.uncheckedNodes.remove(node);
-			try (Transaction tx = DBConnection.getGraphDB().beginTx())
+			DBConnection.uncheckedNodes.add(rel.getOtherNode(node));
+			rel.delete();
+		    }
+		    node.delete();
+		    DBElementIDCache.remove(Long.parseLong(parts[0].trim()));
+		    nodes.remove(Long.parseLong(parts[0].trim()));
+		}
+		else
+		{
+		    error = "An element that should be deleted was not found!";
+		}
+		break;
+	    case "update single element":
+		Node node2 = nodes.get(Long.parseLong(parts[0].trim()));
+		if (node2 != null)
+		{
+		    NodeLabels label = NodeLabels.getLabelForEA(parts[2].trim(), Long.parseLong(parts[3].trim()) != 0);
+		    if (!node2.hasLabel(label))
+		    {
+			for (Label oldlabel : node2.getLabels())
 			{
-			    for (Relationship rel : node.getRelationships())
+			    if (!oldlabel.name().equals(NodeLabels.Neo4J_EA_Element.name()))
 			    {
-				rel.delete();
+				node2.removeLabel(oldlabel);
 			    }
-			    node.delete();
-			    tx.success();
 			}
+			node2.addLabel(label);
+			invalidation.deleteMCSAndResults(node2, false);
+			DBConnection.uncheckedNodes.add(node2);
 		    }
-		    else
+		    if (node2.getProperty("Name").toString().equals(parts[1].trim()))
+		    {
+			node2.setProperty("Name", parts[1].trim());
+		    }
+		    // Only two possible properties
+		    HashMap<String, String> taggedvalues = new HashMap<String, String>();
+		    for (int j = 4; j < parts.length; j++)
 		    {
-			error = "An element that should be deleted was not found!";
+			String[] tg = parts[j].trim().split(tgSeparator);
+			taggedvalues.put(tg[0], tg[1]);
 		    }
-		    break;
-		case "update single element":
-		    Node node2 = DBUtility.getNodebyID(Long.parseLong(parts[0]));
-		    if (node2 != null)
+		    if (!taggedvalues.isEmpty())
 		    {
-			try (Transaction tx = DBConnection.getGraphDB().beginTx())
+			if (node2.hasLabel(NodeLabels.CFT_Basic_Event) || node2.hasLabel(NodeLabels.CFT_Inport))
 			{
-			    NodeLabels label = NodeLabels.getLabelForEA(parts[2].trim(), Long.parseLong(parts[3].trim()) != 0);
-			    if (!node2.hasLabel(label))
+			    String bfp = "Basic Failure Probability";
+			    if (taggedvalues.containsKey(bfp))
 			    {
-				for (Label oldlabel : node2.getLabels())
+				if (!node2.hasProperty(bfp) || !node2.getProperty(bfp).toString().equals(taggedvalues.get(bfp)))
 				{
-				    if (!oldlabel.name().equals(NodeLabels.Neo4J_EA_Element.name()))
-				    {
-					node2.removeLabel(oldlabel);
-				    }
+				    invalidation.deleteOnlyResults(node2);
+				    node2.setProperty(bfp, taggedvalues.get(bfp));
 				}
-				node2.addLabel(label);
-				DBMCSManager.deleteMCSAndResults(node2, false);
-				DBConnection.uncheckedNodes.add(node2);
 			    }
-			    if (node2.getProperty("Name").toString().equals(parts[1].trim()))
+			    else if (!node2.hasProperty(bfp))
 			    {
-				node2.setProperty("Name", parts[1].trim());
+				invalidation.deleteOnlyResults(node2);
+				node2.setProperty(bfp, 0.000001);
 			    }
-			    // Only two possible properties
-			    HashMap<String, String> taggedvalues = new HashMap<String, String>();
-			    for (int j = 4; j < parts.length; j++)
-			    {
-				String[] tg = parts[j].trim().split(tgSeparator);
-				taggedvalues.put(tg[0], tg[1]);
-			    }
-			    if (!taggedvalues.isEmpty())
+			}
+			else
+			{
+			    if (node2.hasLabel(NodeLabels.CFT_MOON_Gate))
 			    {
-				if (node2.hasLabel(NodeLabels.CFT_Basic_Event) || node2.hasLabel(NodeLabels.CFT_Inport))
+				String mn = "MOONNumber";
+				if (node2.hasProperty(mn) && taggedvalues.containsKey(mn))
 				{
-				    String bfp = "Basic Failure Propagation";
-				    if (node2.hasProperty(bfp) && taggedvalues.containsKey(bfp))
-				    {
-					if (!node2.getProperty(bfp).toString().equals(taggedvalues.get(bfp)))
-					{
-					    DBMCSManager.deleteOnlyResults(node2);
-					    node2.setProperty(bfp, taggedvalues.get(bfp));
-					}
-				    }
-				    else
+				    if (!node2.getProperty(mn).toString().equals(taggedvalues.get(mn)))
 				    {
-					DBMCSManager.deleteOnlyResults(node2);
-					node2.setProperty(bfp, 0.000001);
+					invalidation.deleteMCSAndResults(node2, false); // the MCS depend on the MOONNumber
+					node2.setProperty(mn, taggedvalues.get(mn));
 				    }
 				}
 				else
 				{
-				    if (node2.hasLabel(NodeLabels.CFT_MOON_Gate))
-				    {
-					String mn = "MOONNumber";
-					if (node2.hasProperty(mn) && taggedvalues.containsKey(mn))
-					{
-					    if (!node2.getProperty(mn).toString().equals(taggedvalues.get(mn)))
-					    {
-						DBMCSManager.deleteOnlyResults(node2);
-						node2.setProperty(mn, taggedvalues.get(mn));
-					    }
-					}
-					else
-					{
-					    DBMCSManager.deleteMCSAndResults(node2, false);
-					    node2.setProperty(mn, 1);
-					}
-				    }
+				    invalidation.deleteMCSAndResults(node2, false);
+				    node2.setProperty(mn, 1);
 				}
 			    }
-			    tx.success();
 			}
 		    }
-		    else
-		    {
-			error = "An element that should be updated was not found!";
-		    }
-		    break;
-		case "add single connector":
-		    Node start = DBUtility.getNodebyID(Long.parseLong(parts[2].trim()));
-		    Node end = DBUtility.getNodebyID(Long.parseLong(parts[3].trim()));
-		    if (start != null && end != null)
+		}
+		else
+		{
+		    error = "An element that should be updated was not found!";
+		}
+		break;
+	    case "add single connector":
+		Node start = nodes.get(Long.parseLong(parts[2].trim()));
+		Node end = nodes.get(Long.parseLong(parts[3].trim()));
+		if (start != null && end != null)
+		{
+		    RelTypes reltype = RelTypes.getRelTypeForEA(parts[1].trim());
+		    long connectorID = Long.parseLong(parts[0].trim());
+		    boolean relexistsalready = false;
+		    for (Relationship rel : start.getRelationships(reltype, Direction.OUTGOING))
 		    {
-			try (Transaction tx = DBConnection.getGraphDB().beginTx())
+			long conid = Long.parseLong(rel.getProperty("ConnectorID").toString());
+			if (conid == connectorID && rel.getEndNode().equals(end))
 			{
-			    RelTypes reltype = RelTypes.getRelTypeForEA(parts[1].trim());
-			    long connectorID = Long.parseLong(parts[0].trim());
-			    if (start.hasRelationship(reltype, Direction.OUTGOING))
-			    {
-				boolean relexistsalready = false;
-				for (Relationship rel : start.getRelationships(reltype, Direction.OUTGOING))
-				{
-				    long conid = Long.parseLong(rel.getProperty("ConnectorID").toString());
-				    if (conid == connectorID && rel.getEndNode().equals(end))
-				    {
-					relexistsalready = true;
-				    }
-				}
-				if (!relexistsalready)
-				{
-				    Relationship rel = start.createRelationshipTo(end, reltype);
-				    rel.setProperty("ConnectorID", connectorID);
-				    if (reltype.equals(RelTypes.Failure_Propagation))
-				    {
-					DBMCSManager.deleteMCSAndResults(end, false);
-				    }
-				}
-			    }
-			    else
-			    {
-				Relationship rel = start.createRelationshipTo(end, reltype);
-				rel.setProperty("ConnectorID", connectorID);
-				if (reltype.equals(RelTypes.Failure_Propagation))
-				{
-				    DBMCSManager.deleteMCSAndResults(end, false);
-				}
-			    }
-			    tx.success();
+			    relexistsalready = true;
 			}
 		    }
-		    else
+		    if (!relexistsalready)
 		    {
-			error = "An connector could not be added because one or both elements are missing!";
+			Relationship rel = start.createRelationshipTo(end, reltype);
+			rel.setProperty("ConnectorID", connectorID);
+			invalidation.structureChanged();
+			if (reltype.equals(RelTypes.Failure_Propagation))
+			{
+			    invalidation.deleteMCSAndResults(end, false);
+			}
 		    }
-		    break;
-		case "delete single connector":
-		    Node start2 = DBUtility.getNodebyID(Long.parseLong(parts[2].trim()));
-		    Node end2 = DBUtility.getNodebyID(Long.parseLong(parts[3].trim()));
-		    if (start2 != null && end2 != null)
+		}
+		else
+		{
+		    error = "An connector could not be added because one or both elements are missing!";
+		}
+		break;
+	    case "delete single connector":
+		Node start2 = nodes.get(Long.parseLong(parts[2].trim()));
+		Node end2 = nodes.get(Long.parseLong(parts[3].trim()));
+		if (start2 != null && end2 != null)
+		{
+		    RelTypes reltype = RelTypes.getRelTypeForEA(parts[1].trim());
+		    long connectorID = Long.parseLong(parts[0].trim());
+		    boolean wasdeleted = false;
+		    for (Relationship rel : start2.getRelationships(reltype, Direction.OUTGOING))
 		    {
-			try (Transaction tx = DBConnection.getGraphDB().beginTx())
+			long conid = Long.parseLong(rel.getProperty("ConnectorID").toString());
+			if (conid == connectorID && rel.getEndNode().equals(end2))
 			{
-			    RelTypes reltype = RelTypes.getRelTypeForEA(parts[1].trim());
-			    long connectorID = Long.parseLong(parts[0].trim());
-			    if (start2.hasRelationship(reltype, Direction.OUTGOING))
+			    if (reltype.equals(RelTypes.Failure_Propagation))
 			    {
-				boolean wasdeleted = false;
-				for (Relationship rel : start2.getRelationships(reltype, Direction.OUTGOING))
-				{
-				    long conid = Long.parseLong(rel.getProperty("ConnectorID").toString());
-				    if (conid == connectorID && rel.getEndNode().equals(end2))
-				    {
-					if (reltype.equals(RelTypes.Failure_Propagation))
-					{
-					    DBMCSManager.deleteMCSAndResults(end2, false);
-					}
-					rel.delete();
-					wasdeleted = true;
-				    }
-				}
-				if (!wasdeleted)
-				{
-				    error = "An connector could not be deleted because it was not found!";
-				}
-			    }
-			    else
-			    {
-				error = "An connector could not be deleted because it was not found!";
+				invalidation.deleteMCSAndResults(end2, false);
 			    }
-			    tx.success();
+			    rel.delete();
+			    wasdeleted = true;
+			    invalidation.structureChanged();
 			}
 		    }
-		    else
+		    if (!wasdeleted)
 		    {
 			error = "An connector could not be deleted because it was not found!";
 		    }
-		    break;
-		case "update single connector":
-		    Node start3 = DBUtility.getNodebyID(Long.parseLong(parts[2].trim()));
-		    Node end3 = DBUtility.getNodebyID(Long.parseLong(parts[3].trim()));
-		    if (start3 != null && end3 != null)
+		}
+		else
+		{
+		    error = "An connector could not be deleted because it was not found!";
+		}
+		break;
+	    case "update single connector":
+		Node start3 = nodes.get(Long.parseLong(parts[2].trim()));
+		Node end3 = nodes.get(Long.parseLong(parts[3].trim()));
+		if (start3 != null && end3 != null)
+		{
+		    RelTypes reltype = RelTypes.getRelTypeForEA(parts[1].trim());
+		    String connectorID = parts[0].trim();
+		    boolean noChange = false;
+		    if (start3.hasRelationship(reltype, Direction.OUTGOING) && end3.hasRelationship(reltype, Direction.INCOMING))
 		    {
-			try (Transaction tx = DBConnection.getGraphDB().beginTx())
+			for (Relationship rel : start3.getRelationships(reltype, Direction.INCOMING))
 			{
-			    RelTypes reltype = RelTypes.getRelTypeForEA(parts[1].trim());
-			    String connectorID = parts[0].trim();
-			    boolean noChange = false;
-			    if (start3.hasRelationship(reltype, Direction.OUTGOING) && end3.hasRelationship(reltype, Direction.INCOMING))
+			    if (rel.getProperty("ConnectorID").toString().equals(connectorID))
 			    {
-				for (Relationship rel : start3.getRelationships(reltype, Direction.INCOMING))
-				{
-				    if (rel.getProperty("ConnectorID").toString().equals(connectorID))
-				    {
-					noChange = true;
-					break;
-				    }
-				}
-			    }
-			    if (!noChange)
-			    {
-				try
-				{
-				    DBConnection.getGraphDB().execute("MATCH (n)-[rel:" + reltype.name() + "]->(m) WHERE rel.ConnectorID = " + connectorID + " DELETE rel");
-				}
-				catch (QueryExecutionException qe)
-				{
-				    error = "The connector was not in the database before it was updated!";
-				}
-				Relationship newrel = start3.createRelationshipTo(end3, reltype);
-				newrel.setProperty("ConnectorID", Long.parseLong(parts[0].trim()));
-				if (reltype.equals(RelTypes.Failure_Propagation))
-				{
-				    changedNodes.add(end3);
-				}
+				noChange = true;
+				break;
 			    }
-			    tx.success();
 			}
 		    }
-		    else
+		    if (!noChange)
 		    {
-			error = "The connector cannot be update because nodes are missing!";
+			try
+			{
+			    DBConnection.getGraphDB().execute("MATCH (n)-[rel:" + reltype.name() + "]->(m) WHERE rel.ConnectorID = " + connectorID + " DELETE rel");
+			}
+			catch (QueryExecutionException qe)
+			{
+			    error = "The connector was not in the database before it was updated!";
+			}
+			Relationship newrel = start3.createRelationshipTo(end3, reltype);
+			newrel.setProperty("ConnectorID", Long.parseLong(parts[0].trim()));
+			invalidation.structureChanged();
+			if (reltype.equals(RelTypes.Failure_Propagation))
+			{
+			    DBConnection.uncheckedNodes.add(end3);
+			    invalidation.deleteMCSAndResults(end3, false);
+			}
 		    }
-		    break;
-		default:
-		    break;
-	    }
-	    if (!error.equals(""))
-	    {
-		GeneralLogger.log("Error: " + error);
-		PrintUtility.printError(error);
-	    }
-	    for (Node cNode : changedNodes) {
-		DBConnection.uncheckedNodes.add(cNode);
-		DBMCSManager.deleteMCSAndResults(cNode, false);
-	    }
-	    changedNodes.clear();
+		}
+		else
+		{
+		    error = "The connector cannot be update because nodes are missing!";
+		}
+		break;
+	    default:
+		break;
 	}
+	return error;
     }
 
     /**
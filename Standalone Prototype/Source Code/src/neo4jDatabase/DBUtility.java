@@ -1,12 +1,17 @@
 package neo4jDatabase;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 
 import neo4jEnum.NodeLabels;
@@ -326,6 +331,45 @@ public final class DBUtility
 	return inportInsts;
     }
 
+    /**
+     * Returns the outports that are instantiated by the outport instances in the CFT of an outport.
+     * Outports without a CFT and outport instances without an outport are skipped since they are reported by the DBChecker.
+     * @param outport The outport.
+     * @return The outports of the outport instances in the CFT of the outport.
+     */
+    public static HashSet<Node> getInstantiatedOutports(Node outport)
+    {
+	HashSet<Node> outports = new HashSet<Node>();
+	try (Transaction tx = DBConnection.getGraphDB().beginTx())
+	{
+	    Relationship cftRel = outport.getSingleRelationship(RelTypes.Is_Child_Of, Direction.OUTGOING);
+	    if (cftRel != null)
+	    {
+		for (Relationship cftInstanceRel : cftRel.getEndNode().getRelationships(RelTypes.Is_Child_Of, Direction.INCOMING))
+		{
+		    Node cftInstance = cftInstanceRel.getStartNode();
+		    if (cftInstance.hasLabel(NodeLabels.CFT_Instance))
+		    {
+			for (Relationship outportInstanceRel : cftInstance.getRelationships(RelTypes.Is_Child_Of, Direction.INCOMING))
+			{
+			    Node outportInstance = outportInstanceRel.getStartNode();
+			    if (outportInstance.hasLabel(NodeLabels.CFT_Outport_Instance))
+			    {
+				Relationship instanceRel = outportInstance.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING);
+				if (instanceRel != null)
+				{
+				    outports.add(instanceRel.getEndNode());
+				}
+			    }
+			}
+		    }
+		}
+	    }
+	    tx.success();
+	}
+	return outports;
+    }
+
     /**
      * Returns the classifier inport of an inport instance.
      * @param node The inport instance.
@@ -366,6 +410,7 @@ public final class DBUtility
 
     /**
      * Returns true if the database contains MCS. Otherwise false.
+     * The compact MCS are found with the nodes that have their properties since the property keys stay in the database after the properties were removed.
      * @return true if the database contains MCS. Otherwise false.
      */
     public static boolean hasMCS()
@@ -381,11 +426,42 @@ public final class DBUtility
 		    break;
 		}
 	    }
+	    if (!hasMCS)
+	    {
+		boolean hasMCSPropertyKey = false;
+		for (String propertyKey : DBConnection.getGraphDB().getAllPropertyKeys())
+		{
+		    if (propertyKey.equals(DBMCSManager.MCS_PROPERTY) || propertyKey.equals(DBMCSManager.FULL_MCS_PROPERTY))
+		    {
+			hasMCSPropertyKey = true;
+			break;
+		    }
+		}
+		// property keys are never deleted so the nodes that still have the properties must be found
+		if (hasMCSPropertyKey)
+		{
+		    hasMCS = hasResult("MATCH (n:CFT_Outport) WHERE exists(n." + DBMCSManager.MCS_PROPERTY + ") OR exists(n." + DBMCSManager.FULL_MCS_PROPERTY
+			    + ") RETURN n LIMIT 1") || hasResult("MATCH (n:CFT_Inport_Instance) WHERE exists(n." + DBMCSManager.MCS_PROPERTY + ") RETURN n LIMIT 1");
+		}
+	    }
 	    tx.success();
 	}
 	return hasMCS;
     }
 
+    /**
+     * Returns true if the query has a result. Must be called within a transaction.
+     * @param query The query.
+     * @return true if the query has a result. Otherwise false.
+     */
+    private static boolean hasResult(String query)
+    {
+	Result result = DBConnection.getGraphDB().execute(query);
+	boolean hasResult = result.hasNext();
+	result.close();
+	return hasResult;
+    }
+
     /**
      * Returns true if the node is in the set of error nodes.
      * @param node The node.
@@ -414,23 +490,85 @@ public final class DBUtility
 
     /**
      * Return the node with the specified ElementID.
+     * The node id of the ElementID is taken from the DBElementIDCache if it is cached. Otherwise the node is found with the schema index and cached.
      * @param id The specified ElementID.
      * @return The node with the specified ElementID.
      */
     public static Node getNodebyID(long id)
     {
-	Node node;
+	Node node = null;
 	try (Transaction tx = DBConnection.getGraphDB().beginTx())
 	{
-	    node = DBConnection.getGraphDB().findNode(NodeLabels.Neo4J_EA_Element, "ElementID", id);
-	    if (node == null) {
-		node = DBConnection.getGraphDB().findNode(NodeLabels.Neo4J_Generated_Element, "ElementID", id);
+	    long nodeID = DBElementIDCache.get(id);
+	    if (nodeID != -1)
+	    {
+		node = getCachedNode(nodeID, id);
+	    }
+	    if (node == null)
+	    {
+		node = DBConnection.getGraphDB().findNode(NodeLabels.Neo4J_EA_Element, "ElementID", id);
+		if (node == null) {
+		    node = DBConnection.getGraphDB().findNode(NodeLabels.Neo4J_Generated_Element, "ElementID", id);
+		}
+		if (node != null)
+		{
+		    DBElementIDCache.put(id, node.getId());
+		}
 	    }
 	    tx.success();
 	}
 	return node;
     }
 
+    /**
+     * Returns the node of a cached node id if it still has the ElementID. Otherwise the ElementID is removed from the cache.
+     * Must be called within a transaction.
+     * @param nodeID The cached node id.
+     * @param id The ElementID.
+     * @return The node or null if the cached node id is stale.
+     */
+    private static Node getCachedNode(long nodeID, long id)
+    {
+	try
+	{
+	    Node node = DBConnection.getGraphDB().getNodeById(nodeID);
+	    Object elementID = node.getProperty("ElementID", null);
+	    if (elementID instanceof Number && ((Number) elementID).longValue() == id && (node.hasLabel(NodeLabels.Neo4J_EA_Element) || node.hasLabel(NodeLabels.Neo4J_Generated_Element)))
+	    {
+		return node;
+	    }
+	}
+	catch (NotFoundException e)
+	{
+	    // the node was deleted
+	}
+	DBElementIDCache.remove(id);
+	return null;
+    }
+
+    /**
+     * Returns the nodes with the specified ElementIDs. All nodes are found in a single transaction.
+     * @param ids The specified ElementIDs.
+     * @return Maps the ElementIDs to their nodes. ElementIDs without a node are not in the map.
+     */
+    public static HashMap<Long, Node> getNodesByID(Collection<Long> ids)
+    {
+	HashMap<Long, Node> nodes = new HashMap<Long, Node>();
+	try (Transaction tx = DBConnection.getGraphDB().beginTx())
+	{
+	    for (long id : ids)
+	    {
+		Node node = getNodebyID(id);
+		if (node != null)
+		{
+		    nodes.put(id, node);
+		}
+	    }
+	    tx.success();
+	}
+	return nodes;
+    }
+
     /**
      * Clears the database.
      * Deletes all nodes and relationships.
@@ -443,24 +581,31 @@ public final class DBUtility
 	    DBConnection.getGraphDB().execute("MATCH (n) DETACH DELETE n");
 	    tx.success();
 	}
+	DBElementIDCache.clear();
+	DBMCSCache.clear();
+	DBChangeTracker.structureChanged();
 	PrintUtility.printInfo("Neo4j database was successfully cleared!");
     }
 
     /**
      * Deletes all forms of MCS and Quantitative Results.
+     * The nodes are deleted in chunked transactions so this method must not be called within a transaction.
      */
     public static void clearMCS()
     {
 	PrintUtility.printInfo("Clearing Minimal Cut Sets and Quantitative Analysis Results from the Neo4j database...");
+	for (NodeLabels label : new NodeLabels[] { NodeLabels.MCS, NodeLabels.Negated_MCS, NodeLabels.Full_MCS, NodeLabels.Full_Negated_MCS, NodeLabels.Quant_Result })
+	{
+	    DBBatchTransaction.deleteInChunks("Clearing " + label.name() + " nodes from the Neo4j database", "MATCH (n:" + label.name() + ") WITH n LIMIT {limit} DETACH DELETE n RETURN count(n) AS deleted",
+		    Collections.<String, Object> emptyMap());
+	}
 	try (Transaction tx = DBConnection.getGraphDB().beginTx())
 	{
-	    DBConnection.getGraphDB().execute("MATCH (n:MCS) DETACH DELETE n");
-	    DBConnection.getGraphDB().execute("MATCH (n:Negated_MCS) DETACH DELETE n");
-	    DBConnection.getGraphDB().execute("MATCH (n:Full_MCS) DETACH DELETE n");
-	    DBConnection.getGraphDB().execute("MATCH (n:Full_Negated_MCS) DETACH DELETE n");
-	    DBConnection.getGraphDB().execute("MATCH (n:Quant_Result) DETACH DELETE n");
+	    DBConnection.getGraphDB().execute("MATCH (n:CFT_Outport) REMOVE n." + DBMCSManager.MCS_PROPERTY + ", n." + DBMCSManager.FULL_MCS_PROPERTY);
+	    DBConnection.getGraphDB().execute("MATCH (n:CFT_Inport_Instance) REMOVE n." + DBMCSManager.MCS_PROPERTY);
 	    tx.success();
 	}
+	DBMCSCache.clear();
 	PrintUtility.printInfo("Minimal Cut Sets and Quantitative Analysis Results were successfully cleared from the Neo4j database!");
     }
 }
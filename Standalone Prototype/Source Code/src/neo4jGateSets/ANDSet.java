@@ -44,7 +44,7 @@ public class ANDSet extends AbstractGateSet
      * @see MCS
      */
     @Override
-    public void createMCSSet()
+    public synchronized void createMCSSet()
     {
 	if (getMCSSet().isEmpty())
 	{
@@ -83,7 +83,7 @@ public class ANDSet extends AbstractGateSet
      * @see MCS
      */
     @Override
-    public void createNegatedMCSSet()
+    public synchronized void createNegatedMCSSet()
     {
 	if (getNegatedMCSSet().isEmpty())
 	{
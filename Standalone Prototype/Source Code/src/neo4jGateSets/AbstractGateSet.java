@@ -17,7 +17,7 @@ import neo4jMCS.MCS;
 import neo4jMCS.MCSNode;
 import neo4jMCS.MCSPairSet;
 import neo4jMCS.MCSUtility;
-import neo4jTraversal.MainTraversal;
+import neo4jTraversal.AnalysisSession;
 import neo4jUtility.PrintUtility;
 import neo4jUtility.ThreadUtility;
 
@@ -76,19 +76,16 @@ public abstract class AbstractGateSet implements GateSet
 
     /**
      * Copy constructor for the AbstractGateSet.
-     * Copies an existing AbstractGateSet so that all contents are different objects.
+     * Copies an existing AbstractGateSet so that all sets are different objects.
+     * The lower GateSets are shared with the existing AbstractGateSet.
      * @param _gateSet The AbstractGateSet.
      */
     AbstractGateSet(AbstractGateSet _gateSet)
     {
 	nodeSet = new HashSet<Node>(_gateSet.nodeSet);
-	lowerGateSets = new HashSet<GateSet>();
+	lowerGateSets = new HashSet<GateSet>(_gateSet.lowerGateSets);
 	mcsSet = _gateSet.getMCSSetCopy();
 	negatedMCSSet = _gateSet.getNegatedMCSSetCopy();
-	for (GateSet gateSet : _gateSet.lowerGateSets)
-	{
-	    lowerGateSets.add(gateSet.getGateSetCopy());
-	}
 	startElement = _gateSet.startElement;
     }
 
@@ -236,45 +233,72 @@ public abstract class AbstractGateSet implements GateSet
     }
 
     @Override
-    public void connectGateSets(LinkedList<HashMap<Node, Node>> inportMapList)
+    public GateSet connectGateSets(AnalysisSession session, LinkedList<HashMap<Node, Node>> inportMapList)
     {
-	if (MainTraversal.getResultGateSets().size() > 1)
+	if (session.getResultGateSets().size() <= 1)
 	{
-	    for (GateSet gateSet : lowerGateSets)
+	    return this;
+	}
+	AbstractGateSet connectedGateSet = connectLowerGateSets(session, inportMapList);
+	if (!nodeSet.isEmpty() && inportMapList != null && !inportMapList.isEmpty())
+	{
+	    LinkedList<HashMap<Node, Node>> newInportMapList = new LinkedList<HashMap<Node, Node>>(inportMapList);
+	    HashSet<Node> connectionNodes = new HashSet<Node>();
+	    for (Node node : nodeSet)
 	    {
-		gateSet.connectGateSets(inportMapList);
+		if (DBUtility.hasLabel(node, NodeLabels.CFT_Inport) && !session.getInports().contains(node))
+		{
+		    connectionNodes.add(node);
+		}
 	    }
-	    if (!nodeSet.isEmpty() && inportMapList != null && !inportMapList.isEmpty())
+	    if (!connectionNodes.isEmpty())
 	    {
-		LinkedList<HashMap<Node, Node>> newInportMapList = new LinkedList<HashMap<Node, Node>>(inportMapList);
-		HashSet<Node> connectionNodes = new HashSet<Node>();
-		for (Node node : nodeSet)
+		HashMap<Node, Node> inportMap = newInportMapList.removeLast();
+		if (connectedGateSet == this)
 		{
-		    if (DBUtility.hasLabel(node, NodeLabels.CFT_Inport) && !MainTraversal.getInports().contains(node))
-		    {
-			connectionNodes.add(node);
-		    }
+		    connectedGateSet = (AbstractGateSet) getGateSetCopy();
 		}
-		HashSet<GateSet> newGateSets = new HashSet<GateSet>();
 		for (Node node : connectionNodes)
 		{
-		    Node inportInst = newInportMapList.getLast().get(node);
-		    GateSet replacement = MainTraversal.getResultGateSet(inportInst).getGateSetCopy();
-		    nodeSet.remove(node);
-		    addLowerGateSet(replacement);
-		    newGateSets.add(replacement);
-		}
-		newInportMapList.removeLast();
-		for (GateSet gateSet : newGateSets)
-		{
-		    gateSet.connectGateSets(newInportMapList);
+		    Node inportInst = inportMap.get(node);
+		    connectedGateSet.nodeSet.remove(node);
+		    connectedGateSet.addLowerGateSet(session.getResultGateSet(inportInst).getConnectedCopy(session, newInportMapList));
 		}
 	    }
 	}
+	return connectedGateSet;
+    }
+
+    /**
+     * Connects the lower GateSets.
+     * @param session The AnalysisSession that contains the ResultGateSets of the split traversal.
+     * @param inportMapList The list of inport maps.
+     * @return This GateSet if no lower GateSet was connected. Otherwise a copy of this GateSet with the connected lower GateSets.
+     */
+    AbstractGateSet connectLowerGateSets(AnalysisSession session, LinkedList<HashMap<Node, Node>> inportMapList)
+    {
+	HashSet<GateSet> connectedLowerGateSets = new HashSet<GateSet>();
+	boolean connected = false;
+	for (GateSet gateSet : lowerGateSets)
+	{
+	    GateSet connectedLowerGateSet = gateSet.connectGateSets(session, inportMapList);
+	    if (connectedLowerGateSet != gateSet)
+	    {
+		connected = true;
+	    }
+	    connectedLowerGateSets.add(connectedLowerGateSet);
+	}
+	if (!connected)
+	{
+	    return this;
+	}
+	AbstractGateSet connectedGateSet = (AbstractGateSet) getGateSetCopy();
+	connectedGateSet.lowerGateSets = connectedLowerGateSets;
+	return connectedGateSet;
     }
 
     @Override
-    public MCSPairSet connectMCS()
+    public MCSPairSet connectMCS(AnalysisSession session)
     {
 	PrintUtility.printError("The MCS cannot be connected because there is some error!");
 	return null;
@@ -304,6 +328,18 @@ public abstract class AbstractGateSet implements GateSet
 	return startElement;
     }
 
+    @Override
+    public HashSet<Node> getNodeSet()
+    {
+	return nodeSet;
+    }
+
+    @Override
+    public HashSet<GateSet> getLowerGateSets()
+    {
+	return lowerGateSets;
+    }
+
     @Override
     public HashSet<MCS> getMCSSet()
     {
@@ -13,7 +13,7 @@ import neo4jMCS.MCS;
 import neo4jMCS.MCSNode;
 import neo4jMCS.MCSPairSet;
 import neo4jMCS.MCSUtility;
-import neo4jTraversal.MainTraversal;
+import neo4jTraversal.AnalysisSession;
 
 /**
  * The ConnectorGateSet is a GateSet for a Node that represents an Outport Instance or an Inport in a CFT Model.<br>
@@ -52,7 +52,7 @@ public class ConnectorGateSet extends AbstractGateSet
     }
 
     @Override
-    public void createMCSSet()
+    public synchronized void createMCSSet()
     {
 	if (getMCSSet().isEmpty())
 	{
@@ -82,7 +82,7 @@ public class ConnectorGateSet extends AbstractGateSet
     }
 
     @Override
-    public void createNegatedMCSSet()
+    public synchronized void createNegatedMCSSet()
     {
 	if (getNegatedMCSSet().isEmpty())
 	{
@@ -137,7 +137,7 @@ public class ConnectorGateSet extends AbstractGateSet
     }
 
     @Override
-    public void connectGateSets(LinkedList<HashMap<Node, Node>> inportMapList)
+    public GateSet connectGateSets(AnalysisSession session, LinkedList<HashMap<Node, Node>> inportMapList)
     {
 	// Can only be used when the Traversal was split.
 	HashSet<Node> connectionNodes = new HashSet<Node>();
@@ -160,21 +160,23 @@ public class ConnectorGateSet extends AbstractGateSet
 		newInportMapList = new LinkedList<HashMap<Node, Node>>();
 	    }
 	    newInportMapList.addLast(inportMap);
-	    for (Node node : connectionNodes)
+	    ConnectorGateSet connectedGateSet = (ConnectorGateSet) connectLowerGateSets(session, newInportMapList);
+	    if (connectedGateSet == this)
 	    {
-		GateSet replacement = MainTraversal.getResultGateSet(node).getGateSetCopy();
-		nodeSet.remove(node);
-		addLowerGateSet(replacement);
+		connectedGateSet = new ConnectorGateSet(this);
 	    }
-	    for (GateSet gateSet : lowerGateSets)
+	    for (Node node : connectionNodes)
 	    {
-		gateSet.connectGateSets(newInportMapList);
+		connectedGateSet.nodeSet.remove(node);
+		connectedGateSet.addLowerGateSet(session.getResultGateSet(node).getConnectedCopy(session, newInportMapList));
 	    }
+	    return connectedGateSet;
 	}
+	return this;
     }
 
     @Override
-    public MCSPairSet connectMCS()
+    public MCSPairSet connectMCS(AnalysisSession session)
     {
 	if (!mcsConnected)
 	{
@@ -183,13 +185,13 @@ public class ConnectorGateSet extends AbstractGateSet
 	    HashSet<GateSet> inportInstGS = outport.findGateSets(inportMap.values());
 	    for (GateSet gs : inportInstGS)
 	    {
-		MCSPairSet mcsS = gs.connectMCS();
+		MCSPairSet mcsS = gs.connectMCS(session);
 		nextInportMap.put(DBUtility.getInportFromInportInstance(gs.getStartNode()), mcsS);
 	    }
 	    getMCSSet().clear();
 	    getNegatedMCSSet().clear();
-	    getMCSSet().addAll(outport.connectMCS().getMCSSet());
-	    getNegatedMCSSet().addAll(outport.connectMCS().getNegatedMCSSet());
+	    getMCSSet().addAll(outport.connectMCS(session).getMCSSet());
+	    getNegatedMCSSet().addAll(outport.connectMCS(session).getNegatedMCSSet());
 	    for (Node inport : nextInportMap.keySet())
 	    {
 		HashSet<MCS> returnSet = MCSUtility.replaceNodeInMCSSetWithMCSSet(getMCSSet(), inport, nextInportMap.get(inport));
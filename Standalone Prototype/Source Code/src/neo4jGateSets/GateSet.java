@@ -9,6 +9,7 @@ import org.neo4j.graphdb.Node;
 
 import neo4jMCS.MCS;
 import neo4jMCS.MCSPairSet;
+import neo4jTraversal.AnalysisSession;
 
 /**
  * A GateSet is a set of Nodes and a set of lower GateSets. <br>
@@ -40,6 +41,7 @@ public interface GateSet
 
     /**
      * Creates the set of MCS in a GateSet.<br>
+     * The MCS are only created once. The method can be called concurrently for a GateSet that is shared between multiple GateSets.<br>
      */
     public void createMCSSet();
 
@@ -72,15 +74,19 @@ public interface GateSet
 
     /**
      * Connects GateSets.
+     * This GateSet is never modified. Only the GateSets that are connected are copied so unconnected lower GateSets stay shared.
+     * @param session The AnalysisSession that contains the ResultGateSets of the split traversal.
      * @param inportMapList The list of inport maps.
+     * @return This GateSet if nothing was connected. Otherwise a connected copy of this GateSet.
      */
-    public void connectGateSets(LinkedList<HashMap<Node, Node>> inportMapList);
+    public GateSet connectGateSets(AnalysisSession session, LinkedList<HashMap<Node, Node>> inportMapList);
 
     /**
      * Connects MCS of connected GateSets.
+     * @param session The AnalysisSession of the analysis.
      * @return The MCSPairSet which contains the connected MCS.
      */
-    public MCSPairSet connectMCS();
+    public MCSPairSet connectMCS(AnalysisSession session);
 
     /**
      * Finds all lower GateSets that have a start node that is contained in the node collection.
@@ -97,6 +103,21 @@ public interface GateSet
      */
     public Node getStartNode();
 
+    /**
+     * Returns the HashSet of Nodes of the GateSet.<br>
+     * These are the Nodes that are directly connected to the start Node and do not have their own GateSet.<br>
+     * 
+     * @return The HashSet of Nodes of the GateSet.
+     */
+    public HashSet<Node> getNodeSet();
+
+    /**
+     * Returns the HashSet of lower GateSets of the GateSet.<br>
+     * 
+     * @return The HashSet of lower GateSets of the GateSet.
+     */
+    public HashSet<GateSet> getLowerGateSets();
+
     /**
      * Returns the HashSet of MCS of the GateSet.<br>
      * 
@@ -126,9 +147,9 @@ public interface GateSet
     public HashSet<MCS> getNegatedMCSSetCopy();
 
     /**
-     * Returns a deep copy of the GateSet.
-     * All contents are copied so that they can be modified in the copy without affecting the original.
-     * @return a deep copy of the GateSet.
+     * Returns a copy of the GateSet.
+     * The sets of the copy can be modified without affecting the original. The lower GateSets are shared with the original and must not be modified.
+     * @return a copy of the GateSet.
      */
     public GateSet getGateSetCopy();
 
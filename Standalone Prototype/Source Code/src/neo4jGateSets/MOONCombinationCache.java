@@ -0,0 +1,181 @@
+package neo4jGateSets;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import neo4jMCS.MCS;
+
+/**
+ * This class caches the prefix combinations of a MOONSet while the combinations are created in lexicographic order.<br>
+ * A prefix combination of length k + 1 is the combination of the MCS HashSets with the indexes {@code prefix[0]} to {@code prefix[k]}.<br>
+ * The prefixes are compared by their index values and the cache stores one prefix combination per length.<br>
+ * In lexicographic order a prefix can no longer be reused once a combination with a different prefix is requested which is why such prefixes are
+ * evicted.<br>
+ * The number of cached MCS is limited by a budget that can be shared by multiple caches. Prefix combinations that do not fit into the budget are created
+ * again when they are needed.<br>
+ *
+ * @author Kevin Bartik
+ *
+ */
+final class MOONCombinationCache
+{
+
+    /**
+     * The MCS HashSets of the Nodes and GateSets of the MOONSet.<br>
+     */
+    private final ArrayList<HashSet<MCS>> mcsSetList;
+
+    /**
+     * The indexes of the cached prefix.<br>
+     */
+    private final int[] prefix;
+
+    /**
+     * {@code prefixCombinations[k]} is the combination of the prefix from index {@code 0} to {@code k}.<br>
+     */
+    private final ArrayList<HashSet<MCS>> prefixCombinations;
+
+    /**
+     * The number of MCS that can still be cached.<br>
+     */
+    private final AtomicLong remainingBudget;
+
+    /**
+     * The number of cached prefix combinations. Only {@code prefixCombinations[0]} to {@code prefixCombinations[cachedLevels - 1]} are valid.<br>
+     */
+    private int cachedLevels = 0;
+
+    /**
+     * Creates an empty cache.<br>
+     *
+     * @param mcsSetList
+     *            The MCS HashSets of the Nodes and GateSets of the MOONSet.
+     * @param combinationSize
+     *            The number of MCS HashSets in a combination.
+     * @param remainingBudget
+     *            The number of MCS that can still be cached. It is reduced by the cached MCS and increased when they are evicted.
+     */
+    MOONCombinationCache(ArrayList<HashSet<MCS>> mcsSetList, int combinationSize, AtomicLong remainingBudget)
+    {
+	this.mcsSetList = mcsSetList;
+	this.remainingBudget = remainingBudget;
+	prefix = new int[combinationSize];
+	prefixCombinations = new ArrayList<HashSet<MCS>>(combinationSize);
+	for (int i = 0; i < combinationSize; i++)
+	{
+	    prefixCombinations.add(null);
+	}
+    }
+
+    /**
+     * Returns the combination of the MCS HashSets with the specified indexes.<br>
+     * The cached prefix combinations that differ from the indexes are evicted and the new prefix combinations are cached if they fit into the budget.<br>
+     * The full combination is never cached because every combination is only requested once.<br>
+     *
+     * @param indexes
+     *            The ordered indexes of the MCS HashSets. The length is the combination size.
+     * @return The combination.
+     */
+    HashSet<MCS> getCombination(int[] indexes)
+    {
+	int commonLevels = 0;
+	while (commonLevels < cachedLevels && prefix[commonLevels] == indexes[commonLevels])
+	{
+	    commonLevels++;
+	}
+	evict(commonLevels);
+	if (commonLevels == 0)
+	{
+	    // The first level is the MCS HashSet itself so it does not use the budget
+	    prefix[0] = indexes[0];
+	    prefixCombinations.set(0, mcsSetList.get(indexes[0]));
+	    cachedLevels = 1;
+	    commonLevels = 1;
+	}
+	HashSet<MCS> combination = prefixCombinations.get(commonLevels - 1);
+	for (int k = commonLevels; k < indexes.length; k++)
+	{
+	    combination = combine(combination, mcsSetList.get(indexes[k]));
+	    if (k == cachedLevels && k < indexes.length - 1)
+	    {
+		cache(k, indexes[k], combination);
+	    }
+	}
+	return combination;
+    }
+
+    /**
+     * Evicts all cached prefix combinations.<br>
+     */
+    void clear()
+    {
+	evict(0);
+    }
+
+    /**
+     * Caches the prefix combination of length {@code level + 1} if it fits into the budget.<br>
+     *
+     * @param level
+     *            The level of the prefix combination. All lower levels must be cached.
+     * @param index
+     *            The last index of the prefix.
+     * @param combination
+     *            The prefix combination.
+     */
+    private void cache(int level, int index, HashSet<MCS> combination)
+    {
+	if (remainingBudget.addAndGet(-combination.size()) < 0)
+	{
+	    remainingBudget.addAndGet(combination.size());
+	    return;
+	}
+	prefix[level] = index;
+	prefixCombinations.set(level, combination);
+	cachedLevels = level + 1;
+    }
+
+    /**
+     * Evicts all cached prefix combinations with a length higher than {@code levels}.<br>
+     *
+     * @param levels
+     *            The number of prefix combinations that stay in the cache.
+     */
+    private void evict(int levels)
+    {
+	for (int k = levels; k < cachedLevels; k++)
+	{
+	    if (k > 0)
+	    {
+		remainingBudget.addAndGet(prefixCombinations.get(k).size());
+	    }
+	    prefixCombinations.set(k, null);
+	}
+	cachedLevels = Math.min(cachedLevels, levels);
+    }
+
+    /**
+     * Returns the combination of two MCS HashSets. Each MCS of the first MCS HashSet is combined with each MCS of the second MCS HashSet.<br>
+     *
+     * @param mcsSet1
+     *            The first MCS HashSet.
+     * @param mcsSet2
+     *            The second MCS HashSet.
+     * @return The combination.
+     */
+    private static HashSet<MCS> combine(HashSet<MCS> mcsSet1, HashSet<MCS> mcsSet2)
+    {
+	HashSet<MCS> newCombination = new HashSet<MCS>();
+	for (MCS mcs1 : mcsSet1)
+	{
+	    for (MCS mcs2 : mcsSet2)
+	    {
+		MCS newMCS = new MCS(mcs1);
+		newMCS.addMCS(new MCS(mcs2));
+		newCombination.add(newMCS);
+	    }
+	}
+	return newCombination;
+    }
+
+}
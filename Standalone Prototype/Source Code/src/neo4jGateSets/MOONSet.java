@@ -1,12 +1,11 @@
 package neo4jGateSets;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
@@ -14,6 +13,8 @@ import org.neo4j.graphdb.Transaction;
 import neo4jDatabase.DBConnection;
 import neo4jMCS.MCS;
 import neo4jMCS.MCSNode;
+import neo4jUtility.ProbabilityUtility;
+import neo4jUtility.SettingsUtility;
 import neo4jUtility.ThreadUtility;
 
 /**
@@ -70,21 +71,12 @@ public class MOONSet extends AbstractGateSet
      * Here a combination is a set of combined MCS sets.<br>
      * These MCS sets are created from each Node and each GateSet of the MOONSet and saves in an ArrayList of MCS HashSets.<br>
      * The final mcsSet contains all possible combination that have the length {@code moonNumber}.<br>
-     * To save computation time all previously built combinations are stored in a HashMap.<br>
-     * The keys of this HashMap are Integer arrays that store the indexes of the ArrayList of MCS HashSets.<br>
-     * All combinations with 2 or more members are stored in this HashMap.<br>
-     * The implementation also makes use of an index HashMap that maps the index of a combination to the index of the ArrayList of MCS HashMap.<br>
-     * To create all possible combinations the index HashMap is incremented by incrementing the values.<br>
-     * There are moonNumber values in the index HashMap and they are ordered, cannot be equal and the highest value is the highest index of the ArrayList of MCS
-     * HashSets (size - 1).<br>
-     * The values are first incremented by incrementing the the last value until it is the highest value.<br>
-     * Then the previous to last value is incremented and the last value is reduced to that value + 1.<br>
-     * Then the last value is incremented again until it reaches the highest value.<br>
+     * The combinations are created in lexicographic order of the indexes of the ArrayList of MCS HashSets.<br>
      * Example: moonNumber = 3; ArrayList of MCS HashSets has size = 5.<br>
-     * The index Map starts with the values {0, 1, 2} and the next increments would be {0, 1, 3}, {0, 1, 4}, {0, 2, 3}, {0, 2, 4}, {0, 3, 4}, {1, 2, 3}, {1, 2,
-     * 4}, {1, 3, 4}, {2, 3, 4}.<br>
-     * The indexMap is used for creating combinations and each completed combination is added to the mcsSet. <br>
-     * In case multithreading is used the index map are are all created in advance and then the combinations can be created by multiple threads.<br>
+     * The combinations are {0, 1, 2}, {0, 1, 3}, {0, 1, 4}, {0, 2, 3}, {0, 2, 4}, {0, 3, 4}, {1, 2, 3}, {1, 2, 4}, {1, 3, 4}, {2, 3, 4}.<br>
+     * To save computation time the combinations of the prefixes are stored in a {@link MOONCombinationCache}.<br>
+     * In this order a prefix is reused by all following combinations until the prefix changes and is never needed again after that.<br>
+     * In case multithreading is used the combinations are split by their first index and created by multiple threads.<br>
      * If the moonNumber is higher than the number of Nodes and GateSets then a special MCS is added to the MCS Set which essentially makes the evaluation
      * always false.<br>
      * If the moonNumber is 0 or smaller then the same is done except that the MCS always evaluates true.<br>
@@ -94,240 +86,25 @@ public class MOONSet extends AbstractGateSet
      * @see MCS
      */
     @Override
-    public void createMCSSet()
+    public synchronized void createMCSSet()
     {
 	if (getMCSSet().isEmpty())
 	{
 	    createMCSSetInLowerGateSets();
 	    if (moonNumber <= (lowerGateSets.size() + nodeSet.size()) && moonNumber > 0)
 	    {
-		if (!ThreadUtility.getThreadUtility().isMultiThreading()) // No Multithreading
+		ArrayList<HashSet<MCS>> mcsSetList = new ArrayList<HashSet<MCS>>();
+		for (Node node : nodeSet)
 		{
-		    ArrayList<HashSet<MCS>> mcsSetList = new ArrayList<HashSet<MCS>>();
-		    HashMap<int[], HashSet<MCS>> previousCombinations = new HashMap<int[], HashSet<MCS>>(); // Stores previously built combinations of MCS
-													    // HashSets.
-		    for (Node node : nodeSet)
-		    {
-			HashSet<MCS> newMCSSet = new HashSet<MCS>();
-			newMCSSet.add(new MCS(new MCSNode(node, false)));
-			mcsSetList.add(newMCSSet);
-		    }
-		    for (GateSet gateSet : lowerGateSets)
-		    {
-			mcsSetList.add(gateSet.getMCSSet());
-		    }
-		    int listSize = mcsSetList.size();
-		    HashMap<Integer, Integer> indexMap = new HashMap<Integer, Integer>(); // Maps each index of a combination to the index of mcsSetList.
-		    for (int i = 0; i < moonNumber; i++)
-		    {
-			indexMap.put(i, i);
-		    }
-		    boolean lastCombination = false;
-		    while (!lastCombination)
-		    {
-			lastCombination = true;
-			for (int i = 1; i <= moonNumber; i++) // Check if the current combination in the index map is the last combination.
-			{
-			    if (indexMap.get(moonNumber - i) != (listSize - i))
-			    {
-				lastCombination = false;
-				break;
-			    }
-			}
-			HashSet<MCS> combination = mcsSetList.get(indexMap.get(0));
-			for (int i = 1; i < moonNumber; i++)
-			{
-			    int[] prev = new int[i + 1];
-			    for (int j = 0; j <= i; j++)
-			    {
-				prev[j] = indexMap.get(j);
-			    }
-			    if (!previousCombinations.containsKey(prev))
-			    {
-				HashSet<MCS> newCombination = new HashSet<MCS>();
-				HashSet<MCS> nextSet = mcsSetList.get(indexMap.get(i));
-				for (MCS mcs1 : combination)
-				{
-				    for (MCS mcs2 : nextSet)
-				    {
-					MCS newMCS = new MCS(mcs1);
-					newMCS.addMCS(new MCS(mcs2));
-					newCombination.add(newMCS);
-				    }
-				}
-				previousCombinations.put(prev, newCombination);
-			    }
-			    combination = previousCombinations.get(prev);
-			}
-			getMCSSet().addAll(combination);
-			if (!lastCombination)
-			{ // Incrementing the indexMap.
-			    for (int i = 1; i <= moonNumber; i++)
-			    {
-				int k = indexMap.get(moonNumber - i);
-				if (k < (listSize - i))
-				{
-				    indexMap.put(moonNumber - i, k + 1);
-				    break;
-				}
-				else
-				{
-				    int j = indexMap.get(moonNumber - i - 1);
-				    if (j + 2 < k)
-				    {
-					indexMap.put(moonNumber - i, j + 2);
-					int u = 1;
-					for (int y = moonNumber - i + 1; y < moonNumber; y++)
-					{
-					    indexMap.put(y, j + 2 + u);
-					    u++;
-					}
-				    }
-				}
-			    }
-			}
-		    }
+		    HashSet<MCS> newMCSSet = new HashSet<MCS>();
+		    newMCSSet.add(new MCS(new MCSNode(node, false)));
+		    mcsSetList.add(newMCSSet);
 		}
-		else // Multithreading
+		for (GateSet gateSet : lowerGateSets)
 		{
-		    ArrayList<HashSet<MCS>> mcsSetList = new ArrayList<HashSet<MCS>>();
-		    ConcurrentHashMap<int[], HashSet<MCS>> previousCombinations = new ConcurrentHashMap<int[], HashSet<MCS>>(); // Stores previously built //
-																// combinations of MCS HashSets.
-		    for (Node node : nodeSet)
-		    {
-			HashSet<MCS> newMCSSet = new HashSet<MCS>();
-			newMCSSet.add(new MCS(new MCSNode(node, false)));
-			mcsSetList.add(newMCSSet);
-		    }
-		    for (GateSet gateSet : lowerGateSets)
-		    {
-			mcsSetList.add(gateSet.getMCSSet());
-		    }
-		    int listSize = mcsSetList.size();
-		    ArrayList<HashMap<Integer, Integer>> combinationsList = new ArrayList<HashMap<Integer, Integer>>();
-		    HashMap<Integer, Integer> firstIndexMap = new HashMap<Integer, Integer>(); // Maps each index of a combination to the index of mcsSetList.
-		    for (int i = 0; i < moonNumber; i++)
-		    {
-			firstIndexMap.put(i, i);
-		    }
-		    combinationsList.add(firstIndexMap);
-		    boolean lastCombination = false;
-		    while (!lastCombination)
-		    {
-			HashMap<Integer, Integer> nextIndexMap = new HashMap<Integer, Integer>(combinationsList.get(combinationsList.size() - 1));
-			lastCombination = true;
-			for (int i = 1; i <= moonNumber; i++) // Check if the current combination in the index map is the last combination.
-			{
-			    if (nextIndexMap.get(moonNumber - i) != (listSize - i))
-			    {
-				lastCombination = false;
-				break;
-			    }
-			}
-			if (!lastCombination)
-			{ // Incrementing the indexMap.
-			    for (int i = 1; i <= moonNumber; i++)
-			    {
-				int k = nextIndexMap.get(moonNumber - i);
-				if (k < (listSize - i))
-				{
-				    nextIndexMap.put(moonNumber - i, k + 1);
-				    break;
-				}
-				else
-				{
-				    int j = nextIndexMap.get(moonNumber - i - 1);
-				    if (j + 2 < k)
-				    {
-					nextIndexMap.put(moonNumber - i, j + 2);
-					int u = 1;
-					for (int y = moonNumber - i + 1; y < moonNumber; y++)
-					{
-					    nextIndexMap.put(y, j + 2 + u);
-					    u++;
-					}
-				    }
-				}
-			    }
-			}
-			combinationsList.add(nextIndexMap);
-		    }
-		    Set<MCS> finalSet = ConcurrentHashMap.newKeySet();
-		    Set<Future<?>> futureSet = new HashSet<Future<?>>();
-		    Collections.shuffle(combinationsList); // Improves performance because previous combinations are saved.
-		    // If Threads start with random index maps the chance is higher that previous combinations are reused and Threads don't create equal
-		    // combinations at the same time.
-		    for (HashMap<Integer, Integer> indexMap : combinationsList)
-		    {
-			if (combinationsList.size() != 1 && ThreadUtility.getThreadUtility().isThreadAvailable())
-			{
-			    futureSet.add(ThreadUtility.getThreadUtility().submitTask(new Runnable()
-			    {
-				@Override
-				public void run()
-				{
-				    HashSet<MCS> combination = mcsSetList.get(indexMap.get(0));
-				    for (int i = 1; i < moonNumber; i++)
-				    {
-					int[] prev = new int[i + 1];
-					for (int j = 0; j <= i; j++)
-					{
-					    prev[j] = indexMap.get(j);
-					}
-					if (!previousCombinations.containsKey(prev))
-					{
-					    HashSet<MCS> newCombination = new HashSet<MCS>();
-					    HashSet<MCS> nextSet = mcsSetList.get(indexMap.get(i));
-					    for (MCS mcs1 : combination)
-					    {
-						for (MCS mcs2 : nextSet)
-						{
-						    MCS newMCS = new MCS(mcs1);
-						    newMCS.addMCS(new MCS(mcs2));
-						    newCombination.add(newMCS);
-						}
-					    }
-					    previousCombinations.put(prev, newCombination);
-					}
-					combination = previousCombinations.get(prev);
-				    }
-				    finalSet.addAll(combination);
-				}
-			    }));
-			}
-			else
-			{
-			    HashSet<MCS> combination = mcsSetList.get(indexMap.get(0));
-			    for (int i = 1; i < moonNumber; i++)
-			    {
-				int[] prev = new int[i + 1];
-				for (int j = 0; j <= i; j++)
-				{
-				    prev[j] = indexMap.get(j);
-				}
-				if (!previousCombinations.containsKey(prev))
-				{
-				    HashSet<MCS> newCombination = new HashSet<MCS>();
-				    HashSet<MCS> nextSet = mcsSetList.get(indexMap.get(i));
-				    for (MCS mcs1 : combination)
-				    {
-					for (MCS mcs2 : nextSet)
-					{
-					    MCS newMCS = new MCS(mcs1);
-					    newMCS.addMCS(new MCS(mcs2));
-					    newCombination.add(newMCS);
-					}
-				    }
-				    previousCombinations.put(prev, newCombination);
-				}
-				combination = previousCombinations.get(prev);
-			    }
-			    finalSet.addAll(combination);
-			}
-		    }
-		    ThreadUtility.getThreadUtility().waitForSubmittedTasksToFinish(futureSet);
-		    getMCSSet().addAll(finalSet);
+		    mcsSetList.add(gateSet.getMCSSet());
 		}
+		addAllCombinations(mcsSetList, moonNumber, getMCSSet());
 	    }
 	    else
 	    {
@@ -350,7 +127,7 @@ public class MOONSet extends AbstractGateSet
      * Creates HashSet of negated MCS.
      */
     @Override
-    public void createNegatedMCSSet()
+    public synchronized void createNegatedMCSSet()
     {
 	if (getNegatedMCSSet().isEmpty())
 	{
@@ -358,236 +135,19 @@ public class MOONSet extends AbstractGateSet
 	    if (moonNumber <= (lowerGateSets.size() + nodeSet.size()) && moonNumber > 0)
 	    {
 		int negatedMoonNumber = lowerGateSets.size() + nodeSet.size() + 1 - moonNumber;
-		if (!ThreadUtility.getThreadUtility().isMultiThreading()) // No Multithreading
+		ArrayList<HashSet<MCS>> mcsSetList = new ArrayList<HashSet<MCS>>();
+		for (Node node : nodeSet)
 		{
-		    ArrayList<HashSet<MCS>> mcsSetList = new ArrayList<HashSet<MCS>>();
-		    HashMap<int[], HashSet<MCS>> previousCombinations = new HashMap<int[], HashSet<MCS>>(); // Stores previously built combinations of MCS
-													    // HashSets.
-		    for (Node node : nodeSet)
-		    {
-			HashSet<MCS> newMCSSet = new HashSet<MCS>();
-			MCS negatedMCS = new MCS(new MCSNode(node, true));
-			newMCSSet.add(negatedMCS);
-			mcsSetList.add(newMCSSet);
-		    }
-		    for (GateSet gateSet : lowerGateSets)
-		    {
-			mcsSetList.add(gateSet.getNegatedMCSSet());
-		    }
-		    int listSize = mcsSetList.size();
-		    HashMap<Integer, Integer> indexMap = new HashMap<Integer, Integer>(); // Maps each index of a combination to the index of mcsSetList.
-		    for (int i = 0; i < negatedMoonNumber; i++)
-		    {
-			indexMap.put(i, i);
-		    }
-		    boolean lastCombination = false;
-		    while (!lastCombination)
-		    {
-
-			lastCombination = true;
-			for (int i = 1; i <= negatedMoonNumber; i++) // Check if the current combination in the index map is the last combination.
-			{
-			    if (indexMap.get(negatedMoonNumber - i) != (listSize - i))
-			    {
-				lastCombination = false;
-				break;
-			    }
-			}
-			HashSet<MCS> combination = mcsSetList.get(indexMap.get(0));
-			for (int i = 1; i < negatedMoonNumber; i++)
-			{
-			    int[] prev = new int[i + 1];
-			    for (int j = 0; j <= i; j++)
-			    {
-				prev[j] = indexMap.get(j);
-			    }
-			    if (!previousCombinations.containsKey(prev))
-			    {
-				HashSet<MCS> newCombination = new HashSet<MCS>();
-				HashSet<MCS> nextSet = mcsSetList.get(indexMap.get(i));
-				for (MCS mcs1 : combination)
-				{
-				    for (MCS mcs2 : nextSet)
-				    {
-					MCS newMCS = new MCS(mcs1);
-					newMCS.addMCS(new MCS(mcs2));
-					newCombination.add(newMCS);
-				    }
-				}
-				previousCombinations.put(prev, newCombination);
-			    }
-			    combination = previousCombinations.get(prev);
-			}
-			getNegatedMCSSet().addAll(combination);
-			if (!lastCombination)
-			{ // Incrementing the indexMap.
-			    for (int i = 1; i <= negatedMoonNumber; i++)
-			    {
-				int k = indexMap.get(negatedMoonNumber - i);
-				if (k < (listSize - i))
-				{
-				    indexMap.put(negatedMoonNumber - i, k + 1);
-				    break;
-				}
-				else
-				{
-				    int j = indexMap.get(negatedMoonNumber - i - 1);
-				    if (j + 2 < k)
-				    {
-					indexMap.put(negatedMoonNumber - i, j + 2);
-					int u = 1;
-					for (int y = negatedMoonNumber - i + 1; y < negatedMoonNumber; y++)
-					{
-					    indexMap.put(y, j + 2 + u);
-					    u++;
-					}
-				    }
-				}
-			    }
-			}
-		    }
+		    HashSet<MCS> newMCSSet = new HashSet<MCS>();
+		    MCS negatedMCS = new MCS(new MCSNode(node, true));
+		    newMCSSet.add(negatedMCS);
+		    mcsSetList.add(newMCSSet);
 		}
-		else // Multithreading
+		for (GateSet gateSet : lowerGateSets)
 		{
-		    ArrayList<HashSet<MCS>> mcsSetList = new ArrayList<HashSet<MCS>>();
-		    ConcurrentHashMap<int[], HashSet<MCS>> previousCombinations = new ConcurrentHashMap<int[], HashSet<MCS>>(); // Stores previously built
-																// combinations of MCS HashSets.
-		    for (Node node : nodeSet)
-		    {
-			HashSet<MCS> newMCSSet = new HashSet<MCS>();
-			MCS negatedMCS = new MCS(new MCSNode(node, true));
-			newMCSSet.add(negatedMCS);
-			mcsSetList.add(newMCSSet);
-		    }
-		    for (GateSet gateSet : lowerGateSets)
-		    {
-			mcsSetList.add(gateSet.getNegatedMCSSet());
-		    }
-		    int listSize = mcsSetList.size();
-		    ArrayList<HashMap<Integer, Integer>> combinationsList = new ArrayList<HashMap<Integer, Integer>>();
-		    HashMap<Integer, Integer> firstIndexMap = new HashMap<Integer, Integer>(); // Maps each index of a combination to the index of mcsSetList.
-		    for (int i = 0; i < negatedMoonNumber; i++)
-		    {
-			firstIndexMap.put(i, i);
-		    }
-		    combinationsList.add(firstIndexMap);
-		    boolean lastCombination = false;
-		    while (!lastCombination)
-		    {
-			HashMap<Integer, Integer> nextIndexMap = new HashMap<Integer, Integer>(combinationsList.get(combinationsList.size() - 1));
-			lastCombination = true;
-			for (int i = 1; i <= negatedMoonNumber; i++) // Check if the current combination in the index map is the last combination.
-			{
-			    if (nextIndexMap.get(negatedMoonNumber - i) != (listSize - i))
-			    {
-				lastCombination = false;
-				break;
-			    }
-			}
-			if (!lastCombination)
-			{ // Incrementing the indexMap.
-			    for (int i = 1; i <= negatedMoonNumber; i++)
-			    {
-				int k = nextIndexMap.get(negatedMoonNumber - i);
-				if (k < (listSize - i))
-				{
-				    nextIndexMap.put(negatedMoonNumber - i, k + 1);
-				    break;
-				}
-				else
-				{
-				    int j = nextIndexMap.get(negatedMoonNumber - i - 1);
-				    if (j + 2 < k)
-				    {
-					nextIndexMap.put(negatedMoonNumber - i, j + 2);
-					int u = 1;
-					for (int y = negatedMoonNumber - i + 1; y < negatedMoonNumber; y++)
-					{
-					    nextIndexMap.put(y, j + 2 + u);
-					    u++;
-					}
-				    }
-				}
-			    }
-			}
-			combinationsList.add(nextIndexMap);
-		    }
-		    Set<MCS> finalSet = ConcurrentHashMap.newKeySet();
-		    Set<Future<?>> futureSet = new HashSet<Future<?>>();
-		    Collections.shuffle(combinationsList); // Improves performance because previous combinations are saved.
-		    // If Threads start with random index maps the chance is higher that previous combinations are reused and Threads don't create equal
-		    // combinations at the same time.
-		    for (HashMap<Integer, Integer> indexMap : combinationsList)
-		    {
-			if (combinationsList.size() != 1 && ThreadUtility.getThreadUtility().isThreadAvailable())
-			{
-			    futureSet.add(ThreadUtility.getThreadUtility().submitTask(new Runnable()
-			    {
-				@Override
-				public void run()
-				{
-				    HashSet<MCS> combination = mcsSetList.get(indexMap.get(0));
-				    for (int i = 1; i < negatedMoonNumber; i++)
-				    {
-					int[] prev = new int[i + 1];
-					for (int j = 0; j <= i; j++)
-					{
-					    prev[j] = indexMap.get(j);
-					}
-					if (!previousCombinations.containsKey(prev))
-					{
-					    HashSet<MCS> newCombination = new HashSet<MCS>();
-					    HashSet<MCS> nextSet = mcsSetList.get(indexMap.get(i));
-					    for (MCS mcs1 : combination)
-					    {
-						for (MCS mcs2 : nextSet)
-						{
-						    MCS newMCS = new MCS(mcs1);
-						    newMCS.addMCS(new MCS(mcs2));
-						    newCombination.add(newMCS);
-						}
-					    }
-					    previousCombinations.put(prev, newCombination);
-					}
-					combination = previousCombinations.get(prev);
-				    }
-				    finalSet.addAll(combination);
-				}
-			    }));
-			}
-			else
-			{
-			    HashSet<MCS> combination = mcsSetList.get(indexMap.get(0));
-			    for (int i = 1; i < negatedMoonNumber; i++)
-			    {
-				int[] prev = new int[i + 1];
-				for (int j = 0; j <= i; j++)
-				{
-				    prev[j] = indexMap.get(j);
-				}
-				if (!previousCombinations.containsKey(prev))
-				{
-				    HashSet<MCS> newCombination = new HashSet<MCS>();
-				    HashSet<MCS> nextSet = mcsSetList.get(indexMap.get(i));
-				    for (MCS mcs1 : combination)
-				    {
-					for (MCS mcs2 : nextSet)
-					{
-					    MCS newMCS = new MCS(mcs1);
-					    newMCS.addMCS(new MCS(mcs2));
-					    newCombination.add(newMCS);
-					}
-				    }
-				    previousCombinations.put(prev, newCombination);
-				}
-				combination = previousCombinations.get(prev);
-			    }
-			    finalSet.addAll(combination);
-			}
-		    }
-		    ThreadUtility.getThreadUtility().waitForSubmittedTasksToFinish(futureSet);
-		    getNegatedMCSSet().addAll(finalSet);
+		    mcsSetList.add(gateSet.getNegatedMCSSet());
 		}
+		addAllCombinations(mcsSetList, negatedMoonNumber, getNegatedMCSSet());
 	    }
 	    else
 	    {
@@ -603,20 +163,142 @@ public class MOONSet extends AbstractGateSet
 	}
     }
 
+    /**
+     * Adds all combinations of {@code combinationSize} MCS HashSets from the list to the target MCS HashSet.<br>
+     * The combinations are created in lexicographic order of their indexes so the prefix combinations can be reused by a {@link MOONCombinationCache}.<br>
+     * In case multithreading is used all combinations with the same first index are created by one task with its own cache.<br>
+     * All caches share the budget {@link SettingsUtility#getMaxCachedMOONCombinationMCS()}.<br>
+     * 
+     * @param mcsSetList
+     *            The MCS HashSets of the Nodes and GateSets.
+     * @param combinationSize
+     *            The number of MCS HashSets in a combination.
+     * @param targetSet
+     *            The MCS HashSet to which the combinations are added.
+     */
+    private static void addAllCombinations(ArrayList<HashSet<MCS>> mcsSetList, int combinationSize, HashSet<MCS> targetSet)
+    {
+	int listSize = mcsSetList.size();
+	AtomicLong remainingBudget = new AtomicLong(SettingsUtility.getMaxCachedMOONCombinationMCS());
+	if (!ThreadUtility.getThreadUtility().isMultiThreading()) // No Multithreading
+	{
+	    MOONCombinationCache cache = new MOONCombinationCache(mcsSetList, combinationSize, remainingBudget);
+	    int[] indexes = getFirstCombination(0, combinationSize);
+	    do
+	    {
+		targetSet.addAll(cache.getCombination(indexes));
+	    }
+	    while (incrementCombination(indexes, listSize));
+	}
+	else // Multithreading
+	{
+	    Set<MCS> finalSet = ConcurrentHashMap.newKeySet();
+	    Set<Future<?>> futureSet = new HashSet<Future<?>>();
+	    for (int firstIndex = 0; firstIndex <= listSize - combinationSize; firstIndex++)
+	    {
+		int[] indexes = getFirstCombination(firstIndex, combinationSize);
+		if (firstIndex != listSize - combinationSize && ThreadUtility.getThreadUtility().isThreadAvailable())
+		{
+		    futureSet.add(ThreadUtility.getThreadUtility().submitTask(new Runnable()
+		    {
+			@Override
+			public void run()
+			{
+			    addCombinationsWithFirstIndex(mcsSetList, indexes, new MOONCombinationCache(mcsSetList, combinationSize, remainingBudget), finalSet);
+			}
+		    }));
+		}
+		else
+		{
+		    addCombinationsWithFirstIndex(mcsSetList, indexes, new MOONCombinationCache(mcsSetList, combinationSize, remainingBudget), finalSet);
+		}
+	    }
+	    ThreadUtility.getThreadUtility().waitForSubmittedTasksToFinish(futureSet);
+	    targetSet.addAll(finalSet);
+	}
+    }
+
+    /**
+     * Adds all combinations that start with the first index of the specified indexes to the target Set.<br>
+     * The cache is cleared afterwards so its MCS are returned to the budget.<br>
+     * 
+     * @param mcsSetList
+     *            The MCS HashSets of the Nodes and GateSets.
+     * @param indexes
+     *            The first combination with the first index.
+     * @param cache
+     *            The cache that is used by this task.
+     * @param targetSet
+     *            The Set to which the combinations are added.
+     */
+    private static void addCombinationsWithFirstIndex(ArrayList<HashSet<MCS>> mcsSetList, int[] indexes, MOONCombinationCache cache, Set<MCS> targetSet)
+    {
+	int firstIndex = indexes[0];
+	do
+	{
+	    targetSet.addAll(cache.getCombination(indexes));
+	}
+	while (incrementCombination(indexes, mcsSetList.size()) && indexes[0] == firstIndex);
+	cache.clear();
+    }
+
+    /**
+     * Returns the first combination in lexicographic order that starts with the specified index.<br>
+     * 
+     * @param firstIndex
+     *            The first index.
+     * @param combinationSize
+     *            The number of indexes.
+     * @return The indexes {firstIndex, firstIndex + 1, ..., firstIndex + combinationSize - 1}.
+     */
+    private static int[] getFirstCombination(int firstIndex, int combinationSize)
+    {
+	int[] indexes = new int[combinationSize];
+	for (int i = 0; i < combinationSize; i++)
+	{
+	    indexes[i] = firstIndex + i;
+	}
+	return indexes;
+    }
+
+    /**
+     * Increments the indexes to the next combination in lexicographic order.<br>
+     * Example: combinationSize = 3; listSize = 5.<br>
+     * The combinations are {0, 1, 2}, {0, 1, 3}, {0, 1, 4}, {0, 2, 3}, {0, 2, 4}, {0, 3, 4}, {1, 2, 3}, {1, 2, 4}, {1, 3, 4}, {2, 3, 4}.<br>
+     * 
+     * @param indexes
+     *            The ordered indexes that are incremented.
+     * @param listSize
+     *            The number of MCS HashSets.
+     * @return False if the indexes were the last combination. Otherwise true.
+     */
+    private static boolean incrementCombination(int[] indexes, int listSize)
+    {
+	int combinationSize = indexes.length;
+	for (int i = combinationSize - 1; i >= 0; i--)
+	{
+	    if (indexes[i] < listSize - combinationSize + i)
+	    {
+		indexes[i]++;
+		for (int j = i + 1; j < combinationSize; j++)
+		{
+		    indexes[j] = indexes[j - 1] + 1;
+		}
+		return true;
+	    }
+	}
+	return false;
+    }
+
     /**
      * {@inheritDoc}<br>
      * <br>
      * MOONSet Description:<br>
-     * Adds the Probability of all Nodes and GateSets to an ArrayList.<br>
-     * An index map is used to create combinations.<br>
-     * However in this case a combination always contains all probabilities but some are negated.<br>
-     * The number of negated probabilities is the size of the list of all probabilities minus the {@code moonNumber} which is here called
-     * {@code inverseMoonNumber}.<br>
-     * The index map stores {@code inverseMoonNumber} indexes and otherwise works the same way as in {@code refineMCSSet()}.<br>
-     * The combinations are created by multiplying probabilities from the ArrayList and negating any probabilities whose index is in the index maps values
-     * before multiplication.<br>
-     * Each {@code result} from a combination is added to the {@code finalResult} which has an initial value of {@code 0}.<br>
-     * If the ArrayList is empty then {@code 0} is returned.<br>
+     * Adds the Probability of all Nodes and GateSets to an array.<br>
+     * The result is the probability that exactly {@code moonNumber} of the Nodes and GateSets occur.<br>
+     * It is calculated by {@link ProbabilityUtility#calculateExactlyMProbability(double[], int)} without creating the combinations.<br>
+     * The result is the same as the sum of the probabilities of every combination with exactly {@code moonNumber} occurring Nodes and GateSets.<br>
+     * If the array is empty then {@code 0} is returned.<br>
      * If the {@code moonNumber} is higher than the number of Nodes and GateSets then {@code 0} is returned.<br>
      * If the {@code moonNumber} is {@code 0} or smaller then {@code 1} is returned.<br>
      */
@@ -636,76 +318,26 @@ public class MOONSet extends AbstractGateSet
 	{
 	    listOfProbs.add(gateSet.calculateBasicFailureProbability());
 	}
-	int listSize = listOfProbs.size();
-	if (listSize == 0)
+	if (listOfProbs.isEmpty())
 	{
 	    return 0;
 	}
-	int inverseMoonNumber = listSize - moonNumber;
-	HashMap<Integer, Integer> indexMap = new HashMap<Integer, Integer>();
-	for (int i = 0; i < inverseMoonNumber; i++)
-	{
-	    indexMap.put(i, i);
-	}
-	ArrayList<Double> listOfCombinationProbabilities = new ArrayList<Double>();
-	boolean lastCombination = false;
-	while (!lastCombination)
-	{
-	    double probabilityOfCombination = 1;
-	    for (int i = 0; i < listSize; i++)
-	    {
-		if (indexMap.containsValue(i))
-		{
-		    probabilityOfCombination *= (1 - listOfProbs.get(i));
-		}
-		else
-		{
-		    probabilityOfCombination *= listOfProbs.get(i);
-		}
-	    }
-	    listOfCombinationProbabilities.add(probabilityOfCombination);
-	    lastCombination = true;
-	    for (int i = 1; i <= inverseMoonNumber; i++)
-	    {
-		if (indexMap.get(inverseMoonNumber - i) != (listSize - i))
-		{
-		    lastCombination = false;
-		    break;
-		}
-	    }
-	    if (!lastCombination)
-	    {
-		for (int i = 1; i <= inverseMoonNumber; i++)
-		{
-		    int k = indexMap.get(inverseMoonNumber - i);
-		    if (k < (listSize - i))
-		    {
-			indexMap.put(inverseMoonNumber - i, k + 1);
-			break;
-		    }
-		    else
-		    {
-			int j = indexMap.get(inverseMoonNumber - i - 1);
-			if (j + 2 < k)
-			{
-			    indexMap.put(inverseMoonNumber - i, j + 2);
-			    int u = 1;
-			    for (int y = inverseMoonNumber - i + 1; y < inverseMoonNumber; y++)
-			    {
-				indexMap.put(y, j + 2 + u);
-				u++;
-			    }
-			}
-		    }
-		}
-	    }
-	}
-	double finalResult = 0;
-	for (double result : listOfCombinationProbabilities)
+	double[] probabilities = new double[listOfProbs.size()];
+	for (int i = 0; i < probabilities.length; i++)
 	{
-	    finalResult += result;
+	    probabilities[i] = listOfProbs.get(i);
 	}
-	return finalResult;
+	return ProbabilityUtility.calculateExactlyMProbability(probabilities, moonNumber);
+    }
+
+    /**
+     * Returns the {@code moonNumber} which is the M (from M out of N).<br>
+     * 
+     * @return The {@code moonNumber}.
+     */
+    public int getMOONNumber()
+    {
+	return moonNumber;
     }
 
     @Override
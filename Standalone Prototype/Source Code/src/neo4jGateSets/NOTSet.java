@@ -42,7 +42,7 @@ public class NOTSet extends AbstractGateSet
      * @see MCS
      */
     @Override
-    public void createMCSSet()
+    public synchronized void createMCSSet()
     {
 	if (getMCSSet().isEmpty())
 	{
@@ -68,7 +68,7 @@ public class NOTSet extends AbstractGateSet
      * @see MCS
      */
     @Override
-    public void createNegatedMCSSet()
+    public synchronized void createNegatedMCSSet()
     {
 	if (getNegatedMCSSet().isEmpty())
 	{
@@ -46,7 +46,7 @@ public class ORSet extends AbstractGateSet
      * @see MCS
      */
     @Override
-    public void createMCSSet()
+    public synchronized void createMCSSet()
     {
 	if (getMCSSet().isEmpty())
 	{
@@ -74,7 +74,7 @@ public class ORSet extends AbstractGateSet
      * @see MCS
      */
     @Override
-    public void createNegatedMCSSet()
+    public synchronized void createNegatedMCSSet()
     {
 	if (getNegatedMCSSet().isEmpty())
 	{
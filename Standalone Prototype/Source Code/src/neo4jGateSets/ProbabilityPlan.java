@@ -0,0 +1,485 @@
+package neo4jGateSets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.TreeMap;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import neo4jDatabase.DBChangeTracker;
+import neo4jDatabase.DBConnection;
+import neo4jUtility.ProbabilityUtility;
+
+/**
+ * A ProbabilityPlan is a compiled form of the probability calculation of a GateSet.<br>
+ * The GateSets are compiled into a DAG of gate instructions that is stored in topological order in flat arrays.<br>
+ * Every instruction reads its operands from a register file and writes its result into its own register.<br>
+ * The first registers contain the probabilities of the events (the Nodes of the GateSets) and the following registers the results of the instructions.<br>
+ * A GateSet that is contained more than once and GateSets with the same gate type and the same operands are compiled into a single instruction so
+ * shared subtrees are only calculated once.<br>
+ * The probabilities of the events are loaded in one transaction and only the probabilities that were changed are loaded again before the plan is evaluated.<br>
+ * The evaluation only creates objects when the changed probabilities are loaded and when a MOON instruction with many operands is calculated with a FFT
+ * (see {@link ProbabilityUtility#calculateExactlyMProbability(double[], int, int, double[])}). The plan stays valid as long as the structure of the CFTs is
+ * not changed.<br>
+ * The result is the same as the result of {@link GateSet#calculateBasicFailureProbability()} of the compiled GateSet.<br>
+ *
+ * @see DBChangeTracker
+ *
+ * @author Kevin Bartik
+ *
+ */
+public final class ProbabilityPlan
+{
+
+    private static final int AND = 1;
+
+    private static final int OR = 2;
+
+    private static final int NOT = 3;
+
+    private static final int XOR = 4;
+
+    private static final int MOON = 5;
+
+    private static final int CONNECTOR = 6;
+
+    private static final int RESULT = 7;
+
+    /**
+     * The events of the plan. The probability of event i is stored in register i.<br>
+     */
+    private final Node[] events;
+
+    /**
+     * The sorted node ids of the events.<br>
+     */
+    private final long[] eventNodeIDs;
+
+    /**
+     * The register of the event with the node id at the same position in {@link #eventNodeIDs}.<br>
+     */
+    private final int[] eventNodeRegisters;
+
+    /**
+     * The register file. Contains the probabilities of the events followed by the results of the instructions.<br>
+     */
+    private final double[] registers;
+
+    /**
+     * The gate types of the instructions.<br>
+     */
+    private final int[] opCodes;
+
+    /**
+     * The moonNumber of MOON instructions. Unused by all other instructions.<br>
+     */
+    private final int[] opParameters;
+
+    /**
+     * The operand registers of instruction i are {@code operands[operandStarts[i]]} to {@code operands[operandStarts[i + 1] - 1]}.<br>
+     */
+    private final int[] operandStarts;
+
+    /**
+     * The registers of the operands of all instructions.<br>
+     */
+    private final int[] operands;
+
+    /**
+     * The inputs of a MOON instruction are copied into this array.<br>
+     */
+    private final double[] moonInputs;
+
+    /**
+     * The coefficients of the calculation of a MOON instruction.<br>
+     */
+    private final double[] moonCoefficients;
+
+    /**
+     * The number of GateSets that were compiled into an existing instruction.<br>
+     */
+    private final int sharedGateSets;
+
+    /**
+     * The structure version when the GateSet was created.<br>
+     */
+    private final long structureVersion;
+
+    /**
+     * The probability version when the probabilities of the events were loaded.<br>
+     */
+    private long probabilityVersion;
+
+    private ProbabilityPlan(Compiler compiler, long _structureVersion)
+    {
+	events = compiler.events.toArray(new Node[compiler.events.size()]);
+	eventNodeIDs = new long[events.length];
+	eventNodeRegisters = new int[events.length];
+	int eventPosition = 0;
+	for (Long nodeID : new TreeMap<Long, Integer>(compiler.eventRegisters).keySet())
+	{
+	    eventNodeIDs[eventPosition] = nodeID;
+	    eventNodeRegisters[eventPosition++] = compiler.eventRegisters.get(nodeID);
+	}
+	int opCount = compiler.instructions.size();
+	int operandCount = 0;
+	int maxMOONInputs = 0;
+	for (int[] instruction : compiler.instructions)
+	{
+	    operandCount += instruction.length - 2;
+	    if (instruction[0] == MOON)
+	    {
+		maxMOONInputs = Math.max(maxMOONInputs, instruction.length - 2);
+	    }
+	}
+	registers = new double[events.length + opCount];
+	opCodes = new int[opCount];
+	opParameters = new int[opCount];
+	operandStarts = new int[opCount + 1];
+	operands = new int[operandCount];
+	int position = 0;
+	for (int i = 0; i < opCount; i++)
+	{
+	    int[] instruction = compiler.instructions.get(i);
+	    opCodes[i] = instruction[0];
+	    opParameters[i] = instruction[1];
+	    operandStarts[i] = position;
+	    for (int j = 2; j < instruction.length; j++)
+	    {
+		// instructions refer to the results of other instructions by their index so the events are placed before them
+		operands[position++] = instruction[j] < 0 ? events.length - instruction[j] - 1 : instruction[j];
+	    }
+	}
+	operandStarts[opCount] = position;
+	moonInputs = new double[maxMOONInputs];
+	moonCoefficients = new double[maxMOONInputs / 2 + 1];
+	sharedGateSets = compiler.sharedGateSets;
+	structureVersion = _structureVersion;
+	probabilityVersion = DBChangeTracker.getProbabilityVersion();
+	loadProbabilities(null);
+    }
+
+    /**
+     * Compiles the probability calculation of the GateSet.<br>
+     * The GateSet must be connected if the traversal was split.<br>
+     *
+     * @param gateSet
+     *            The GateSet.
+     * @param structureVersion
+     *            The structure version before the GateSet was created by the traversal.
+     * @return The ProbabilityPlan or null if the GateSet contains an unknown GateSet type.
+     */
+    public static ProbabilityPlan compile(GateSet gateSet, long structureVersion)
+    {
+	Compiler compiler = new Compiler();
+	if (compiler.compile(gateSet) == 0)
+	{
+	    return null;
+	}
+	return new ProbabilityPlan(compiler, structureVersion);
+    }
+
+    /**
+     * Returns true if the structure of the CFTs was not changed since the GateSet was created.<br>
+     *
+     * @return True if the plan can be evaluated. Otherwise false.
+     */
+    public boolean isValid()
+    {
+	return structureVersion == DBChangeTracker.getStructureVersion();
+    }
+
+    /**
+     * Returns the number of events of the plan.<br>
+     *
+     * @return The number of events.
+     */
+    public int getEventCount()
+    {
+	return events.length;
+    }
+
+    /**
+     * Returns the number of instructions of the plan.<br>
+     *
+     * @return The number of instructions.
+     */
+    public int getOperationCount()
+    {
+	return opCodes.length;
+    }
+
+    /**
+     * Returns the number of GateSets that were not compiled into their own instruction because an equal GateSet was already compiled.<br>
+     *
+     * @return The number of shared GateSets.
+     */
+    public int getSharedGateSetCount()
+    {
+	return sharedGateSets;
+    }
+
+    /**
+     * Loads the changed probabilities of the events and calculates the probability of the compiled GateSet.<br>
+     * If the changes were not recorded anymore then all probabilities are loaded.<br>
+     *
+     * @return The probability of the compiled GateSet.
+     */
+    public synchronized double evaluate()
+    {
+	long currentVersion = DBChangeTracker.getProbabilityVersion();
+	if (currentVersion != probabilityVersion)
+	{
+	    long[] changedNodeIDs = DBChangeTracker.getChangedNodeIDs(probabilityVersion);
+	    probabilityVersion = currentVersion;
+	    loadProbabilities(changedNodeIDs);
+	}
+	int register = events.length;
+	for (int op = 0; op < opCodes.length; op++)
+	{
+	    registers[register++] = execute(op);
+	}
+	return registers[registers.length - 1];
+    }
+
+    /**
+     * Loads the probabilities of the events in one transaction.<br>
+     *
+     * @param nodeIDs
+     *            The node ids of the events that are loaded or null if all events are loaded.
+     */
+    private void loadProbabilities(long[] nodeIDs)
+    {
+	try (Transaction tx = DBConnection.getGraphDB().beginTx())
+	{
+	    if (nodeIDs == null)
+	    {
+		for (int i = 0; i < events.length; i++)
+		{
+		    registers[i] = loadProbability(events[i]);
+		}
+	    }
+	    else
+	    {
+		for (long nodeID : nodeIDs)
+		{
+		    int position = Arrays.binarySearch(eventNodeIDs, nodeID);
+		    if (position >= 0)
+		    {
+			int register = eventNodeRegisters[position];
+			registers[register] = loadProbability(events[register]);
+		    }
+		}
+	    }
+	    tx.success();
+	}
+    }
+
+    private static double loadProbability(Node node)
+    {
+	return Double.parseDouble(node.getProperty("Basic Failure Probability").toString());
+    }
+
+    /**
+     * Executes the instruction like the calculateBasicFailureProbability method of the GateSet with the same gate type.<br>
+     *
+     * @param op
+     *            The index of the instruction.
+     * @return The probability of the instruction.
+     */
+    private double execute(int op)
+    {
+	int start = operandStarts[op];
+	int end = operandStarts[op + 1];
+	switch (opCodes[op])
+	{
+	case AND:
+	case CONNECTOR:
+	{
+	    if (start == end)
+	    {
+		return 0;
+	    }
+	    double result = 1;
+	    for (int i = start; i < end; i++)
+	    {
+		result *= registers[operands[i]];
+	    }
+	    return result;
+	}
+	case OR:
+	{
+	    double result = 1;
+	    for (int i = start; i < end; i++)
+	    {
+		result *= (1 - registers[operands[i]]);
+	    }
+	    return 1 - result;
+	}
+	case NOT:
+	{
+	    double result = 1;
+	    for (int i = start; i < end; i++)
+	    {
+		result *= (1 - registers[operands[i]]);
+	    }
+	    return result;
+	}
+	case XOR:
+	{
+	    // the probability that exactly one operand occurs
+	    double none = 1;
+	    double exactlyOne = 0;
+	    for (int i = start; i < end; i++)
+	    {
+		double p = registers[operands[i]];
+		exactlyOne = exactlyOne * (1 - p) + none * p;
+		none *= (1 - p);
+	    }
+	    return exactlyOne;
+	}
+	case MOON:
+	{
+	    int moonNumber = opParameters[op];
+	    int size = end - start;
+	    if (moonNumber > size)
+	    {
+		return 0;
+	    }
+	    if (moonNumber <= 0)
+	    {
+		return 1;
+	    }
+	    for (int i = start; i < end; i++)
+	    {
+		moonInputs[i - start] = registers[operands[i]];
+	    }
+	    return ProbabilityUtility.calculateExactlyMProbability(moonInputs, size, moonNumber, moonCoefficients);
+	}
+	default: // RESULT
+	    return end - start == 1 ? registers[operands[start]] : 0;
+	}
+    }
+
+    /**
+     * Compiles GateSets into instructions.<br>
+     * An instruction is stored as {@code {gate type, moonNumber, operands...}} during the compilation.<br>
+     * An operand {@code >= 0} is the index of an event and an operand {@code k < 0} is the result of the instruction {@code -k - 1}.<br>
+     */
+    private static final class Compiler
+    {
+
+	private final ArrayList<Node> events = new ArrayList<Node>();
+
+	private final HashMap<Long, Integer> eventRegisters = new HashMap<Long, Integer>();
+
+	private final ArrayList<int[]> instructions = new ArrayList<int[]>();
+
+	/**
+	 * Maps the compiled GateSets to their operands.<br>
+	 */
+	private final IdentityHashMap<GateSet, Integer> compiledGateSets = new IdentityHashMap<GateSet, Integer>();
+
+	/**
+	 * Maps the instructions to their operands so equal instructions are only added once.<br>
+	 */
+	private final HashMap<Instruction, Integer> compiledInstructions = new HashMap<Instruction, Integer>();
+
+	private int sharedGateSets = 0;
+
+	/**
+	 * Adds the instructions of the GateSet and its lower GateSets.<br>
+	 *
+	 * @param gateSet
+	 *            The GateSet.
+	 * @return The operand of the GateSet or 0 if the GateSet contains an unknown GateSet type.
+	 */
+	private int compile(GateSet gateSet)
+	{
+	    Integer compiled = compiledGateSets.get(gateSet);
+	    if (compiled != null)
+	    {
+		sharedGateSets++;
+		return compiled;
+	    }
+	    int gateType = gateSet.getGateType();
+	    if (gateType < AND || gateType > RESULT)
+	    {
+		return 0;
+	    }
+	    int[] instruction = new int[gateSet.getNodeSet().size() + gateSet.getLowerGateSets().size() + 2];
+	    instruction[0] = gateType;
+	    instruction[1] = gateType == MOON ? ((MOONSet) gateSet).getMOONNumber() : 0;
+	    int position = 2;
+	    for (Node node : gateSet.getNodeSet())
+	    {
+		Integer register = eventRegisters.get(node.getId());
+		if (register == null)
+		{
+		    register = events.size();
+		    events.add(node);
+		    eventRegisters.put(node.getId(), register);
+		}
+		instruction[position++] = register;
+	    }
+	    for (GateSet lowerGateSet : gateSet.getLowerGateSets())
+	    {
+		int operand = compile(lowerGateSet);
+		if (operand == 0)
+		{
+		    return 0;
+		}
+		instruction[position++] = operand;
+	    }
+	    // the result of every gate type does not depend on the order of the operands
+	    Arrays.sort(instruction, 2, instruction.length);
+	    Instruction key = new Instruction(instruction);
+	    compiled = compiledInstructions.get(key);
+	    if (compiled != null)
+	    {
+		sharedGateSets++;
+	    }
+	    else
+	    {
+		instructions.add(instruction);
+		compiled = -instructions.size();
+		compiledInstructions.put(key, compiled);
+	    }
+	    compiledGateSets.put(gateSet, compiled);
+	    return compiled;
+	}
+    }
+
+    /**
+     * An instruction as key of a HashMap.<br>
+     */
+    private static final class Instruction
+    {
+
+	private final int[] instruction;
+
+	private final int hashCode;
+
+	private Instruction(int[] _instruction)
+	{
+	    instruction = _instruction;
+	    hashCode = Arrays.hashCode(_instruction);
+	}
+
+	@Override
+	public int hashCode()
+	{
+	    return hashCode;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+	    return obj instanceof Instruction && Arrays.equals(instruction, ((Instruction) obj).instruction);
+	}
+    }
+
+}
@@ -3,6 +3,7 @@ package neo4jGateSets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 
 import org.neo4j.graphdb.Node;
 
@@ -13,7 +14,7 @@ import neo4jMCS.MCS;
 import neo4jMCS.MCSNode;
 import neo4jMCS.MCSPairSet;
 import neo4jMCS.MCSUtility;
-import neo4jTraversal.MainTraversal;
+import neo4jTraversal.AnalysisSession;
 
 /**
  * The ResultGateSet is a GateSet for a Node that represents an Outport or an Inport Instance in a CFT Model.<br>
@@ -64,7 +65,7 @@ public class ResultGateSet extends AbstractGateSet
      * @see MCS
      */
     @Override
-    public void createMCSSet()
+    public synchronized void createMCSSet()
     {
 	if (super.getMCSSet().isEmpty())
 	{
@@ -94,7 +95,7 @@ public class ResultGateSet extends AbstractGateSet
      * @see MCS
      */
     @Override
-    public void createNegatedMCSSet()
+    public synchronized void createNegatedMCSSet()
     {
 	if (getNegatedMCSSet().isEmpty())
 	{
@@ -149,7 +150,7 @@ public class ResultGateSet extends AbstractGateSet
      * Replaces the outport instances in every MCS with the respective MCS of the outport instance.
      */
     @Override
-    public MCSPairSet connectMCS()
+    public MCSPairSet connectMCS(AnalysisSession session)
     {
 	if (!mcsConnected)
 	{
@@ -171,7 +172,7 @@ public class ResultGateSet extends AbstractGateSet
 		HashMap<Node, MCSPairSet> outInstMap = new HashMap<Node, MCSPairSet>();
 		for (GateSet gs : outInstGS)
 		{
-		    MCSPairSet mcsS = gs.connectMCS();
+		    MCSPairSet mcsS = gs.connectMCS(session);
 		    outInstMap.put(gs.getStartNode(), mcsS);
 		}
 		for (Node outInst : outInstMap.keySet())
@@ -184,7 +185,7 @@ public class ResultGateSet extends AbstractGateSet
 		    super.getNegatedMCSSet().addAll(negatedReturnSet);
 		}
 		mcsConnected = true;
-		if (DBUtility.hasLabel(getStartNode(), NodeLabels.CFT_Outport) && !MainTraversal.errorFound())
+		if (DBUtility.hasLabel(getStartNode(), NodeLabels.CFT_Outport) && !session.errorFound())
 		{
 		    DBMCSManager.addFullMCSSet(this);
 		}
@@ -281,6 +282,22 @@ public class ResultGateSet extends AbstractGateSet
 	return new ResultGateSet(this);
     }
 
+    /**
+     * Returns a connected copy of this ResultGateSet.<br>
+     * The ResultGateSet is copied even if nothing is connected because the MCS of the copy are modified when the MCS are connected.<br>
+     * 
+     * @param session
+     *            The AnalysisSession that contains the ResultGateSets of the split traversal.
+     * @param inportMapList
+     *            The list of inport maps.
+     * @return The connected copy.
+     */
+    public ResultGateSet getConnectedCopy(AnalysisSession session, LinkedList<HashMap<Node, Node>> inportMapList)
+    {
+	GateSet connectedGateSet = connectGateSets(session, inportMapList);
+	return connectedGateSet != this ? (ResultGateSet) connectedGateSet : new ResultGateSet(this);
+    }
+
     /**
      * {@inheritDoc}<br>
      * <br>
@@ -1,18 +1,25 @@
 package neo4jMCS;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 
 import org.neo4j.graphdb.Node;
 
+import neo4jUtility.GeneralUtility;
 import neo4jUtility.PrintUtility;
 
 /**
  * This class represents a prime implicant or minimal cut set with negated events.<br>
  * A minimal cut set is a set of elements that triggers the event it belongs to if all element in the MCS are triggered.<br>
- * A MCS has a MCSNode HashSet which represents all members of the minimal cut set.<br>
+ * A MCS has two bitsets which represent all members of the minimal cut set.<br>
  * These members are nodes with the label CFT_Basic_Event, CFT_Outport or CFT_Inport but there is no explicit check for these nodes.<br>
- * The Nodes in a MCS are stored as MCSNodes so they can be negated without interfering with the Neo4j database.<br>
+ * Each bit position is the index of a Node in the {@link MCSEventIndex} of the MCS. One bitset holds the members that are not negated and the other the negated members.<br>
+ * A MCS uses the MCSEventIndex of the thread that created it and a copy uses the MCSEventIndex of the original.<br>
+ * Members of a MCS with another MCSEventIndex are converted by their Nodes when they are added to a MCS so the MCS of an analysis never depend on the MCSEventIndex of another analysis.<br>
+ * MCS are equal if they have the same members and the same always true and always false state even if they use different MCSEventIndices so a MCS HashSet never
+ * keeps the same MCS twice.<br>
+ * The members are only turned into MCSNodes when {@link #getMCSNodeSet()} is called so they can be negated without interfering with the Neo4j database.<br>
  * A MCS HashSet is a set where all MCS are logically connected by OR.
  * 
  * @author Kevin Bartik
@@ -22,10 +29,22 @@ public class MCS
 {
 
     /**
-     * The MCSNode HashSet.<br>
-     * Logically MCSNodes are connected by AND.<br>
+     * The MCSEventIndex that maps the bit positions of the bitsets to Nodes.<br>
      */
-    private HashSet<MCSNode> mcsNodeSet;
+    private final MCSEventIndex eventIndex;
+
+    /**
+     * The bitset of the members that are not negated.<br>
+     * Logically all members are connected by AND.<br>
+     * Trailing words that are zero are always removed so equal MCS have equal arrays.<br>
+     */
+    private long[] positiveBits;
+
+    /**
+     * The bitset of the members that are negated.<br>
+     * Trailing words that are zero are always removed so equal MCS have equal arrays.<br>
+     */
+    private long[] negatedBits;
 
     /**
      * The ArrayList of merged MCS HashSets.<br>
@@ -56,7 +75,9 @@ public class MCS
      */
     public MCS(boolean always)
     {
-	mcsNodeSet = new HashSet<MCSNode>();
+	eventIndex = MCSEventIndex.getCurrentIndex();
+	positiveBits = MCSUtility.EMPTY_BITS;
+	negatedBits = MCSUtility.EMPTY_BITS;
 	mergedMCSSets = new ArrayList<HashSet<MCS>>();
 	if (always)
 	{
@@ -81,8 +102,10 @@ public class MCS
      */
     public MCS(MCSNode mcsNode)
     {
-	mcsNodeSet = new HashSet<MCSNode>();
-	mcsNodeSet.add(mcsNode);
+	eventIndex = MCSEventIndex.getCurrentIndex();
+	positiveBits = MCSUtility.EMPTY_BITS;
+	negatedBits = MCSUtility.EMPTY_BITS;
+	setBit(mcsNode);
 	mergedMCSSets = new ArrayList<HashSet<MCS>>();
 	alwaysFalse = false;
 	alwaysTrue = false;
@@ -97,19 +120,47 @@ public class MCS
      */
     public MCS(HashSet<MCSNode> nodeSet)
     {
-	mcsNodeSet = nodeSet;
+	eventIndex = MCSEventIndex.getCurrentIndex();
+	positiveBits = MCSUtility.EMPTY_BITS;
+	negatedBits = MCSUtility.EMPTY_BITS;
 	mergedMCSSets = new ArrayList<HashSet<MCS>>();
 	alwaysFalse = false;
 	alwaysTrue = false;
-	for (MCSNode mcsNode : mcsNodeSet)
+	for (MCSNode mcsNode : nodeSet)
 	{
-	    MCSNode negatedMCSNode = mcsNode.getNegatedMCSNode();
-	    if (mcsNodeSet.contains(negatedMCSNode))
-	    {
-		alwaysFalse = true;
-		messageAlwaysFalse("Constructor MCS(HashSet<MCSNode> nodeSet)");
-		break;
-	    }
+	    setBit(mcsNode);
+	}
+	if (MCSUtility.intersects(positiveBits, negatedBits))
+	{
+	    alwaysFalse = true;
+	    messageAlwaysFalse("Constructor MCS(HashSet<MCSNode> nodeSet)");
+	}
+	resetAlwaysTrue();
+    }
+
+    /**
+     * Constructor for creating MCS from two bitsets.<br>
+     * Also checks if the created MCS is always false.<br>
+     * 
+     * @param index
+     *            The MCSEventIndex of the bitsets.
+     * @param positive
+     *            The bitset of the members that are not negated. Is used directly and not copied.
+     * @param negated
+     *            The bitset of the members that are negated. Is used directly and not copied.
+     */
+    private MCS(MCSEventIndex index, long[] positive, long[] negated)
+    {
+	eventIndex = index;
+	positiveBits = positive;
+	negatedBits = negated;
+	mergedMCSSets = new ArrayList<HashSet<MCS>>();
+	alwaysFalse = false;
+	alwaysTrue = false;
+	if (MCSUtility.intersects(positiveBits, negatedBits))
+	{
+	    alwaysFalse = true;
+	    messageAlwaysFalse("Constructor MCS(long[] positive, long[] negated)");
 	}
 	resetAlwaysTrue();
     }
@@ -123,29 +174,57 @@ public class MCS
      */
     public MCS(MCS mcs)
     {
-	mcsNodeSet = MCSUtility.copyMCSNodeSet(mcs.mcsNodeSet);
+	eventIndex = mcs.eventIndex;
+	positiveBits = mcs.positiveBits.clone();
+	negatedBits = mcs.negatedBits.clone();
 	mergedMCSSets = mcs.copyMergedMCSSets();
 	alwaysFalse = mcs.alwaysFalse;
 	alwaysTrue = mcs.alwaysTrue;
     }
 
+    /**
+     * Constructor for converting a MCS to another MCSEventIndex.<br>
+     * Everything is copied from the MCS and the members are converted by their Nodes.<br>
+     * 
+     * @param mcs
+     *            The MCS that is converted.
+     * @param index
+     *            The MCSEventIndex of the new MCS.
+     */
+    private MCS(MCS mcs, MCSEventIndex index)
+    {
+	eventIndex = index;
+	positiveBits = mcs.convertBits(mcs.positiveBits, index);
+	negatedBits = mcs.convertBits(mcs.negatedBits, index);
+	mergedMCSSets = new ArrayList<HashSet<MCS>>();
+	for (HashSet<MCS> mcsSet : mcs.mergedMCSSets)
+	{
+	    HashSet<MCS> convertedSet = new HashSet<MCS>(GeneralUtility.setSize(mcsSet.size()));
+	    for (MCS mergedMCS : mcsSet)
+	    {
+		convertedSet.add(mergedMCS.copyToIndex(index));
+	    }
+	    mergedMCSSets.add(convertedSet);
+	}
+	alwaysFalse = mcs.alwaysFalse;
+	alwaysTrue = mcs.alwaysTrue;
+    }
+
 
 
     /**
      * Adds a MCS to the MCS.<br>
-     * Adds all MCSNodes to the MCSNode HashSet and adds all merged MCS HashSets to the MCS. <br>
+     * Adds all members of the MCS by a word-wise OR of the bitsets and adds all merged MCS HashSets to the MCS. <br>
      * 
      * @param mcs
      *            The MCS that is added.
      */
     public void addMCS(MCS mcs)
     {
+	mcs = mcs.toIndex(eventIndex);
 	if (!mcs.alwaysTrue)
 	{
-	    for (MCSNode node : mcs.mcsNodeSet)
-	    {
-		addMCSNode(node);
-	    }
+	    addBits(mcs.positiveBits, mcs.negatedBits, "Method addMCS(MCS mcs)");
 	    mergedMCSSets.addAll(mcs.mergedMCSSets);
 	}
 	if (mcs.alwaysFalse)
@@ -181,6 +260,7 @@ public class MCS
     
     /**
      * Returns the MCSNode HashSet of this MCS.<br>
+     * The MCSNodes are created from the bitsets so changing the returned HashSet does not change the MCS.<br>
      * Returns an empty HashSet if the MCS is always false.<br>
      * 
      * @return The MCSNode HashSet of this MCS.
@@ -189,13 +269,23 @@ public class MCS
     {
 	if (!alwaysFalse)
 	{
-	    return mcsNodeSet;
+	    return createMCSNodeSet();
 	}
 	else
 	{
 	    return new HashSet<MCSNode>();
 	}
     }
+
+    /**
+     * Returns the number of members of this MCS.<br>
+     * 
+     * @return The number of members of this MCS.
+     */
+    public int getSize()
+    {
+	return MCSUtility.cardinality(positiveBits) + MCSUtility.cardinality(negatedBits);
+    }
     
     /**
      * Returns true if the MCS is always false. Otherwise false.<br>
@@ -225,16 +315,34 @@ public class MCS
      */
     void addMCSNode(MCSNode mcsNode)
     {
-	MCSNode negatedMCSNode = mcsNode.getNegatedMCSNode();
-	if (mcsNodeSet.contains(negatedMCSNode))
+	setBit(mcsNode);
+	if (MCSUtility.intersects(positiveBits, negatedBits))
 	{
 	    alwaysFalse = true;
 	    messageAlwaysFalse("Method addMCSNode(MCSNode mcsNode)");
 	}
-	mcsNodeSet.add(mcsNode);
 	resetAlwaysTrue();
     }
 
+    /**
+     * Removes a MCSNode from the MCS if the MCS contains the MCSNode.<br>
+     * 
+     * @param mcsNode
+     *            The MCSNode that is removed.
+     */
+    void removeMCSNode(MCSNode mcsNode)
+    {
+	int index = eventIndex.getIndex(mcsNode.getNode());
+	if (mcsNode.isNegated())
+	{
+	    negatedBits = MCSUtility.clearBit(negatedBits, index);
+	}
+	else
+	{
+	    positiveBits = MCSUtility.clearBit(positiveBits, index);
+	}
+    }
+
     /**
      * Returns the combined MCS HashSet of this MCS.<br>
      * This method combines all MCS HashSets in the ArrayList of merged MCS HashSets with this MCS.<br>
@@ -246,7 +354,7 @@ public class MCS
     HashSet<MCS> returnCombinedMCSSet()
     {
 	HashSet<MCS> superMCS = new HashSet<MCS>();
-	superMCS.add(new MCS(MCSUtility.copyMCSNodeSet(mcsNodeSet)));
+	superMCS.add(new MCS(eventIndex, positiveBits.clone(), negatedBits.clone()));
 	ArrayList<HashSet<MCS>> refinedCombinedMCS = new ArrayList<HashSet<MCS>>();
 	for (HashSet<MCS> mcsSet : mergedMCSSets)
 	{
@@ -288,73 +396,144 @@ public class MCS
 	HashSet<MCS> newMCSSet = new HashSet<MCS>();
 	if (!alwaysTrue && !alwaysFalse)
 	{
-	    MCSNode mcsNode = new MCSNode(node, false);
-	    if (mcsNodeSet.contains(mcsNode))
+	    int index = eventIndex.getIndex(node);
+	    if (MCSUtility.getBit(positiveBits, index))
 	    {
-		HashSet<MCSNode> newNodeSet = MCSUtility.copyMCSNodeSet(mcsNodeSet);
-		newNodeSet.remove(mcsNode);
+		long[] remainingBits = MCSUtility.clearBit(positiveBits.clone(), index);
 		for (MCS mcs : mcsSet.getMCSSet())
 		{
-		    MCS newMCS = new MCS(mcs);
-		    for (MCSNode nextMCSNode : newNodeSet)
-		    {
-			newMCS.addMCSNode(nextMCSNode);
-		    }
+		    MCS newMCS = mcs.copyToIndex(eventIndex);
+		    newMCS.addBits(remainingBits, negatedBits, "Method replaceNodeWithMCSSet(Node node, MCSPairSet mcsSet)");
 		    if (!newMCS.alwaysFalse)
 		    {
 			newMCSSet.add(newMCS);
 		    }
 		}
 	    }
-	    else
+	    else if (MCSUtility.getBit(negatedBits, index))
 	    {
-		MCSNode negatedMCSNode = mcsNode.getNegatedMCSNode();
-		if (mcsNodeSet.contains(negatedMCSNode))
+		long[] remainingBits = MCSUtility.clearBit(negatedBits.clone(), index);
+		for (MCS mcs : mcsSet.getNegatedMCSSet())
 		{
-		    HashSet<MCSNode> newNodeSet = MCSUtility.copyMCSNodeSet(mcsNodeSet);
-		    newNodeSet.remove(negatedMCSNode);
-		    for (MCS mcs : mcsSet.getNegatedMCSSet())
+		    MCS newMCS = mcs.copyToIndex(eventIndex);
+		    newMCS.addBits(positiveBits, remainingBits, "Method replaceNodeWithMCSSet(Node node, MCSPairSet mcsSet)");
+		    if (!newMCS.alwaysFalse)
 		    {
-			MCS newMCS = new MCS(mcs);
-			for (MCSNode nextMCSNode : newNodeSet)
-			{
-			    newMCS.addMCSNode(nextMCSNode);
-			}
-			if (!newMCS.alwaysFalse)
-			{
-			    newMCSSet.add(newMCS);
-			}
+			newMCSSet.add(newMCS);
 		    }
 		}
-		else
-		{
-		    newMCSSet.add(new MCS(this));
-		}
+	    }
+	    else
+	    {
+		newMCSSet.add(new MCS(this));
 	    }
 	}
 	return newMCSSet;
     }
 
     /**
-     * Checks if the MCSNode HashSet of this MCS contains all MCSNodes in the MCSNode HashSet of the other MCS.<br>
+     * Checks if this MCS contains all members of the other MCS.<br>
+     * Uses a word-wise AND of the bitsets.<br>
      * 
      * @param mcs
      *            The other MCS.
-     * @return True if this MCS contains all MCSNodes of the other MCS.
+     * @return True if this MCS contains all members of the other MCS.
      */
     boolean containsMCSFully(MCS mcs)
     {
-	return mcsNodeSet.containsAll(mcs.mcsNodeSet);
+	mcs = mcs.toIndex(eventIndex);
+	return MCSUtility.containsAll(positiveBits, mcs.positiveBits) && MCSUtility.containsAll(negatedBits, mcs.negatedBits);
     }
 
     /**
-     * Checks if the MCS has merged MCS HashSets or if it is always false.<br>
+     * Returns the MCSEventIndex of this MCS.<br>
      * 
-     * @return true if this MCS is always false or if it contains any merged MCS HashSets. Otherwise false.
+     * @return The MCSEventIndex of this MCS.
+     */
+    MCSEventIndex getEventIndex()
+    {
+	return eventIndex;
+    }
+
+    /**
+     * Returns the bitset of the members that are not negated.<br>
+     * The array must not be modified.<br>
+     * 
+     * @return The bitset of the members that are not negated.
+     */
+    long[] getPositiveBits()
+    {
+	return positiveBits;
+    }
+
+    /**
+     * Returns the bitset of the members that are negated.<br>
+     * The array must not be modified.<br>
+     * 
+     * @return The bitset of the members that are negated.
+     */
+    long[] getNegatedBits()
+    {
+	return negatedBits;
+    }
+
+    /**
+     * Checks if the MCS has merged MCS HashSets that must be combined with it.<br>
+     * A MCS that is always false is never combined since it stays always false.<br>
+     * 
+     * @return true if this MCS contains any merged MCS HashSets and is not always false. Otherwise false.
      */
     boolean hasMergedMCSSets()
     {
-	return mergedMCSSets.isEmpty() || alwaysFalse;
+	return !mergedMCSSets.isEmpty() && !alwaysFalse;
+    }
+
+    /**
+     * Returns this MCS if it uses the MCSEventIndex or a converted copy of this MCS otherwise.<br>
+     * 
+     * @param index
+     *            The MCSEventIndex.
+     * @return A MCS with the same members that uses the MCSEventIndex.
+     */
+    MCS toIndex(MCSEventIndex index)
+    {
+	return eventIndex == index ? this : new MCS(this, index);
+    }
+
+    /**
+     * Returns a copy of this MCS that uses the MCSEventIndex.<br>
+     * 
+     * @param index
+     *            The MCSEventIndex.
+     * @return A copy of this MCS that uses the MCSEventIndex.
+     */
+    private MCS copyToIndex(MCSEventIndex index)
+    {
+	return eventIndex == index ? new MCS(this) : new MCS(this, index);
+    }
+
+    /**
+     * Converts a bitset of this MCS to a bitset of another MCSEventIndex.<br>
+     * 
+     * @param bits
+     *            The bitset of this MCS.
+     * @param index
+     *            The other MCSEventIndex.
+     * @return A new bitset with the same members for the other MCSEventIndex.
+     */
+    private long[] convertBits(long[] bits, MCSEventIndex index)
+    {
+	long[] convertedBits = MCSUtility.EMPTY_BITS;
+	for (int i = 0; i < bits.length; i++)
+	{
+	    long word = bits[i];
+	    while (word != 0)
+	    {
+		convertedBits = MCSUtility.setBit(convertedBits, index.getIndex(eventIndex.getNode((i << 6) + Long.numberOfTrailingZeros(word))));
+		word &= word - 1;
+	    }
+	}
+	return convertedBits;
     }
 
     /**
@@ -373,6 +552,84 @@ public class MCS
 	return returnSetList;
     }
 
+    /**
+     * Sets the bit of the MCSNode in the matching bitset.<br>
+     * 
+     * @param mcsNode
+     *            The MCSNode.
+     */
+    private void setBit(MCSNode mcsNode)
+    {
+	int index = eventIndex.getIndex(mcsNode.getNode());
+	if (mcsNode.isNegated())
+	{
+	    negatedBits = MCSUtility.setBit(negatedBits, index);
+	}
+	else
+	{
+	    positiveBits = MCSUtility.setBit(positiveBits, index);
+	}
+    }
+
+    /**
+     * Adds all members of the specified bitsets to this MCS and checks if the MCS is always false afterwards.<br>
+     * 
+     * @param positive
+     *            The bitset of the members that are not negated.
+     * @param negated
+     *            The bitset of the members that are negated.
+     * @param origin
+     *            The origin for the message if the MCS is always false.
+     */
+    private void addBits(long[] positive, long[] negated, String origin)
+    {
+	positiveBits = MCSUtility.or(positiveBits, positive);
+	negatedBits = MCSUtility.or(negatedBits, negated);
+	if (!alwaysFalse && MCSUtility.intersects(positiveBits, negatedBits))
+	{
+	    alwaysFalse = true;
+	    messageAlwaysFalse(origin);
+	}
+	resetAlwaysTrue();
+    }
+
+    /**
+     * Creates the MCSNodes of all members of this MCS.<br>
+     * 
+     * @return A new MCSNode HashSet with all members of this MCS.
+     */
+    private HashSet<MCSNode> createMCSNodeSet()
+    {
+	HashSet<MCSNode> mcsNodeSet = new HashSet<MCSNode>(GeneralUtility.setSize(getSize()));
+	addMCSNodes(mcsNodeSet, positiveBits, false);
+	addMCSNodes(mcsNodeSet, negatedBits, true);
+	return mcsNodeSet;
+    }
+
+    /**
+     * Adds a MCSNode for every bit in the bitset to the MCSNode HashSet.<br>
+     * 
+     * @param mcsNodeSet
+     *            The MCSNode HashSet.
+     * @param bits
+     *            The bitset.
+     * @param negated
+     *            If the created MCSNodes are negated or not.
+     */
+    private void addMCSNodes(HashSet<MCSNode> mcsNodeSet, long[] bits, boolean negated)
+    {
+	for (int i = 0; i < bits.length; i++)
+	{
+	    long word = bits[i];
+	    while (word != 0)
+	    {
+		int index = (i << 6) + Long.numberOfTrailingZeros(word);
+		mcsNodeSet.add(new MCSNode(eventIndex.getNode(index), negated));
+		word &= word - 1;
+	    }
+	}
+    }
+
     /**
      * Prints a message on the GUI to inform the user that a MCS is always true.<br>
      * This may be caused by an error in the CFT Model.<br>
@@ -404,7 +661,7 @@ public class MCS
      */
     private void resetAlwaysTrue()
     {
-	if (alwaysFalse || (mcsNodeSet.size() + mergedMCSSets.size()) > 0)
+	if (alwaysFalse || positiveBits.length > 0 || negatedBits.length > 0 || !mergedMCSSets.isEmpty())
 	{
 	    alwaysTrue = false;
 	}
@@ -421,10 +678,72 @@ public class MCS
 	final int prime = 31;
 	int result = 1;
 	result = prime * result + ((mergedMCSSets == null) ? 0 : mergedMCSSets.hashCode());
-	result = prime * result + ((mcsNodeSet == null) ? 0 : mcsNodeSet.hashCode());
+	result = prime * result + hashMembers(positiveBits);
+	result = prime * result + hashMembers(negatedBits);
+	result = prime * result + (alwaysFalse ? 1231 : 1237);
+	result = prime * result + (alwaysTrue ? 1231 : 1237);
 	return result;
     }
 
+    /**
+     * Returns a hash of the Nodes of a bitset of this MCS that does not depend on the MCSEventIndex.<br>
+     * 
+     * @param bits
+     *            The bitset of this MCS.
+     * @return The hash of the Nodes.
+     */
+    private int hashMembers(long[] bits)
+    {
+	int hash = 0;
+	for (int i = 0; i < bits.length; i++)
+	{
+	    long word = bits[i];
+	    while (word != 0)
+	    {
+		hash += eventIndex.getNode((i << 6) + Long.numberOfTrailingZeros(word)).hashCode() * 0x9E3779B9;
+		word &= word - 1;
+	    }
+	}
+	return hash;
+    }
+
+    /**
+     * Returns true if a bitset of this MCS has the same Nodes as a bitset of another MCS. Otherwise false.<br>
+     * 
+     * @param bits
+     *            The bitset of this MCS.
+     * @param other
+     *            The other MCS.
+     * @param otherBits
+     *            The bitset of the other MCS.
+     * @return true if both bitsets have the same Nodes. Otherwise false.
+     */
+    private boolean hasSameMembers(long[] bits, MCS other, long[] otherBits)
+    {
+	if (other.eventIndex == eventIndex)
+	{
+	    return Arrays.equals(bits, otherBits);
+	}
+	if (MCSUtility.cardinality(bits) != MCSUtility.cardinality(otherBits))
+	{
+	    return false;
+	}
+	for (int i = 0; i < otherBits.length; i++)
+	{
+	    long word = otherBits[i];
+	    while (word != 0)
+	    {
+		int index = eventIndex.findIndex(other.eventIndex.getNode((i << 6) + Long.numberOfTrailingZeros(word)));
+		if (index < 0 || !MCSUtility.getBit(bits, index))
+		{
+		    return false;
+		}
+		word &= word - 1;
+	    }
+	}
+	return true;
+    }
+
     @Override
     public boolean equals(Object obj)
     {
@@ -441,19 +760,19 @@ public class MCS
 	    return false;
 	}
 	MCS other = (MCS) obj;
-	if (mergedMCSSets == null || other.mergedMCSSets == null)
+	if (alwaysFalse != other.alwaysFalse || alwaysTrue != other.alwaysTrue)
 	{
 	    return false;
 	}
-	else if (!mergedMCSSets.equals(other.mergedMCSSets))
+	if (mergedMCSSets == null || other.mergedMCSSets == null)
 	{
 	    return false;
 	}
-	if (mcsNodeSet == null || other.mcsNodeSet == null)
+	else if (!mergedMCSSets.equals(other.mergedMCSSets))
 	{
 	    return false;
 	}
-	else if (!mcsNodeSet.equals(other.mcsNodeSet))
+	if (!hasSameMembers(positiveBits, other, other.positiveBits) || !hasSameMembers(negatedBits, other, other.negatedBits))
 	{
 	    return false;
 	}
@@ -473,9 +792,9 @@ public class MCS
 	}
 	if (mergedMCSSets.isEmpty())
 	{
-	    return "MCS [" + mcsNodeSet + "]";
+	    return "MCS [" + createMCSNodeSet() + "]";
 	}
-	return "MCS [nodeSet=" + mcsNodeSet + ", combinedMCS=" + mergedMCSSets + "]";
+	return "MCS [nodeSet=" + createMCSNodeSet() + ", combinedMCS=" + mergedMCSSets + "]";
     }
 
 }
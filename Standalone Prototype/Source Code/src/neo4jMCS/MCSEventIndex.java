@@ -0,0 +1,184 @@
+package neo4jMCS;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.neo4j.graphdb.Node;
+
+import neo4jUtility.ThreadUtility;
+
+/**
+ * This class is an event dictionary of the MCS.<br>
+ * Every Node that is used in a MCS gets a dense index which is used as the bit position in the bitsets of a MCS.<br>
+ * Every analysis binds its own dictionary to the threads that work for the analysis so the indices stay dense and a dictionary is never cleared while its MCS
+ * are used.<br>
+ * MCS that are created by threads without a dictionary use the shared dictionary. The shared dictionary is replaced when another database is started.<br>
+ * Nodes are only ever added so an index stays valid as long as the dictionary is used.<br>
+ *
+ * @author Kevin Bartik
+ *
+ */
+public final class MCSEventIndex
+{
+
+    /**
+     * The dictionary of the MCS that are created by threads without a dictionary.<br>
+     */
+    private static volatile MCSEventIndex sharedIndex = new MCSEventIndex();
+
+    /**
+     * The dictionary of the current thread or null if the thread has no dictionary.<br>
+     */
+    private static final ThreadLocal<MCSEventIndex> currentIndex = new ThreadLocal<MCSEventIndex>();
+
+    static
+    {
+	ThreadUtility.passOnToSubmittedTasks(currentIndex);
+    }
+
+    /**
+     * Maps Nodes to their index.<br>
+     */
+    private final ConcurrentHashMap<Node, Integer> indexMap = new ConcurrentHashMap<Node, Integer>();
+
+    /**
+     * The Nodes ordered by their index.<br>
+     * The array is replaced by a larger copy when it is full so Nodes can be read without the lock.<br>
+     */
+    private volatile Node[] nodes = new Node[64];
+
+    /**
+     * The number of Nodes in the dictionary.<br>
+     */
+    private int size = 0;
+
+    /**
+     * A lock to prevent multiple threads from adding Nodes concurrently.<br>
+     */
+    private final Object indexLock = new Object();
+
+    /**
+     * Returns the dictionary of the current thread or the shared dictionary if the thread has no dictionary.<br>
+     *
+     * @return The dictionary of the current thread.
+     */
+    static MCSEventIndex getCurrentIndex()
+    {
+	MCSEventIndex index = currentIndex.get();
+	return index != null ? index : sharedIndex;
+    }
+
+    /**
+     * Replaces the shared dictionary with an empty dictionary.<br>
+     * Must be called when another database is started so the shared dictionary does not keep the Nodes of the previous database.<br>
+     * MCS that were created with the previous shared dictionary keep using it.<br>
+     */
+    public static void resetSharedIndex()
+    {
+	sharedIndex = new MCSEventIndex();
+    }
+
+    /**
+     * Binds the dictionary to the current thread.<br>
+     * The returned dictionary must be restored with {@link #restore(MCSEventIndex)} when the work of the dictionary is finished.<br>
+     *
+     * @param index
+     *            The dictionary.
+     * @return The previous dictionary of the current thread.
+     */
+    public static MCSEventIndex bind(MCSEventIndex index)
+    {
+	MCSEventIndex previous = currentIndex.get();
+	currentIndex.set(index);
+	return previous;
+    }
+
+    /**
+     * Restores the previous dictionary of the current thread.<br>
+     *
+     * @param previous
+     *            The dictionary that was returned by {@link #bind(MCSEventIndex)}.
+     */
+    public static void restore(MCSEventIndex previous)
+    {
+	if (previous == null)
+	{
+	    currentIndex.remove();
+	}
+	else
+	{
+	    currentIndex.set(previous);
+	}
+    }
+
+    /**
+     * Returns the index of the Node.<br>
+     * If the Node has no index yet then the next free index is assigned to the Node.<br>
+     *
+     * @param node
+     *            The Node.
+     * @return The index of the Node.
+     */
+    int getIndex(Node node)
+    {
+	Integer index = indexMap.get(node);
+	if (index == null)
+	{
+	    synchronized (indexLock)
+	    {
+		index = indexMap.get(node);
+		if (index == null)
+		{
+		    index = size;
+		    if (size == nodes.length)
+		    {
+			nodes = Arrays.copyOf(nodes, size * 2);
+		    }
+		    nodes[size++] = node;
+		    indexMap.put(node, index);
+		}
+	    }
+	}
+	return index;
+    }
+
+    /**
+     * Returns the Node with the specified index.<br>
+     *
+     * @param index
+     *            The index.
+     * @return The Node with the specified index.
+     */
+    Node getNode(int index)
+    {
+	return nodes[index];
+    }
+
+    /**
+     * Returns the index of the Node or -1 if the Node has no index.<br>
+     * Does not assign an index to the Node.<br>
+     *
+     * @param node
+     *            The Node.
+     * @return The index of the Node or -1.
+     */
+    int findIndex(Node node)
+    {
+	Integer index = indexMap.get(node);
+	return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the number of Nodes in the dictionary.<br>
+     *
+     * @return The number of Nodes in the dictionary.
+     */
+    public int size()
+    {
+	synchronized (indexLock)
+	{
+	    return size;
+	}
+    }
+
+}
@@ -0,0 +1,321 @@
+package neo4jMCS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+import neo4jUtility.GeneralUtility;
+import neo4jUtility.ThreadUtility;
+
+/**
+ * This class minimizes MCS HashSets with a set-trie of the MCS members.<br>
+ * Every member of a MCS is turned into a literal (two times the index of the Node in the {@link MCSEventIndex} of the MCS plus one if the member is negated).<br>
+ * The literals of all MCS of a minimized MCS HashSet are taken from the MCSEventIndex of one MCS so they are comparable. MCS with another MCSEventIndex
+ * are converted to that MCSEventIndex.<br>
+ * The MCS are processed ordered by their size so a MCS can only be subsumed by a MCS that is already in the set-trie.<br>
+ * The set-trie only visits paths that consist of literals of the queried MCS which avoids comparing every MCS with every other MCS.<br>
+ * The result is the same as the result of the pairwise comparison in {@link MCSUtility}.<br>
+ *
+ * @author Kevin Bartik
+ *
+ */
+final class MCSSubsumptionIndex
+{
+
+    /**
+     * The root of the set-trie.<br>
+     */
+    private final TrieNode root = new TrieNode();
+
+    private MCSSubsumptionIndex()
+    {
+
+    }
+
+    /**
+     * Removes all MCS that contain other MCS and are not equal to them.<br>
+     *
+     * @param mcsSet
+     *            A MCS HashSet
+     * @return A MCS HashSet that contains only minimal MCS.
+     */
+    static HashSet<MCS> minimizeMCSSet(HashSet<MCS> mcsSet)
+    {
+	HashMap<MCSPattern, MCSPattern> patternMap = new HashMap<MCSPattern, MCSPattern>(GeneralUtility.setSize(mcsSet.size()));
+	MCSEventIndex eventIndex = null;
+	for (MCS mcs : mcsSet)
+	{
+	    // MCS that are always false do not subsume other MCS and are removed by copyMCSSet()
+	    if (mcs.isAlwaysFalse())
+	    {
+		continue;
+	    }
+	    if (eventIndex == null)
+	    {
+		eventIndex = mcs.getEventIndex();
+	    }
+	    MCSPattern newPattern = new MCSPattern(mcs, eventIndex);
+	    MCSPattern pattern = patternMap.get(newPattern);
+	    if (pattern == null)
+	    {
+		patternMap.put(newPattern, newPattern);
+	    }
+	    else
+	    {
+		pattern.mcsList.add(mcs);
+	    }
+	}
+	ArrayList<MCSPattern> patternList = new ArrayList<MCSPattern>(patternMap.keySet());
+	Collections.sort(patternList, new Comparator<MCSPattern>()
+	{
+	    @Override
+	    public int compare(MCSPattern pattern1, MCSPattern pattern2)
+	    {
+		return Integer.compare(pattern1.literals.length, pattern2.literals.length);
+	    }
+	});
+	MCSSubsumptionIndex index = new MCSSubsumptionIndex();
+	HashSet<MCS> removedMCSSet = new HashSet<MCS>();
+	int start = 0;
+	while (start < patternList.size())
+	{
+	    int end = start;
+	    while (end < patternList.size() && patternList.get(end).literals.length == patternList.get(start).literals.length)
+	    {
+		end++;
+	    }
+	    // MCS of the same size cannot subsume each other so the set-trie only changes between sizes
+	    Set<MCSPattern> subsumedPatterns = index.findSubsumedPatterns(patternList.subList(start, end));
+	    for (int i = start; i < end; i++)
+	    {
+		MCSPattern pattern = patternList.get(i);
+		if (subsumedPatterns.contains(pattern))
+		{
+		    removedMCSSet.addAll(pattern.mcsList);
+		}
+		else
+		{
+		    // MCS with the same members that are not equal remove each other but still subsume larger MCS
+		    if (pattern.mcsList.size() > 1)
+		    {
+			removedMCSSet.addAll(pattern.mcsList);
+		    }
+		    index.add(pattern.literals);
+		}
+	    }
+	    start = end;
+	}
+	HashSet<MCS> minimalMCSSet = MCSUtility.copyMCSSet(mcsSet);
+	minimalMCSSet.removeAll(removedMCSSet);
+	return minimalMCSSet;
+    }
+
+    /**
+     * Returns all patterns that are subsumed by a pattern in the set-trie.<br>
+     * The set-trie is not changed so the patterns are checked concurrently if multithreading is used.<br>
+     *
+     * @param patterns
+     *            The patterns that are checked.
+     * @return All patterns that are subsumed by a pattern in the set-trie.
+     */
+    private Set<MCSPattern> findSubsumedPatterns(List<MCSPattern> patterns)
+    {
+	if (ThreadUtility.getThreadUtility().isMultiThreading() && patterns.size() > 1) // Multithreading
+	{
+	    Set<MCSPattern> subsumedPatterns = ConcurrentHashMap.newKeySet();
+	    Set<Future<?>> futureSet = new HashSet<Future<?>>();
+	    for (MCSPattern pattern : patterns)
+	    {
+		if (ThreadUtility.getThreadUtility().isThreadAvailable())
+		{
+		    futureSet.add(ThreadUtility.getThreadUtility().submitTask(new Runnable()
+		    {
+			@Override
+			public void run()
+			{
+			    if (containsSubset(root, pattern.literals, 0))
+			    {
+				subsumedPatterns.add(pattern);
+			    }
+			}
+		    }));
+		}
+		else
+		{
+		    if (containsSubset(root, pattern.literals, 0))
+		    {
+			subsumedPatterns.add(pattern);
+		    }
+		}
+	    }
+	    ThreadUtility.getThreadUtility().waitForSubmittedTasksToFinish(futureSet);
+	    return subsumedPatterns;
+	}
+	else // No Multithreading
+	{
+	    HashSet<MCSPattern> subsumedPatterns = new HashSet<MCSPattern>();
+	    for (MCSPattern pattern : patterns)
+	    {
+		if (containsSubset(root, pattern.literals, 0))
+		{
+		    subsumedPatterns.add(pattern);
+		}
+	    }
+	    return subsumedPatterns;
+	}
+    }
+
+    /**
+     * Adds the sorted literals of a MCS to the set-trie.<br>
+     *
+     * @param literals
+     *            The sorted literals.
+     */
+    private void add(int[] literals)
+    {
+	TrieNode trieNode = root;
+	for (int literal : literals)
+	{
+	    TrieNode child = trieNode.children.get(literal);
+	    if (child == null)
+	    {
+		child = new TrieNode();
+		trieNode.children.put(literal, child);
+	    }
+	    trieNode = child;
+	}
+	trieNode.terminal = true;
+    }
+
+    /**
+     * Returns true if the set-trie below the TrieNode contains a subset of the sorted literals starting at the specified position.<br>
+     *
+     * @param trieNode
+     *            The current TrieNode.
+     * @param literals
+     *            The sorted literals of the queried MCS.
+     * @param position
+     *            The first literal that can still be used.
+     * @return True if the set-trie contains a subset. Otherwise false.
+     */
+    private static boolean containsSubset(TrieNode trieNode, int[] literals, int position)
+    {
+	if (trieNode.terminal)
+	{
+	    return true;
+	}
+	for (int i = position; i < literals.length; i++)
+	{
+	    TrieNode child = trieNode.children.get(literals[i]);
+	    if (child != null && containsSubset(child, literals, i + 1))
+	    {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * A node of the set-trie.<br>
+     */
+    private static class TrieNode
+    {
+
+	/**
+	 * The children of the TrieNode mapped by their literal.<br>
+	 */
+	private final HashMap<Integer, TrieNode> children = new HashMap<Integer, TrieNode>(4);
+
+	/**
+	 * True if a MCS ends at this TrieNode.<br>
+	 */
+	private boolean terminal = false;
+
+    }
+
+    /**
+     * The members of a MCS as sorted literals together with all MCS that have these members.<br>
+     * Two patterns are equal if they have the same literals.<br>
+     */
+    private static class MCSPattern
+    {
+
+	/**
+	 * The sorted literals.<br>
+	 */
+	private final int[] literals;
+
+	/**
+	 * All MCS that have the literals as members.<br>
+	 */
+	private final ArrayList<MCS> mcsList = new ArrayList<MCS>(1);
+
+	/**
+	 * Creates the pattern of a MCS.<br>
+	 *
+	 * @param mcs
+	 *            The MCS.
+	 * @param eventIndex
+	 *            The MCSEventIndex of the literals.
+	 */
+	private MCSPattern(MCS mcs, MCSEventIndex eventIndex)
+	{
+	    MCS indexedMCS = mcs.toIndex(eventIndex);
+	    long[] positiveBits = indexedMCS.getPositiveBits();
+	    long[] negatedBits = indexedMCS.getNegatedBits();
+	    literals = new int[MCSUtility.cardinality(positiveBits) + MCSUtility.cardinality(negatedBits)];
+	    int position = 0;
+	    int words = Math.max(positiveBits.length, negatedBits.length);
+	    for (int i = 0; i < words; i++)
+	    {
+		long positiveWord = i < positiveBits.length ? positiveBits[i] : 0;
+		long negatedWord = i < negatedBits.length ? negatedBits[i] : 0;
+		long word = positiveWord | negatedWord;
+		while (word != 0)
+		{
+		    int bit = Long.numberOfTrailingZeros(word);
+		    int index = (i << 6) + bit;
+		    if ((positiveWord & (1L << bit)) != 0)
+		    {
+			literals[position++] = index << 1;
+		    }
+		    if ((negatedWord & (1L << bit)) != 0)
+		    {
+			literals[position++] = (index << 1) + 1;
+		    }
+		    word &= word - 1;
+		}
+	    }
+	    mcsList.add(mcs);
+	}
+
+	@Override
+	public int hashCode()
+	{
+	    return Arrays.hashCode(literals);
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+	    if (this == obj)
+	    {
+		return true;
+	    }
+	    if (obj == null || getClass() != obj.getClass())
+	    {
+		return false;
+	    }
+	    return Arrays.equals(literals, ((MCSPattern) obj).literals);
+	}
+
+    }
+
+}
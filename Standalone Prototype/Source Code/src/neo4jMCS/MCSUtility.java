@@ -1,5 +1,6 @@
 package neo4jMCS;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
@@ -9,6 +10,7 @@ import java.util.concurrent.Future;
 import org.neo4j.graphdb.Node;
 
 import neo4jUtility.GeneralUtility;
+import neo4jUtility.SettingsUtility;
 import neo4jUtility.ThreadUtility;
 
 /**
@@ -27,6 +29,12 @@ public final class MCSUtility
      * Is turned false if methods are used that produce and then discard MCS that are always true or always false.<br>
      */
     private static boolean printMessage = true;
+
+    /**
+     * The empty bitset that is shared by all MCS without members.<br>
+     * Must never be changed.<br>
+     */
+    static final long[] EMPTY_BITS = new long[0];
     
     private MCSUtility() {
 	
@@ -43,20 +51,154 @@ public final class MCSUtility
     }
 
     /**
-     * Copies a MCSNode HashSet and returns the copied MCSNode HashSet.<br>
+     * Returns true if the bit with the specified index is set in the bitset.<br>
+     * 
+     * @param bits
+     *            The bitset.
+     * @param index
+     *            The index of the bit.
+     * @return True if the bit is set. Otherwise false.
+     */
+    static boolean getBit(long[] bits, int index)
+    {
+	int word = index >>> 6;
+	return word < bits.length && (bits[word] & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets the bit with the specified index in the bitset.<br>
+     * The bitset is changed directly if it is large enough. Otherwise a larger copy is returned.<br>
      * 
-     * @param mcsNodeSet
-     *            The MCSNode HashSet that is copied.
-     * @return A copy of the original MCSNode HashSet.
+     * @param bits
+     *            The bitset.
+     * @param index
+     *            The index of the bit.
+     * @return The bitset with the bit set.
      */
-    static HashSet<MCSNode> copyMCSNodeSet(HashSet<MCSNode> mcsNodeSet)
+    static long[] setBit(long[] bits, int index)
     {
-	HashSet<MCSNode> returnSet = new HashSet<MCSNode>();
-	for (MCSNode mcsNode : mcsNodeSet)
+	int word = index >>> 6;
+	long[] returnBits = bits;
+	if (word >= bits.length)
 	{
-	    returnSet.add(new MCSNode(mcsNode));
+	    returnBits = Arrays.copyOf(bits, word + 1);
 	}
-	return returnSet;
+	returnBits[word] |= 1L << index;
+	return returnBits;
+    }
+
+    /**
+     * Clears the bit with the specified index in the bitset.<br>
+     * The bitset is changed directly and a shorter copy is returned if trailing words became zero.<br>
+     * 
+     * @param bits
+     *            The bitset.
+     * @param index
+     *            The index of the bit.
+     * @return The bitset without the bit.
+     */
+    static long[] clearBit(long[] bits, int index)
+    {
+	int word = index >>> 6;
+	if (word >= bits.length)
+	{
+	    return bits;
+	}
+	bits[word] &= ~(1L << index);
+	int length = bits.length;
+	while (length > 0 && bits[length - 1] == 0)
+	{
+	    length--;
+	}
+	return length == bits.length ? bits : Arrays.copyOf(bits, length);
+    }
+
+    /**
+     * Returns the word-wise OR of two bitsets.<br>
+     * The first bitset is changed directly if it is large enough. The second bitset is never changed.<br>
+     * 
+     * @param bits
+     *            The first bitset.
+     * @param otherBits
+     *            The second bitset.
+     * @return The word-wise OR of both bitsets.
+     */
+    static long[] or(long[] bits, long[] otherBits)
+    {
+	long[] returnBits = bits;
+	if (otherBits.length > bits.length)
+	{
+	    returnBits = Arrays.copyOf(bits, otherBits.length);
+	}
+	for (int i = 0; i < otherBits.length; i++)
+	{
+	    returnBits[i] |= otherBits[i];
+	}
+	return returnBits;
+    }
+
+    /**
+     * Returns true if both bitsets have at least one common bit.<br>
+     * 
+     * @param bits
+     *            The first bitset.
+     * @param otherBits
+     *            The second bitset.
+     * @return True if both bitsets have at least one common bit. Otherwise false.
+     */
+    static boolean intersects(long[] bits, long[] otherBits)
+    {
+	int length = Math.min(bits.length, otherBits.length);
+	for (int i = 0; i < length; i++)
+	{
+	    if ((bits[i] & otherBits[i]) != 0)
+	    {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Returns true if the first bitset contains every bit of the second bitset.<br>
+     * 
+     * @param bits
+     *            The first bitset.
+     * @param otherBits
+     *            The second bitset.
+     * @return True if the first bitset contains every bit of the second bitset. Otherwise false.
+     */
+    static boolean containsAll(long[] bits, long[] otherBits)
+    {
+	if (otherBits.length > bits.length)
+	{
+	    return false;
+	}
+	for (int i = 0; i < otherBits.length; i++)
+	{
+	    if ((otherBits[i] & ~bits[i]) != 0)
+	    {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Returns the number of set bits in the bitset.<br>
+     * 
+     * @param bits
+     *            The bitset.
+     * @return The number of set bits.
+     */
+    static int cardinality(long[] bits)
+    {
+	int count = 0;
+	for (long word : bits)
+	{
+	    count += Long.bitCount(word);
+	}
+	return count;
     }
     
     /**
@@ -182,12 +324,30 @@ public final class MCSUtility
     /**
      * Removes all MCS that are contain other MCS and are not equal to them.<br>
      * The returned MCS HashSet contains only MCS that are minimal.<br>
+     * Uses the {@link MCSSubsumptionIndex} if it is enabled in the settings. Otherwise every MCS is compared with every other MCS.<br>
      * 
      * @param mcsSet
      *            A MCS HashSet
      * @return A MCS HashSet that contains only minimal MCS.
      */
     public static HashSet<MCS> minimizeMCSSet(HashSet<MCS> mcsSet)
+    {
+	if (SettingsUtility.isUseSubsumptionIndex())
+	{
+	    return MCSSubsumptionIndex.minimizeMCSSet(mcsSet);
+	}
+	return minimizeMCSSetPairwise(mcsSet);
+    }
+
+    /**
+     * Removes all MCS that are contain other MCS and are not equal to them by comparing every MCS with every other MCS.<br>
+     * The returned MCS HashSet contains only MCS that are minimal. MCS that are always false do not remove other MCS.<br>
+     * 
+     * @param mcsSet
+     *            A MCS HashSet
+     * @return A MCS HashSet that contains only minimal MCS.
+     */
+    public static HashSet<MCS> minimizeMCSSetPairwise(HashSet<MCS> mcsSet)
     {
 	if (!ThreadUtility.getThreadUtility().isMultiThreading()) // No Multithreading
 	{
@@ -196,7 +356,7 @@ public final class MCSUtility
 		{
 		    for (MCS mcs2 : mcsSet)
 		    {
-			if (!mcs1.equals(mcs2) && mcs1.containsMCSFully(mcs2))
+			if (!mcs2.isAlwaysFalse() && !mcs1.equals(mcs2) && mcs1.containsMCSFully(mcs2))
 			{
 			    minimalMCSSet.remove(mcs1);
 			    break;
@@ -221,7 +381,7 @@ public final class MCSUtility
 			{
 			    for (MCS mcs2 : mcsSet)
 			    {
-				if (!mcs1.equals(mcs2) && mcs1.containsMCSFully(mcs2))
+				if (!mcs2.isAlwaysFalse() && !mcs1.equals(mcs2) && mcs1.containsMCSFully(mcs2))
 				{
 				    minimalMCSSet.remove(mcs1);
 				    break;
@@ -234,7 +394,7 @@ public final class MCSUtility
 		{
 		    for (MCS mcs2 : mcsSet)
 		    {
-			if (!mcs1.equals(mcs2) && mcs1.containsMCSFully(mcs2))
+			if (!mcs2.isAlwaysFalse() && !mcs1.equals(mcs2) && mcs1.containsMCSFully(mcs2))
 			{
 			    minimalMCSSet.remove(mcs1);
 			    break;
@@ -278,12 +438,12 @@ public final class MCSUtility
     }
 
     /**
-     * Returns false if any MCS in the MCS HashSet have merged MCS sets.<br>
-     * Otherwise true.<br>
+     * Returns true if any MCS in the MCS HashSet have merged MCS sets that must be combined.<br>
+     * Otherwise false.<br>
      * 
      * @param mcsSet
      *            A MCS HashSet.
-     * @return False if any MCS in the MCS HashSet have merged MCS sets. Otherwise true.
+     * @return True if any MCS in the MCS HashSet have merged MCS sets that must be combined. Otherwise false.
      */
     public static boolean hasMergedMCSInMCSSet(HashSet<MCS> mcsSet)
     {
@@ -446,7 +606,7 @@ public final class MCSUtility
 	for (MCS mcs : mcsSet)
 	{
 	    MCS newMCS = new MCS(mcs);
-	    newMCS.getMCSNodeSet().remove(mcsNodeToRemove);
+	    newMCS.removeMCSNode(mcsNodeToRemove);
 	    newMCSSet.add(newMCS);
 	}
 	return newMCSSet;
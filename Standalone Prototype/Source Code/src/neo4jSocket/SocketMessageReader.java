@@ -0,0 +1,331 @@
+package neo4jSocket;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class reads the messages of the EA extension from the socket.
+ * A message consists of records that are separated by the main separator. The first record is the command of the message.
+ * A framed message starts with the byte 0x02 followed by the length of the UTF-8 encoded message as a 4 byte big-endian integer.
+ * Framed messages can have any length and are read record by record so large messages are never stored as a whole.
+ * A message that does not start with 0x02 uses the old format without a frame. Such a message is read with a single read of at most 4096 bytes.
+ * The old format always starts with the text of a command so both formats can be used in the same connection.
+ * @author Kevin Bartik
+ *
+ */
+final class SocketMessageReader
+{
+    /**
+     * The first byte of a framed message.
+     */
+    private static final int frameStart = 0x02;
+
+    /**
+     * The maximum size of a message in the old format.
+     */
+    private static final int legacyMessageSize = 4096;
+
+    /**
+     * The input stream of the socket.
+     */
+    private final InputStream inStream;
+
+    /**
+     * The separator between the records of a message.
+     */
+    private final String mainSeparator;
+
+    /**
+     * The reader of the current message or null if no message is read.
+     */
+    private Reader messageReader;
+
+    /**
+     * The bytes of the current framed message or null if the current message is not framed.
+     */
+    private FrameInputStream frame;
+
+    /**
+     * The next record of the current message. Used to find the last record of a message.
+     */
+    private String nextRecord;
+
+    /**
+     * Creates a reader for the messages of the input stream.
+     * @param _inStream The input stream of the socket.
+     * @param _mainSeparator The separator between the records of a message.
+     */
+    SocketMessageReader(InputStream _inStream, String _mainSeparator)
+    {
+	inStream = new BufferedInputStream(_inStream);
+	mainSeparator = _mainSeparator;
+    }
+
+    /**
+     * Skips the rest of the current message and starts reading the next message.
+     * @return The command of the next message or null if the socket was closed.
+     * @throws IOException
+     */
+    String nextMessage() throws IOException
+    {
+	skipMessage();
+	int first = inStream.read();
+	if (first == -1)
+	{
+	    return null;
+	}
+	if (first == frameStart)
+	{
+	    int length = 0;
+	    for (int i = 0; i < 4; i++)
+	    {
+		int b = inStream.read();
+		if (b == -1)
+		{
+		    return null;
+		}
+		length = (length << 8) | b;
+	    }
+	    if (length < 0)
+	    {
+		throw new IOException("Invalid message length: " + length);
+	    }
+	    frame = new FrameInputStream(inStream, length);
+	    messageReader = new BufferedReader(new InputStreamReader(frame, StandardCharsets.UTF_8));
+	}
+	else
+	{
+	    byte[] buffer = new byte[legacyMessageSize];
+	    buffer[0] = (byte) first;
+	    int length = 1;
+	    int available = Math.min(inStream.available(), legacyMessageSize - 1);
+	    if (available > 0)
+	    {
+		length += Math.max(0, inStream.read(buffer, 1, available));
+	    }
+	    messageReader = new StringReader(new String(buffer, 0, length, StandardCharsets.UTF_8).trim());
+	}
+	nextRecord = readRecord();
+	String command = nextRecord();
+	return command == null ? "" : command.trim();
+    }
+
+    /**
+     * Returns the next record of the current message or null if the message has no more records.
+     * The last record of a message is trimmed like the whole message in the old format.
+     * @return The next record.
+     * @throws IOException
+     */
+    String nextRecord() throws IOException
+    {
+	String record = nextRecord;
+	if (record != null)
+	{
+	    nextRecord = readRecord();
+	    if (nextRecord == null)
+	    {
+		record = record.trim();
+	    }
+	}
+	return record;
+    }
+
+    /**
+     * Reads the remaining records of the current message into an array that starts with the command.
+     * The array has the same layout as the old message that was split at the main separator so the commands can be handled like before.
+     * @param command The command of the message.
+     * @return The command and the remaining records.
+     * @throws IOException
+     */
+    String[] readMessage(String command) throws IOException
+    {
+	ArrayList<String> records = new ArrayList<String>();
+	records.add(command);
+	String record;
+	while ((record = nextRecord()) != null)
+	{
+	    records.add(record);
+	}
+	while (records.size() > 1 && records.get(records.size() - 1).isEmpty())
+	{
+	    records.remove(records.size() - 1); // like String.split
+	}
+	return records.toArray(new String[records.size()]);
+    }
+
+    /**
+     * Returns an iterator over the remaining records of the current message.
+     * The records are read from the socket while the iterator is used.
+     * @return The iterator.
+     */
+    Iterator<String> records()
+    {
+	return new Iterator<String>()
+	{
+	    @Override
+	    public boolean hasNext()
+	    {
+		return nextRecord != null;
+	    }
+
+	    @Override
+	    public String next()
+	    {
+		if (nextRecord == null)
+		{
+		    throw new NoSuchElementException();
+		}
+		try
+		{
+		    return nextRecord();
+		}
+		catch (IOException e)
+		{
+		    throw new UncheckedIOException(e);
+		}
+	    }
+	};
+    }
+
+    /**
+     * Skips the rest of the current message so the next message can be read.
+     * @throws IOException
+     */
+    private void skipMessage() throws IOException
+    {
+	if (frame != null)
+	{
+	    frame.skipRemaining();
+	    frame = null;
+	}
+	messageReader = null;
+	nextRecord = null;
+    }
+
+    /**
+     * Reads characters until the next main separator or the end of the message.
+     * @return The record without the separator or null if the message has no more records.
+     * @throws IOException
+     */
+    private String readRecord() throws IOException
+    {
+	if (messageReader == null)
+	{
+	    return null;
+	}
+	StringBuilder record = new StringBuilder();
+	char separatorEnd = mainSeparator.charAt(mainSeparator.length() - 1);
+	int c;
+	while ((c = messageReader.read()) != -1)
+	{
+	    record.append((char) c);
+	    if (c == separatorEnd && record.length() >= mainSeparator.length() && record.indexOf(mainSeparator, record.length() - mainSeparator.length()) != -1)
+	    {
+		record.setLength(record.length() - mainSeparator.length());
+		return record.toString();
+	    }
+	}
+	messageReader = null; // the last record of the message
+	return record.toString();
+    }
+
+    /**
+     * An input stream that ends after the bytes of a frame and never closes the input stream of the socket.
+     */
+    private static final class FrameInputStream extends FilterInputStream
+    {
+	/**
+	 * The number of bytes of the frame that were not read.
+	 */
+	private long remaining;
+
+	private FrameInputStream(InputStream in, long length)
+	{
+	    super(in);
+	    remaining = length;
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+	    if (remaining <= 0)
+	    {
+		return -1;
+	    }
+	    int b = in.read();
+	    if (b == -1)
+	    {
+		throw new IOException("The socket was closed within a message!");
+	    }
+	    remaining--;
+	    return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+	    if (remaining <= 0)
+	    {
+		return -1;
+	    }
+	    int read = in.read(b, off, (int) Math.min(len, remaining));
+	    if (read == -1)
+	    {
+		throw new IOException("The socket was closed within a message!");
+	    }
+	    remaining -= read;
+	    return read;
+	}
+
+	@Override
+	public int available() throws IOException
+	{
+	    return (int) Math.min(in.available(), remaining);
+	}
+
+	@Override
+	public void close()
+	{
+	    // The input stream of the socket stays open.
+	}
+
+	/**
+	 * Skips the bytes of the frame that were not read.
+	 * @throws IOException
+	 */
+	private void skipRemaining() throws IOException
+	{
+	    while (remaining > 0)
+	    {
+		long skipped = in.skip(remaining);
+		if (skipped <= 0)
+		{
+		    if (in.read() == -1)
+		    {
+			throw new IOException("The socket was closed within a message!");
+		    }
+		    skipped = 1;
+		}
+		remaining -= skipped;
+	    }
+	}
+
+	@Override
+	public boolean markSupported()
+	{
+	    return false;
+	}
+    }
+
+}
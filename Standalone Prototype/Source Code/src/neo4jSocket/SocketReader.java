@@ -9,6 +9,7 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.Future;
 
+import neo4jDatabase.DBBatchImport;
 import neo4jDatabase.DBConnection;
 import neo4jDatabase.DBUtility;
 import neo4jDatabase.DBChecker;
@@ -36,6 +37,10 @@ public class SocketReader extends Thread
 
     private Thread windowThread;
 
+    private SocketMessageReader messageReader;
+
+    private DBBatchImport batchImport;
+
     SocketReader(Socket _socket)
     {
 	socket = _socket;
@@ -43,6 +48,7 @@ public class SocketReader extends Thread
 	{
 	    inStream = socket.getInputStream();
 	    outStream = socket.getOutputStream();
+	    messageReader = new SocketMessageReader(inStream, mainSeparator);
 	}
 	catch (IOException e)
 	{
@@ -63,10 +69,16 @@ public class SocketReader extends Thread
 	{
 	    try
 	    {
-		byte[] buffer = new byte[4096];
 		GeneralLogger.log("Reading started!");
-		inStream.read(buffer);
-		final String[] separatedMessage = (new String(buffer, "UTF-8")).trim().split(mainSeparator);
+		String command = messageReader.nextMessage();
+		if (command == null)
+		{
+		    GeneralLogger.log("The socket was closed!");
+		    System.exit(0);
+		}
+		// the elements and connectors of a full update are streamed into the batch inserter without reading the whole message
+		boolean streamRecords = fullupdatemode && (command.equals("add elements") || command.equals("add connectors"));
+		final String[] separatedMessage = streamRecords ? new String[] { command } : messageReader.readMessage(command);
 		StringBuilder logMessage = new StringBuilder();
 		for (int i = 0; i < separatedMessage.length; i++)
 		{
@@ -111,6 +123,11 @@ public class SocketReader extends Thread
 			switch (separatedMessage[0])
 			{
 			    case "end full update":
+				if (batchImport != null)
+				{
+				    batchImport.finish();
+				    batchImport = null;
+				}
 				if (!ThreadUtility.getThreadUtility().noTasksRunning())
 				{
 				    ThreadUtility.getThreadUtility().sleepUntilNoThreadsAreRunning();
@@ -128,32 +145,34 @@ public class SocketReader extends Thread
 				fullupdatemode = false;
 				break;
 			    case "add elements":
-				if (!ThreadUtility.getThreadUtility().noTasksRunning())
+				if (batchImport == null)
 				{
-				    ThreadUtility.getThreadUtility().sleepUntilNoThreadsAreRunning();
+				    batchImport = new DBBatchImport(partSeparator, tgSeparator);
 				}
-				futures.add(ThreadUtility.getThreadUtility().submitTask(new Runnable()
+				messageReader.nextRecord(); // the record after the command is empty
+				try
 				{
-				    @Override
-				    public void run()
-				    {
-					DBUpdater.addElementsBatch(separatedMessage, partSeparator, tgSeparator);
-				    }
-				}));
+				    GeneralLogger.log(batchImport.addElements(messageReader.records()) + " elements were read!");
+				}
+				catch (RuntimeException e)
+				{
+				    GeneralLogger.logError(e);
+				}
 				break;
 			    case "add connectors":
-				if (!ThreadUtility.getThreadUtility().noTasksRunning())
+				if (batchImport == null)
 				{
-				    ThreadUtility.getThreadUtility().sleepUntilNoThreadsAreRunning();
+				    batchImport = new DBBatchImport(partSeparator, tgSeparator);
 				}
-				futures.add(ThreadUtility.getThreadUtility().submitTask(new Runnable()
+				messageReader.nextRecord(); // the record after the command is empty
+				try
 				{
-				    @Override
-				    public void run()
-				    {
-					DBUpdater.addConnectorsBatch(separatedMessage, partSeparator);
-				    }
-				}));
+				    GeneralLogger.log(batchImport.addConnectors(messageReader.records()) + " connectors were read!");
+				}
+				catch (RuntimeException e)
+				{
+				    GeneralLogger.logError(e);
+				}
 				break;
 			    default:
 				GeneralLogger.log("Error Command while full update: " + separatedMessage[0]);
@@ -0,0 +1,798 @@
+package neo4jTraversal;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.neo4j.graphdb.Node;
+
+import neo4jBDD.BDDAnalysis;
+import neo4jDatabase.DBChangeTracker;
+import neo4jDatabase.DBMCSManager;
+import neo4jDatabase.DBUtility;
+import neo4jEnum.NodeLabels;
+import neo4jGateSets.GateSet;
+import neo4jGateSets.ProbabilityPlan;
+import neo4jGateSets.ResultGateSet;
+import neo4jMCS.MCSEventIndex;
+import neo4jMCS.MCSPairSet;
+import neo4jUtility.ErrorCounter;
+import neo4jUtility.PrintUtility;
+import neo4jUtility.SettingsUtility;
+import neo4jZBDD.ZBDDAnalysis;
+
+/**
+ * This class contains the traversal and the analysis results of one outport.<br>
+ * The settings that affect the traversal are copied when the AnalysisSession is created so changing them does not affect a running analysis.<br>
+ * Every AnalysisSession has its own ResultGateSets so several outports can be analyzed concurrently in separate AnalysisSessions.<br>
+ * The traversal is performed once when the first analysis of the AnalysisSession is started.<br>
+ *
+ * @see MainTraversal
+ *
+ * @author Kevin Bartik
+ *
+ */
+public final class AnalysisSession
+{
+
+    /**
+     * Counts the errors that occur during the analyses of this AnalysisSession.<br>
+     * It is bound to every thread that works for this AnalysisSession so the errors of other AnalysisSessions are not counted.<br>
+     */
+    private final ErrorCounter errorCounter = new ErrorCounter();
+
+    /**
+     * The event dictionary of the MCS of this AnalysisSession.<br>
+     * It is bound to every thread that works for this AnalysisSession so the MCS of this AnalysisSession stay valid while other AnalysisSessions are used.<br>
+     */
+    private final MCSEventIndex eventIndex = new MCSEventIndex();
+
+    /**
+     * The number of errors of threads without an ErrorCounter when this AnalysisSession was created.<br>
+     * These errors cannot be assigned to an AnalysisSession so every AnalysisSession that is running while such an error occurs has an error.<br>
+     */
+    private final int globalErrorCountAtStart;
+
+    /**
+     * The structure version of the CFTs when this AnalysisSession was created.<br>
+     * The traversal results cannot be used again after the structure of the CFTs was changed.<br>
+     */
+    private final long structureVersion;
+
+    /**
+     * Is true if the prime implicants are calculated.<br>
+     * Otherwise false.<br>
+     */
+    private final boolean calculatePrimeImplicants;
+
+    /**
+     * Is true is manual traversal is used.<br>
+     * Otherwise false.<br>
+     */
+    private final boolean useManualTraversal;
+
+    /**
+     * Is true if the traversal is split and the analysis results are reused.<br>
+     * Otherwise false.<br>
+     */
+    private final boolean splitTraversalAndReuseAnalysisResults;
+
+    /**
+     * Is true if the minimal cut sets are calculated with the ZBDD engine.<br>
+     * Otherwise false.<br>
+     */
+    private final boolean useZBDDEngine;
+
+    /**
+     * Is true if the probability is calculated with the BDD.<br>
+     * Otherwise false.<br>
+     */
+    private final boolean useBDDProbability;
+
+    /**
+     * The final result of the qualitative analysis.<br>
+     */
+    private ResultGateSet qualititativeAnalysisResults;
+
+    /**
+     * The ZBDD of the qualitative analysis if the ZBDD engine was used.<br>
+     */
+    private ZBDDAnalysis zbddAnalysis;
+
+    /**
+     * The final result of the quantitative analysis.<br>
+     */
+    private double quantitativeAnalysisResults = -1;
+
+    /**
+     * The probability version of the basic failure probabilities that were used for the final result of the quantitative analysis.<br>
+     */
+    private long resultProbabilityVersion;
+
+    /**
+     * Maps Nodes with ResultGateSets.<br>
+     * A Node key is the startNode of the ResultGateSet.<br>
+     */
+    private final HashMap<Node, ResultGateSet> resultGateSets = new HashMap<Node, ResultGateSet>();
+
+    /**
+     * The outport that is analyzed and where traversal starts.<br>
+     */
+    private final Node outport;
+
+    /**
+     * The inports of the parent CFT of the outport.<br>
+     */
+    private HashSet<Node> inports;
+
+    /**
+     * The amount of time that was needed to perform the traversal.<br>
+     * Time in milliseconds. <br>
+     */
+    private long timeTraversal = -1;
+
+    /**
+     * The amount of time that was needed to perform the minimal cut set calculation.<br>
+     * Time in milliseconds. <br>
+     */
+    private long timeRefineMCS = -1;
+
+    /**
+     * The amount of time that was needed to perform the calculation of the prime implicants.<br>
+     * Time in milliseconds. <br>
+     */
+    private long timePrimeImplicants = -1;
+
+    /**
+     * The amount of time that was needed to perform the quantitative analysis.<br>
+     * Time in milliseconds. <br>
+     */
+    private long timeQuantAnalysis = -1;
+
+    /**
+     * Is true if a cycle found during traversal.<br>
+     * Otherwise false.<br>
+     */
+    private volatile boolean cycleFound = false;
+
+    /**
+     * A lock to prevent multiple threads from adding ResultGateSets concurrently.
+     */
+    private final Object resultGateSetsLock = new Object();
+
+    /**
+     * Resolves the kind of the Nodes that are traversed in this AnalysisSession.<br>
+     */
+    private final NodeKindResolver nodeKindResolver = new NodeKindResolver();
+
+    /**
+     * Shares the GateSets of the full traversal that do not depend on the Inports of their CFT.<br>
+     */
+    private final GateSetSharing gateSetSharing = new GateSetSharing(this);
+
+    /**
+     * Creates an AnalysisSession for the outport.<br>
+     * The engines of the qualitative and the quantitative analysis are taken from the current settings.<br>
+     *
+     * @param outport
+     *            The outport that is analyzed. Must have the Label CFT_Outport.
+     * @param useManualTraversal
+     *            If true the manual traversal is used. Otherwise the Neo4j traversal.
+     * @param splitTraversalAndReuseAnalysisResults
+     *            If true the traversal is split and the analysis results are reused.
+     * @param calculatePrimeImplicants
+     *            If true the prime implicants are calculated.
+     */
+    AnalysisSession(Node outport, boolean useManualTraversal, boolean splitTraversalAndReuseAnalysisResults, boolean calculatePrimeImplicants)
+    {
+	this.outport = outport;
+	this.useManualTraversal = useManualTraversal;
+	this.splitTraversalAndReuseAnalysisResults = splitTraversalAndReuseAnalysisResults;
+	this.calculatePrimeImplicants = calculatePrimeImplicants;
+	useZBDDEngine = SettingsUtility.isUseZBDDEngine();
+	useBDDProbability = SettingsUtility.isUseBDDProbability();
+	globalErrorCountAtStart = ErrorCounter.getGlobalErrorCounter().getErrorCount();
+	structureVersion = DBChangeTracker.getStructureVersion();
+    }
+
+    /**
+     * Returns true if the AnalysisSession was created for the outport with the current settings and its results can be used again.<br>
+     *
+     * @param _outport
+     *            The outport that is analyzed.
+     * @return True if the AnalysisSession can be used again. Otherwise false.
+     */
+    boolean isReusable(Node _outport)
+    {
+	return SettingsUtility.isUseManualTraversal() == useManualTraversal && SettingsUtility.isReuseAnalysisResults() == splitTraversalAndReuseAnalysisResults
+		&& !resultGateSets.isEmpty() && timeTraversal != -1 && !SettingsUtility.isResetTraversal() && outport.equals(_outport)
+		&& SettingsUtility.isUseZBDDEngine() == useZBDDEngine && SettingsUtility.isUseBDDProbability() == useBDDProbability
+		&& structureVersion == DBChangeTracker.getStructureVersion();
+    }
+
+    /**
+     * Performs the qualitative analysis of the outport.<br>
+     * The traversal is only performed if this AnalysisSession has no traversal results yet.<br>
+     * The errors and the MCS of the analysis belong to this AnalysisSession.<br>
+     */
+    public void qualitativeAnalysis()
+    {
+	ErrorCounter previous = ErrorCounter.bind(errorCounter);
+	MCSEventIndex previousIndex = MCSEventIndex.bind(eventIndex);
+	try
+	{
+	    performQualitativeAnalysis();
+	}
+	finally
+	{
+	    MCSEventIndex.restore(previousIndex);
+	    ErrorCounter.restore(previous);
+	}
+    }
+
+    private void performQualitativeAnalysis()
+    {
+	performTraversal();
+	if (!errorFound())
+	{
+	    PrintUtility.printInfo("Minimal Cut Set Analysis started!");
+	    if (qualititativeAnalysisResults == null)
+	    {
+		if (splitTraversalAndReuseAnalysisResults)
+		{
+		    // Always calculate Prime Implicants
+		    long startRefineMCS = System.nanoTime();
+		    MCSPairSet outportFullMCSSet = DBMCSManager.getFullMCSSet(outport);
+		    if (!outportFullMCSSet.isEmpty())
+		    {
+			getResultGateSet(outport).SetFullMCSSet(outportFullMCSSet.getMCSSet());
+			getResultGateSet(outport).SetFullNegatedMCSSet(outportFullMCSSet.getNegatedMCSSet());
+			qualititativeAnalysisResults = resultGateSets.get(outport);
+			long endRefineMCS = System.nanoTime();
+			timeRefineMCS = (endRefineMCS - startRefineMCS) / 1000000;
+		    }
+		    else
+		    { // calculation necessary
+			calculateResultGateSetMCS();
+			qualititativeAnalysisResults = resultGateSets.get(outport).getConnectedCopy(this, null);
+			qualititativeAnalysisResults.connectMCS(this);
+			qualititativeAnalysisResults.minimizeMCS();
+			long endRefineMCS = System.nanoTime();
+			timeRefineMCS = (endRefineMCS - startRefineMCS) / 1000000;
+			long startPrimeImplicants = System.nanoTime();
+			qualititativeAnalysisResults.addHiddenPrimeImplicants();
+			qualititativeAnalysisResults.minimizeMCS();
+			long endPrimeImplicants = System.nanoTime();
+			timePrimeImplicants = (endPrimeImplicants - startPrimeImplicants) / 1000000;
+		    }
+		}
+		else if (useZBDDEngine)
+		{
+		    long startRefineMCS = System.nanoTime();
+		    qualititativeAnalysisResults = (ResultGateSet) resultGateSets.get(outport).getGateSetCopy();
+		    zbddAnalysis = new ZBDDAnalysis(qualititativeAnalysisResults);
+		    BigInteger mcsCount = zbddAnalysis.getMCSCount();
+		    int maxMCS = SettingsUtility.getMaxMaterializedMCS();
+		    qualititativeAnalysisResults.SetMCSSet(zbddAnalysis.getMCSSet(maxMCS));
+		    long endRefineMCS = System.nanoTime();
+		    timeRefineMCS = (endRefineMCS - startRefineMCS) / 1000000;
+		    PrintUtility.printInfo("The ZBDD has " + zbddAnalysis.getZBDDNodeCount() + " nodes and contains " + mcsCount + " minimal cut sets.");
+		    boolean allMCSCreated = mcsCount.compareTo(BigInteger.valueOf(maxMCS)) <= 0;
+		    if (!allMCSCreated)
+		    {
+			PrintUtility.printInfo("Only " + maxMCS + " of " + mcsCount + " minimal cut sets were created from the ZBDD.");
+		    }
+		    if (calculatePrimeImplicants)
+		    {
+			if (allMCSCreated)
+			{
+			    long startPrimeImplicants = System.nanoTime();
+			    qualititativeAnalysisResults.addHiddenPrimeImplicants();
+			    qualititativeAnalysisResults.minimizeMCS();
+			    long endPrimeImplicants = System.nanoTime();
+			    timePrimeImplicants = (endPrimeImplicants - startPrimeImplicants) / 1000000;
+			}
+			else
+			{
+			    PrintUtility.printInfo("The Prime Implicants are not calculated because not all minimal cut sets were created from the ZBDD.");
+			}
+		    }
+		}
+		else
+		{
+		    long startRefineMCS = System.nanoTime();
+		    qualititativeAnalysisResults = (ResultGateSet) resultGateSets.get(outport).getGateSetCopy();
+		    qualititativeAnalysisResults.createMCSSet();
+		    qualititativeAnalysisResults.combineAllMergedMCS();
+		    qualititativeAnalysisResults.minimizeMCS();
+		    long endRefineMCS = System.nanoTime();
+		    timeRefineMCS = (endRefineMCS - startRefineMCS) / 1000000;
+		    if (calculatePrimeImplicants)
+		    {
+			long startPrimeImplicants = System.nanoTime();
+			qualititativeAnalysisResults.addHiddenPrimeImplicants();
+			qualititativeAnalysisResults.minimizeMCS();
+			long endPrimeImplicants = System.nanoTime();
+			timePrimeImplicants = (endPrimeImplicants - startPrimeImplicants) / 1000000;
+		    }
+		}
+		PrintUtility.printInfo("Minimal Cut Set Analysis finished!");
+	    }
+	    printPerformanceStatistics();
+	}
+    }
+
+    /**
+     * Performs the quantitative analysis of the outport.<br>
+     * If the BDD is not used, the traversal is not reset and the outport has a valid ProbabilityPlan then the ProbabilityPlan is evaluated without a
+     * traversal.<br>
+     * The result is calculated again if a basic failure probability was changed since it was calculated.<br>
+     */
+    public void quantitativeAnalysis()
+    {
+	ErrorCounter previous = ErrorCounter.bind(errorCounter);
+	MCSEventIndex previousIndex = MCSEventIndex.bind(eventIndex);
+	try
+	{
+	    performQuantitativeAnalysis();
+	}
+	finally
+	{
+	    MCSEventIndex.restore(previousIndex);
+	    ErrorCounter.restore(previous);
+	}
+    }
+
+    private void performQuantitativeAnalysis()
+    {
+	if (timeTraversal == -1 && !useBDDProbability && !SettingsUtility.isResetTraversal() && !errorFound())
+	{
+	    ProbabilityPlan plan = MainTraversal.getProbabilityPlan(outport);
+	    if (plan != null)
+	    {
+		long start = System.nanoTime();
+		quantitativeAnalysisResults = plan.evaluate();
+		long end = System.nanoTime();
+		timeQuantAnalysis = (end - start) / 1000000;
+		PrintUtility.printInfo("The probability was calculated with the ProbabilityPlan of the outport (" + plan.getEventCount() + " events, " + plan.getOperationCount() + " operations).");
+		PrintUtility.printResults("The Probability of the Occurence of an Event at the Element (" + DBUtility.getIDAndName(outport) + " [OUT]) is " + quantitativeAnalysisResults + ".\n");
+		PrintUtility.printResults("Quantitative Analysis (Probability) Calculation time: " + timeQuantAnalysis + " ms");
+		return;
+	    }
+	}
+	performTraversal();
+	if (!errorFound())
+	{
+	    if (quantitativeAnalysisResults != -1 && resultProbabilityVersion != DBChangeTracker.getProbabilityVersion())
+	    {
+		quantitativeAnalysisResults = -1;
+	    }
+	    if (quantitativeAnalysisResults == -1)
+	    {
+		long start = System.nanoTime();
+		resultProbabilityVersion = DBChangeTracker.getProbabilityVersion();
+		if (splitTraversalAndReuseAnalysisResults)
+		{
+		    // The stored results are always calculated without the BDD
+		    if (!useBDDProbability)
+		    {
+			quantitativeAnalysisResults = DBMCSManager.getQuantitativeResult(resultGateSets.get(outport).getStartNode());
+		    }
+		    if (quantitativeAnalysisResults == -1)
+		    {
+			ResultGateSet resultGateSet = resultGateSets.get(outport).getConnectedCopy(this, null);
+			quantitativeAnalysisResults = calculateProbability(resultGateSet);
+			if (!errorFound() && !useBDDProbability)
+			{
+			    DBMCSManager.addQuantitativeResult(resultGateSet.getStartNode(), quantitativeAnalysisResults);
+			}
+		    }
+		}
+		else
+		{
+		    quantitativeAnalysisResults = calculateProbability(resultGateSets.get(outport));
+		}
+		long end = System.nanoTime();
+		timeQuantAnalysis = (end - start) / 1000000;
+	    }
+	    PrintUtility.printResults("The Probability of the Occurence of an Event at the Element (" + DBUtility.getIDAndName(outport) + " [OUT]) is " + quantitativeAnalysisResults + ".\n");
+	    printPerformanceStatistics();
+	}
+    }
+
+    /**
+     * Performs the qualitative and the quantitative analysis and stores the results in the database.<br>
+     * The AnalysisSession must use the split traversal and reuse the analysis results.<br>
+     */
+    void fullAnalysis()
+    {
+	ErrorCounter previous = ErrorCounter.bind(errorCounter);
+	MCSEventIndex previousIndex = MCSEventIndex.bind(eventIndex);
+	try
+	{
+	    performFullAnalysis();
+	}
+	finally
+	{
+	    MCSEventIndex.restore(previousIndex);
+	    ErrorCounter.restore(previous);
+	}
+    }
+
+    private void performFullAnalysis()
+    {
+	boolean recalc = false;
+	performTraversal();
+	long startRefineMCS = System.nanoTime();
+	MCSPairSet outportFullMCSSet = DBMCSManager.getFullMCSSet(outport);
+	if (!outportFullMCSSet.isEmpty())
+	{
+	    getResultGateSet(outport).SetFullMCSSet(outportFullMCSSet.getMCSSet());
+	    getResultGateSet(outport).SetFullNegatedMCSSet(outportFullMCSSet.getNegatedMCSSet());
+	    qualititativeAnalysisResults = resultGateSets.get(outport);
+	    long endRefineMCS = System.nanoTime();
+	    timeRefineMCS = (endRefineMCS - startRefineMCS) / 1000000;
+	}
+	else
+	{ // calculation necessary
+	    calculateResultGateSetMCS();
+	    qualititativeAnalysisResults = resultGateSets.get(outport).getConnectedCopy(this, null);
+	    PrintUtility.printInfo(qualititativeAnalysisResults.getGateSetString(""));
+	    qualititativeAnalysisResults.connectMCS(this);
+	    qualititativeAnalysisResults.minimizeMCS();
+	    long endRefineMCS = System.nanoTime();
+	    timeRefineMCS = (endRefineMCS - startRefineMCS) / 1000000;
+	    long startPrimeImplicants = System.nanoTime();
+	    qualititativeAnalysisResults.addHiddenPrimeImplicants();
+	    qualititativeAnalysisResults.minimizeMCS();
+	    long endPrimeImplicants = System.nanoTime();
+	    timePrimeImplicants = (endPrimeImplicants - startPrimeImplicants) / 1000000;
+	    recalc = true;
+	}
+	quantitativeAnalysisResults = DBMCSManager.getQuantitativeResult(resultGateSets.get(outport).getStartNode());
+	if (quantitativeAnalysisResults == -1)
+	{
+	    if (recalc)
+	    {
+		quantitativeAnalysisResults = evaluateProbabilityPlan(qualititativeAnalysisResults);
+		if (!errorFound())
+		{
+		    DBMCSManager.addQuantitativeResult(qualititativeAnalysisResults.getStartNode(), quantitativeAnalysisResults);
+		}
+	    }
+	    else
+	    {
+		ResultGateSet resultGateSet = resultGateSets.get(outport).getConnectedCopy(this, null);
+		quantitativeAnalysisResults = evaluateProbabilityPlan(resultGateSet);
+		if (!errorFound())
+		{
+		    DBMCSManager.addQuantitativeResult(resultGateSet.getStartNode(), quantitativeAnalysisResults);
+		}
+	    }
+	}
+    }
+
+    /**
+     * Calculates or loads the MCS of every ResultGateSet of the split traversal.<br>
+     * Calculated MCS are stored in the database.<br>
+     */
+    private void calculateResultGateSetMCS()
+    {
+	for (ResultGateSet rgs : resultGateSets.values())
+	{
+	    MCSPairSet mcsSet = DBMCSManager.getMCSSet(rgs.getStartNode());
+	    if (mcsSet.isEmpty())
+	    {
+		rgs.createMCSSet();
+		rgs.createNegatedMCSSet();
+		rgs.combineAllMergedMCS();
+		rgs.minimizeMCS();
+		rgs.addHiddenPrimeImplicants();
+		rgs.minimizeMCS();
+		if (!errorFound())
+		{
+		    DBMCSManager.addMCSSet(rgs);
+		}
+	    }
+	    else
+	    {
+		rgs.SetMCSSet(mcsSet.getMCSSet());
+		rgs.SetNegatedMCSSet(mcsSet.getNegatedMCSSet());
+	    }
+	    MCSPairSet fullMCSSet = DBMCSManager.getFullMCSSet(rgs.getStartNode());
+	    if (!fullMCSSet.isEmpty())
+	    {
+		rgs.SetFullMCSSet(fullMCSSet.getMCSSet());
+		rgs.SetFullNegatedMCSSet(fullMCSSet.getNegatedMCSSet());
+	    }
+	}
+    }
+
+    /**
+     * Calculates the probability of the ResultGateSet of the outport.<br>
+     * If the BDD probability is used then events that occur more than once in the GateSet are only counted once.<br>
+     * Otherwise the ProbabilityPlan of the ResultGateSet is evaluated.<br>
+     *
+     * @param resultGateSet
+     *            The ResultGateSet of the outport. Must be connected if the traversal was split.
+     * @return The probability of the ResultGateSet.
+     */
+    private double calculateProbability(ResultGateSet resultGateSet)
+    {
+	if (useBDDProbability)
+	{
+	    BDDAnalysis bddAnalysis = new BDDAnalysis(resultGateSet);
+	    double probability = bddAnalysis.calculateProbability();
+	    PrintUtility.printInfo("The BDD has " + bddAnalysis.getBDDNodeCount() + " nodes.");
+	    return probability;
+	}
+	return evaluateProbabilityPlan(resultGateSet);
+    }
+
+    /**
+     * Compiles the ResultGateSet of the outport into a ProbabilityPlan and evaluates it.<br>
+     * The ProbabilityPlan is kept for the next quantitative analysis of the outport.<br>
+     * The result is the same as the result of {@code calculateBasicFailureProbability()} of the ResultGateSet.<br>
+     *
+     * @param resultGateSet
+     *            The ResultGateSet of the outport. Must be connected if the traversal was split.
+     * @return The probability of the ResultGateSet.
+     */
+    private double evaluateProbabilityPlan(ResultGateSet resultGateSet)
+    {
+	ProbabilityPlan plan = ProbabilityPlan.compile(resultGateSet, structureVersion);
+	if (plan == null)
+	{
+	    return resultGateSet.calculateBasicFailureProbability();
+	}
+	if (plan.getSharedGateSetCount() != 0)
+	{
+	    PrintUtility.printInfo(plan.getSharedGateSetCount() + " GateSets are shared in the ProbabilityPlan of the outport (" + plan.getEventCount() + " events, "
+		    + plan.getOperationCount() + " operations).");
+	}
+	double probability = plan.evaluate();
+	if (!errorFound())
+	{
+	    MainTraversal.putProbabilityPlan(outport, plan);
+	}
+	return probability;
+    }
+
+    void addResultGateSet(Node node, ResultGateSet rgs)
+    {
+	synchronized (resultGateSetsLock)
+	{
+	    resultGateSets.put(node, rgs);
+	}
+    }
+
+    /**
+     * Returns the ResultGateSets of the traversal.<br>
+     *
+     * @return The ResultGateSets of the traversal.
+     */
+    public Collection<ResultGateSet> getResultGateSets()
+    {
+	return resultGateSets.values();
+    }
+
+    /**
+     * Returns the ResultGateSet of the Node or null if the traversal did not create a ResultGateSet for the Node.<br>
+     *
+     * @param node
+     *            The Node.
+     * @return The ResultGateSet of the Node.
+     */
+    public ResultGateSet getResultGateSet(Node node)
+    {
+	return resultGateSets.get(node);
+    }
+
+    /**
+     * Returns the outport that is analyzed.<br>
+     *
+     * @return The outport.
+     */
+    public Node getOutport()
+    {
+	return outport;
+    }
+
+    /**
+     * Returns the inports of the parent CFT of the outport.<br>
+     *
+     * @return The inports of the parent CFT.
+     */
+    public HashSet<Node> getInports()
+    {
+	return inports;
+    }
+
+    /**
+     * Returns the time of the traversal in milliseconds or -1 if no traversal was performed.<br>
+     *
+     * @return The time of the traversal.
+     */
+    public long getTraversalTime()
+    {
+	return timeTraversal;
+    }
+
+    /**
+     * Returns the time of the minimal cut set calculation in milliseconds or -1 if no minimal cut sets were calculated.<br>
+     *
+     * @return The time of the minimal cut set calculation.
+     */
+    public long getMCSCalculationTime()
+    {
+	return timeRefineMCS;
+    }
+
+    /**
+     * Returns the time of the prime implicant calculation in milliseconds or -1 if no prime implicants were calculated.<br>
+     *
+     * @return The time of the prime implicant calculation.
+     */
+    public long getPrimeImplicantCalcTime()
+    {
+	return timePrimeImplicants;
+    }
+
+    /**
+     * Returns the time of the quantitative analysis in milliseconds or -1 if no quantitative analysis was performed.<br>
+     *
+     * @return The time of the quantitative analysis.
+     */
+    public long getQuantTime()
+    {
+	return timeQuantAnalysis;
+    }
+
+    /**
+     * Returns the final result of the qualitative analysis or null if no qualitative analysis was performed.<br>
+     *
+     * @return The result of the qualitative analysis.
+     */
+    public ResultGateSet getQualititativeAnalysisResults()
+    {
+	return qualititativeAnalysisResults;
+    }
+
+    /**
+     * Returns the ZBDD of the qualitative analysis or null if the ZBDD engine was not used.<br>
+     * The ZBDD can be used to iterate over all minimal cut sets if only a part of them was created.<br>
+     *
+     * @return The ZBDD of the qualitative analysis.
+     */
+    public ZBDDAnalysis getZBDDAnalysis()
+    {
+	return zbddAnalysis;
+    }
+
+    /**
+     * Returns the final result of the quantitative analysis or -1 if no quantitative analysis was performed.<br>
+     *
+     * @return The probability of the outport.
+     */
+    public double getQuantitativeAnalysisResults()
+    {
+	return quantitativeAnalysisResults;
+    }
+
+    /**
+     * Returns true if an error occurred during an analysis of this AnalysisSession or in a thread without an ErrorCounter since this AnalysisSession was
+     * created.<br>
+     *
+     * @return True if an error occurred. Otherwise false.
+     */
+    public boolean errorFound()
+    {
+	return errorCounter.getErrorCount() != 0 || ErrorCounter.getGlobalErrorCounter().getErrorCount() != globalErrorCountAtStart;
+    }
+
+    void cycleFound(boolean found)
+    {
+	if (found)
+	{
+	    cycleFound = found;
+	    PrintUtility.printError("A Cycle was found and the Traversal cannot continue!");
+	}
+    }
+
+    boolean cycleFound()
+    {
+	return cycleFound;
+    }
+
+    /**
+     * Returns the kind of the Node. The kind is cached for the lifetime of this AnalysisSession.<br>
+     *
+     * @param node
+     *            The Node.
+     * @return The kind of the Node.
+     * @see NodeKindResolver
+     */
+    NodeLabels getNodeKind(Node node)
+    {
+	return nodeKindResolver.getKind(node);
+    }
+
+    /**
+     * Returns the shared GateSet of the Node or null if the Node has no shared GateSet yet.<br>
+     *
+     * @param node
+     *            The Node.
+     * @return The shared GateSet of the Node.
+     * @see GateSetSharing
+     */
+    GateSet getSharedGateSet(Node node)
+    {
+	return gateSetSharing.getSharedGateSet(node);
+    }
+
+    /**
+     * Shares the GateSet of the Node if it does not depend on the Inports of the CFT of the Node.<br>
+     *
+     * @param node
+     *            The start Node of the GateSet.
+     * @param gateSet
+     *            The GateSet that was created for the Node.
+     * @see GateSetSharing
+     */
+    void shareGateSet(Node node, GateSet gateSet)
+    {
+	gateSetSharing.shareGateSet(node, gateSet);
+    }
+
+    /**
+     * Performs the traversal if it was not performed yet.<br>
+     */
+    private void performTraversal()
+    {
+	if (timeTraversal == -1)
+	{
+	    inports = DBUtility.getElementsbyLabelandParent(NodeLabels.CFT_Inport, DBUtility.getCFTofNode(outport));
+	    if (useManualTraversal)
+	    {
+		PrintUtility.printInfo("Manual Traversal started!");
+		long startTrav = System.nanoTime();
+		ManualTraversal.startManualTraversal(this);
+		long endTrav = System.nanoTime();
+		timeTraversal = (endTrav - startTrav) / 1000000;
+		PrintUtility.printInfo("Manual Traversal completed!");
+	    }
+	    else
+	    {
+		PrintUtility.printInfo("Neo4j Traversal started!");
+		long startTrav = System.nanoTime();
+		Neo4jTraversal.startTraversal(this, splitTraversalAndReuseAnalysisResults);
+		long endTrav = System.nanoTime();
+		timeTraversal = (endTrav - startTrav) / 1000000;
+		if (gateSetSharing.getReusedGateSets() != 0)
+		{
+		    PrintUtility.printInfo(gateSetSharing.getReusedGateSets() + " GateSets were reused during the traversal.");
+		}
+		PrintUtility.printInfo("Neo4j Traversal completed!");
+	    }
+	}
+    }
+
+    private void printPerformanceStatistics()
+    {
+	PrintUtility.printResults("Traversal time: " + timeTraversal + "ms");
+	if (qualititativeAnalysisResults != null)
+	{
+	    PrintUtility.printResults("Qualitative Analysis (Minimal Cut Set) Calculation time: " + timeRefineMCS + " ms");
+	}
+	if (timePrimeImplicants != -1)
+	{
+	    PrintUtility.printResults("Prime Implicants Calculation time: " + timePrimeImplicants + " ms");
+	}
+	if (quantitativeAnalysisResults != -1)
+	{
+	    PrintUtility.printResults("Quantitative Analysis (Probability) Calculation time: " + timeQuantAnalysis + " ms");
+	}
+    }
+
+}
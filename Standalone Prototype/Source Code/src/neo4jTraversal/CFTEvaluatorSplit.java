@@ -13,32 +13,52 @@ import neo4jUtility.PrintUtility;
  * This class evaluates paths for a split traversal.<br>
  * The traversal will prune (stop) and include the Path if the last Node of the Path is an Outport and the path has at least one Relationship.<br>
  * The Evaluator also checks if the starting Nodes of a split traversal have the right label to prevent traversal of CFT that have errors.<br>
+ * The labels of the Nodes are resolved by the AnalysisSession.<br>
  * 
  * @author Kevin Bartik
  *
  */
 public class CFTEvaluatorSplit implements Evaluator
 {
+
+    /**
+     * The AnalysisSession that resolves the kind of the Nodes.<br>
+     */
+    private final AnalysisSession session;
+
+    CFTEvaluatorSplit(AnalysisSession session)
+    {
+	this.session = session;
+    }
+
     @Override
     public Evaluation evaluate(Path path)
     {
 	final Node node = path.endNode();
+	NodeLabels kind = session.getNodeKind(node);
 	if (path.length() != 0) // length is the number of relationships in the path if it is zero then the path only contains a single node
 	{
-	    if (node.hasLabel(NodeLabels.CFT_Basic_Event) || node.hasLabel(NodeLabels.CFT_Inport) || node.hasLabel(NodeLabels.CFT_Outport_Instance) || node.hasLabel(NodeLabels.CFT_AND_Gate)
-		    || node.hasLabel(NodeLabels.CFT_OR_Gate) || node.hasLabel(NodeLabels.CFT_MOON_Gate) || node.hasLabel(NodeLabels.CFT_XOR_Gate) || node.hasLabel(NodeLabels.CFT_NOT_Gate))
-	    {
-		return Evaluation.EXCLUDE_AND_CONTINUE;
-	    }
-	    if (node.hasLabel(NodeLabels.CFT_Outport))
+	    switch (kind)
 	    {
-		return Evaluation.INCLUDE_AND_PRUNE;
+		case CFT_Basic_Event:
+		case CFT_Inport:
+		case CFT_Outport_Instance:
+		case CFT_AND_Gate:
+		case CFT_OR_Gate:
+		case CFT_MOON_Gate:
+		case CFT_XOR_Gate:
+		case CFT_NOT_Gate:
+		    return Evaluation.EXCLUDE_AND_CONTINUE;
+		case CFT_Outport:
+		    return Evaluation.INCLUDE_AND_PRUNE;
+		default:
+		    break;
 	    }
 	}
 	else // if the path has no relationships then the end Node of the path must be an CFT_Inport_Instance or a CFT_Outport because a split traversal can
 	     // only begin at Nodes with these labels.
 	{
-	    if (node.hasLabel(NodeLabels.CFT_Inport_Instance) || node.hasLabel(NodeLabels.CFT_Outport))
+	    if (kind == NodeLabels.CFT_Inport_Instance || kind == NodeLabels.CFT_Outport)
 	    {
 		return Evaluation.EXCLUDE_AND_CONTINUE;
 	    }
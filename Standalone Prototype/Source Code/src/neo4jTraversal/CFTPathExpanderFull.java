@@ -11,7 +11,6 @@ import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.traversal.BranchState;
 
 import neo4jDatabase.DBUtility;
-import neo4jEnum.NodeLabels;
 import neo4jEnum.RelTypes;
 import neo4jGateSets.ANDSet;
 import neo4jGateSets.GateSet;
@@ -32,6 +31,7 @@ import neo4jUtility.PrintUtility;
  * The traversal works similar to ManualTraversal and also makes use of the TraversalState.<br>
  * The PathExpander will find simple and deep cycles in CFT and will stop traversal if it does find cycles.<br>
  * This Traversal can only be done in a single Thread because it runs in a single TraversalDescription and never returns Paths.<br>
+ * GateSets that do not depend on the inport mapping are created once and shared between all instances of their CFT (see GateSetSharing).<br>
  * 
  * @see ManualTraversal
  * @see TraversalState
@@ -41,11 +41,22 @@ import neo4jUtility.PrintUtility;
  */
 public class CFTPathExpanderFull implements PathExpander<TraversalState>
 {
+
+    /**
+     * The AnalysisSession that stores the ResultGateSets of the traversal.<br>
+     */
+    private final AnalysisSession session;
+
+    CFTPathExpanderFull(AnalysisSession session)
+    {
+	this.session = session;
+    }
+
     @Override
     public Iterable<Relationship> expand(Path path, BranchState<TraversalState> branchState)
     {
 	ArrayList<Relationship> relationshipsToExpand = new ArrayList<>(); // These relationships will be traversed further
-	if (!MainTraversal.cycleFound()) // If cycles are found then the traversal stops
+	if (!session.cycleFound()) // If cycles are found then the traversal stops
 	{
 	    final Node endNode = path.endNode();
 	    TraversalState ts = null;
@@ -54,7 +65,7 @@ public class CFTPathExpanderFull implements PathExpander<TraversalState>
 	    {
 		// Must be the starting Node and an Outport (was checked by Neo4jTraversal)
 		ResultGateSet resultSet = new ResultGateSet(endNode);
-		MainTraversal.addResultGateSet(endNode, resultSet);
+		session.addResultGateSet(endNode, resultSet);
 		nextGateSet = resultSet;
 		ts = new TraversalState(nextGateSet); // Starting a new TraversalState
 		ts.addNodeToSimple(endNode);
@@ -66,16 +77,23 @@ public class CFTPathExpanderFull implements PathExpander<TraversalState>
 	    else
 	    {// the nodes are handled differently depending on their label
 		ts = new TraversalState(branchState.getState()); // copies the previous TraversalState
-		MainTraversal.cycleFound(ts.addNodeToSimple(endNode)); // finds simple cycles
-		if (endNode.hasLabel(NodeLabels.CFT_Basic_Event))
+		session.cycleFound(ts.addNodeToSimple(endNode)); // finds simple cycles
+		GateSet sharedGateSet = session.getSharedGateSet(endNode);
+		if (sharedGateSet != null)
 		{
-		    ts.addNodeToLastGateSet(endNode);
+		    // the GateSet of the Node does not depend on the inport mapping and was already created so the Node is not traversed again
+		    ts.addGateSetToLastGateSet(sharedGateSet);
+		    branchState.setState(ts);
+		    return relationshipsToExpand;
 		}
-		else
+		boolean expandFailurePropagations = false; // the Nodes that can have incoming Failure Propagations continue the traversal with them
+		switch (session.getNodeKind(endNode))
 		{
-		    if (endNode.hasLabel(NodeLabels.CFT_Outport_Instance)) // the inports are mapped to inport instances and saved in the TraversalState
-		    {
-			MainTraversal.cycleFound(ts.addNodeToInstances(endNode)); // find deep cycles
+		    case CFT_Basic_Event:
+			ts.addNodeToLastGateSet(endNode);
+			break;
+		    case CFT_Outport_Instance: // the inports are mapped to inport instances and saved in the TraversalState
+			session.cycleFound(ts.addNodeToInstances(endNode)); // find deep cycles
 			nextGateSet = new ConnectorGateSet(endNode);
 			ts.addGateSetToLastGateSet(nextGateSet);
 			HashMap<Node, Node> nextInportMap = new HashMap<Node, Node>();
@@ -87,95 +105,76 @@ public class CFTPathExpanderFull implements PathExpander<TraversalState>
 			}
 			ts.addInportMap(nextInportMap);
 			ts.clearSimple(); // traversal enters a different CFT
-		    }
-		    else
-		    {
-			if (endNode.hasLabel(NodeLabels.CFT_Inport))
+			break;
+		    case CFT_Inport:
+			if (session.getInports().contains(endNode))
 			{
-			    if (MainTraversal.getInports().contains(endNode))
-			    {
-				ts.addNodeToLastGateSet(endNode);
-			    }
-			    else
-			    {// now the mapping done at the previous outport instance is used to continue with the right inport instance
-				nextGateSet = new ConnectorGateSet(endNode);
-				ts.addGateSetToLastGateSet(nextGateSet);
-				Node nextInportInstance = ts.removeLastInportMap().get(endNode); // the mapping was performed so the last inport map can be
-												 // deleted this only affects this traversal branch as others
-												 // have a copy with the TraversalState
-				for (Relationship rel : endNode.getRelationships(RelTypes.Is_Instance_Of, Direction.INCOMING))
-				{
-				    Node relNode = rel.getStartNode();
-				    if (relNode.equals(nextInportInstance)) // pick the mapped inport instance
-				    {
-					relationshipsToExpand.add(rel); 
-				    }
-				}
-				ts.clearSimple();
-			    }
+			    ts.addNodeToLastGateSet(endNode);
 			}
 			else
-			{ // the following Nodes all can have incoming Failure Propagations which will be traversed 
-			    if (endNode.hasLabel(NodeLabels.CFT_Inport_Instance))
-			    {
-				MainTraversal.cycleFound(ts.addNodeToInstances(endNode)); // find deep cycles
-				nextGateSet = new ResultGateSet(endNode);
-			    }
-			    else
+			{// now the mapping done at the previous outport instance is used to continue with the right inport instance
+			    nextGateSet = new ConnectorGateSet(endNode);
+			    ts.addGateSetToLastGateSet(nextGateSet);
+			    Node nextInportInstance = ts.removeLastInportMap().get(endNode); // the mapping was performed so the last inport map can be
+											     // deleted this only affects this traversal branch as others
+											     // have a copy with the TraversalState
+			    for (Relationship rel : endNode.getRelationships(RelTypes.Is_Instance_Of, Direction.INCOMING))
 			    {
-				if (endNode.hasLabel(NodeLabels.CFT_Outport))
+				Node relNode = rel.getStartNode();
+				if (relNode.equals(nextInportInstance)) // pick the mapped inport instance
 				{
-				    nextGateSet = new ResultGateSet(endNode);
-				}
-				else
-				{
-				    if (endNode.hasLabel(NodeLabels.CFT_AND_Gate))
-				    {
-					nextGateSet = new ANDSet(endNode);
-				    }
-				    else
-				    {
-					if (endNode.hasLabel(NodeLabels.CFT_OR_Gate))
-					{
-					    nextGateSet = new ORSet(endNode);
-					}
-					else
-					{
-					    if (endNode.hasLabel(NodeLabels.CFT_MOON_Gate))
-					    {
-						nextGateSet = new MOONSet(endNode);
-					    }
-					    else
-					    {
-						if (endNode.hasLabel(NodeLabels.CFT_XOR_Gate))
-						{
-						    nextGateSet = new XORSet(endNode);
-						}
-						else
-						{
-						    if (endNode.hasLabel(NodeLabels.CFT_NOT_Gate))
-						    {
-							nextGateSet = new NOTSet(endNode);
-						    }
-						    else
-						    {
-							// should not happen if the CFT was constructed correctly
-							PrintUtility.printError("The Node does not have a valid Label for the PathExpander!", "Labels found: " + DBUtility.getLabelsAsString(endNode));
-						    }
-						}
-					    }
-					}
-				    }
+				    relationshipsToExpand.add(rel);
 				}
 			    }
-			    ts.addGateSetToLastGateSet(nextGateSet);
-			    for (Relationship rel : endNode.getRelationships(RelTypes.Failure_Propagation, Direction.INCOMING))
-			    {
-				relationshipsToExpand.add(rel);
-			    }
+			    ts.clearSimple();
 			}
+			break;
+		    case CFT_Inport_Instance:
+			session.cycleFound(ts.addNodeToInstances(endNode)); // find deep cycles
+			nextGateSet = new ResultGateSet(endNode);
+			expandFailurePropagations = true;
+			break;
+		    case CFT_Outport:
+			nextGateSet = new ResultGateSet(endNode);
+			expandFailurePropagations = true;
+			break;
+		    case CFT_AND_Gate:
+			nextGateSet = new ANDSet(endNode);
+			expandFailurePropagations = true;
+			break;
+		    case CFT_OR_Gate:
+			nextGateSet = new ORSet(endNode);
+			expandFailurePropagations = true;
+			break;
+		    case CFT_MOON_Gate:
+			nextGateSet = new MOONSet(endNode);
+			expandFailurePropagations = true;
+			break;
+		    case CFT_XOR_Gate:
+			nextGateSet = new XORSet(endNode);
+			expandFailurePropagations = true;
+			break;
+		    case CFT_NOT_Gate:
+			nextGateSet = new NOTSet(endNode);
+			expandFailurePropagations = true;
+			break;
+		    default:
+			// should not happen if the CFT was constructed correctly
+			PrintUtility.printError("The Node does not have a valid Label for the PathExpander!", "Labels found: " + DBUtility.getLabelsAsString(endNode));
+			break;
+		}
+		if (expandFailurePropagations)
+		{
+		    ts.addGateSetToLastGateSet(nextGateSet);
+		    for (Relationship rel : endNode.getRelationships(RelTypes.Failure_Propagation, Direction.INCOMING))
+		    {
+			relationshipsToExpand.add(rel);
 		    }
 		}
+		if (nextGateSet != null)
+		{
+		    session.shareGateSet(endNode, nextGateSet);
+		}
 	    }
 	    if (nextGateSet != null)
 	    {
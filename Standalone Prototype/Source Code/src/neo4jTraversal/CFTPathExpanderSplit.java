@@ -25,21 +25,33 @@ import neo4jUtility.PrintUtility;
 
 public class CFTPathExpanderSplit implements PathExpander<TraversalState>
 {
+
+    /**
+     * The AnalysisSession that stores the ResultGateSets of the traversal.<br>
+     */
+    private final AnalysisSession session;
+
+    CFTPathExpanderSplit(AnalysisSession session)
+    {
+	this.session = session;
+    }
+
     @Override
     public Iterable<Relationship> expand(Path path, BranchState<TraversalState> branchState)
     {
 	ArrayList<Relationship> rels = new ArrayList<>();
-	if (!MainTraversal.cycleFound())
+	if (!session.cycleFound())
 	{
 	    Node endNode = path.endNode();
 	    TraversalState ts = null;
 	    GateSet nextGateSet = null;
 	    if (branchState.getState() == null)
 	    {
-		if (endNode.hasLabel(NodeLabels.CFT_Outport) || endNode.hasLabel(NodeLabels.CFT_Inport_Instance))
+		NodeLabels kind = session.getNodeKind(endNode);
+		if (kind == NodeLabels.CFT_Outport || kind == NodeLabels.CFT_Inport_Instance)
 		{
 		    ResultGateSet resultSet = new ResultGateSet(endNode);
-		    MainTraversal.addResultGateSet(endNode, resultSet);
+		    session.addResultGateSet(endNode, resultSet);
 		    nextGateSet = resultSet;
 		    ts = new TraversalState(nextGateSet);
 		    ts.addNodeToSimple(endNode);
@@ -56,90 +68,64 @@ public class CFTPathExpanderSplit implements PathExpander<TraversalState>
 	    else
 	    {
 		ts = new TraversalState(branchState.getState());
-		MainTraversal.cycleFound(ts.addNodeToSimple(endNode));
-		if (endNode.hasLabel(NodeLabels.CFT_Outport))
+		session.cycleFound(ts.addNodeToSimple(endNode));
+		boolean expandFailurePropagations = false;
+		switch (session.getNodeKind(endNode))
 		{
-		    // Handled by the Evaluator.
+		    case CFT_Outport:
+			// Handled by the Evaluator.
+			break;
+		    case CFT_Inport_Instance:
+			PrintUtility.printError("Invalid Label! The Traversal cannot continue with this Node.");
+			break;
+		    case CFT_Basic_Event:
+			ts.addNodeToLastGateSet(endNode);
+			break;
+		    case CFT_Outport_Instance:
+			HashMap<Node, Node> nextInportMap = new HashMap<Node, Node>();
+			Node outport = endNode.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode();
+			rels.add(endNode.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING)); // Add Relationship to Outport
+			for (Node inportInstance : DBUtility.getInportInstances(endNode))
+			{ // Map Inports to InportInstances
+			    nextInportMap.put(inportInstance.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode(), inportInstance);
+			}
+			nextGateSet = new ConnectorGateSet(endNode, nextInportMap);
+			nextGateSet.addNode(outport);
+			ts.addGateSetToLastGateSet(nextGateSet);
+			break;
+		    case CFT_Inport:
+			ts.addNodeToLastGateSet(endNode);
+			break;
+		    case CFT_AND_Gate:
+			nextGateSet = new ANDSet(endNode);
+			expandFailurePropagations = true;
+			break;
+		    case CFT_OR_Gate:
+			nextGateSet = new ORSet(endNode);
+			expandFailurePropagations = true;
+			break;
+		    case CFT_MOON_Gate:
+			nextGateSet = new MOONSet(endNode);
+			expandFailurePropagations = true;
+			break;
+		    case CFT_XOR_Gate:
+			nextGateSet = new XORSet(endNode);
+			expandFailurePropagations = true;
+			break;
+		    case CFT_NOT_Gate:
+			nextGateSet = new NOTSet(endNode);
+			expandFailurePropagations = true;
+			break;
+		    default:
+			PrintUtility.printError("Invalid Label! The Traversal cannot continue with this Node.");
+			break;
 		}
-		else
+		if (expandFailurePropagations)
 		{
-		    if (endNode.hasLabel(NodeLabels.CFT_Inport_Instance))
-		    {
-			PrintUtility.printError("Invalid Label! The Traversal cannot continue with this Node.");
-		    }
-		    else
+		    ts.addGateSetToLastGateSet(nextGateSet);
+		    for (Relationship rel : endNode.getRelationships(RelTypes.Failure_Propagation, Direction.INCOMING))
 		    {
-			if (endNode.hasLabel(NodeLabels.CFT_Basic_Event))
-			{
-			    ts.addNodeToLastGateSet(endNode);
-			}
-			else
-			{
-			    if (endNode.hasLabel(NodeLabels.CFT_Outport_Instance))
-			    {
-				HashMap<Node, Node> nextInportMap = new HashMap<Node, Node>();
-				Node outport = endNode.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode();
-				rels.add(endNode.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING)); // Add Relationship to Outport
-				for (Node inportInstance : DBUtility.getInportInstances(endNode))
-				{ // Map Inports to InportInstances
-				    nextInportMap.put(inportInstance.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode(), inportInstance);
-				}
-				nextGateSet = new ConnectorGateSet(endNode, nextInportMap);
-				nextGateSet.addNode(outport);
-				ts.addGateSetToLastGateSet(nextGateSet);
-			    }
-			    else
-			    {
-				if (endNode.hasLabel(NodeLabels.CFT_Inport))
-				{
-				    ts.addNodeToLastGateSet(endNode);
-				}
-				else
-				{
-				    if (endNode.hasLabel(NodeLabels.CFT_AND_Gate))
-				    {
-					nextGateSet = new ANDSet(endNode);
-				    }
-				    else
-				    {
-					if (endNode.hasLabel(NodeLabels.CFT_OR_Gate))
-					{
-					    nextGateSet = new ORSet(endNode);
-					}
-					else
-					{
-					    if (endNode.hasLabel(NodeLabels.CFT_MOON_Gate))
-					    {
-						nextGateSet = new MOONSet(endNode);
-					    }
-					    else
-					    {
-						if (endNode.hasLabel(NodeLabels.CFT_XOR_Gate))
-						{
-						    nextGateSet = new XORSet(endNode);
-						}
-						else
-						{
-						    if (endNode.hasLabel(NodeLabels.CFT_NOT_Gate))
-						    {
-							nextGateSet = new NOTSet(endNode);
-						    }
-						    else
-						    {
-							PrintUtility.printError("Invalid Label! The Traversal cannot continue with this Node.");
-						    }
-						}
-					    }
-					}
-				    }
-				    ts.addGateSetToLastGateSet(nextGateSet);
-				    for (Relationship rel : endNode.getRelationships(RelTypes.Failure_Propagation, Direction.INCOMING))
-				    {
-					rels.add(rel);
-				    }
-				}
-			    }
-			}
+			rels.add(rel);
 		    }
 		}
 	    }
@@ -11,7 +11,6 @@ import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.traversal.BranchState;
 
 import neo4jDatabase.DBUtility;
-import neo4jEnum.NodeLabels;
 import neo4jEnum.RelTypes;
 import neo4jUtility.PrintUtility;
 
@@ -41,23 +40,22 @@ public class CyclePathExpander implements PathExpander<TraversalState>
 	    {// the nodes are handled differently depending on their label
 		ts = new TraversalState(branchState.getState()); // copies the previous TraversalState
 		CycleTraversal.cycleFound(ts.addNodeToSimple(endNode)); // finds simple cycles
-		if (endNode.hasLabel(NodeLabels.CFT_Outport_Instance)) // the inports are mapped to inport instances and saved in the TraversalState
+		boolean expandFailurePropagations = false; // the Nodes that can have incoming Failure Propagations continue the traversal with them
+		switch (CycleTraversal.getNodeKind(endNode))
 		{
-		    CycleTraversal.cycleFound(ts.addNodeToInstances(endNode)); // find deep cycles
-		    HashMap<Node, Node> nextInportMap = new HashMap<Node, Node>();
-		    relationshipsToExpand.add(endNode.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING)); // Traversal continues with the
-															   // outport
-		    for (Node inportInstance : DBUtility.getInportInstances(endNode))
-		    { // Map Inports to InportInstances
-			nextInportMap.put(inportInstance.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode(), inportInstance);
-		    }
-		    ts.addInportMap(nextInportMap);
-		    ts.clearSimple(); // traversal enters a different CFT
-		}
-		else
-		{
-		    if (endNode.hasLabel(NodeLabels.CFT_Inport))
-		    {
+		    case CFT_Outport_Instance: // the inports are mapped to inport instances and saved in the TraversalState
+			CycleTraversal.cycleFound(ts.addNodeToInstances(endNode)); // find deep cycles
+			HashMap<Node, Node> nextInportMap = new HashMap<Node, Node>();
+			relationshipsToExpand.add(endNode.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING)); // Traversal continues with the
+															       // outport
+			for (Node inportInstance : DBUtility.getInportInstances(endNode))
+			{ // Map Inports to InportInstances
+			    nextInportMap.put(inportInstance.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode(), inportInstance);
+			}
+			ts.addInportMap(nextInportMap);
+			ts.clearSimple(); // traversal enters a different CFT
+			break;
+		    case CFT_Inport:
 			if (!CycleTraversal.getInports().contains(endNode))
 			{// now the mapping done at the previous outport instance is used to continue with the right inport instance
 			    Node nextInportInstance = ts.removeLastInportMap().get(endNode); // the mapping was performed so the last inport map can be
@@ -73,27 +71,31 @@ public class CyclePathExpander implements PathExpander<TraversalState>
 			    }
 			    ts.clearSimple();
 			}
-		    }
-		    else
-		    { // the following Nodes all can have incoming Failure Propagations which will be traversed
-			if (endNode.hasLabel(NodeLabels.CFT_Inport_Instance))
-			{
-			    CycleTraversal.cycleFound(ts.addNodeToInstances(endNode)); // find deep cycles
-			}
-			else
-			{
-			    if (!(endNode.hasLabel(NodeLabels.CFT_Outport) || endNode.hasLabel(NodeLabels.CFT_AND_Gate) || endNode.hasLabel(NodeLabels.CFT_OR_Gate)
-				    || endNode.hasLabel(NodeLabels.CFT_MOON_Gate) || endNode.hasLabel(NodeLabels.CFT_XOR_Gate) || endNode.hasLabel(NodeLabels.CFT_NOT_Gate)
-				    || endNode.hasLabel(NodeLabels.CFT_Basic_Event)))
-			    {
-				// should not happen if the CFT was constructed correctly
-				PrintUtility.printError("The Node does not have a valid Label for the PathExpander!", "Labels found: " + DBUtility.getLabelsAsString(endNode));
-			    }
-			}
-			for (Relationship rel : endNode.getRelationships(RelTypes.Failure_Propagation, Direction.INCOMING))
-			{
-			    relationshipsToExpand.add(rel);
-			}
+			break;
+		    case CFT_Inport_Instance:
+			CycleTraversal.cycleFound(ts.addNodeToInstances(endNode)); // find deep cycles
+			expandFailurePropagations = true;
+			break;
+		    case CFT_Outport:
+		    case CFT_AND_Gate:
+		    case CFT_OR_Gate:
+		    case CFT_MOON_Gate:
+		    case CFT_XOR_Gate:
+		    case CFT_NOT_Gate:
+		    case CFT_Basic_Event:
+			expandFailurePropagations = true;
+			break;
+		    default:
+			// should not happen if the CFT was constructed correctly
+			PrintUtility.printError("The Node does not have a valid Label for the PathExpander!", "Labels found: " + DBUtility.getLabelsAsString(endNode));
+			expandFailurePropagations = true;
+			break;
+		}
+		if (expandFailurePropagations)
+		{
+		    for (Relationship rel : endNode.getRelationships(RelTypes.Failure_Propagation, Direction.INCOMING))
+		    {
+			relationshipsToExpand.add(rel);
 		    }
 		}
 	    }
@@ -35,6 +35,11 @@ public final class CycleTraversal
      */
     private static boolean errorFound = false;
 
+    /**
+     * Resolves the kind of the Nodes that are traversed in the current check.
+     */
+    private static NodeKindResolver nodeKindResolver;
+
     private CycleTraversal()
     {
 
@@ -49,6 +54,7 @@ public final class CycleTraversal
     {
 	cycleFound = false;
 	errorFound = false;
+	nodeKindResolver = new NodeKindResolver();
 	inports = DBUtility.getElementsbyLabelandParent(NodeLabels.CFT_Inport, DBUtility.getCFTofNode(outport));
 	try (Transaction tx = DBConnection.getGraphDB().beginTx())
 	{
@@ -107,6 +113,16 @@ public final class CycleTraversal
 	return errorFound;
     }
 
+    /**
+     * Returns the kind of the Node.
+     * @param node The Node.
+     * @return The kind of the Node.
+     */
+    static NodeLabels getNodeKind(Node node)
+    {
+	return nodeKindResolver.getKind(node);
+    }
+
     /**
      * Returns inports.
      * @return inports.
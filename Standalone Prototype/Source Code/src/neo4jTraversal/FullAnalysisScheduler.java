@@ -0,0 +1,292 @@
+package neo4jTraversal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.graphdb.Node;
+
+import neo4jDatabase.DBUtility;
+import neo4jUtility.GeneralLogger;
+import neo4jUtility.PrintUtility;
+import neo4jUtility.ThreadUtility;
+
+/**
+ * This class schedules the full analysis of outports in the order of their dependencies.<br>
+ * An outport depends on the outports that are instantiated in its CFT because the split traversal reuses their stored MCS and probabilities.<br>
+ * An outport is only analyzed after all outports it depends on were analyzed so the MCS of every sub-CFT are calculated and stored before they are
+ * needed.<br>
+ * Outports that do not depend on each other are analyzed concurrently if multithreading is used.<br>
+ * The outports that can be analyzed are kept in a worklist by every thread so long chains of dependent outports do not grow the stack. The dependents of
+ * an outport are also released if its analysis fails.<br>
+ * After the analysis the time of every outport and the critical path are printed. The critical path is the chain of dependent outports with the highest
+ * total analysis time.<br>
+ *
+ * @see AnalysisSession
+ *
+ * @author Kevin Bartik
+ *
+ */
+final class FullAnalysisScheduler
+{
+
+    /**
+     * Maps every outport to the outports it depends on.<br>
+     */
+    private final HashMap<Node, HashSet<Node>> dependencies = new HashMap<Node, HashSet<Node>>();
+
+    /**
+     * Maps every outport to the outports that depend on it.<br>
+     */
+    private final HashMap<Node, HashSet<Node>> dependents = new HashMap<Node, HashSet<Node>>();
+
+    /**
+     * Maps every outport to the number of outports it depends on that were not analyzed yet.<br>
+     */
+    private final HashMap<Node, AtomicInteger> remainingDependencies = new HashMap<Node, AtomicInteger>();
+
+    /**
+     * Maps every analyzed outport to the time of its analysis in milliseconds.<br>
+     */
+    private final ConcurrentHashMap<Node, Long> analysisTimes = new ConcurrentHashMap<Node, Long>();
+
+    /**
+     * The futures of all submitted analyses.<br>
+     */
+    private final Set<Future<?>> futureSet = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates the dependency graph of the outports.<br>
+     * Dependencies on outports that are not analyzed are ignored.<br>
+     *
+     * @param outports
+     *            The outports that are analyzed.
+     */
+    FullAnalysisScheduler(Collection<Node> outports)
+    {
+	for (Node outport : outports)
+	{
+	    dependencies.put(outport, new HashSet<Node>());
+	    dependents.put(outport, new HashSet<Node>());
+	}
+	for (Node outport : outports)
+	{
+	    for (Node dependency : DBUtility.getInstantiatedOutports(outport))
+	    {
+		if (dependencies.containsKey(dependency) && !dependency.equals(outport))
+		{
+		    dependencies.get(outport).add(dependency);
+		    dependents.get(dependency).add(outport);
+		}
+	    }
+	    remainingDependencies.put(outport, new AtomicInteger(dependencies.get(outport).size()));
+	}
+    }
+
+    /**
+     * Analyzes all outports and prints the analysis times and the critical path.<br>
+     */
+    void analyzeAll()
+    {
+	long start = System.nanoTime();
+	ArrayDeque<Node> readyOutports = new ArrayDeque<Node>();
+	for (Node outport : dependencies.keySet())
+	{
+	    if (remainingDependencies.get(outport).get() == 0)
+	    {
+		readyOutports.add(outport);
+	    }
+	}
+	analyzeReadyOutports(readyOutports);
+	ThreadUtility.getThreadUtility().waitForSubmittedTasksToFinish(futureSet);
+	for (Node outport : dependencies.keySet())
+	{
+	    if (!analysisTimes.containsKey(outport))
+	    {
+		// Only possible if the CFTs instantiate each other
+		PrintUtility.printInfo("The Element (" + DBUtility.getIDAndName(outport) + " [OUT]) has cyclic dependencies and is analyzed without waiting for them.");
+		analyze(outport, null);
+	    }
+	}
+	long end = System.nanoTime();
+	printStatistics((end - start) / 1000000);
+    }
+
+    /**
+     * Analyzes the outports of the worklist until it is empty.<br>
+     * An outport is analyzed in a new task with its own worklist if multithreading is used and a thread is available. Otherwise the outport is analyzed
+     * by the current thread and the dependents that become ready are added to the worklist.<br>
+     *
+     * @param readyOutports
+     *            The worklist of the outports whose dependencies were analyzed.
+     */
+    private void analyzeReadyOutports(ArrayDeque<Node> readyOutports)
+    {
+	while (!readyOutports.isEmpty())
+	{
+	    Node outport = readyOutports.poll();
+	    if (ThreadUtility.getThreadUtility().isMultiThreading() && ThreadUtility.getThreadUtility().isThreadAvailable())
+	    {
+		futureSet.add(ThreadUtility.getThreadUtility().submitTask(new Runnable()
+		{
+		    @Override
+		    public void run()
+		    {
+			ArrayDeque<Node> taskReadyOutports = new ArrayDeque<Node>();
+			analyze(outport, taskReadyOutports);
+			analyzeReadyOutports(taskReadyOutports);
+		    }
+		}));
+	    }
+	    else
+	    {
+		analyze(outport, readyOutports);
+	    }
+	}
+    }
+
+    /**
+     * Performs the full analysis of the outport in its own AnalysisSession.<br>
+     * The dependents of the outport are released even if the analysis fails so they are not reported as cyclic dependencies.<br>
+     *
+     * @param outport
+     *            The outport.
+     * @param readyOutports
+     *            The worklist that gets the outports that depend on this outport once all their dependencies were analyzed or null if the dependents are
+     *            not released.
+     */
+    private void analyze(Node outport, ArrayDeque<Node> readyOutports)
+    {
+	long start = System.nanoTime();
+	try
+	{
+	    new AnalysisSession(outport, false, true, true).fullAnalysis();
+	}
+	catch (RuntimeException e)
+	{
+	    PrintUtility.printError(e.toString());
+	    GeneralLogger.logError(e);
+	    e.printStackTrace();
+	}
+	finally
+	{
+	    long end = System.nanoTime();
+	    analysisTimes.put(outport, (end - start) / 1000000);
+	    if (readyOutports != null)
+	    {
+		for (Node dependent : dependents.get(outport))
+		{
+		    if (remainingDependencies.get(dependent).decrementAndGet() == 0)
+		    {
+			readyOutports.add(dependent);
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * Prints the analysis time of every outport and the critical path.<br>
+     *
+     * @param totalTime
+     *            The time of the full analysis in milliseconds.
+     */
+    private void printStatistics(long totalTime)
+    {
+	ArrayList<Node> outports = new ArrayList<Node>(analysisTimes.keySet());
+	outports.sort((outport1, outport2) -> Long.compare(analysisTimes.get(outport2), analysisTimes.get(outport1)));
+	for (Node outport : outports)
+	{
+	    PrintUtility.printResults("Full Analysis time of the Element (" + DBUtility.getIDAndName(outport) + " [OUT]): " + analysisTimes.get(outport) + " ms");
+	}
+	HashMap<Node, Long> pathTimes = new HashMap<Node, Long>();
+	Node criticalOutport = null;
+	long criticalPathTime = -1;
+	for (Node outport : outports)
+	{
+	    long pathTime = getPathTime(outport, pathTimes, new HashSet<Node>());
+	    if (pathTime > criticalPathTime)
+	    {
+		criticalOutport = outport;
+		criticalPathTime = pathTime;
+	    }
+	}
+	if (criticalOutport != null)
+	{
+	    LinkedList<String> criticalPath = new LinkedList<String>();
+	    HashSet<Node> pathOutports = new HashSet<Node>();
+	    Node outport = criticalOutport;
+	    while (outport != null && pathOutports.add(outport))
+	    {
+		criticalPath.addFirst(DBUtility.getIDAndName(outport));
+		outport = getCriticalDependency(outport, pathTimes);
+	    }
+	    PrintUtility.printResults("Critical Path (" + criticalPathTime + " ms): " + String.join(" -> ", criticalPath));
+	}
+	PrintUtility.printResults("Full Analysis time: " + totalTime + " ms");
+    }
+
+    /**
+     * Returns the highest total analysis time of a chain of dependencies that ends with the outport.<br>
+     *
+     * @param outport
+     *            The outport.
+     * @param pathTimes
+     *            The already calculated path times.
+     * @param visited
+     *            The outports of the current chain. Used to stop at cyclic dependencies.
+     * @return The path time of the outport.
+     */
+    private long getPathTime(Node outport, HashMap<Node, Long> pathTimes, HashSet<Node> visited)
+    {
+	Long pathTime = pathTimes.get(outport);
+	if (pathTime != null)
+	{
+	    return pathTime;
+	}
+	visited.add(outport);
+	long maxDependencyTime = 0;
+	for (Node dependency : dependencies.get(outport))
+	{
+	    if (!visited.contains(dependency))
+	    {
+		maxDependencyTime = Math.max(maxDependencyTime, getPathTime(dependency, pathTimes, visited));
+	    }
+	}
+	visited.remove(outport);
+	pathTime = analysisTimes.get(outport) + maxDependencyTime;
+	pathTimes.put(outport, pathTime);
+	return pathTime;
+    }
+
+    /**
+     * Returns the dependency of the outport with the highest path time or null if the outport has no dependencies.<br>
+     *
+     * @param outport
+     *            The outport.
+     * @param pathTimes
+     *            The calculated path times.
+     * @return The dependency on the critical path.
+     */
+    private Node getCriticalDependency(Node outport, HashMap<Node, Long> pathTimes)
+    {
+	Node criticalDependency = null;
+	long remainingTime = pathTimes.get(outport) - analysisTimes.get(outport);
+	for (Node dependency : dependencies.get(outport))
+	{
+	    if (criticalDependency == null && pathTimes.containsKey(dependency) && pathTimes.get(dependency) == remainingTime)
+	    {
+		criticalDependency = dependency;
+	    }
+	}
+	return remainingTime == 0 ? null : criticalDependency;
+    }
+
+}
@@ -0,0 +1,278 @@
+package neo4jTraversal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import neo4jDatabase.DBUtility;
+import neo4jEnum.NodeLabels;
+import neo4jEnum.RelTypes;
+import neo4jGateSets.GateSet;
+
+/**
+ * This class shares the GateSets of a full traversal between all places where the same part of a CFT is traversed.<br>
+ * A CFT that is instantiated multiple times is traversed once for every instance. The GateSet of a Node only differs between these traversals if the
+ * traversal reaches an Inport of the CFT from the Node because the Inport is connected to a different Inport Instance for every instance.<br>
+ * The Inports of its CFT that can be reached from a Node are found once and cached. If no Inport can be reached then the GateSet of the Node is created
+ * by the first traversal and reused by every following traversal. GateSets of Nodes that can reach an Inport are created for every traversal.<br>
+ * The full traversal is depth first and single threaded so a shared GateSet is always complete when it is reused.<br>
+ * Shared GateSets must not be modified after the traversal. Copies of GateSets share their lower GateSets and the MCS of a shared GateSet are only created once.<br>
+ *
+ * @see CFTPathExpanderFull
+ *
+ * @author Kevin Bartik
+ *
+ */
+final class GateSetSharing
+{
+
+    /**
+     * The AnalysisSession that resolves the kind of the Nodes.<br>
+     */
+    private final AnalysisSession session;
+
+    /**
+     * Maps Nodes to their shared GateSet.<br>
+     */
+    private final HashMap<Node, GateSet> sharedGateSets = new HashMap<Node, GateSet>();
+
+    /**
+     * Maps Nodes to the Inports of their CFT that can be reached from them.<br>
+     */
+    private final HashMap<Node, HashSet<Node>> reachableInports = new HashMap<Node, HashSet<Node>>();
+
+    /**
+     * The Nodes whose reachable Inports are currently searched. Used to stop at cycles.<br>
+     */
+    private final HashSet<Node> searchedNodes = new HashSet<Node>();
+
+    /**
+     * The number of reused GateSets.<br>
+     */
+    private int reusedGateSets = 0;
+
+    GateSetSharing(AnalysisSession session)
+    {
+	this.session = session;
+    }
+
+    /**
+     * Returns the shared GateSet of the Node or null if the Node has no shared GateSet yet.<br>
+     *
+     * @param node
+     *            The Node.
+     * @return The shared GateSet of the Node.
+     */
+    GateSet getSharedGateSet(Node node)
+    {
+	GateSet gateSet = sharedGateSets.get(node);
+	if (gateSet != null)
+	{
+	    reusedGateSets++;
+	}
+	return gateSet;
+    }
+
+    /**
+     * Shares the GateSet of the Node if it does not depend on the Inports of the CFT of the Node.<br>
+     * Must be called within a transaction.<br>
+     *
+     * @param node
+     *            The start Node of the GateSet.
+     * @param gateSet
+     *            The GateSet that was created for the Node.
+     */
+    void shareGateSet(Node node, GateSet gateSet)
+    {
+	if (getReachableInports(node).isEmpty())
+	{
+	    sharedGateSets.put(node, gateSet);
+	}
+    }
+
+    /**
+     * Returns the number of GateSets that were reused.<br>
+     *
+     * @return The number of reused GateSets.
+     */
+    int getReusedGateSets()
+    {
+	return reusedGateSets;
+    }
+
+    /**
+     * Returns the Inports of the CFT of the Node that can be reached from the Node.<br>
+     * Inports that are reached inside an instantiated CFT are followed to the Inport Instances they are mapped to.<br>
+     * If the search reaches a Node that is already searched (a cycle) then that Node is added to the result so the Node is never shared.<br>
+     * The search is depth first with an explicit stack so deep CFTs do not overflow the stack of the thread.<br>
+     *
+     * @param node
+     *            The Node.
+     * @return The reachable Inports of the Node.
+     */
+    private HashSet<Node> getReachableInports(Node node)
+    {
+	HashSet<Node> inports = reachableInports.get(node);
+	if (inports != null)
+	{
+	    return inports;
+	}
+	inports = new HashSet<Node>();
+	ArrayDeque<SearchFrame> stack = new ArrayDeque<SearchFrame>();
+	search(node, inports, stack);
+	while (!stack.isEmpty())
+	{
+	    SearchFrame frame = stack.peek();
+	    if (frame.pending.hasNext())
+	    {
+		search(frame.pending.next(), frame.target, stack);
+	    }
+	    else if (frame.lowerInports != null)
+	    {
+		mapLowerInports(frame);
+	    }
+	    else
+	    {
+		stack.pop();
+		searchedNodes.remove(frame.node);
+		reachableInports.put(frame.node, frame.inports);
+		frame.parentInports.addAll(frame.inports);
+	    }
+	}
+	return inports;
+    }
+
+    /**
+     * Adds the reachable Inports of the Node to the Inports of its parent if they are known.<br>
+     * Otherwise a SearchFrame for the Node is pushed on the stack.<br>
+     *
+     * @param node
+     *            The Node.
+     * @param parentInports
+     *            The Inports of the parent.
+     * @param stack
+     *            The stack of the search.
+     */
+    private void search(Node node, HashSet<Node> parentInports, ArrayDeque<SearchFrame> stack)
+    {
+	HashSet<Node> inports = reachableInports.get(node);
+	if (inports != null)
+	{
+	    parentInports.addAll(inports);
+	}
+	else if (!searchedNodes.add(node))
+	{
+	    parentInports.add(node);
+	}
+	else
+	{
+	    SearchFrame frame = new SearchFrame(node, parentInports);
+	    ArrayList<Node> children = new ArrayList<Node>();
+	    switch (session.getNodeKind(node))
+	    {
+		case CFT_Basic_Event:
+		    break;
+		case CFT_Inport:
+		    frame.inports.add(node);
+		    break;
+		case CFT_Outport_Instance:
+		    frame.lowerInports = new HashSet<Node>();
+		    frame.target = frame.lowerInports;
+		    children.add(node.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode());
+		    break;
+		default:
+		    for (Relationship rel : node.getRelationships(RelTypes.Failure_Propagation, Direction.INCOMING))
+		    {
+			children.add(rel.getStartNode());
+		    }
+		    break;
+	    }
+	    frame.pending = children.iterator();
+	    stack.push(frame);
+	}
+    }
+
+    /**
+     * Maps the reachable Inports of the instantiated Outport of an Outport Instance to its Inport Instances.<br>
+     * The reachable Inports of the Inport Instances are searched next. Inports without an Inport Instance are reachable themselves.<br>
+     *
+     * @param frame
+     *            The SearchFrame of the Outport Instance.
+     */
+    private void mapLowerInports(SearchFrame frame)
+    {
+	ArrayList<Node> inportInstances = new ArrayList<Node>();
+	if (!frame.lowerInports.isEmpty())
+	{
+	    HashMap<Node, Node> inportMap = new HashMap<Node, Node>();
+	    for (Node inportInstance : DBUtility.getInportInstances(frame.node))
+	    {
+		inportMap.put(inportInstance.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode(), inportInstance);
+	    }
+	    for (Node lowerInport : frame.lowerInports)
+	    {
+		Node inportInstance = inportMap.get(lowerInport);
+		if (inportInstance != null)
+		{
+		    inportInstances.add(inportInstance);
+		}
+		else
+		{
+		    frame.inports.add(lowerInport);
+		}
+	    }
+	}
+	frame.lowerInports = null;
+	frame.target = frame.inports;
+	frame.pending = inportInstances.iterator();
+    }
+
+    /**
+     * A Node whose reachable Inports are currently searched.<br>
+     */
+    private static final class SearchFrame
+    {
+
+	private final Node node;
+
+	/**
+	 * The Inports of the parent to which the reachable Inports of the Node are added when the Node is finished.<br>
+	 */
+	private final HashSet<Node> parentInports;
+
+	/**
+	 * The reachable Inports of the Node.<br>
+	 */
+	private final HashSet<Node> inports = new HashSet<Node>();
+
+	/**
+	 * The reachable Inports of the instantiated Outport if the Node is an Outport Instance and they are not mapped yet. Otherwise null.<br>
+	 */
+	private HashSet<Node> lowerInports;
+
+	/**
+	 * The set to which the reachable Inports of the pending Nodes are added.<br>
+	 */
+	private HashSet<Node> target;
+
+	/**
+	 * The Nodes whose reachable Inports are searched next.<br>
+	 */
+	private Iterator<Node> pending;
+
+	private SearchFrame(Node node, HashSet<Node> parentInports)
+	{
+	    this.node = node;
+	    this.parentInports = parentInports;
+	    target = inports;
+	}
+
+    }
+
+}
@@ -1,21 +1,32 @@
 package neo4jTraversal;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 
 import org.neo4j.graphdb.Node;
 
+import neo4jDatabase.DBChecker;
 import neo4jDatabase.DBUtility;
-import neo4jDatabase.DBMCSManager;
 import neo4jEnum.NodeLabels;
+import neo4jGateSets.ProbabilityPlan;
 import neo4jGateSets.ResultGateSet;
-import neo4jMCS.MCSPairSet;
 import neo4jUtility.PrintUtility;
 import neo4jUtility.SettingsUtility;
+import neo4jUtility.ThreadUtility;
+import neo4jZBDD.ZBDDAnalysis;
 
 /**
- * 
+ * This class starts the analysis of outports.<br>
+ * The state of an analysis is stored in an AnalysisSession.<br>
+ * The qualitative and the quantitative analysis use the current AnalysisSession which is reused as long as the outport and the settings do not change.<br>
+ * The full analysis analyzes every outport in its own AnalysisSession so the outports can be analyzed concurrently.<br>
+ *
+ * @see AnalysisSession
+ *
  * @author Kevin Bartik
  *
  */
@@ -23,89 +34,20 @@ public final class MainTraversal
 {
 
     /**
-     * Is true if the prime implicants are calculated.<br>
-     * Otherwise false.<br>
+     * The AnalysisSession of the last qualitative or quantitative analysis.<br>
      */
-    private static boolean calculatePrimeImplicants = false;
+    private static AnalysisSession session;
 
     /**
-     * The final result of the qualitative analysis.<br>
+     * The maximum number of outports whose ProbabilityPlan is kept.<br>
      */
-    private static ResultGateSet qualititativeAnalysisResults;
+    private static final int maxProbabilityPlans = 64;
 
     /**
-     * The final result of the quantitative analysis.<br>
+     * The ProbabilityPlans of the last analyzed outports in the order of their last use.<br>
+     * A quantitative analysis of an outport with a valid ProbabilityPlan does not need a traversal.<br>
      */
-    private static double quantitativeAnalysisResults = -1;
-
-    /**
-     * Maps Nodes with ResultGateSets.<br>
-     * A Node key is the startNode of the ResultGateSet.<br>
-     */
-    private static HashMap<Node, ResultGateSet> resultGateSets = new HashMap<Node, ResultGateSet>();
-
-    /**
-     * The outport that is analyzed and where traversal starts.<br>
-     */
-    private static Node outport;
-
-    /**
-     * The inports of the parent CFT of the outport.<br>
-     */
-    private static HashSet<Node> inports;
-
-    /**
-     * The amount of time that was needed to perform the traversal.<br>
-     * Time in milliseconds. <br>
-     */
-    private static long timeTraversal = -1;
-
-    /**
-     * The amount of time that was needed to perform the minimal cut set calculation.<br>
-     * Time in milliseconds. <br>
-     */
-    private static long timeRefineMCS = -1;
-
-    /**
-     * The amount of time that was needed to perform the calculation of the prime implicants.<br>
-     * Time in milliseconds. <br>
-     */
-    private static long timePrimeImplicants = -1;
-
-    /**
-     * The amount of time that was needed to perform the quantitative analysis.<br>
-     * Time in milliseconds. <br>
-     */
-    private static long timeQuantAnalysis = -1;
-
-    /**
-     * Is true is manual traversal is used.<br>
-     * Otherwise false.<br>
-     */
-    private static boolean useManualTraversal = false;
-
-    /**
-     * Is true if the traversal is split and the analysis results are reused.<br>
-     * Otherwise false.<br>
-     */
-    private static boolean splitTraversalAndReuseAnalysisResults = false;
-
-    /**
-     * Is true if a cycle found during traversal.<br>
-     * Otherwise false.<br>
-     */
-    private static boolean cycleFound = false;
-
-    /**
-     * Is true if an error occurred during traversal or analysis.<br>
-     * Otherwise false.<br>
-     */
-    private static boolean errorFound = false;
-
-    /**
-     * A lock to prevent multiple threads from adding ResultGateSets concurrently.
-     */
-    private static final Object resultGateSetsLock = new Object();
+    private static final LinkedHashMap<Node, ProbabilityPlan> probabilityPlans = new LinkedHashMap<Node, ProbabilityPlan>(16, 0.75f, true);
 
     private MainTraversal()
     {
@@ -114,384 +56,165 @@ public final class MainTraversal
 
     public static void qualitativeAnalysis(Node _outport)
     {
-
-	performTraversal(_outport);
-	if (!errorFound)
+	AnalysisSession currentSession = getSession(_outport);
+	if (currentSession != null)
 	{
-	    PrintUtility.printInfo("Minimal Cut Set Analysis started!");
-	    if (qualititativeAnalysisResults == null)
-	    {
-		if (splitTraversalAndReuseAnalysisResults)
-		{
-		    // Always calculate Prime Implicants
-		    long startRefineMCS = System.nanoTime();
-		    MCSPairSet outportFullMCSSet = DBMCSManager.getFullMCSSet(outport);
-		    if (!outportFullMCSSet.isEmpty())
-		    {
-			getResultGateSet(outport).SetFullMCSSet(outportFullMCSSet.getMCSSet());
-			getResultGateSet(outport).SetFullNegatedMCSSet(outportFullMCSSet.getNegatedMCSSet());
-			qualititativeAnalysisResults = resultGateSets.get(outport);
-			long endRefineMCS = System.nanoTime();
-			timeRefineMCS = (endRefineMCS - startRefineMCS) / 1000000;
-		    }
-		    else
-		    { // calculation necessary
-			for (ResultGateSet rgs : resultGateSets.values())
-			{
-			    MCSPairSet mcsSet = DBMCSManager.getMCSSet(rgs.getStartNode());
-			    if (mcsSet.isEmpty())
-			    {
-				rgs.createMCSSet();
-				rgs.createNegatedMCSSet();
-				rgs.combineAllMergedMCS();
-				rgs.minimizeMCS();
-				rgs.addHiddenPrimeImplicants();
-				rgs.minimizeMCS();
-				if (!errorFound)
-				{
-				    DBMCSManager.addMCSSet(rgs);
-				}
-			    }
-			    else
-			    {
-				rgs.SetMCSSet(mcsSet.getMCSSet());
-				rgs.SetNegatedMCSSet(mcsSet.getNegatedMCSSet());
-			    }
-			    MCSPairSet fullMCSSet = DBMCSManager.getFullMCSSet(rgs.getStartNode());
-			    if (!fullMCSSet.isEmpty())
-			    {
-				rgs.SetFullMCSSet(fullMCSSet.getMCSSet());
-				rgs.SetFullNegatedMCSSet(fullMCSSet.getNegatedMCSSet());
-			    }
-			}
-			qualititativeAnalysisResults = (ResultGateSet) resultGateSets.get(outport).getGateSetCopy();
-			qualititativeAnalysisResults.connectGateSets(null);
-			qualititativeAnalysisResults.connectMCS();
-			qualititativeAnalysisResults.minimizeMCS();
-			long endRefineMCS = System.nanoTime();
-			timeRefineMCS = (endRefineMCS - startRefineMCS) / 1000000;
-			long startPrimeImplicants = System.nanoTime();
-			qualititativeAnalysisResults.addHiddenPrimeImplicants();
-			qualititativeAnalysisResults.minimizeMCS();
-			long endPrimeImplicants = System.nanoTime();
-			timePrimeImplicants = (endPrimeImplicants - startPrimeImplicants) / 1000000;
-		    }
-		}
-		else
-		{
-		    long startRefineMCS = System.nanoTime();
-		    qualititativeAnalysisResults = (ResultGateSet) resultGateSets.get(outport).getGateSetCopy();
-		    qualititativeAnalysisResults.createMCSSet();
-		    qualititativeAnalysisResults.combineAllMergedMCS();
-		    qualititativeAnalysisResults.minimizeMCS();
-		    long endRefineMCS = System.nanoTime();
-		    timeRefineMCS = (endRefineMCS - startRefineMCS) / 1000000;
-		    if (calculatePrimeImplicants)
-		    {
-			long startPrimeImplicants = System.nanoTime();
-			qualititativeAnalysisResults.addHiddenPrimeImplicants();
-			qualititativeAnalysisResults.minimizeMCS();
-			long endPrimeImplicants = System.nanoTime();
-			timePrimeImplicants = (endPrimeImplicants - startPrimeImplicants) / 1000000;
-		    }
-		}
-		PrintUtility.printInfo("Minimal Cut Set Analysis finished!");
-	    }
-	    printPerformanceStatistics();
+	    currentSession.qualitativeAnalysis();
 	}
     }
 
     public static void quantitativeAnalysis(Node _outport)
     {
-	performTraversal(_outport);
-	if (!errorFound)
+	AnalysisSession currentSession = getSession(_outport);
+	if (currentSession != null)
 	{
-	    if (quantitativeAnalysisResults == -1)
-	    {
-		long start = System.nanoTime();
-		if (splitTraversalAndReuseAnalysisResults)
-		{
-		    quantitativeAnalysisResults = DBMCSManager.getQuantitativeResult(resultGateSets.get(outport).getStartNode());
-		    if (quantitativeAnalysisResults == -1)
-		    {
-			ResultGateSet resultGateSet = (ResultGateSet) resultGateSets.get(outport).getGateSetCopy();
-			resultGateSet.connectGateSets(null);
-			quantitativeAnalysisResults = resultGateSet.calculateBasicFailureProbability();
-			if (!errorFound)
-			{
-			    DBMCSManager.addQuantitativeResult(resultGateSet.getStartNode(), quantitativeAnalysisResults);
-			}
-		    }
-		}
-		else
-		{
-		    quantitativeAnalysisResults = resultGateSets.get(outport).calculateBasicFailureProbability();
-		}
-		long end = System.nanoTime();
-		timeQuantAnalysis = (end - start) / 1000000;
-	    }
-	    PrintUtility.printResults("The Probability of the Occurence of an Event at the Element (" + DBUtility.getIDAndName(outport) + " [OUT]) is " + quantitativeAnalysisResults + ".\n");
-	    printPerformanceStatistics();
+	    currentSession.quantitativeAnalysis();
 	}
     }
 
+    /**
+     * Performs the qualitative and the quantitative analysis of all outports without cycles or errors and stores the results in the database.<br>
+     * The CFTs are checked for cycles and errors first. The cycle traversal is skipped for outports of CFTs that are valid according to DBChecker. Then every outport is analyzed in its own AnalysisSession.<br>
+     * Outports are analyzed after the outports they instantiate and independent outports are analyzed concurrently if multithreading is used.<br>
+     */
     public static void performFullAnalysisAndStoreResults()
     {
 	HashSet<Node> outports = DBUtility.getAllNodesWithLabel(NodeLabels.CFT_Outport);
+	ArrayList<Node> analyzedOutports = new ArrayList<Node>();
+	DBChecker.hasCFTCycles(); // updates the cached verdicts of the CFTs so the cycle traversal is only needed for CFTs that are not valid
 	for (Node out : outports)
 	{
-	    if (!CycleTraversal.hasCycleOrErrors(out))
+	    if (DBChecker.isValidCFT(DBUtility.getCFTofNode(out)) || !CycleTraversal.hasCycleOrErrors(out))
 	    {
-		fullAnalysis(out);
+		analyzedOutports.add(out);
 	    }
 	}
+	new FullAnalysisScheduler(analyzedOutports).analyzeAll();
     }
 
-    private static void fullAnalysis(Node _outport)
+    /**
+     * Returns the AnalysisSession for the outport.<br>
+     * A new AnalysisSession is created if the current AnalysisSession was created for another outport or with other settings.<br>
+     *
+     * @param _outport
+     *            The outport.
+     * @return The AnalysisSession or null if the Node is not a CFT outport.
+     */
+    private static synchronized AnalysisSession getSession(Node _outport)
     {
-	boolean neo4j = SettingsUtility.isUseManualTraversal();
-	boolean reuse = SettingsUtility.isReuseAnalysisResults();
-	SettingsUtility.setUseManualTraversal(false);
-	SettingsUtility.setReuseAnalysisResults(true);
-	boolean recalc = false;
-	performTraversal(_outport);
-	long startRefineMCS = System.nanoTime();
-	MCSPairSet outportFullMCSSet = DBMCSManager.getFullMCSSet(outport);
-	if (!outportFullMCSSet.isEmpty())
+	if (!DBUtility.hasLabel(_outport, NodeLabels.CFT_Outport))
 	{
-	    getResultGateSet(outport).SetFullMCSSet(outportFullMCSSet.getMCSSet());
-	    getResultGateSet(outport).SetFullNegatedMCSSet(outportFullMCSSet.getNegatedMCSSet());
-	    qualititativeAnalysisResults = resultGateSets.get(outport);
-	    long endRefineMCS = System.nanoTime();
-	    timeRefineMCS = (endRefineMCS - startRefineMCS) / 1000000;
-	}
-	else
-	{ // calculation necessary
-	    for (ResultGateSet rgs : resultGateSets.values())
-	    {
-		MCSPairSet mcsSet = DBMCSManager.getMCSSet(rgs.getStartNode());
-		if (mcsSet.isEmpty())
-		{
-		    rgs.createMCSSet();
-		    rgs.createNegatedMCSSet();
-		    rgs.combineAllMergedMCS();
-		    rgs.minimizeMCS();
-		    rgs.addHiddenPrimeImplicants();
-		    rgs.minimizeMCS();
-		    if (!errorFound)
-		    {
-			DBMCSManager.addMCSSet(rgs);
-		    }
-		}
-		else
-		{
-		    rgs.SetMCSSet(mcsSet.getMCSSet());
-		    rgs.SetNegatedMCSSet(mcsSet.getNegatedMCSSet());
-		}
-		MCSPairSet fullMCSSet = DBMCSManager.getFullMCSSet(rgs.getStartNode());
-		if (!fullMCSSet.isEmpty())
-		{
-		    rgs.SetFullMCSSet(fullMCSSet.getMCSSet());
-		    rgs.SetFullNegatedMCSSet(fullMCSSet.getNegatedMCSSet());
-		}
-	    }
-	    qualititativeAnalysisResults = (ResultGateSet) resultGateSets.get(outport).getGateSetCopy();
-	    qualititativeAnalysisResults.connectGateSets(null);
-	    PrintUtility.printInfo(qualititativeAnalysisResults.getGateSetString(""));
-	    qualititativeAnalysisResults.connectMCS();
-	    qualititativeAnalysisResults.minimizeMCS();
-	    long endRefineMCS = System.nanoTime();
-	    timeRefineMCS = (endRefineMCS - startRefineMCS) / 1000000;
-	    long startPrimeImplicants = System.nanoTime();
-	    qualititativeAnalysisResults.addHiddenPrimeImplicants();
-	    qualititativeAnalysisResults.minimizeMCS();
-	    long endPrimeImplicants = System.nanoTime();
-	    timePrimeImplicants = (endPrimeImplicants - startPrimeImplicants) / 1000000;
-	    recalc = true;
+	    PrintUtility.printError("The Analysis Element is not a CFT Outport!");
+	    return null;
 	}
-	quantitativeAnalysisResults = DBMCSManager.getQuantitativeResult(resultGateSets.get(outport).getStartNode());
-	if (quantitativeAnalysisResults == -1)
+	if (session == null || !session.isReusable(_outport))
 	{
-	    if (recalc)
-	    {
-		quantitativeAnalysisResults = qualititativeAnalysisResults.calculateBasicFailureProbability();
-		if (!errorFound)
-		{
-		    DBMCSManager.addQuantitativeResult(qualititativeAnalysisResults.getStartNode(), quantitativeAnalysisResults);
-		}
-	    }
-	    else
-	    {
-		ResultGateSet resultGateSet = (ResultGateSet) resultGateSets.get(outport).getGateSetCopy();
-		resultGateSet.connectGateSets(null);
-		quantitativeAnalysisResults = resultGateSet.calculateBasicFailureProbability();
-		if (!errorFound)
-		{
-		    DBMCSManager.addQuantitativeResult(resultGateSet.getStartNode(), quantitativeAnalysisResults);
-		}
-	    }
+	    session = new AnalysisSession(_outport, SettingsUtility.isUseManualTraversal(), SettingsUtility.isReuseAnalysisResults(), SettingsUtility.isCalculatePrimeImplicants());
 	}
-	SettingsUtility.setUseManualTraversal(neo4j);
-	SettingsUtility.setReuseAnalysisResults(reuse);
+	return session;
     }
 
-    static void addResultGateSet(Node node, ResultGateSet rgs)
+    /**
+     * Returns the ProbabilityPlan of the outport or null if the outport has no valid ProbabilityPlan.<br>
+     *
+     * @param _outport
+     *            The outport.
+     * @return The ProbabilityPlan.
+     */
+    static synchronized ProbabilityPlan getProbabilityPlan(Node _outport)
     {
-	synchronized (resultGateSetsLock)
+	ProbabilityPlan plan = probabilityPlans.get(_outport);
+	if (plan != null && !plan.isValid())
 	{
-	    resultGateSets.put(node, rgs);
+	    probabilityPlans.remove(_outport);
+	    return null;
 	}
+	return plan;
     }
 
-    public static Collection<ResultGateSet> getResultGateSets()
+    /**
+     * Keeps the ProbabilityPlan of the outport for the next quantitative analysis of the outport.<br>
+     *
+     * @param _outport
+     *            The outport.
+     * @param plan
+     *            The ProbabilityPlan.
+     */
+    static synchronized void putProbabilityPlan(Node _outport, ProbabilityPlan plan)
     {
-	return resultGateSets.values();
+	probabilityPlans.put(_outport, plan);
+	Iterator<ProbabilityPlan> iterator = probabilityPlans.values().iterator();
+	while (probabilityPlans.size() > maxProbabilityPlans && iterator.hasNext())
+	{
+	    iterator.next();
+	    iterator.remove();
+	}
     }
 
-    public static ResultGateSet getResultGateSet(Node node)
+    public static Collection<ResultGateSet> getResultGateSets()
     {
-	return resultGateSets.get(node);
+	return session == null ? Collections.<ResultGateSet> emptyList() : session.getResultGateSets();
     }
 
-    static boolean resultGateSetNodeTraversed(Node node)
+    public static ResultGateSet getResultGateSet(Node node)
     {
-	synchronized (resultGateSetsLock)
-	{
-	    return resultGateSets.containsKey(node);
-	}
+	return session == null ? null : session.getResultGateSet(node);
     }
 
     public static Node getOutport()
     {
-	return outport;
+	return session == null ? null : session.getOutport();
     }
 
     public static HashSet<Node> getInports()
     {
-	return inports;
+	return session == null ? null : session.getInports();
     }
 
     public static long getTraversalTime()
     {
-	return timeTraversal;
+	return session == null ? -1 : session.getTraversalTime();
     }
 
     public static long getMCSCalculationTime()
     {
-	return timeRefineMCS;
+	return session == null ? -1 : session.getMCSCalculationTime();
     }
 
     public static long getPrimeImplicantCalcTime()
     {
-	return timePrimeImplicants;
+	return session == null ? -1 : session.getPrimeImplicantCalcTime();
     }
 
     public static long getQuantTime()
     {
-	return timeQuantAnalysis;
+	return session == null ? -1 : session.getQuantTime();
     }
 
     public static ResultGateSet getQualititativeAnalysisResults()
     {
-	return qualititativeAnalysisResults;
-    }
-
-    public static double getQuantitativeAnalysisResults()
-    {
-	return quantitativeAnalysisResults;
+	return session == null ? null : session.getQualititativeAnalysisResults();
     }
 
     /**
-     * 
+     * Returns the ZBDD of the last qualitative analysis or null if the ZBDD engine was not used.<br>
+     * The ZBDD can be used to iterate over all minimal cut sets if only a part of them was created.<br>
+     *
+     * @return The ZBDD of the last qualitative analysis.
      */
-    public static void errorOccured()
+    public static ZBDDAnalysis getZBDDAnalysis()
     {
-	errorFound = true;
+	return session == null ? null : session.getZBDDAnalysis();
     }
 
-    public static boolean errorFound()
-    {
-	return errorFound;
-    }
-
-    static void cycleFound(boolean found)
-    {
-	if (found)
-	{
-	    cycleFound = found;
-	    PrintUtility.printError("A Cycle was found and the Traversal cannot continue!");
-	}
-    }
-
-    static boolean cycleFound()
-    {
-	return cycleFound;
-    }
-
-    private static void performTraversal(Node _outport)
+    public static double getQuantitativeAnalysisResults()
     {
-	if (DBUtility.hasLabel(_outport, NodeLabels.CFT_Outport))
-	{
-	    if (SettingsUtility.isUseManualTraversal() != useManualTraversal || splitTraversalAndReuseAnalysisResults != SettingsUtility.isReuseAnalysisResults() || outport == null || inports == null
-		    || resultGateSets.isEmpty() || timeTraversal == -1 || SettingsUtility.isResetTraversal() || !outport.equals(_outport))
-	    {
-		outport = null;
-		inports = null;
-		cycleFound = false;
-		errorFound = false;
-		resultGateSets.clear();
-		timeTraversal = -1;
-		timeRefineMCS = -1;
-		timePrimeImplicants = -1;
-		timeQuantAnalysis = -1;
-		useManualTraversal = SettingsUtility.isUseManualTraversal();
-		splitTraversalAndReuseAnalysisResults = SettingsUtility.isReuseAnalysisResults();
-		calculatePrimeImplicants = SettingsUtility.isCalculatePrimeImplicants();
-		quantitativeAnalysisResults = -1;
-		qualititativeAnalysisResults = null;
-		outport = _outport;
-		inports = DBUtility.getElementsbyLabelandParent(NodeLabels.CFT_Inport, DBUtility.getCFTofNode(outport));
-		if (useManualTraversal)
-		{
-		    PrintUtility.printInfo("Manual Traversal started!");
-		    long startTrav = System.nanoTime();
-		    ManualTraversal.startManualTraversal();
-		    long endTrav = System.nanoTime();
-		    timeTraversal = (endTrav - startTrav) / 1000000;
-		    PrintUtility.printInfo("Manual Traversal completed!");
-		}
-		else
-		{
-		    PrintUtility.printInfo("Neo4j Traversal started!");
-		    long startTrav = System.nanoTime();
-		    Neo4jTraversal.startTraversal(splitTraversalAndReuseAnalysisResults);
-		    long endTrav = System.nanoTime();
-		    timeTraversal = (endTrav - startTrav) / 1000000;
-		    PrintUtility.printInfo("Neo4j Traversal completed!");
-		}
-	    }
-	}
-	else
-	{
-	    PrintUtility.printError("The Analysis Element is not a CFT Outport!");
-	}
+	return session == null ? -1 : session.getQuantitativeAnalysisResults();
     }
 
-    private static void printPerformanceStatistics()
+    public static boolean errorFound()
     {
-	PrintUtility.printResults("Traversal time: " + timeTraversal + "ms");
-	if (qualititativeAnalysisResults != null)
-	{
-	    PrintUtility.printResults("Qualitative Analysis (Minimal Cut Set) Calculation time: " + timeRefineMCS + " ms");
-	}
-	if (timePrimeImplicants != -1)
-	{
-	    PrintUtility.printResults("Prime Implicants Calculation time: " + timePrimeImplicants + " ms");
-	}
-	if (quantitativeAnalysisResults != -1)
-	{
-	    PrintUtility.printResults("Quantitative Analysis (Probability) Calculation time: " + timeQuantAnalysis + " ms");
-	}
+	return session != null && session.errorFound();
     }
 
 }
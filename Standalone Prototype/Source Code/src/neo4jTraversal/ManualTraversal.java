@@ -14,7 +14,6 @@ import org.neo4j.graphdb.Transaction;
 
 import neo4jDatabase.DBConnection;
 import neo4jDatabase.DBUtility;
-import neo4jEnum.NodeLabels;
 import neo4jEnum.RelTypes;
 import neo4jGateSets.ANDSet;
 import neo4jGateSets.MOONSet;
@@ -29,127 +28,98 @@ import neo4jUtility.ThreadUtility;
 public final class ManualTraversal
 {
 
-    private static Set<Future<?>> futureSet = ConcurrentHashMap.newKeySet();
-
     private ManualTraversal()
     {
 
     }
 
-    static void startManualTraversal()
+    static void startManualTraversal(AnalysisSession session)
     {
-	ResultGateSet outportSet = new ResultGateSet(MainTraversal.getOutport());
-	MainTraversal.addResultGateSet(MainTraversal.getOutport(), outportSet);
+	ResultGateSet outportSet = new ResultGateSet(session.getOutport());
+	session.addResultGateSet(session.getOutport(), outportSet);
 	TraversalState ts = new TraversalState(outportSet);
-	ts.addNodeToSimple(MainTraversal.getOutport());
+	ts.addNodeToSimple(session.getOutport());
 	boolean stopTraversal = false;
 	try (Transaction tx = DBConnection.getGraphDB().beginTx())
 	{
-	    Node lowerNode = MainTraversal.getOutport().getSingleRelationship(RelTypes.Failure_Propagation, Direction.INCOMING).getStartNode();
-	    MainTraversal.cycleFound(ts.addNodeToSimple(lowerNode));
-	    if (lowerNode.hasLabel(NodeLabels.CFT_AND_Gate))
-	    {
-		ANDSet andSet = new ANDSet(lowerNode);
-		ts.addGateSetToLastGateSet(andSet);
-		ts.setLastGateSet(andSet);
-	    }
-	    else
+	    Node lowerNode = session.getOutport().getSingleRelationship(RelTypes.Failure_Propagation, Direction.INCOMING).getStartNode();
+	    session.cycleFound(ts.addNodeToSimple(lowerNode));
+	    switch (session.getNodeKind(lowerNode))
 	    {
-		if (lowerNode.hasLabel(NodeLabels.CFT_OR_Gate))
-		{
+		case CFT_AND_Gate:
+		    ANDSet andSet = new ANDSet(lowerNode);
+		    ts.addGateSetToLastGateSet(andSet);
+		    ts.setLastGateSet(andSet);
+		    break;
+		case CFT_OR_Gate:
 		    ORSet orSet = new ORSet(lowerNode);
 		    ts.addGateSetToLastGateSet(orSet);
 		    ts.setLastGateSet(orSet);
-		}
-		else
-		{
-		    if (lowerNode.hasLabel(NodeLabels.CFT_NOT_Gate))
+		    break;
+		case CFT_NOT_Gate:
+		    NOTSet notSet = new NOTSet(lowerNode);
+		    ts.addGateSetToLastGateSet(notSet);
+		    ts.setLastGateSet(notSet);
+		    break;
+		case CFT_XOR_Gate:
+		    XORSet xorSet = new XORSet(lowerNode);
+		    ts.addGateSetToLastGateSet(xorSet);
+		    ts.setLastGateSet(xorSet);
+		    break;
+		case CFT_MOON_Gate:
+		    MOONSet moonSet = new MOONSet(lowerNode);
+		    ts.addGateSetToLastGateSet(moonSet);
+		    ts.setLastGateSet(moonSet);
+		    break;
+		case CFT_Basic_Event:
+		    ts.addNodeToLastGateSet(lowerNode);
+		    stopTraversal = true;
+		    break;
+		case CFT_Inport:
+		    if (session.getInports().contains(lowerNode))
 		    {
-			NOTSet notSet = new NOTSet(lowerNode);
-			ts.addGateSetToLastGateSet(notSet);
-			ts.setLastGateSet(notSet);
+			ts.addNodeToLastGateSet(lowerNode);
+			stopTraversal = true;
 		    }
 		    else
 		    {
-			if (lowerNode.hasLabel(NodeLabels.CFT_XOR_Gate))
-			{
-			    XORSet xorSet = new XORSet(lowerNode);
-			    ts.addGateSetToLastGateSet(xorSet);
-			    ts.setLastGateSet(xorSet);
-			}
-			else
-			{
-			    if (lowerNode.hasLabel(NodeLabels.CFT_MOON_Gate))
-			    {
-				MOONSet moonSet = new MOONSet(lowerNode);
-				ts.addGateSetToLastGateSet(moonSet);
-				ts.setLastGateSet(moonSet);
-			    }
-			    else
-			    {
-				if (lowerNode.hasLabel(NodeLabels.CFT_Basic_Event))
-				{
-				    ts.addNodeToLastGateSet(lowerNode);
-				    stopTraversal = true;
-				}
-				else
-				{
-				    if (lowerNode.hasLabel(NodeLabels.CFT_Inport))
-				    {
-					if (MainTraversal.getInports().contains(lowerNode))
-					{
-					    ts.addNodeToLastGateSet(lowerNode);
-					    stopTraversal = true;
-					}
-					else
-					{
-					    PrintUtility.printError("The starting Outport is connected to an Inport of another CFT! Traversal cannot continue!");
-					}
-				    }
-				    else
-				    {
-					if (lowerNode.hasLabel(NodeLabels.CFT_Outport_Instance))
-					{
-					    MainTraversal.cycleFound(ts.addNodeToInstances(lowerNode));
-					    ConnectorGateSet conSet = new ConnectorGateSet(lowerNode);
-					    ts.addGateSetToLastGateSet(conSet);
-					    ts.setLastGateSet(conSet);
-					    Node nextOutport = lowerNode.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode();
-					    ResultGateSet nextResultGateSet = new ResultGateSet(nextOutport);
-					    ts.addGateSetToLastGateSet(nextResultGateSet);
-					    ts.setLastGateSet(nextResultGateSet);
-					    HashMap<Node, Node> nextInportMap = new HashMap<Node, Node>();
-					    for (Node inportInstance : DBUtility.getInportInstances(lowerNode))
-					    { // Map Inports to InportInstances
-						nextInportMap.put(inportInstance.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode(), inportInstance);
-					    }
-					    ts.addInportMap(nextInportMap);
-					    ts.clearSimple();
-					}
-					else
-					{
-					    PrintUtility.printError("An unknown label was traversed and the analysis!", DBUtility.getLabelsAsString(lowerNode));
-					}
-				    }
-				}
-			    }
-			}
+			PrintUtility.printError("The starting Outport is connected to an Inport of another CFT! Traversal cannot continue!");
 		    }
-		}
+		    break;
+		case CFT_Outport_Instance:
+		    session.cycleFound(ts.addNodeToInstances(lowerNode));
+		    ConnectorGateSet conSet = new ConnectorGateSet(lowerNode);
+		    ts.addGateSetToLastGateSet(conSet);
+		    ts.setLastGateSet(conSet);
+		    Node nextOutport = lowerNode.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode();
+		    ResultGateSet nextResultGateSet = new ResultGateSet(nextOutport);
+		    ts.addGateSetToLastGateSet(nextResultGateSet);
+		    ts.setLastGateSet(nextResultGateSet);
+		    HashMap<Node, Node> nextInportMap = new HashMap<Node, Node>();
+		    for (Node inportInstance : DBUtility.getInportInstances(lowerNode))
+		    { // Map Inports to InportInstances
+			nextInportMap.put(inportInstance.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode(), inportInstance);
+		    }
+		    ts.addInportMap(nextInportMap);
+		    ts.clearSimple();
+		    break;
+		default:
+		    PrintUtility.printError("An unknown label was traversed and the analysis!", DBUtility.getLabelsAsString(lowerNode));
+		    break;
 	    }
 	    tx.success();
 	}
+	Set<Future<?>> futureSet = ConcurrentHashMap.newKeySet();
 	if (!stopTraversal)
 	{
-	    futureSet.clear();
-	    traverseState(ts);
+	    traverseState(session, ts, futureSet);
 	}
 	ThreadUtility.getThreadUtility().waitForSubmittedTasksToFinish(futureSet);
     }
     
-    private static void traverseState(TraversalState traversalState)
+    private static void traverseState(AnalysisSession session, TraversalState traversalState, Set<Future<?>> futureSet)
     {
-	if (!MainTraversal.cycleFound())
+	if (!session.cycleFound())
 	{
 	    ArrayList<TraversalState> nextTraversals = new ArrayList<TraversalState>();
 	    try (Transaction tx = DBConnection.getGraphDB().beginTx())
@@ -160,129 +130,94 @@ public final class ManualTraversal
 		    Node lowerNode = rel.getStartNode();
 		    TraversalState nextTS = new TraversalState(traversalState);
 		    boolean stopTraversal = false;
-		    MainTraversal.cycleFound(nextTS.addNodeToSimple(lowerNode));
-		    if (lowerNode.hasLabel(NodeLabels.CFT_AND_Gate))
+		    session.cycleFound(nextTS.addNodeToSimple(lowerNode));
+		    switch (session.getNodeKind(lowerNode))
 		    {
-			ANDSet andSet = new ANDSet(lowerNode);
-			nextTS.addGateSetToLastGateSet(andSet);
-			nextTS.setLastGateSet(andSet);
-		    }
-		    else
-		    {
-			if (lowerNode.hasLabel(NodeLabels.CFT_OR_Gate))
-			{
+			case CFT_AND_Gate:
+			    ANDSet andSet = new ANDSet(lowerNode);
+			    nextTS.addGateSetToLastGateSet(andSet);
+			    nextTS.setLastGateSet(andSet);
+			    break;
+			case CFT_OR_Gate:
 			    ORSet orSet = new ORSet(lowerNode);
 			    nextTS.addGateSetToLastGateSet(orSet);
 			    nextTS.setLastGateSet(orSet);
-			}
-			else
-			{
-			    if (lowerNode.hasLabel(NodeLabels.CFT_NOT_Gate))
+			    break;
+			case CFT_NOT_Gate:
+			    NOTSet notSet = new NOTSet(lowerNode);
+			    nextTS.addGateSetToLastGateSet(notSet);
+			    nextTS.setLastGateSet(notSet);
+			    break;
+			case CFT_XOR_Gate:
+			    XORSet xorSet = new XORSet(lowerNode);
+			    nextTS.addGateSetToLastGateSet(xorSet);
+			    nextTS.setLastGateSet(xorSet);
+			    break;
+			case CFT_MOON_Gate:
+			    MOONSet moonSet = new MOONSet(lowerNode);
+			    nextTS.addGateSetToLastGateSet(moonSet);
+			    nextTS.setLastGateSet(moonSet);
+			    break;
+			case CFT_Basic_Event:
+			    nextTS.addNodeToLastGateSet(lowerNode);
+			    stopTraversal = true;
+			    break;
+			case CFT_Outport:
+			    ResultGateSet outportSet = new ResultGateSet(lowerNode);
+			    nextTS.addGateSetToLastGateSet(outportSet);
+			    nextTS.setLastGateSet(outportSet);
+			    break;
+			case CFT_Inport_Instance:
+			    session.cycleFound(nextTS.addNodeToInstances(lowerNode));
+			    ResultGateSet resultGateSet = new ResultGateSet(lowerNode);
+			    nextTS.addGateSetToLastGateSet(resultGateSet);
+			    nextTS.setLastGateSet(resultGateSet);
+			    break;
+			case CFT_Inport:
+			    if (session.getInports().contains(lowerNode))
 			    {
-				NOTSet notSet = new NOTSet(lowerNode);
-				nextTS.addGateSetToLastGateSet(notSet);
-				nextTS.setLastGateSet(notSet);
+				nextTS.addNodeToLastGateSet(lowerNode);
+				stopTraversal = true;
 			    }
 			    else
 			    {
-				if (lowerNode.hasLabel(NodeLabels.CFT_XOR_Gate))
+				if (nextTS.containsInport(lowerNode))
 				{
-				    XORSet xorSet = new XORSet(lowerNode);
-				    nextTS.addGateSetToLastGateSet(xorSet);
-				    nextTS.setLastGateSet(xorSet);
+				    ConnectorGateSet conSet = new ConnectorGateSet(lowerNode);
+				    nextTS.addGateSetToLastGateSet(conSet);
+				    nextTS.setLastGateSet(conSet);
+				    Node inportInstance = nextTS.removeLastInportMap().get(lowerNode);
+				    ResultGateSet nextResultGateSet = new ResultGateSet(inportInstance);
+				    nextTS.addGateSetToLastGateSet(nextResultGateSet);
+				    nextTS.setLastGateSet(nextResultGateSet);
+				    nextTS.clearSimple();
 				}
 				else
 				{
-				    if (lowerNode.hasLabel(NodeLabels.CFT_MOON_Gate))
-				    {
-					MOONSet moonSet = new MOONSet(lowerNode);
-					nextTS.addGateSetToLastGateSet(moonSet);
-					nextTS.setLastGateSet(moonSet);
-				    }
-				    else
-				    {
-					if (lowerNode.hasLabel(NodeLabels.CFT_Basic_Event))
-					{
-					    nextTS.addNodeToLastGateSet(lowerNode);
-					    stopTraversal = true;
-					}
-					else
-					{
-					    if (lowerNode.hasLabel(NodeLabels.CFT_Outport))
-					    {
-						ResultGateSet outportSet = new ResultGateSet(lowerNode);
-						nextTS.addGateSetToLastGateSet(outportSet);
-						nextTS.setLastGateSet(outportSet);
-					    }
-					    else
-					    {
-						if (lowerNode.hasLabel(NodeLabels.CFT_Inport_Instance))
-						{
-						    MainTraversal.cycleFound(nextTS.addNodeToInstances(lowerNode));
-						    ResultGateSet resultGateSet = new ResultGateSet(lowerNode);
-						    nextTS.addGateSetToLastGateSet(resultGateSet);
-						    nextTS.setLastGateSet(resultGateSet);
-						}
-						else
-						{
-						    if (lowerNode.hasLabel(NodeLabels.CFT_Inport))
-						    {
-							if (MainTraversal.getInports().contains(lowerNode))
-							{
-							    nextTS.addNodeToLastGateSet(lowerNode);
-							    stopTraversal = true;
-							}
-							else
-							{
-							    if (nextTS.containsInport(lowerNode))
-							    {
-								ConnectorGateSet conSet = new ConnectorGateSet(lowerNode);
-								nextTS.addGateSetToLastGateSet(conSet);
-								nextTS.setLastGateSet(conSet);
-								Node inportInstance = nextTS.removeLastInportMap().get(lowerNode);
-								ResultGateSet nextResultGateSet = new ResultGateSet(inportInstance);
-								nextTS.addGateSetToLastGateSet(nextResultGateSet);
-								nextTS.setLastGateSet(nextResultGateSet);
-								nextTS.clearSimple();
-							    }
-							    else
-							    {
-								PrintUtility.printError("Inport is not mapped to an Inport Instance!");
-							    }
-							}
-						    }
-						    else
-						    {
-							if (lowerNode.hasLabel(NodeLabels.CFT_Outport_Instance))
-							{
-							    MainTraversal.cycleFound(nextTS.addNodeToInstances(lowerNode));
-							    ConnectorGateSet conSet = new ConnectorGateSet(lowerNode);
-							    nextTS.addGateSetToLastGateSet(conSet);
-							    nextTS.setLastGateSet(conSet);
-							    Node nextOutport = lowerNode.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode();
-							    ResultGateSet nextResultGateSet = new ResultGateSet(nextOutport);
-							    nextTS.addGateSetToLastGateSet(nextResultGateSet);
-							    nextTS.setLastGateSet(nextResultGateSet);
-							    HashMap<Node, Node> nextInportMap = new HashMap<Node, Node>();
-							    for (Node inportInstance : DBUtility.getInportInstances(lowerNode))
-							    { // Map Inports to InportInstances
-								nextInportMap.put(inportInstance.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode(), inportInstance);
-							    }
-							    nextTS.addInportMap(nextInportMap);
-							    nextTS.clearSimple();
-							}
-							else
-							{
-							    PrintUtility.printError("An invalid node label was found in the Neo4j database so the traversal cannot continue.");
-							}
-						    }
-						}
-					    }
-					}
-				    }
+				    PrintUtility.printError("Inport is not mapped to an Inport Instance!");
 				}
 			    }
-			}
+			    break;
+			case CFT_Outport_Instance:
+			    session.cycleFound(nextTS.addNodeToInstances(lowerNode));
+			    ConnectorGateSet conSet = new ConnectorGateSet(lowerNode);
+			    nextTS.addGateSetToLastGateSet(conSet);
+			    nextTS.setLastGateSet(conSet);
+			    Node nextOutport = lowerNode.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode();
+			    ResultGateSet nextResultGateSet = new ResultGateSet(nextOutport);
+			    nextTS.addGateSetToLastGateSet(nextResultGateSet);
+			    nextTS.setLastGateSet(nextResultGateSet);
+			    HashMap<Node, Node> nextInportMap = new HashMap<Node, Node>();
+			    for (Node inportInstance : DBUtility.getInportInstances(lowerNode))
+			    { // Map Inports to InportInstances
+				nextInportMap.put(inportInstance.getSingleRelationship(RelTypes.Is_Instance_Of, Direction.OUTGOING).getEndNode(), inportInstance);
+			    }
+			    nextTS.addInportMap(nextInportMap);
+			    nextTS.clearSimple();
+			    break;
+			default:
+			    PrintUtility.printError("An invalid node label was found in the Neo4j database so the traversal cannot continue.");
+			    break;
 		    }
 		    if (!stopTraversal)
 		    {
@@ -299,7 +234,7 @@ public final class ManualTraversal
 		    TraversalState nextTS = iterator.next();
 		    if (nextTraversals.size() == 1 || !ThreadUtility.getThreadUtility().isThreadAvailable() || !iterator.hasNext())
 		    {
-			traverseState(nextTS);
+			traverseState(session, nextTS, futureSet);
 		    }
 		    else
 		    {
@@ -308,7 +243,7 @@ public final class ManualTraversal
 			    @Override
 			    public void run()
 			    {
-				traverseState(nextTS);
+				traverseState(session, nextTS, futureSet);
 			    }
 			}));
 		    }
@@ -318,7 +253,7 @@ public final class ManualTraversal
 	    {
 		for (TraversalState nextTS : nextTraversals)
 		{
-		    traverseState(nextTS);
+		    traverseState(session, nextTS, futureSet);
 		}
 	    }
 	}
@@ -1,9 +1,6 @@
 package neo4jTraversal;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.concurrent.Future;
 
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
@@ -15,7 +12,6 @@ import org.neo4j.graphdb.traversal.Uniqueness;
 import neo4jDatabase.DBConnection;
 import neo4jDatabase.DBUtility;
 import neo4jEnum.NodeLabels;
-import neo4jUtility.ThreadUtility;
 
 public final class Neo4jTraversal
 {
@@ -25,29 +21,32 @@ public final class Neo4jTraversal
 
     }
 
-    static void startTraversal(boolean splitAndReuse)
+    static void startTraversal(AnalysisSession session, boolean splitAndReuse)
     {
 	if (splitAndReuse)
 	{
-	    traverseOutportSplit(MainTraversal.getOutport());
+	    traverseOutportSplit(session, session.getOutport());
 	}
 	else
 	{
-	    traverseOutportFull();
+	    traverseOutportFull(session);
 	}
     }
 
     /**
+     * Traverses the outport of the AnalysisSession and all lower CFTs in a single traversal.<br>
      * 
+     * @param session
+     *            The AnalysisSession.
      */
-    private static void traverseOutportFull()
+    private static void traverseOutportFull(AnalysisSession session)
     {
 	try (Transaction tx = DBConnection.getGraphDB().beginTx())
 	{
 	    InitialBranchState.State<TraversalState> ibs;
 	    ibs = new InitialBranchState.State<TraversalState>(null, null);
-	    TraversalDescription ftTD = DBConnection.getGraphDB().traversalDescription().uniqueness(Uniqueness.NONE).depthFirst().expand(new CFTPathExpanderFull(), ibs);
-	    Traverser ftTraverser = ftTD.traverse(MainTraversal.getOutport());
+	    TraversalDescription ftTD = DBConnection.getGraphDB().traversalDescription().uniqueness(Uniqueness.NONE).depthFirst().expand(new CFTPathExpanderFull(session), ibs);
+	    Traverser ftTraverser = ftTD.traverse(session.getOutport());
 	    ftTraverser.iterator().forEachRemaining(path ->
 	    {
 
@@ -57,31 +56,50 @@ public final class Neo4jTraversal
     }
 
     /**
-     * This method requires a Node to have the Label CFT_Outport.
+     * Traverses the outport of the AnalysisSession and all lower CFTs in separate traversals that are distributed by a SplitTraversalQueue.<br>
      * 
+     * @param session
+     *            The AnalysisSession.
      * @param outport
      *            The CFT_Outport that is traversed.
      */
-    private static void traverseOutportSplit(Node outport)
+    private static void traverseOutportSplit(AnalysisSession session, Node outport)
+    {
+	new SplitTraversalQueue(session).traverse(outport);
+    }
+
+    /**
+     * Traverses a single start node of a split traversal in its own transaction.<br>
+     * If the start node is a CFT_Outport then the Inport Instances of its CFT that are not claimed yet are traversed together with it.<br>
+     * 
+     * @param session
+     *            The AnalysisSession.
+     * @param splitTraversalQueue
+     *            The SplitTraversalQueue that claims the start nodes.
+     * @param startNode
+     *            The CFT_Outport or CFT_Inport_Instance that is traversed.
+     * @return The Outports that were reached by the traversal.
+     */
+    static ArrayList<Node> traverseStartNode(AnalysisSession session, SplitTraversalQueue splitTraversalQueue, Node startNode)
     {
 	ArrayList<Node> nextNodesToTraverse = new ArrayList<Node>();
 	try (Transaction tx = DBConnection.getGraphDB().beginTx())
 	{
 	    ArrayList<Node> nodesToTraverse = new ArrayList<Node>();
-	    nodesToTraverse.add(outport);
-	    if (outport.hasLabel(NodeLabels.CFT_Outport))
+	    nodesToTraverse.add(startNode);
+	    if (session.getNodeKind(startNode) == NodeLabels.CFT_Outport)
 	    {
-		for (Node inportInstance : DBUtility.getInportInstances(outport))
+		for (Node inportInstance : DBUtility.getInportInstances(startNode))
 		{
-		    if (!MainTraversal.resultGateSetNodeTraversed(inportInstance))
+		    if (splitTraversalQueue.claimWithoutQueue(inportInstance))
 		    {
 			nodesToTraverse.add(inportInstance);
 		    }
 		}
 	    }
 	    InitialBranchState.State<TraversalState> ibs = new InitialBranchState.State<TraversalState>(null, null);
-	    TraversalDescription ftTD = DBConnection.getGraphDB().traversalDescription().uniqueness(Uniqueness.NONE).depthFirst().expand(new CFTPathExpanderSplit(), ibs)
-		    .evaluator(new CFTEvaluatorSplit());
+	    TraversalDescription ftTD = DBConnection.getGraphDB().traversalDescription().uniqueness(Uniqueness.NONE).depthFirst().expand(new CFTPathExpanderSplit(session), ibs)
+		    .evaluator(new CFTEvaluatorSplit(session));
 	    Traverser ftTraverser = ftTD.traverse(nodesToTraverse);
 	    ftTraverser.iterator().forEachRemaining(path ->
 	    {
@@ -89,42 +107,7 @@ public final class Neo4jTraversal
 	    });
 	    tx.success();
 	}
-	if (ThreadUtility.getThreadUtility().isMultiThreading())
-	{
-	    Set<Future<?>> futureSet = new HashSet<Future<?>>();
-	    for (Node _node : nextNodesToTraverse)
-	    {
-		if (!MainTraversal.resultGateSetNodeTraversed(_node))
-		{
-		    if (nextNodesToTraverse.size() != 1 && ThreadUtility.getThreadUtility().isThreadAvailable())
-		    {
-			futureSet.add(ThreadUtility.getThreadUtility().submitTask(new Runnable()
-			{
-			    @Override
-			    public void run()
-			    {
-				traverseOutportSplit(_node);
-			    }
-			}));
-		    }
-		    else
-		    {
-			traverseOutportSplit(_node);
-		    }
-		}
-	    }
-	    ThreadUtility.getThreadUtility().waitForSubmittedTasksToFinish(futureSet);
-	}
-	else
-	{
-	    for (Node _node : nextNodesToTraverse)
-	    {
-		if (!MainTraversal.resultGateSetNodeTraversed(_node))
-		{
-		    traverseOutportSplit(_node);
-		}
-	    }
-	}
+	return nextNodesToTraverse;
     }
 
 }
@@ -0,0 +1,71 @@
+package neo4jTraversal;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+
+import neo4jEnum.NodeLabels;
+
+/**
+ * This class resolves the kind of the Nodes that are traversed.<br>
+ * The kind of a Node is the Label that decides how the Node is handled by the traversal (e.g. CFT_AND_Gate or CFT_Outport_Instance).<br>
+ * The Labels of a Node are read only once and the kind is cached by the id of the Node so the traversals can dispatch on the kind with a switch
+ * instead of checking every Label with {@code hasLabel}.<br>
+ * Every traversal uses its own NodeKindResolver because the cached kinds are only valid as long as the database does not change.<br>
+ *
+ * @author Kevin Bartik
+ *
+ */
+final class NodeKindResolver
+{
+
+    /**
+     * Maps the names of all Labels that are a kind of Node in the traversal to their NodeLabels.<br>
+     */
+    private static final HashMap<String, NodeLabels> kindTable = new HashMap<String, NodeLabels>();
+
+    static
+    {
+	for (NodeLabels kind : new NodeLabels[] { NodeLabels.CFT_AND_Gate, NodeLabels.CFT_OR_Gate, NodeLabels.CFT_XOR_Gate, NodeLabels.CFT_NOT_Gate, NodeLabels.CFT_MOON_Gate,
+		NodeLabels.CFT_Inport, NodeLabels.CFT_Outport, NodeLabels.CFT_Inport_Instance, NodeLabels.CFT_Outport_Instance, NodeLabels.CFT_Basic_Event })
+	{
+	    kindTable.put(kind.name(), kind);
+	}
+    }
+
+    /**
+     * Maps the ids of the resolved Nodes to their kind.<br>
+     */
+    private final ConcurrentHashMap<Long, NodeLabels> kinds = new ConcurrentHashMap<Long, NodeLabels>();
+
+    /**
+     * Returns the kind of the Node or Error_Label if the Node has no Label that is handled by the traversal.<br>
+     * Must be called within a transaction if the kind of the Node is not cached yet.<br>
+     *
+     * @param node
+     *            The Node.
+     * @return The kind of the Node.
+     */
+    NodeLabels getKind(Node node)
+    {
+	NodeLabels kind = kinds.get(node.getId());
+	if (kind == null)
+	{
+	    kind = NodeLabels.Error_Label;
+	    for (Label label : node.getLabels())
+	    {
+		NodeLabels nextKind = kindTable.get(label.name());
+		if (nextKind != null)
+		{
+		    kind = nextKind;
+		    break;
+		}
+	    }
+	    kinds.put(node.getId(), kind);
+	}
+	return kind;
+    }
+
+}
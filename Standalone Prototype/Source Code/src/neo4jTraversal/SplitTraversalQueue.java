@@ -0,0 +1,190 @@
+package neo4jTraversal;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.graphdb.Node;
+
+import neo4jUtility.GeneralLogger;
+import neo4jUtility.PrintUtility;
+import neo4jUtility.ThreadUtility;
+
+/**
+ * This class performs a split traversal with a work queue.<br>
+ * Every Outport that is reached by the split traversal is a start node of another traversal. The start nodes are claimed in a concurrent set before
+ * they are added to the queue so every lower CFT is traversed exactly once even if several threads reach the same Outport or Inport Instance.<br>
+ * The start nodes are taken from the queue by workers that traverse them in their own transaction. The thread that starts the traversal is also a
+ * worker so the traversal finishes even if no thread of the ForkJoinPool is available. Additional workers are submitted to the ForkJoinPool when start
+ * nodes are claimed if multithreading is active.<br>
+ * A worker never waits for the queue. It stops as soon as the queue is empty so the threads of the ForkJoinPool are not blocked and a new worker is
+ * submitted when the next start node is claimed.<br>
+ * The number of start nodes that are queued or traversed is counted and the completion latch is released when it drops to zero.<br>
+ *
+ * @see Neo4jTraversal
+ *
+ * @author Kevin Bartik
+ *
+ */
+final class SplitTraversalQueue
+{
+
+    /**
+     * The AnalysisSession of the traversal.<br>
+     */
+    private final AnalysisSession session;
+
+    /**
+     * The start nodes that were claimed for a traversal.<br>
+     */
+    private final Set<Node> claimedNodes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The start nodes that wait for a worker.<br>
+     */
+    private final ConcurrentLinkedQueue<Node> queue = new ConcurrentLinkedQueue<Node>();
+
+    /**
+     * The number of start nodes that are queued or traversed.<br>
+     */
+    private final AtomicInteger pendingNodes = new AtomicInteger();
+
+    /**
+     * Is released when all start nodes were traversed.<br>
+     */
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    /**
+     * The maximum number of workers that are submitted to the ForkJoinPool.<br>
+     */
+    private final int maxWorkers;
+
+    /**
+     * The number of submitted workers that did not stop yet.<br>
+     */
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    SplitTraversalQueue(AnalysisSession session)
+    {
+	this.session = session;
+	maxWorkers = ThreadUtility.getThreadUtility().isMultiThreading() ? Runtime.getRuntime().availableProcessors() - 1 : 0;
+    }
+
+    /**
+     * Traverses the outport and all lower CFT and returns after every traversal is finished.<br>
+     *
+     * @param outport
+     *            The CFT_Outport.
+     */
+    void traverse(Node outport)
+    {
+	claimedNodes.add(outport);
+	pendingNodes.incrementAndGet();
+	queue.add(outport);
+	work();
+	ThreadUtility.getThreadUtility().awaitLatch(finished);
+    }
+
+    /**
+     * Claims a start node and adds it to the queue if it was not claimed before.<br>
+     *
+     * @param node
+     *            The start node.
+     * @return true if the node was claimed. Otherwise false.
+     */
+    boolean claim(Node node)
+    {
+	if (claimedNodes.add(node))
+	{
+	    pendingNodes.incrementAndGet();
+	    queue.add(node);
+	    startWorker();
+	    return true;
+	}
+	return false;
+    }
+
+    /**
+     * Claims a start node that is traversed together with another start node so it is not added to the queue.<br>
+     *
+     * @param node
+     *            The start node.
+     * @return true if the node was claimed. Otherwise false.
+     */
+    boolean claimWithoutQueue(Node node)
+    {
+	return claimedNodes.add(node);
+    }
+
+    /**
+     * Submits a worker to the ForkJoinPool if the maximum number of workers is not reached.<br>
+     */
+    private void startWorker()
+    {
+	int workers = activeWorkers.get();
+	while (workers < maxWorkers)
+	{
+	    if (activeWorkers.compareAndSet(workers, workers + 1))
+	    {
+		ThreadUtility.getThreadUtility().submitTask(new Runnable()
+		{
+		    @Override
+		    public void run()
+		    {
+			try
+			{
+			    work();
+			}
+			finally
+			{
+			    activeWorkers.decrementAndGet();
+			}
+			// A start node that was claimed while this worker stopped may have found no free worker.
+			if (!queue.isEmpty())
+			{
+			    startWorker();
+			}
+		    }
+		});
+		return;
+	    }
+	    workers = activeWorkers.get();
+	}
+    }
+
+    /**
+     * Traverses start nodes from the queue until the queue is empty.<br>
+     */
+    private void work()
+    {
+	Node node;
+	while ((node = queue.poll()) != null)
+	{
+	    try
+	    {
+		ArrayList<Node> nextNodes = Neo4jTraversal.traverseStartNode(session, this, node);
+		for (Node nextNode : nextNodes)
+		{
+		    claim(nextNode);
+		}
+	    }
+	    catch (RuntimeException e)
+	    {
+		PrintUtility.printError(e.toString());
+		GeneralLogger.logError(e);
+		e.printStackTrace();
+	    }
+	    finally
+	    {
+		if (pendingNodes.decrementAndGet() == 0)
+		{
+		    finished.countDown();
+		}
+	    }
+	}
+    }
+
+}
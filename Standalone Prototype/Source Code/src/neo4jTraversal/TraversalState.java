@@ -1,8 +1,7 @@
 package neo4jTraversal;
 
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
 
 import org.neo4j.graphdb.Node;
 
@@ -11,11 +10,13 @@ import neo4jGateSets.GateSet;
 /**
  * This class stores traversal information which is used to continue the traversal.<br>
  * TraversalStates copied in each traversal branch so they can be modified independently.<br>
+ * The Inport Maps and the traversed Nodes are stored in persistent lists that share their elements between copies so copying a TraversalState does
+ * not depend on the depth of the traversal.<br>
  * It stores the last GateSet so further traversals can connect their GateSet or Nodes to it.<br>
  * It stores a List of Inport to Inport Instance Maps which is used to continue traversal at Inports (they can have multiple Inport Instances).<br>
  * The an Inport Map is added to the List at each Outport Instance and the last Inport Map is removed at an Inport after it was mapped to a specific Inport
  * Instance.<br>
- * It contains two HashSets for Nodes which are used to find simple and deep cycles.<br>
+ * It contains two lists of Nodes which are used to find simple and deep cycles.<br>
  * A simple cycle is a cycle inside a CFT that does not traverse inside other CFT.<br>
  * A deep cycle is a cycle between two CFT Instances in which a specific Inport Instance or Outport Instance is traversed twice.<br>
  * 
@@ -25,6 +26,76 @@ import neo4jGateSets.GateSet;
 public class TraversalState
 {
 
+    /**
+     * An element of a persistent list of Nodes.<br>
+     * Every element points to the previously added element so TraversalStates that are copied from each other share the Nodes they have in common.<br>
+     * The filter contains one bit for the hash of every Node in the list so most Nodes that are not in the list are found without walking through it.<br>
+     */
+    private static final class NodeList
+    {
+
+	private final Node node;
+
+	private final NodeList previous;
+
+	private final long filter;
+
+	private NodeList(Node node, NodeList previous)
+	{
+	    this.node = node;
+	    this.previous = previous;
+	    filter = getFilterBit(node) | (previous == null ? 0L : previous.filter);
+	}
+
+	/**
+	 * Returns true if the list that ends with this element contains the Node.<br>
+	 * 
+	 * @param node
+	 *            The Node.
+	 * @return true if the list contains the Node. Otherwise false.
+	 */
+	private boolean contains(Node node)
+	{
+	    if ((filter & getFilterBit(node)) == 0)
+	    {
+		return false;
+	    }
+	    for (NodeList element = this; element != null; element = element.previous)
+	    {
+		if (element.node.equals(node))
+		{
+		    return true;
+		}
+	    }
+	    return false;
+	}
+
+	private static long getFilterBit(Node node)
+	{
+	    return 1L << ((node.hashCode() * 0x9E3779B9) >>> 26);
+	}
+
+    }
+
+    /**
+     * An element of a persistent stack of Inport Maps.<br>
+     * Every element points to the element below it so TraversalStates that are copied from each other share the Inport Maps they have in common.<br>
+     */
+    private static final class InportMapStack
+    {
+
+	private final HashMap<Node, Node> inportMap;
+
+	private final InportMapStack below;
+
+	private InportMapStack(HashMap<Node, Node> inportMap, InportMapStack below)
+	{
+	    this.inportMap = inportMap;
+	    this.below = below;
+	}
+
+    }
+
     /**
      * The last GateSet that was added to the TraversalState.<br>
      * Is used to connect GateSets and Nodes during a traversal.<br>
@@ -32,42 +103,38 @@ public class TraversalState
     private GateSet lastGateSet;
 
     /**
-     * List of Inport to Inport Instance Maps.<br>
+     * Stack of Inport to Inport Instance Maps. The top of the stack is the last added Inport Map.<br>
      * Is used to continue traversal at Inports as they can have multiple Inport Instances. <br>
+     * Is null if the stack is empty.<br>
      */
-    private LinkedList<HashMap<Node, Node>> inportMapList;
+    private InportMapStack inportMapStack;
 
     /**
-     * All Outport Instances and Inport Instances that are traversed are added to this set. <br>
+     * All Outport Instances and Inport Instances that are traversed are added to this list. <br>
      * Is used to find deep cycles.<br>
+     * Is null if the list is empty.<br>
      */
-    private HashSet<Node> traversedInstances;
+    private NodeList traversedInstances;
 
     /**
-     * All traversed Nodes except Outport Instances and Inport Instances are added to this set.<br>
+     * All traversed Nodes except Outport Instances and Inport Instances are added to this list.<br>
      * Is cleared when the traversal enters another CFT.<br>
      * Is used to find simple cycles.<br>
+     * Is null if the list is empty.<br>
      */
-    private HashSet<Node> simpleTraversedNodes;
+    private NodeList simpleTraversedNodes;
 
     /**
-     * Constructor for a new TraversalState.<br>
-     * Adds the last GateSet and initializes the List and both Sets.<br>
-     * 
-     * @param nextGateSet
-     *            The last GateSet.
+     * Constructor for a new TraversalState without a last GateSet.<br>
      */
     TraversalState()
     {
 	lastGateSet = null;
-	inportMapList = new LinkedList<HashMap<Node, Node>>();
-	traversedInstances = new HashSet<Node>();
-	simpleTraversedNodes = new HashSet<Node>();
     }
     
     /**
      * Constructor for a new TraversalState.<br>
-     * Adds the last GateSet and initializes the List and both Sets.<br>
+     * Adds the last GateSet.<br>
      * 
      * @param nextGateSet
      *            The last GateSet.
@@ -75,15 +142,13 @@ public class TraversalState
     TraversalState(GateSet nextGateSet)
     {
 	lastGateSet = nextGateSet;
-	inportMapList = new LinkedList<HashMap<Node, Node>>();
-	traversedInstances = new HashSet<Node>();
-	simpleTraversedNodes = new HashSet<Node>();
     }
 
     /**
      * Copy Constructor.<br>
      * Copies the previous TraversalState to allow independent modification.<br>
      * Is used when different traversal branches appear for example if a Node has multiple incoming Failure Propagations.<br>
+     * The Inport Maps and the traversed Nodes are stored in persistent structures that are never modified so only their references are copied.<br>
      * 
      * @param ts
      *            The old TraversalState.
@@ -91,9 +156,9 @@ public class TraversalState
     TraversalState(TraversalState ts)
     {
 	lastGateSet = ts.lastGateSet;
-	inportMapList = new LinkedList<HashMap<Node, Node>>(ts.inportMapList);
-	traversedInstances = new HashSet<Node>(ts.traversedInstances);
-	simpleTraversedNodes = new HashSet<Node>(ts.simpleTraversedNodes);
+	inportMapStack = ts.inportMapStack;
+	traversedInstances = ts.traversedInstances;
+	simpleTraversedNodes = ts.simpleTraversedNodes;
     }
 
     /**
@@ -118,32 +183,42 @@ public class TraversalState
     }
 
     /**
-     * Adds a Node to the set for finding simple cycles.<br>
-     * Returns false if the Node was added (the set did not contain the Node).<br>
-     * Returns true if the Node was already contained in the set (Then a simple cycle was found).<br>
+     * Adds a Node to the list for finding simple cycles.<br>
+     * Returns false if the Node was added (the list did not contain the Node).<br>
+     * Returns true if the Node was already contained in the list (Then a simple cycle was found).<br>
      * 
      * @param node
      *            The Node that is added.
-     * @return false if the Node was added (the set did not contain the Node). true if the Node was already contained in the set (Then a simple cycle was
+     * @return false if the Node was added (the list did not contain the Node). true if the Node was already contained in the list (Then a simple cycle was
      *         found).
      */
     boolean addNodeToSimple(Node node)
     {
-	return !simpleTraversedNodes.add(node);
+	if (simpleTraversedNodes != null && simpleTraversedNodes.contains(node))
+	{
+	    return true;
+	}
+	simpleTraversedNodes = new NodeList(node, simpleTraversedNodes);
+	return false;
     }
 
     /**
-     * Adds a Node to the set for finding deep cycles.<br>
-     * Returns false if the Node was added (the set did not contain the Node).<br>
-     * Returns true if the Node was already contained in the set (Then a deep cycle was found).<br>
+     * Adds a Node to the list for finding deep cycles.<br>
+     * Returns false if the Node was added (the list did not contain the Node).<br>
+     * Returns true if the Node was already contained in the list (Then a deep cycle was found).<br>
      * 
      * @param node
      *            The Node that is added.
-     * @return false if the Node was added (the set did not contain the Node). true if the Node was already contained in the set (Then a deep cycle was found).
+     * @return false if the Node was added (the list did not contain the Node). true if the Node was already contained in the list (Then a deep cycle was found).
      */
     boolean addNodeToInstances(Node node)
     {
-	return !traversedInstances.add(node);
+	if (traversedInstances != null && traversedInstances.contains(node))
+	{
+	    return true;
+	}
+	traversedInstances = new NodeList(node, traversedInstances);
+	return false;
     }
 
     /**
@@ -169,45 +244,59 @@ public class TraversalState
     }
 
     /**
-     * Adds an Inport Map to the List of Inport Maps.<br>
+     * Adds an Inport Map to the top of the stack of Inport Maps.<br>
      * 
      * @param inportMap
      *            The Inport Map that is added.
      */
     void addInportMap(HashMap<Node, Node> inportMap)
     {
-	inportMapList.add(inportMap);
+	inportMapStack = new InportMapStack(inportMap, inportMapStack);
     }
 
     /**
-     * Clears the set for finding simple cycles.<br>
+     * Clears the list for finding simple cycles.<br>
      * Is used when the traversal enters a different CFT.
      */
     void clearSimple()
     {
-	simpleTraversedNodes.clear();
+	simpleTraversedNodes = null;
     }
 
     /**
-     * Removes and returns the last Inport Map from the List of Inport Maps.<br>
+     * Removes and returns the last Inport Map from the stack of Inport Maps.<br>
      * 
-     * @return The last Inport Map of the List of Inport Maps.
+     * @return The last Inport Map of the stack of Inport Maps.
+     * @throws NoSuchElementException
+     *             If the stack is empty.
      */
     HashMap<Node, Node> removeLastInportMap()
     {
-	return inportMapList.removeLast();
+	if (inportMapStack == null)
+	{
+	    throw new NoSuchElementException();
+	}
+	HashMap<Node, Node> inportMap = inportMapStack.inportMap;
+	inportMapStack = inportMapStack.below;
+	return inportMap;
     }
 
     /**
-     * Returns true if the last Inport Map in the List of Inport Maps contains the Inport as a key.<br>
+     * Returns true if the last Inport Map in the stack of Inport Maps contains the Inport as a key.<br>
      * Otherwise false. <br>
      * 
      * @param inport
      *            The Inport.
-     * @return true if the last Inport Map in the List of Inport Maps contains the Inport as a key. Otherwise false.
+     * @return true if the last Inport Map in the stack of Inport Maps contains the Inport as a key. Otherwise false.
+     * @throws NoSuchElementException
+     *             If the stack is empty.
      */
     boolean containsInport(Node inport)
     {
-	return inportMapList.getLast().containsKey(inport);
+	if (inportMapStack == null)
+	{
+	    throw new NoSuchElementException();
+	}
+	return inportMapStack.inportMap.containsKey(inport);
     }
 }
@@ -0,0 +1,92 @@
+package neo4jUtility;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class counts the errors that are printed with the PrintUtility.
+ * An analysis binds its own ErrorCounter to the current thread so the errors that occur during the analysis are only counted by the analysis.
+ * The ErrorCounter of a thread is passed on to the tasks that the thread submits to the ThreadUtility.
+ * Errors of threads without an ErrorCounter are counted by the global ErrorCounter.
+ * @author Kevin Bartik
+ *
+ */
+public final class ErrorCounter
+{
+
+    /**
+     * The ErrorCounter of the errors that occur in threads without an ErrorCounter.
+     */
+    private static final ErrorCounter globalErrorCounter = new ErrorCounter();
+
+    /**
+     * The ErrorCounter of the current thread or null if the thread has no ErrorCounter.
+     */
+    private static final ThreadLocal<ErrorCounter> currentErrorCounter = new ThreadLocal<ErrorCounter>();
+
+    static
+    {
+	ThreadUtility.passOnToSubmittedTasks(currentErrorCounter);
+    }
+
+    /**
+     * The number of counted errors.
+     */
+    private final AtomicInteger errorCount = new AtomicInteger();
+
+    /**
+     * Returns the number of errors that were counted by this ErrorCounter.
+     * @return The number of errors.
+     */
+    public int getErrorCount()
+    {
+	return errorCount.get();
+    }
+
+    /**
+     * Returns the ErrorCounter of the errors that occur in threads without an ErrorCounter.
+     * @return The global ErrorCounter.
+     */
+    public static ErrorCounter getGlobalErrorCounter()
+    {
+	return globalErrorCounter;
+    }
+
+    /**
+     * Binds the ErrorCounter to the current thread.
+     * The returned ErrorCounter must be restored with {@link #restore(ErrorCounter)} when the work of the ErrorCounter is finished.
+     * @param errorCounter The ErrorCounter.
+     * @return The previous ErrorCounter of the current thread.
+     */
+    public static ErrorCounter bind(ErrorCounter errorCounter)
+    {
+	ErrorCounter previous = currentErrorCounter.get();
+	currentErrorCounter.set(errorCounter);
+	return previous;
+    }
+
+    /**
+     * Restores the previous ErrorCounter of the current thread.
+     * @param previous The ErrorCounter that was returned by {@link #bind(ErrorCounter)}.
+     */
+    public static void restore(ErrorCounter previous)
+    {
+	if (previous == null)
+	{
+	    currentErrorCounter.remove();
+	}
+	else
+	{
+	    currentErrorCounter.set(previous);
+	}
+    }
+
+    /**
+     * Counts an error in the ErrorCounter of the current thread or in the global ErrorCounter.
+     */
+    static void errorOccured()
+    {
+	ErrorCounter errorCounter = currentErrorCounter.get();
+	(errorCounter != null ? errorCounter : globalErrorCounter).errorCount.incrementAndGet();
+    }
+
+}
@@ -2,8 +2,6 @@ package neo4jUtility;
 
 import javax.swing.JOptionPane;
 
-import neo4jTraversal.MainTraversal;
-
 /**
  * Utility that provides methods to print on the console or show Dialogs to inform the user.
  * @author Kevin Bartik
@@ -27,7 +25,7 @@ public final class PrintUtility
 	JOptionPane.showMessageDialog(null, "Error: " + text + "\nAdditional Error Information: " + additionalInfo, "Error Message", JOptionPane.ERROR_MESSAGE);
 	printInfo(text, "Error");
 	printInfo(additionalInfo, "Additional Error Information");
-	MainTraversal.errorOccured();
+	ErrorCounter.errorOccured();
     }
 
     /**
@@ -40,7 +38,7 @@ public final class PrintUtility
     {
 	JOptionPane.showMessageDialog(null, "Error: " + text, "Error Message", JOptionPane.ERROR_MESSAGE);
 	printInfo(text, "Error");
-	MainTraversal.errorOccured();
+	ErrorCounter.errorOccured();
     }
 
     /**
@@ -0,0 +1,286 @@
+package neo4jUtility;
+
+import java.util.Arrays;
+
+/**
+ * Provides methods for calculating the probability that exactly M out of N independent events occur.<br>
+ * The probability is the coefficient of {@code x^M} in the product of the polynomials {@code (1 - p_i) + p_i * x}.<br>
+ * For small N the coefficients are calculated by dynamic programming and for large N the polynomials are multiplied with a FFT.<br>
+ *
+ * @author Kevin Bartik
+ *
+ */
+public final class ProbabilityUtility
+{
+
+    /**
+     * The number of events from which on the FFT is used.<br>
+     * Below this number the dynamic programming is faster and its result also has a small relative error for very small probabilities.<br>
+     */
+    private static final int FFT_THRESHOLD = 4096;
+
+    /**
+     * The minimum of M and N - M from which on the FFT is used.<br>
+     */
+    private static final int FFT_MIN_COEFFICIENTS = 512;
+
+    /**
+     * The degree from which on two polynomials are multiplied with a FFT instead of directly.<br>
+     */
+    private static final int FFT_MULTIPLICATION_THRESHOLD = 64;
+
+    private ProbabilityUtility()
+    {
+
+    }
+
+    /**
+     * Returns the probability that exactly {@code m} of the independent events occur.<br>
+     * Returns {@code 0} if {@code m} is negative or higher than the number of events.<br>
+     *
+     * @param probabilities
+     *            The probabilities of the events.
+     * @param m
+     *            The number of events that occur.
+     * @return The probability that exactly {@code m} events occur.
+     */
+    public static double calculateExactlyMProbability(double[] probabilities, int m)
+    {
+	int n = probabilities.length;
+	if (m < 0 || m > n)
+	{
+	    return 0;
+	}
+	// The DP only needs min(m, n - m) + 1 coefficients so the FFT is only faster if both are large
+	if (n >= FFT_THRESHOLD && Math.min(m, n - m) >= FFT_MIN_COEFFICIENTS)
+	{
+	    return calculateExactlyMProbabilityFFT(probabilities, m);
+	}
+	return calculateExactlyMProbabilityDP(probabilities, m);
+    }
+
+    /**
+     * Returns the probability that exactly {@code m} of the independent events occur with dynamic programming in {@code O(N * min(M, N - M))}.<br>
+     * {@code exactly[j]} is the probability that exactly j of the already processed events occur.<br>
+     * If {@code m} is more than half of the events then the probability that exactly {@code N - m} events do not occur is calculated instead.<br>
+     *
+     * @param probabilities
+     *            The probabilities of the events.
+     * @param m
+     *            The number of events that occur.
+     * @return The probability that exactly {@code m} events occur.
+     */
+    public static double calculateExactlyMProbabilityDP(double[] probabilities, int m)
+    {
+	int n = probabilities.length;
+	if (m < 0 || m > n)
+	{
+	    return 0;
+	}
+	return calculateExactlyMProbabilityDP(probabilities, n, m, new double[Math.min(m, n - m) + 1]);
+    }
+
+    /**
+     * Returns the probability that exactly {@code m} of the first {@code n} independent events occur.<br>
+     * The coefficients of the dynamic programming are stored in {@code exactly} so no array is created unless the FFT is used.<br>
+     * Used by calculations that are repeated often with the same arrays.<br>
+     *
+     * @param probabilities
+     *            The probabilities of the events. Only the first {@code n} probabilities are used.
+     * @param n
+     *            The number of events.
+     * @param m
+     *            The number of events that occur.
+     * @param exactly
+     *            The array for the coefficients. Must have at least {@code min(m, n - m) + 1} elements.
+     * @return The probability that exactly {@code m} events occur.
+     */
+    public static double calculateExactlyMProbability(double[] probabilities, int n, int m, double[] exactly)
+    {
+	if (m < 0 || m > n)
+	{
+	    return 0;
+	}
+	if (n >= FFT_THRESHOLD && Math.min(m, n - m) >= FFT_MIN_COEFFICIENTS)
+	{
+	    return calculateExactlyMProbabilityFFT(probabilities, n, m);
+	}
+	return calculateExactlyMProbabilityDP(probabilities, n, m, exactly);
+    }
+
+    private static double calculateExactlyMProbabilityDP(double[] probabilities, int n, int m, double[] exactly)
+    {
+	boolean inverse = m > n - m;
+	int k = inverse ? n - m : m;
+	Arrays.fill(exactly, 0, k + 1, 0);
+	exactly[0] = 1;
+	for (int i = 0; i < n; i++)
+	{
+	    double p = inverse ? 1 - probabilities[i] : probabilities[i];
+	    double q = 1 - p;
+	    for (int j = Math.min(i + 1, k); j > 0; j--)
+	    {
+		exactly[j] = exactly[j] * q + exactly[j - 1] * p;
+	    }
+	    exactly[0] *= q;
+	}
+	return exactly[k];
+    }
+
+    /**
+     * Returns the probability that exactly {@code m} of the independent events occur by multiplying the polynomials of the events with a FFT in
+     * {@code O(N * log(N)^2)}.<br>
+     * The polynomials are multiplied pairwise in a balanced tree so both factors always have about the same degree.<br>
+     * The absolute error is in the order of the machine precision which is why the result is limited to {@code [0, 1]}.<br>
+     * Results that are much smaller than the machine precision are therefore not accurate.<br>
+     *
+     * @param probabilities
+     *            The probabilities of the events.
+     * @param m
+     *            The number of events that occur.
+     * @return The probability that exactly {@code m} events occur.
+     */
+    public static double calculateExactlyMProbabilityFFT(double[] probabilities, int m)
+    {
+	int n = probabilities.length;
+	if (m < 0 || m > n)
+	{
+	    return 0;
+	}
+	return calculateExactlyMProbabilityFFT(probabilities, n, m);
+    }
+
+    private static double calculateExactlyMProbabilityFFT(double[] probabilities, int n, int m)
+    {
+	double result = multiplyPolynomials(probabilities, 0, n)[m];
+	return Math.max(0, Math.min(1, result));
+    }
+
+    /**
+     * Returns the product of the polynomials of the events from {@code start} (inclusive) to {@code end} (exclusive).<br>
+     *
+     * @param probabilities
+     *            The probabilities of the events.
+     * @param start
+     *            The first event.
+     * @param end
+     *            The event after the last event.
+     * @return The coefficients of the product.
+     */
+    private static double[] multiplyPolynomials(double[] probabilities, int start, int end)
+    {
+	if (end - start <= FFT_MULTIPLICATION_THRESHOLD)
+	{
+	    double[] product = new double[end - start + 1];
+	    product[0] = 1;
+	    for (int i = start; i < end; i++)
+	    {
+		double p = probabilities[i];
+		for (int j = i - start + 1; j > 0; j--)
+		{
+		    product[j] = product[j] * (1 - p) + product[j - 1] * p;
+		}
+		product[0] *= 1 - p;
+	    }
+	    return product;
+	}
+	int middle = (start + end) >>> 1;
+	return multiplyFFT(multiplyPolynomials(probabilities, start, middle), multiplyPolynomials(probabilities, middle, end));
+    }
+
+    /**
+     * Returns the product of two polynomials which is calculated with a FFT.<br>
+     *
+     * @param a
+     *            The coefficients of the first polynomial.
+     * @param b
+     *            The coefficients of the second polynomial.
+     * @return The coefficients of the product.
+     */
+    private static double[] multiplyFFT(double[] a, double[] b)
+    {
+	int resultLength = a.length + b.length - 1;
+	int size = Integer.highestOneBit(resultLength);
+	if (size < resultLength)
+	{
+	    size <<= 1;
+	}
+	double[] realA = new double[size];
+	double[] imaginaryA = new double[size];
+	double[] realB = new double[size];
+	double[] imaginaryB = new double[size];
+	System.arraycopy(a, 0, realA, 0, a.length);
+	System.arraycopy(b, 0, realB, 0, b.length);
+	fft(realA, imaginaryA, false);
+	fft(realB, imaginaryB, false);
+	for (int i = 0; i < size; i++)
+	{
+	    double real = realA[i] * realB[i] - imaginaryA[i] * imaginaryB[i];
+	    imaginaryA[i] = realA[i] * imaginaryB[i] + imaginaryA[i] * realB[i];
+	    realA[i] = real;
+	}
+	fft(realA, imaginaryA, true);
+	double[] product = new double[resultLength];
+	for (int i = 0; i < resultLength; i++)
+	{
+	    product[i] = realA[i] / size;
+	}
+	return product;
+    }
+
+    /**
+     * Iterative radix-2 FFT. The length of the arrays must be a power of two.<br>
+     * The inverse transformation is not divided by the length.<br>
+     *
+     * @param real
+     *            The real parts which are replaced by the result.
+     * @param imaginary
+     *            The imaginary parts which are replaced by the result.
+     * @param inverse
+     *            If true the inverse transformation is performed.
+     */
+    private static void fft(double[] real, double[] imaginary, boolean inverse)
+    {
+	int n = real.length;
+	for (int i = 1, j = 0; i < n; i++)
+	{
+	    int bit = n >> 1;
+	    while ((j & bit) != 0)
+	    {
+		j ^= bit;
+		bit >>= 1;
+	    }
+	    j ^= bit;
+	    if (i < j)
+	    {
+		double swap = real[i];
+		real[i] = real[j];
+		real[j] = swap;
+		swap = imaginary[i];
+		imaginary[i] = imaginary[j];
+		imaginary[j] = swap;
+	    }
+	}
+	for (int length = 2; length <= n; length <<= 1)
+	{
+	    double angle = 2 * Math.PI / length * (inverse ? 1 : -1);
+	    int half = length >> 1;
+	    for (int k = 0; k < half; k++)
+	    {
+		double wReal = Math.cos(angle * k);
+		double wImaginary = Math.sin(angle * k);
+		for (int i = k; i < n; i += length)
+		{
+		    int j = i + half;
+		    double real2 = real[j] * wReal - imaginary[j] * wImaginary;
+		    double imaginary2 = real[j] * wImaginary + imaginary[j] * wReal;
+		    real[j] = real[i] - real2;
+		    imaginary[j] = imaginary[i] - imaginary2;
+		    real[i] += real2;
+		    imaginary[i] += imaginary2;
+		}
+	    }
+	}
+    }
+
+}
@@ -24,6 +24,46 @@ public final class SettingsUtility
     private static boolean useManualTraversal = false;
 
     private static boolean resetTraversal = true;
+
+    /**
+     * Boolean that indicates if MCS HashSets are minimized with the subsumption index. Otherwise every MCS is compared with every other MCS.
+     */
+    private static boolean useSubsumptionIndex = true;
+
+    /**
+     * Boolean that indicates if the minimal cut sets are calculated with a ZBDD instead of creating the MCS HashSets in every GateSet.
+     */
+    private static boolean useZBDDEngine = false;
+
+    /**
+     * The maximum number of minimal cut sets that are created from the ZBDD for displaying them.
+     */
+    private static int maxMaterializedMCS = 100000;
+
+    /**
+     * Boolean that indicates if the quantitative analysis calculates the exact probability with a BDD instead of multiplying the probabilities of the GateSets.
+     */
+    private static boolean useBDDProbability = false;
+
+    /**
+     * The maximum number of MCS that are cached while the combinations of a MOONSet are created.
+     */
+    private static long maxCachedMOONCombinationMCS = 1000000;
+
+    /**
+     * The maximum number of MCS that are cached in memory after they were read from the database. A node without MCS counts as one MCS.
+     */
+    private static long maxCachedDBMCS = 200000;
+
+    /**
+     * Boolean that indicates if new MCS are encoded in a single property of their node instead of storing one node per MCS.
+     */
+    private static boolean useCompactMCSStorage = false;
+
+    /**
+     * The maximum number of records (e.g. MCS) that are written or deleted in one transaction when large analysis results are stored or deleted.
+     */
+    private static int maxRecordsPerTransaction = 10000;
     
     private SettingsUtility() {
 	
@@ -97,6 +137,94 @@ public final class SettingsUtility
 	}
     }
 
+    public static boolean isUseSubsumptionIndex()
+    {
+	return useSubsumptionIndex;
+    }
+
+    public static void setUseSubsumptionIndex(boolean useSubsumptionIndex)
+    {
+	SettingsUtility.useSubsumptionIndex = useSubsumptionIndex;
+    }
+
+    public static boolean isUseZBDDEngine()
+    {
+	return useZBDDEngine;
+    }
+
+    public static void setUseZBDDEngine(boolean useZBDDEngine)
+    {
+	if (SettingsUtility.useZBDDEngine != useZBDDEngine)
+	{
+	    resetTraversal = true;
+	    SettingsUtility.useZBDDEngine = useZBDDEngine;
+	}
+    }
+
+    public static int getMaxMaterializedMCS()
+    {
+	return maxMaterializedMCS;
+    }
+
+    public static void setMaxMaterializedMCS(int maxMaterializedMCS)
+    {
+	SettingsUtility.maxMaterializedMCS = maxMaterializedMCS;
+    }
+
+    public static boolean isUseBDDProbability()
+    {
+	return useBDDProbability;
+    }
+
+    public static void setUseBDDProbability(boolean useBDDProbability)
+    {
+	if (SettingsUtility.useBDDProbability != useBDDProbability)
+	{
+	    resetTraversal = true;
+	    SettingsUtility.useBDDProbability = useBDDProbability;
+	}
+    }
+
+    public static long getMaxCachedMOONCombinationMCS()
+    {
+	return maxCachedMOONCombinationMCS;
+    }
+
+    public static void setMaxCachedMOONCombinationMCS(long maxCachedMOONCombinationMCS)
+    {
+	SettingsUtility.maxCachedMOONCombinationMCS = maxCachedMOONCombinationMCS;
+    }
+
+    public static long getMaxCachedDBMCS()
+    {
+	return maxCachedDBMCS;
+    }
+
+    public static void setMaxCachedDBMCS(long maxCachedDBMCS)
+    {
+	SettingsUtility.maxCachedDBMCS = maxCachedDBMCS;
+    }
+
+    public static boolean isUseCompactMCSStorage()
+    {
+	return useCompactMCSStorage;
+    }
+
+    public static void setUseCompactMCSStorage(boolean useCompactMCSStorage)
+    {
+	SettingsUtility.useCompactMCSStorage = useCompactMCSStorage;
+    }
+
+    public static int getMaxRecordsPerTransaction()
+    {
+	return maxRecordsPerTransaction;
+    }
+
+    public static void setMaxRecordsPerTransaction(int maxRecordsPerTransaction)
+    {
+	SettingsUtility.maxRecordsPerTransaction = Math.max(1, maxRecordsPerTransaction);
+    }
+
     public static boolean isResetTraversal()
     {
 	return resetTraversal;
@@ -2,14 +2,21 @@ package neo4jUtility;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RecursiveAction;
 
 /**
- * This class manages the multithreading of the prototype.  
+ * This class manages the multithreading of the prototype.
+ * The tasks are executed by a work-stealing ForkJoinPool with one thread per processor.
+ * Tasks that are submitted by a thread of the pool are forked into the queue of that thread and can be stolen by idle threads.
+ * Waiting for tasks in a thread of the pool executes the awaited tasks that are still in the queue of that thread.
+ * Tasks that were stolen are awaited with a managed block so the pool activates a spare thread and the waiting thread never runs unrelated tasks.  
  * @author Kevin Bartik
  *
  */
@@ -21,14 +28,19 @@ public final class ThreadUtility
     private static ThreadUtility threadUtility;
 
     /**
-     * The number of available processors in the Runtime minus 1 for the main thread.
+     * The ThreadLocals whose values are passed on from a thread to the tasks that the thread submits.
+     */
+    private static final CopyOnWriteArrayList<ThreadLocal<Object>> passedOnThreadLocals = new CopyOnWriteArrayList<ThreadLocal<Object>>();
+
+    /**
+     * The number of available processors in the Runtime.
      */
     private final int cpus;
 
     /**
-     * The ThreadPoolExecutor that is used for multithreading in the application.
+     * The ForkJoinPool that is used for multithreading in the application.
      */
-    private ThreadPoolExecutor availableThreads;
+    private final ForkJoinPool availableThreads;
 
     /**
      * Boolean that indicates if multithreading is used in the application.
@@ -36,13 +48,24 @@ public final class ThreadUtility
     private boolean multiThreading = false;
 
     /**
-     * Initializes this class so the ThreadPoolExecutor can be used.
+     * Initializes this class so the ForkJoinPool can be used.
      */
     private ThreadUtility()
     {
 	cpus = Runtime.getRuntime().availableProcessors();
-	availableThreads = new ThreadPoolExecutor(cpus, cpus * 4, 0, TimeUnit.NANOSECONDS, new SynchronousQueue<Runnable>());
-	availableThreads.prestartAllCoreThreads();
+	availableThreads = new ForkJoinPool(cpus, new ForkJoinPool.ForkJoinWorkerThreadFactory()
+	{
+	    @Override
+	    public ForkJoinWorkerThread newThread(ForkJoinPool pool)
+	    {
+		// The threads of the previous ThreadPoolExecutor kept the application running until all tasks were finished.
+		ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool)
+		{
+		};
+		thread.setDaemon(false);
+		return thread;
+	    }
+	}, null, false);
 	threadUtility = this;
     }
 
@@ -51,7 +74,7 @@ public final class ThreadUtility
      * 
      * @return The instance of this class.
      */
-    public static ThreadUtility getThreadUtility()
+    public static synchronized ThreadUtility getThreadUtility()
     {
 	if (threadUtility == null)
 	{
@@ -61,54 +84,158 @@ public final class ThreadUtility
     }
 
     /**
-     * Returns true if no threads are active in the ThreadPoolExecutor. Otherwise false.
-     * @return true if no threads are active in the ThreadPoolExecutor. Otherwise false.
+     * Returns true if no threads are active in the ForkJoinPool. Otherwise false.
+     * @return true if no threads are active in the ForkJoinPool. Otherwise false.
      */
     public boolean noTasksRunning()
     {
-	return availableThreads.getActiveCount() == 0;
+	return availableThreads.isQuiescent();
     }
 
     /**
-     * Returns true if a thread in the ThreadPoolExecutor is available for use. Otherwise false. Can be wrong and the ThreadPoolExecutor provides extra threads
-     * to prevent errors.
+     * Returns true if submitting another task is useful. Otherwise false and the task should be executed by the current thread.
+     * In a thread of the ForkJoinPool a task is useful if the thread has only a few queued tasks that were not stolen by other threads.
+     * Otherwise a task is useful if not every thread of the ForkJoinPool already has a submitted task.
      * 
-     * @return true if a thread in the ThreadPoolExecutor is available for use. Otherwise false.
+     * @return true if submitting another task is useful. Otherwise false.
      */
     public boolean isThreadAvailable()
     {
-	return availableThreads.getActiveCount() < availableThreads.getCorePoolSize();
+	if (isPoolThread())
+	{
+	    return ForkJoinTask.getSurplusQueuedTaskCount() <= 3;
+	}
+	return availableThreads.getQueuedSubmissionCount() < cpus;
     }
 
     /**
-     * Submits a task to the ThreadPoolExecutor.
+     * Submits a task to the ForkJoinPool.
+     * If the current thread belongs to the ForkJoinPool then the task is forked into the queue of the current thread.
+     * The task runs with the values of the current thread for all ThreadLocals that are passed on to submitted tasks.
      * 
      * @param task
      *            The task that is submitted.
+     * @return The Future of the task.
      */
     public Future<?> submitTask(Runnable task)
     {
-	return availableThreads.submit(task);
+	SubmittedTask forkJoinTask = new SubmittedTask(passOn(task));
+	if (isPoolThread())
+	{
+	    return forkJoinTask.fork();
+	}
+	return availableThreads.submit(forkJoinTask);
+    }
+
+    /**
+     * Passes the value of the ThreadLocal of a thread on to the tasks that the thread submits.
+     * Used for state that belongs to the work of the thread like the ErrorCounter of an analysis.
+     * 
+     * @param threadLocal
+     *            The ThreadLocal.
+     */
+    @SuppressWarnings("unchecked")
+    public static void passOnToSubmittedTasks(ThreadLocal<?> threadLocal)
+    {
+	passedOnThreadLocals.addIfAbsent((ThreadLocal<Object>) threadLocal);
+    }
+
+    /**
+     * Returns a task that runs the task with the values of the current thread for all ThreadLocals that are passed on.
+     * The previous values are restored afterwards so a thread that runs the task of another thread while it waits keeps its own values.
+     * 
+     * @param task
+     *            The task.
+     * @return The task with the values of the current thread.
+     */
+    private static Runnable passOn(Runnable task)
+    {
+	Object[] threadLocals = passedOnThreadLocals.toArray();
+	if (threadLocals.length == 0)
+	{
+	    return task;
+	}
+	Object[] values = new Object[threadLocals.length];
+	for (int i = 0; i < threadLocals.length; i++)
+	{
+	    values[i] = ((ThreadLocal<?>) threadLocals[i]).get();
+	}
+	return new Runnable()
+	{
+	    @SuppressWarnings("unchecked")
+	    @Override
+	    public void run()
+	    {
+		Object[] previousValues = new Object[threadLocals.length];
+		for (int i = 0; i < threadLocals.length; i++)
+		{
+		    ThreadLocal<Object> threadLocal = (ThreadLocal<Object>) threadLocals[i];
+		    previousValues[i] = threadLocal.get();
+		    setValue(threadLocal, values[i]);
+		}
+		try
+		{
+		    task.run();
+		}
+		finally
+		{
+		    for (int i = 0; i < threadLocals.length; i++)
+		    {
+			setValue((ThreadLocal<Object>) threadLocals[i], previousValues[i]);
+		    }
+		}
+	    }
+	};
+    }
+
+    private static void setValue(ThreadLocal<Object> threadLocal, Object value)
+    {
+	if (value == null)
+	{
+	    threadLocal.remove();
+	}
+	else
+	{
+	    threadLocal.set(value);
+	}
     }
 
     /**
      * Waits for all task in a future set to finish.
+     * In a thread of the ForkJoinPool the tasks that are still in the queue of the thread are executed by the thread.
+     * The other tasks are awaited without executing unrelated tasks of the ForkJoinPool since these could be whole analyses that block the waiting thread.
      * @param futureSet The set of futures.
      */
     public void waitForSubmittedTasksToFinish(Set<Future<?>> futureSet)
     {
-	addThread();
+	boolean poolThread = isPoolThread();
 	HashSet<Future<?>> currentFutureSet = new HashSet<Future<?>>();
 	while (currentFutureSet.size() < futureSet.size())
 	{
 	    currentFutureSet = new HashSet<Future<?>>(futureSet);
+	    if (poolThread)
+	    {
+		executeUnstartedTasks(currentFutureSet);
+	    }
 	    for (Future<?> future : currentFutureSet)
 	    {
 		try
 		{
-		    future.get();
+		    if (poolThread && future instanceof SubmittedTask)
+		    {
+			SubmittedTask submittedTask = (SubmittedTask) future;
+			awaitLatch(submittedTask.finished);
+			if (submittedTask.failure != null)
+			{
+			    throw new ExecutionException(submittedTask.failure);
+			}
+		    }
+		    else
+		    {
+			future.get();
+		    }
 		}
-		catch (InterruptedException | ExecutionException e)
+		catch (InterruptedException | ExecutionException | RuntimeException e)
 		{
 		    PrintUtility.printError(e.toString());
 		    GeneralLogger.logError(e);
@@ -116,11 +243,71 @@ public final class ThreadUtility
 		}
 	    }
 	}
-	removeThread();
     }
 
     /**
-     * Sets the current Thread to sleep until no threads are active in the ThreadPoolExecutor.
+     * Executes the tasks of the future set that are still on top of the queue of the current thread.
+     * The tasks are forked in order so they are removed in reverse order until no task of the set is on top of the queue.
+     * @param futureSet The set of futures.
+     */
+    private void executeUnstartedTasks(Set<Future<?>> futureSet)
+    {
+	boolean executed = true;
+	while (executed)
+	{
+	    executed = false;
+	    for (Future<?> future : futureSet)
+	    {
+		if (future instanceof SubmittedTask && !future.isDone() && ((SubmittedTask) future).tryUnfork())
+		{
+		    ((SubmittedTask) future).quietlyInvoke();
+		    executed = true;
+		}
+	    }
+	}
+    }
+
+    /**
+     * Waits until the latch is released.
+     * In a thread of the ForkJoinPool the pool activates a spare thread while the current thread is blocked so the tasks that release the latch can still run.
+     * @param latch The latch.
+     */
+    public void awaitLatch(CountDownLatch latch)
+    {
+	boolean interrupted = false;
+	while (latch.getCount() != 0)
+	{
+	    try
+	    {
+		ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker()
+		{
+		    @Override
+		    public boolean block() throws InterruptedException
+		    {
+			latch.await();
+			return true;
+		    }
+
+		    @Override
+		    public boolean isReleasable()
+		    {
+			return latch.getCount() == 0;
+		    }
+		});
+	    }
+	    catch (InterruptedException e)
+	    {
+		interrupted = true;
+	    }
+	}
+	if (interrupted)
+	{
+	    Thread.currentThread().interrupt();
+	}
+    }
+
+    /**
+     * Sets the current Thread to sleep until no threads are active in the ForkJoinPool.
      */
     public void sleepUntilNoThreadsAreRunning()
     {
@@ -132,7 +319,7 @@ public final class ThreadUtility
 	    }
 	    catch (InterruptedException e)
 	    {
-		// Not an issue since threads are recreated once the ThreadPoolExecuter was shutdown.
+		// Not an issue since the ForkJoinPool keeps running.
 	    }
 	}
     }
@@ -147,49 +334,74 @@ public final class ThreadUtility
     }
 
     /**
-     * Sets if multithreading is used or not. Modifies the ThreadPoolExecutor accordingly.
+     * Sets if multithreading is used or not.
+     * The ForkJoinPool is not modified because without multithreading the analysis does not submit tasks.
      * 
      * @param _multiThreading The new value for multithreading.
      */
     public void setMultiThreading(boolean _multiThreading)
     {
 	multiThreading = _multiThreading;
-	if (multiThreading)
-	{
-	    availableThreads.setMaximumPoolSize(cpus * 4);
-	    availableThreads.setCorePoolSize(cpus);
-	}
-	else
-	{
-	    availableThreads.setCorePoolSize(1);
-	    availableThreads.setMaximumPoolSize(4);
-	}
     }
 
     /**
-     * Adds a core thread to the ThreadPoolExecutor.
-     * Is used when one thread is done and waiting. 
+     * Returns true if the current thread belongs to the ForkJoinPool. Otherwise false.
+     * 
+     * @return true if the current thread belongs to the ForkJoinPool. Otherwise false.
      */
-    private synchronized void addThread()
+    private boolean isPoolThread()
     {
-	if (multiThreading)
-	{
-	    availableThreads.setMaximumPoolSize(availableThreads.getMaximumPoolSize() + 1);
-	    availableThreads.setCorePoolSize(availableThreads.getCorePoolSize() + 1);
-	}
+	Thread thread = Thread.currentThread();
+	return thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == availableThreads;
     }
 
     /**
-     * Removes a core thread from the ThreadPoolExecutor.
-     * Is used when a thread finishes waiting.
+     * A submitted task that releases a latch when it is finished so it can be awaited without joining it.
+     * Joining a task in a thread of the ForkJoinPool may execute any other task of the ForkJoinPool.
      */
-    private synchronized void removeThread()
+    private static final class SubmittedTask extends RecursiveAction
     {
-	if (multiThreading && availableThreads.getCorePoolSize() > cpus && availableThreads.getMaximumPoolSize() > 4 * cpus)
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The task.
+	 */
+	private final Runnable task;
+
+	/**
+	 * Is released when the task is finished.
+	 */
+	private final CountDownLatch finished = new CountDownLatch(1);
+
+	/**
+	 * The exception of the task or null if the task did not fail.
+	 */
+	private volatile Throwable failure;
+
+	private SubmittedTask(Runnable task)
+	{
+	    this.task = task;
+	}
+
+	@Override
+	protected void compute()
 	{
-	    availableThreads.setCorePoolSize(availableThreads.getCorePoolSize() - 1);
-	    availableThreads.setMaximumPoolSize(availableThreads.getMaximumPoolSize() - 1);
+	    try
+	    {
+		task.run();
+	    }
+	    catch (RuntimeException | Error e)
+	    {
+		failure = e;
+		throw e;
+	    }
+	    finally
+	    {
+		finished.countDown();
+	    }
 	}
+
     }
 
 }
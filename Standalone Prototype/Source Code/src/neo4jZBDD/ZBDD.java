@@ -0,0 +1,526 @@
+package neo4jZBDD;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class manages the nodes of zero-suppressed binary decision diagrams (ZBDD).<br>
+ * A ZBDD represents a family of sets of variables. Here the sets are cut sets and the variables are literals of events.<br>
+ * Every ZBDD node is identified by an int. The node {@code EMPTY} is the empty family and the node {@code BASE} is the family that only contains the empty
+ * set.<br>
+ * Nodes are stored in int arrays and are unique so equal families are always represented by the same node.<br>
+ * Variables with a lower number are closer to the root.<br>
+ * All operations are cached for the lifetime of the ZBDD so one ZBDD should only be used for one analysis.<br>
+ *
+ * @author Kevin Bartik
+ *
+ */
+final class ZBDD
+{
+
+    /**
+     * The empty family which contains no set.<br>
+     */
+    static final int EMPTY = 0;
+
+    /**
+     * The family that only contains the empty set.<br>
+     */
+    static final int BASE = 1;
+
+    /**
+     * The variable of the terminal nodes. It is higher than every other variable.<br>
+     */
+    private static final int TERMINAL_VARIABLE = Integer.MAX_VALUE;
+
+    /**
+     * The variable of each node.<br>
+     */
+    private int[] nodeVariable;
+
+    /**
+     * The low child of each node. It represents the sets without the variable.<br>
+     */
+    private int[] nodeLow;
+
+    /**
+     * The high child of each node. It represents the sets with the variable.<br>
+     */
+    private int[] nodeHigh;
+
+    /**
+     * The number of nodes including the terminal nodes.<br>
+     */
+    private int nodeCount;
+
+    /**
+     * The unique table. An open addressing hash table that stores node numbers. {@code 0} marks a free slot.<br>
+     */
+    private int[] uniqueTable;
+
+    private final HashMap<Long, Integer> unionCache = new HashMap<Long, Integer>();
+
+    private final HashMap<Long, Integer> joinCache = new HashMap<Long, Integer>();
+
+    private final HashMap<Long, Integer> nonSupersetCache = new HashMap<Long, Integer>();
+
+    private final HashMap<Integer, Integer> removeContradictionsCache = new HashMap<Integer, Integer>();
+
+    private final HashMap<Integer, Integer> minimalCache = new HashMap<Integer, Integer>();
+
+    private final HashMap<Integer, BigInteger> countCache = new HashMap<Integer, BigInteger>();
+
+    /**
+     * Creates a ZBDD manager that only contains the terminal nodes.<br>
+     */
+    ZBDD()
+    {
+	nodeVariable = new int[1024];
+	nodeLow = new int[1024];
+	nodeHigh = new int[1024];
+	uniqueTable = new int[2048];
+	nodeVariable[EMPTY] = TERMINAL_VARIABLE;
+	nodeVariable[BASE] = TERMINAL_VARIABLE;
+	nodeCount = 2;
+    }
+
+    /**
+     * Returns the number of nodes including the terminal nodes.<br>
+     *
+     * @return The number of nodes.
+     */
+    int getNodeCount()
+    {
+	return nodeCount;
+    }
+
+    /**
+     * Returns the family that only contains the set with the single variable.<br>
+     *
+     * @param variable
+     *            The variable.
+     * @return The family {{variable}}.
+     */
+    int single(int variable)
+    {
+	return getNode(variable, EMPTY, BASE);
+    }
+
+    /**
+     * Returns the union of two families.<br>
+     *
+     * @param f
+     *            The first family.
+     * @param g
+     *            The second family.
+     * @return The union of both families.
+     */
+    int union(int f, int g)
+    {
+	if (f == EMPTY || f == g)
+	{
+	    return g;
+	}
+	if (g == EMPTY)
+	{
+	    return f;
+	}
+	if (f > g)
+	{
+	    int swap = f;
+	    f = g;
+	    g = swap;
+	}
+	Long key = getKey(f, g);
+	Integer cached = unionCache.get(key);
+	if (cached != null)
+	{
+	    return cached;
+	}
+	int result;
+	int variableF = nodeVariable[f];
+	int variableG = nodeVariable[g];
+	if (variableF < variableG)
+	{
+	    result = getNode(variableF, union(nodeLow[f], g), nodeHigh[f]);
+	}
+	else if (variableF > variableG)
+	{
+	    result = getNode(variableG, union(f, nodeLow[g]), nodeHigh[g]);
+	}
+	else
+	{
+	    result = getNode(variableF, union(nodeLow[f], nodeLow[g]), union(nodeHigh[f], nodeHigh[g]));
+	}
+	unionCache.put(key, result);
+	return result;
+    }
+
+    /**
+     * Returns the join of two families which contains the union of every set of the first family with every set of the second family.<br>
+     * This is the AND of two sets of cut sets.<br>
+     *
+     * @param f
+     *            The first family.
+     * @param g
+     *            The second family.
+     * @return The join of both families.
+     */
+    int join(int f, int g)
+    {
+	if (f == EMPTY || g == EMPTY)
+	{
+	    return EMPTY;
+	}
+	if (f == BASE)
+	{
+	    return g;
+	}
+	if (g == BASE)
+	{
+	    return f;
+	}
+	if (f > g)
+	{
+	    int swap = f;
+	    f = g;
+	    g = swap;
+	}
+	Long key = getKey(f, g);
+	Integer cached = joinCache.get(key);
+	if (cached != null)
+	{
+	    return cached;
+	}
+	int result;
+	int variableF = nodeVariable[f];
+	int variableG = nodeVariable[g];
+	if (variableF < variableG)
+	{
+	    result = getNode(variableF, join(nodeLow[f], g), join(nodeHigh[f], g));
+	}
+	else if (variableF > variableG)
+	{
+	    result = getNode(variableG, join(f, nodeLow[g]), join(f, nodeHigh[g]));
+	}
+	else
+	{
+	    int high = union(join(nodeHigh[f], nodeHigh[g]), union(join(nodeHigh[f], nodeLow[g]), join(nodeLow[f], nodeHigh[g])));
+	    result = getNode(variableF, join(nodeLow[f], nodeLow[g]), high);
+	}
+	joinCache.put(key, result);
+	return result;
+    }
+
+    /**
+     * Removes all sets that contain a literal and its negation.<br>
+     * Requires that the literal of an event is an even variable and the negated literal is the next variable.<br>
+     *
+     * @param f
+     *            The family.
+     * @return The family without contradicting sets.
+     */
+    int removeContradictions(int f)
+    {
+	if (f == EMPTY || f == BASE)
+	{
+	    return f;
+	}
+	Integer cached = removeContradictionsCache.get(f);
+	if (cached != null)
+	{
+	    return cached;
+	}
+	int variable = nodeVariable[f];
+	int low = removeContradictions(nodeLow[f]);
+	int high = removeContradictions(nodeHigh[f]);
+	if ((variable & 1) == 0 && nodeVariable[high] == variable + 1)
+	{
+	    high = nodeLow[high];
+	}
+	int result = getNode(variable, low, high);
+	removeContradictionsCache.put(f, result);
+	return result;
+    }
+
+    /**
+     * Returns the family of all minimal sets of a family.<br>
+     *
+     * @param f
+     *            The family.
+     * @return The family without sets that are supersets of other sets of the family.
+     */
+    int minimal(int f)
+    {
+	if (f == EMPTY || f == BASE)
+	{
+	    return f;
+	}
+	Integer cached = minimalCache.get(f);
+	if (cached != null)
+	{
+	    return cached;
+	}
+	int low = minimal(nodeLow[f]);
+	int high = nonSuperset(minimal(nodeHigh[f]), low);
+	int result = getNode(nodeVariable[f], low, high);
+	minimalCache.put(f, result);
+	return result;
+    }
+
+    /**
+     * Returns all sets of the first family that are not a superset of any set of the second family.<br>
+     *
+     * @param f
+     *            The first family.
+     * @param g
+     *            The second family.
+     * @return All sets of the first family that are not a superset of any set of the second family.
+     */
+    int nonSuperset(int f, int g)
+    {
+	if (g == EMPTY)
+	{
+	    return f;
+	}
+	if (f == EMPTY || f == g || g == BASE)
+	{
+	    return EMPTY;
+	}
+	if (f == BASE)
+	{
+	    return containsEmptySet(g) ? EMPTY : BASE;
+	}
+	Long key = getKey(f, g);
+	Integer cached = nonSupersetCache.get(key);
+	if (cached != null)
+	{
+	    return cached;
+	}
+	int result;
+	int variableF = nodeVariable[f];
+	int variableG = nodeVariable[g];
+	if (variableF > variableG)
+	{
+	    result = nonSuperset(f, nodeLow[g]);
+	}
+	else if (variableF < variableG)
+	{
+	    result = getNode(variableF, nonSuperset(nodeLow[f], g), nonSuperset(nodeHigh[f], g));
+	}
+	else
+	{
+	    result = getNode(variableF, nonSuperset(nodeLow[f], nodeLow[g]), nonSuperset(nonSuperset(nodeHigh[f], nodeLow[g]), nodeHigh[g]));
+	}
+	nonSupersetCache.put(key, result);
+	return result;
+    }
+
+    /**
+     * Returns true if the family contains the empty set. Otherwise false.<br>
+     *
+     * @param f
+     *            The family.
+     * @return True if the family contains the empty set.
+     */
+    boolean containsEmptySet(int f)
+    {
+	while (f != EMPTY && f != BASE)
+	{
+	    f = nodeLow[f];
+	}
+	return f == BASE;
+    }
+
+    /**
+     * Returns the number of sets in the family.<br>
+     *
+     * @param f
+     *            The family.
+     * @return The number of sets in the family.
+     */
+    BigInteger count(int f)
+    {
+	if (f == EMPTY)
+	{
+	    return BigInteger.ZERO;
+	}
+	if (f == BASE)
+	{
+	    return BigInteger.ONE;
+	}
+	BigInteger cached = countCache.get(f);
+	if (cached != null)
+	{
+	    return cached;
+	}
+	BigInteger result = count(nodeLow[f]).add(count(nodeHigh[f]));
+	countCache.put(f, result);
+	return result;
+    }
+
+    /**
+     * Returns an Iterator over all sets of the family.<br>
+     * The sets are only created when they are requested. Each set is an ascending array of variables.<br>
+     *
+     * @param f
+     *            The family.
+     * @return An Iterator over all sets of the family.
+     */
+    Iterator<int[]> iterator(int f)
+    {
+	return new Iterator<int[]>()
+	{
+
+	    /**
+	     * The stack of the depth-first search. Each entry is the node, the length of the path and the variable that is appended to the path or -1.
+	     */
+	    private int[] stack = new int[48];
+
+	    private int stackSize = 0;
+
+	    private int[] path = new int[16];
+
+	    private int pathLength = 0;
+
+	    private int[] nextSet = null;
+
+	    {
+		push(f, 0, -1);
+	    }
+
+	    @Override
+	    public boolean hasNext()
+	    {
+		while (nextSet == null && stackSize > 0)
+		{
+		    stackSize -= 3;
+		    int node = stack[stackSize];
+		    pathLength = stack[stackSize + 1];
+		    int variable = stack[stackSize + 2];
+		    if (variable != -1)
+		    {
+			if (pathLength == path.length)
+			{
+			    path = Arrays.copyOf(path, path.length * 2);
+			}
+			path[pathLength++] = variable;
+		    }
+		    if (node == BASE)
+		    {
+			nextSet = Arrays.copyOf(path, pathLength);
+		    }
+		    else if (node != EMPTY)
+		    {
+			push(nodeLow[node], pathLength, -1);
+			push(nodeHigh[node], pathLength, nodeVariable[node]);
+		    }
+		}
+		return nextSet != null;
+	    }
+
+	    @Override
+	    public int[] next()
+	    {
+		if (!hasNext())
+		{
+		    throw new NoSuchElementException();
+		}
+		int[] returnSet = nextSet;
+		nextSet = null;
+		return returnSet;
+	    }
+
+	    private void push(int node, int length, int variable)
+	    {
+		if (stackSize + 3 > stack.length)
+		{
+		    stack = Arrays.copyOf(stack, stack.length * 2);
+		}
+		stack[stackSize++] = node;
+		stack[stackSize++] = length;
+		stack[stackSize++] = variable;
+	    }
+	};
+    }
+
+    /**
+     * Returns the unique node with the variable and the children.<br>
+     * If the high child is {@code EMPTY} then the low child is returned (zero-suppression rule).<br>
+     *
+     * @param variable
+     *            The variable. Must be lower than the variables of both children.
+     * @param low
+     *            The low child.
+     * @param high
+     *            The high child.
+     * @return The unique node.
+     */
+    private int getNode(int variable, int low, int high)
+    {
+	if (high == EMPTY)
+	{
+	    return low;
+	}
+	int mask = uniqueTable.length - 1;
+	int slot = hash(variable, low, high) & mask;
+	while (uniqueTable[slot] != 0)
+	{
+	    int node = uniqueTable[slot];
+	    if (nodeVariable[node] == variable && nodeLow[node] == low && nodeHigh[node] == high)
+	    {
+		return node;
+	    }
+	    slot = (slot + 1) & mask;
+	}
+	if (nodeCount == nodeVariable.length)
+	{
+	    nodeVariable = Arrays.copyOf(nodeVariable, nodeCount * 2);
+	    nodeLow = Arrays.copyOf(nodeLow, nodeCount * 2);
+	    nodeHigh = Arrays.copyOf(nodeHigh, nodeCount * 2);
+	}
+	int node = nodeCount++;
+	nodeVariable[node] = variable;
+	nodeLow[node] = low;
+	nodeHigh[node] = high;
+	uniqueTable[slot] = node;
+	if (nodeCount * 2 > uniqueTable.length)
+	{
+	    resizeUniqueTable();
+	}
+	return node;
+    }
+
+    /**
+     * Doubles the size of the unique table and inserts all nodes again.<br>
+     */
+    private void resizeUniqueTable()
+    {
+	uniqueTable = new int[uniqueTable.length * 2];
+	int mask = uniqueTable.length - 1;
+	for (int node = 2; node < nodeCount; node++)
+	{
+	    int slot = hash(nodeVariable[node], nodeLow[node], nodeHigh[node]) & mask;
+	    while (uniqueTable[slot] != 0)
+	    {
+		slot = (slot + 1) & mask;
+	    }
+	    uniqueTable[slot] = node;
+	}
+    }
+
+    private static int hash(int variable, int low, int high)
+    {
+	int hash = variable * 0x9E3779B1 + low * 0x85EBCA6B + high * 0xC2B2AE35;
+	return hash ^ (hash >>> 16);
+    }
+
+    private static Long getKey(int f, int g)
+    {
+	return ((long) f << 32) | (g & 0xFFFFFFFFL);
+    }
+
+}
@@ -0,0 +1,411 @@
+package neo4jZBDD;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+import org.neo4j.graphdb.Node;
+
+import neo4jGateSets.GateSet;
+import neo4jGateSets.MOONSet;
+import neo4jMCS.MCS;
+import neo4jMCS.MCSNode;
+import neo4jUtility.GeneralUtility;
+import neo4jUtility.PrintUtility;
+
+/**
+ * This class calculates the minimal cut sets of a GateSet with a ZBDD instead of creating the MCS HashSets in every GateSet.<br>
+ * The GateSet and all lower GateSets are compiled into a ZBDD which represents the minimal cut sets symbolically.<br>
+ * Every GateSet type is compiled with the same rules that the GateSet uses in {@code createMCSSet()} and {@code createNegatedMCSSet()}.<br>
+ * Each event gets two variables: {@code 2 * index} for the event and {@code 2 * index + 1} for the negated event.<br>
+ * The indexes are given in the order in which the events are first found in the GateSet which keeps related events close together.<br>
+ * The minimal cut sets are only created as MCS when they are requested.<br>
+ *
+ * @author Kevin Bartik
+ *
+ */
+public class ZBDDAnalysis implements Iterable<MCS>
+{
+
+    private final ZBDD zbdd = new ZBDD();
+
+    /**
+     * Maps each event Node to its index.<br>
+     */
+    private final HashMap<Node, Integer> eventIndexMap = new HashMap<Node, Integer>();
+
+    /**
+     * The event Nodes ordered by their index.<br>
+     */
+    private final ArrayList<Node> eventList = new ArrayList<Node>();
+
+    /**
+     * The compiled ZBDD of the MCS of each GateSet.<br>
+     */
+    private final IdentityHashMap<GateSet, Integer> mcsMap = new IdentityHashMap<GateSet, Integer>();
+
+    /**
+     * The compiled ZBDD of the negated MCS of each GateSet.<br>
+     */
+    private final IdentityHashMap<GateSet, Integer> negatedMCSMap = new IdentityHashMap<GateSet, Integer>();
+
+    /**
+     * The ZBDD of the minimal cut sets of the analyzed GateSet.<br>
+     */
+    private final int mcsRoot;
+
+    /**
+     * Compiles the GateSet into a ZBDD and calculates its minimal cut sets.<br>
+     *
+     * @param gateSet
+     *            The GateSet that is analyzed.
+     */
+    public ZBDDAnalysis(GateSet gateSet)
+    {
+	indexEvents(gateSet);
+	mcsRoot = compile(gateSet, false);
+    }
+
+    /**
+     * Returns the number of minimal cut sets.<br>
+     *
+     * @return The number of minimal cut sets.
+     */
+    public BigInteger getMCSCount()
+    {
+	return zbdd.count(mcsRoot);
+    }
+
+    /**
+     * Returns the number of ZBDD nodes that were created during the analysis.<br>
+     *
+     * @return The number of ZBDD nodes.
+     */
+    public int getZBDDNodeCount()
+    {
+	return zbdd.getNodeCount();
+    }
+
+    /**
+     * Returns an Iterator over all minimal cut sets.<br>
+     * Each MCS is only created when it is requested.<br>
+     */
+    @Override
+    public Iterator<MCS> iterator()
+    {
+	Iterator<int[]> setIterator = zbdd.iterator(mcsRoot);
+	return new Iterator<MCS>()
+	{
+	    @Override
+	    public boolean hasNext()
+	    {
+		return setIterator.hasNext();
+	    }
+
+	    @Override
+	    public MCS next()
+	    {
+		int[] variables = setIterator.next();
+		HashSet<MCSNode> mcsNodeSet = new HashSet<MCSNode>(GeneralUtility.setSize(variables.length));
+		for (int variable : variables)
+		{
+		    mcsNodeSet.add(new MCSNode(eventList.get(variable >>> 1), (variable & 1) == 1));
+		}
+		return new MCS(mcsNodeSet);
+	    }
+	};
+    }
+
+    /**
+     * Returns a MCS HashSet with at most {@code maxMCS} minimal cut sets.<br>
+     * If the ZBDD contains no minimal cut sets then the MCS HashSet only contains a MCS that is always false like the MCS HashSets of the GateSets.<br>
+     * A MCS without members is always true.<br>
+     *
+     * @param maxMCS
+     *            The maximum number of MCS that are created.
+     * @return A MCS HashSet with at most {@code maxMCS} minimal cut sets.
+     */
+    public HashSet<MCS> getMCSSet(int maxMCS)
+    {
+	HashSet<MCS> mcsSet = new HashSet<MCS>();
+	if (mcsRoot == ZBDD.EMPTY)
+	{
+	    mcsSet.add(new MCS(false));
+	    return mcsSet;
+	}
+	Iterator<MCS> iterator = iterator();
+	while (iterator.hasNext() && mcsSet.size() < maxMCS)
+	{
+	    mcsSet.add(iterator.next());
+	}
+	return mcsSet;
+    }
+
+    /**
+     * Gives every event Node in the GateSet and all lower GateSets an index in the order in which the Nodes are found.<br>
+     *
+     * @param gateSet
+     *            The GateSet.
+     */
+    private void indexEvents(GateSet gateSet)
+    {
+	for (Node node : gateSet.getNodeSet())
+	{
+	    if (!eventIndexMap.containsKey(node))
+	    {
+		eventIndexMap.put(node, eventList.size());
+		eventList.add(node);
+	    }
+	}
+	for (GateSet lowerGateSet : gateSet.getLowerGateSets())
+	{
+	    indexEvents(lowerGateSet);
+	}
+    }
+
+    /**
+     * Returns the ZBDD of the MCS or the negated MCS of a GateSet.<br>
+     * The ZBDD does not contain contradicting or non-minimal sets.<br>
+     *
+     * @param gateSet
+     *            The GateSet.
+     * @param negated
+     *            If true the negated MCS are compiled. Otherwise the MCS.
+     * @return The ZBDD of the MCS or the negated MCS.
+     */
+    private int compile(GateSet gateSet, boolean negated)
+    {
+	IdentityHashMap<GateSet, Integer> compiledMap = negated ? negatedMCSMap : mcsMap;
+	Integer compiled = compiledMap.get(gateSet);
+	if (compiled != null)
+	{
+	    return compiled;
+	}
+	int result;
+	switch (gateSet.getGateType())
+	{
+	    case 1: // AND
+		result = negated ? unionOfInputs(gateSet, true) : joinOfInputs(gateSet, false);
+		break;
+	    case 2: // OR
+		result = negated ? joinOfInputs(gateSet, true) : unionOfInputs(gateSet, false);
+		break;
+	    case 3: // NOT
+		result = unionOfInputs(gateSet, !negated);
+		break;
+	    case 4: // XOR
+		result = negated ? compileNegatedXOR(gateSet) : compileXOR(gateSet);
+		break;
+	    case 5: // MOON
+		result = compileMOON(gateSet, negated);
+		break;
+	    case 6: // Connector
+	    case 7: // Result
+		if (!gateSet.getNodeSet().isEmpty())
+		{
+		    result = ZBDD.BASE;
+		    for (Node node : gateSet.getNodeSet())
+		    {
+			result = zbdd.join(result, getLiteral(node, negated));
+		    }
+		}
+		else
+		{
+		    result = ZBDD.EMPTY;
+		    for (GateSet lowerGateSet : gateSet.getLowerGateSets())
+		    {
+			result = zbdd.union(result, compile(lowerGateSet, negated));
+		    }
+		}
+		break;
+	    default:
+		PrintUtility.printError("The GateSet type " + gateSet.getGateType() + " is not supported by the ZBDD analysis!");
+		result = ZBDD.EMPTY;
+	}
+	result = zbdd.minimal(zbdd.removeContradictions(result));
+	compiledMap.put(gateSet, result);
+	return result;
+    }
+
+    /**
+     * Returns the union of the literals of all Nodes and the ZBDDs of all lower GateSets.<br>
+     *
+     * @param gateSet
+     *            The GateSet.
+     * @param negated
+     *            If true the negated inputs are used.
+     * @return The union of all inputs.
+     */
+    private int unionOfInputs(GateSet gateSet, boolean negated)
+    {
+	int result = ZBDD.EMPTY;
+	for (int input : getInputs(gateSet, negated))
+	{
+	    result = zbdd.union(result, input);
+	}
+	return result;
+    }
+
+    /**
+     * Returns the join of the literals of all Nodes and the ZBDDs of all lower GateSets.<br>
+     * Returns {@code EMPTY} if the GateSet has no inputs.<br>
+     *
+     * @param gateSet
+     *            The GateSet.
+     * @param negated
+     *            If true the negated inputs are used.
+     * @return The join of all inputs.
+     */
+    private int joinOfInputs(GateSet gateSet, boolean negated)
+    {
+	ArrayList<Integer> inputs = getInputs(gateSet, negated);
+	if (inputs.isEmpty())
+	{
+	    return ZBDD.EMPTY;
+	}
+	int result = ZBDD.BASE;
+	for (int input : inputs)
+	{
+	    result = zbdd.join(result, input);
+	}
+	return result;
+    }
+
+    /**
+     * Exactly one input is true: the union over all inputs of the input joined with all other negated inputs.<br>
+     * Uses prefix and suffix joins of the negated inputs so every input only needs two joins.<br>
+     *
+     * @param gateSet
+     *            The XOR GateSet.
+     * @return The ZBDD of the MCS.
+     */
+    private int compileXOR(GateSet gateSet)
+    {
+	ArrayList<Integer> inputs = getInputs(gateSet, false);
+	ArrayList<Integer> negatedInputs = getInputs(gateSet, true);
+	int size = inputs.size();
+	int[] suffix = new int[size + 1];
+	suffix[size] = ZBDD.BASE;
+	for (int i = size - 1; i >= 0; i--)
+	{
+	    suffix[i] = zbdd.join(negatedInputs.get(i), suffix[i + 1]);
+	}
+	int result = ZBDD.EMPTY;
+	int prefix = ZBDD.BASE;
+	for (int i = 0; i < size; i++)
+	{
+	    result = zbdd.union(result, zbdd.join(inputs.get(i), zbdd.join(prefix, suffix[i + 1])));
+	    prefix = zbdd.join(prefix, negatedInputs.get(i));
+	}
+	return result;
+    }
+
+    /**
+     * Not exactly one input is true: every pair of inputs is true or all inputs are false.<br>
+     *
+     * @param gateSet
+     *            The XOR GateSet.
+     * @return The ZBDD of the negated MCS.
+     */
+    private int compileNegatedXOR(GateSet gateSet)
+    {
+	ArrayList<Integer> inputs = getInputs(gateSet, false);
+	ArrayList<Integer> negatedInputs = getInputs(gateSet, true);
+	int result = ZBDD.EMPTY;
+	int previousInputs = ZBDD.EMPTY;
+	for (int input : inputs)
+	{
+	    result = zbdd.union(result, zbdd.join(previousInputs, input));
+	    previousInputs = zbdd.union(previousInputs, input);
+	}
+	if (!negatedInputs.isEmpty())
+	{
+	    int allNegated = ZBDD.BASE;
+	    for (int negatedInput : negatedInputs)
+	    {
+		allNegated = zbdd.join(allNegated, negatedInput);
+	    }
+	    result = zbdd.union(result, allNegated);
+	}
+	return result;
+    }
+
+    /**
+     * At least M inputs are true: the union of the joins of all combinations of M inputs.<br>
+     * The negated MCS are all combinations of N + 1 - M negated inputs.<br>
+     * The combinations are built with {@code combinations[k]} which is the union of all joins of k of the already processed inputs.<br>
+     *
+     * @param gateSet
+     *            The MOON GateSet.
+     * @param negated
+     *            If true the negated MCS are compiled. Otherwise the MCS.
+     * @return The ZBDD of the MCS or the negated MCS.
+     */
+    private int compileMOON(GateSet gateSet, boolean negated)
+    {
+	int moonNumber = ((MOONSet) gateSet).getMOONNumber();
+	ArrayList<Integer> inputs = getInputs(gateSet, negated);
+	int size = inputs.size();
+	if (moonNumber > size)
+	{
+	    return negated ? ZBDD.BASE : ZBDD.EMPTY;
+	}
+	if (moonNumber <= 0)
+	{
+	    return negated ? ZBDD.EMPTY : ZBDD.BASE;
+	}
+	int combinationSize = negated ? size + 1 - moonNumber : moonNumber;
+	int[] combinations = new int[combinationSize + 1];
+	combinations[0] = ZBDD.BASE;
+	for (int input : inputs)
+	{
+	    for (int k = combinationSize; k > 0; k--)
+	    {
+		combinations[k] = zbdd.union(combinations[k], zbdd.join(combinations[k - 1], input));
+	    }
+	}
+	return combinations[combinationSize];
+    }
+
+    /**
+     * Returns the literals of all Nodes followed by the ZBDDs of all lower GateSets.<br>
+     *
+     * @param gateSet
+     *            The GateSet.
+     * @param negated
+     *            If true the negated literals and negated ZBDDs are returned.
+     * @return The inputs of the GateSet.
+     */
+    private ArrayList<Integer> getInputs(GateSet gateSet, boolean negated)
+    {
+	ArrayList<Integer> inputs = new ArrayList<Integer>(gateSet.getNodeSet().size() + gateSet.getLowerGateSets().size());
+	for (Node node : gateSet.getNodeSet())
+	{
+	    inputs.add(getLiteral(node, negated));
+	}
+	for (GateSet lowerGateSet : gateSet.getLowerGateSets())
+	{
+	    inputs.add(compile(lowerGateSet, negated));
+	}
+	return inputs;
+    }
+
+    /**
+     * Returns the ZBDD that contains only the literal of the Node.<br>
+     *
+     * @param node
+     *            The Node.
+     * @param negated
+     *            If the literal is negated.
+     * @return The ZBDD of the literal.
+     */
+    private int getLiteral(Node node, boolean negated)
+    {
+	int variable = eventIndexMap.get(node) << 1;
+	return zbdd.single(negated ? variable + 1 : variable);
+    }
+
+}
@@ -0,0 +1,198 @@
+package neo4jUtility;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Checks the dynamic programming and the FFT of the ProbabilityUtility against each other and against the enumeration of all combinations.<br>
+ * The enumeration is the former calculation of the MOONSet and is only used as a reference.<br>
+ * Run with {@code java -ea} from the compiled classes of the prototype and this test.<br>
+ *
+ * @author Kevin Bartik
+ *
+ */
+public final class ProbabilityUtilityTest
+{
+
+    /**
+     * The maximum absolute error between two calculations.<br>
+     */
+    private static final double TOLERANCE = 1e-12;
+
+    private ProbabilityUtilityTest()
+    {
+
+    }
+
+    public static void main(String[] args)
+    {
+	Random random = new Random(42);
+	testSmallN(random);
+	testFFTThreshold(random);
+	System.out.println("ProbabilityUtilityTest passed.");
+    }
+
+    /**
+     * Compares the dynamic programming, the FFT and the enumeration for every M of small N.<br>
+     *
+     * @param random
+     *            The source of the probabilities.
+     */
+    private static void testSmallN(Random random)
+    {
+	for (int n = 1; n <= 14; n++)
+	{
+	    for (double[] probabilities : new double[][] { randomProbabilities(random, n, 1), randomProbabilities(random, n, 1e-4), constantProbabilities(n, 0.5),
+		    constantProbabilities(n, 0), constantProbabilities(n, 1) })
+	    {
+		for (int m = 0; m <= n; m++)
+		{
+		    double expected = calculateExactlyMProbabilityByEnumeration(probabilities, m);
+		    check("DP", n, m, expected, ProbabilityUtility.calculateExactlyMProbabilityDP(probabilities, m));
+		    check("FFT", n, m, expected, ProbabilityUtility.calculateExactlyMProbabilityFFT(probabilities, m));
+		    check("default", n, m, expected, ProbabilityUtility.calculateExactlyMProbability(probabilities, m));
+		    check("default with array", n, m, expected, ProbabilityUtility.calculateExactlyMProbability(probabilities, n, m, new double[n + 1]));
+		}
+		check("DP for M > N", n, n + 1, 0, ProbabilityUtility.calculateExactlyMProbabilityDP(probabilities, n + 1));
+		check("FFT for negative M", n, -1, 0, ProbabilityUtility.calculateExactlyMProbabilityFFT(probabilities, -1));
+	    }
+	}
+    }
+
+    /**
+     * Compares the dynamic programming and the FFT where the default calculation switches between them.<br>
+     * N is too large for the enumeration so the dynamic programming is the reference.<br>
+     *
+     * @param random
+     *            The source of the probabilities.
+     */
+    private static void testFFTThreshold(Random random)
+    {
+	for (int n : new int[] { 4095, 4096, 5000 })
+	{
+	    double[] probabilities = randomProbabilities(random, n, 1);
+	    for (int m : new int[] { 511, 512, n / 2, n - 512, n - 511 })
+	    {
+		double expected = ProbabilityUtility.calculateExactlyMProbabilityDP(probabilities, m);
+		check("FFT", n, m, expected, ProbabilityUtility.calculateExactlyMProbabilityFFT(probabilities, m));
+		check("default", n, m, expected, ProbabilityUtility.calculateExactlyMProbability(probabilities, m));
+		check("default with array", n, m, expected, ProbabilityUtility.calculateExactlyMProbability(probabilities, n, m, new double[n + 1]));
+	    }
+	}
+    }
+
+    private static void check(String calculation, int n, int m, double expected, double actual)
+    {
+	if (!(Math.abs(expected - actual) <= TOLERANCE))
+	{
+	    throw new AssertionError(calculation + " for N = " + n + " and M = " + m + " returned " + actual + " instead of " + expected);
+	}
+    }
+
+    private static double[] randomProbabilities(Random random, int n, double scale)
+    {
+	double[] probabilities = new double[n];
+	for (int i = 0; i < n; i++)
+	{
+	    probabilities[i] = random.nextDouble() * scale;
+	}
+	return probabilities;
+    }
+
+    private static double[] constantProbabilities(int n, double probability)
+    {
+	double[] probabilities = new double[n];
+	for (int i = 0; i < n; i++)
+	{
+	    probabilities[i] = probability;
+	}
+	return probabilities;
+    }
+
+    /**
+     * Calculates the probability by creating every combination of occurring and not occurring events.<br>
+     * This is exponential in the number of events and is the former calculation of {@code MOONSet.calculateBasicFailureProbability()}.<br>
+     * An index map stores the indexes of the {@code N - M} events that do not occur in a combination.<br>
+     *
+     * @param probabilities
+     *            The probabilities of the events.
+     * @param m
+     *            The number of events that occur.
+     * @return The probability that exactly {@code m} events occur.
+     */
+    static double calculateExactlyMProbabilityByEnumeration(double[] probabilities, int m)
+    {
+	int listSize = probabilities.length;
+	if (m > listSize || m < 0)
+	{
+	    return 0;
+	}
+	ArrayList<Double> listOfProbs = new ArrayList<Double>();
+	for (double probability : probabilities)
+	{
+	    listOfProbs.add(probability);
+	}
+	int inverseMoonNumber = listSize - m;
+	HashMap<Integer, Integer> indexMap = new HashMap<Integer, Integer>();
+	for (int i = 0; i < inverseMoonNumber; i++)
+	{
+	    indexMap.put(i, i);
+	}
+	double finalResult = 0;
+	boolean lastCombination = false;
+	while (!lastCombination)
+	{
+	    double probabilityOfCombination = 1;
+	    for (int i = 0; i < listSize; i++)
+	    {
+		if (indexMap.containsValue(i))
+		{
+		    probabilityOfCombination *= (1 - listOfProbs.get(i));
+		}
+		else
+		{
+		    probabilityOfCombination *= listOfProbs.get(i);
+		}
+	    }
+	    finalResult += probabilityOfCombination;
+	    lastCombination = true;
+	    for (int i = 1; i <= inverseMoonNumber; i++)
+	    {
+		if (indexMap.get(inverseMoonNumber - i) != (listSize - i))
+		{
+		    lastCombination = false;
+		    break;
+		}
+	    }
+	    if (!lastCombination)
+	    {
+		for (int i = 1; i <= inverseMoonNumber; i++)
+		{
+		    int k = indexMap.get(inverseMoonNumber - i);
+		    if (k < (listSize - i))
+		    {
+			indexMap.put(inverseMoonNumber - i, k + 1);
+			break;
+		    }
+		    else
+		    {
+			int j = indexMap.get(inverseMoonNumber - i - 1);
+			if (j + 2 < k)
+			{
+			    indexMap.put(inverseMoonNumber - i, j + 2);
+			    int u = 1;
+			    for (int y = inverseMoonNumber - i + 1; y < inverseMoonNumber; y++)
+			    {
+				indexMap.put(y, j + 2 + u);
+				u++;
+			    }
+			}
+		    }
+		}
+	    }
+	}
+	return finalResult;
+    }
+
+}
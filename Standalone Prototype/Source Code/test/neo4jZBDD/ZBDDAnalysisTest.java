@@ -0,0 +1,323 @@
+package neo4jZBDD;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.TreeSet;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import neo4jBDD.BDDAnalysis;
+import neo4jDatabase.DBConnection;
+import neo4jGateSets.ANDSet;
+import neo4jGateSets.GateSet;
+import neo4jGateSets.MOONSet;
+import neo4jGateSets.NOTSet;
+import neo4jGateSets.ORSet;
+import neo4jGateSets.XORSet;
+import neo4jMCS.MCS;
+import neo4jMCS.MCSNode;
+import neo4jUtility.SettingsUtility;
+
+/**
+ * Compares the minimal cut sets of the ZBDD engine with the MCS HashSets of the GateSets and the probability of the BDD with the probability of the
+ * GateSets.<br>
+ * The cases include GateSets whose MCS are always true or always false.<br>
+ * The events and the database are replaced by proxies so no database is started.<br>
+ * Run with {@code java -ea} from the compiled classes of the prototype and this test.<br>
+ *
+ * @author Kevin Bartik
+ *
+ */
+public final class ZBDDAnalysisTest
+{
+
+    /**
+     * The maximum absolute error between two probabilities.<br>
+     */
+    private static final double TOLERANCE = 1e-12;
+
+    private static final Node a = createNode(1, null, 0.1);
+
+    private static final Node b = createNode(2, null, 0.2);
+
+    private static final Node c = createNode(3, null, 0.3);
+
+    private static final Node d = createNode(4, null, 0.4);
+
+    private static final Node[] events = { a, b, c, d };
+
+    private static long nextId = 100;
+
+    private ZBDDAnalysisTest()
+    {
+
+    }
+
+    public static void main(String[] args) throws ReflectiveOperationException
+    {
+	setUp();
+	for (boolean useSubsumptionIndex : new boolean[] { false, true })
+	{
+	    SettingsUtility.setUseSubsumptionIndex(useSubsumptionIndex);
+	    check("AND", and(a, b));
+	    check("OR", or(a, b));
+	    check("AND of ORs", and(or(a, b), or(c, d)));
+	    check("OR of ANDs of ORs", or(and(or(a, b), or(c, d)), and(a, or(b, not(c)))));
+	    check("XOR", xor(a, or(b, c), d));
+	    check("MOON", moon(2, a, b, or(c, d)));
+	    check("AND with its negation", and(a, not(a)));
+	    check("always false MOON", moon(3, a, b));
+	    check("always true MOON", moon(0, a, b));
+	    check("AND with an always false MOON", and(or(a, b), moon(3, c, d)));
+	    check("AND with an always true MOON", and(or(a, b), moon(0, c, d)));
+	    check("OR with an always false MOON", or(and(or(a, b), c), moon(3, c, d)));
+	    check("OR with an always true MOON", or(and(or(a, b), c), moon(0, c, d)));
+	    check("OR with an always false AND", or(b, and(a, not(a))));
+	    check("NOT of an always true MOON", not(moon(0, a, b)));
+	    check("OR of an always true and an always false MOON", or(moon(0, a, b), moon(3, c, d)));
+	    check("AND of an always true and an always false MOON", and(moon(0, a, b), moon(3, c, d)));
+	}
+	System.out.println("ZBDDAnalysisTest passed.");
+    }
+
+    /**
+     * Replaces the database by a proxy that only creates transactions.<br>
+     *
+     * @throws ReflectiveOperationException
+     *             If the database cannot be replaced.
+     */
+    private static void setUp() throws ReflectiveOperationException
+    {
+	SettingsUtility.setPrintInfo(false);
+	Transaction transaction = (Transaction) Proxy.newProxyInstance(ZBDDAnalysisTest.class.getClassLoader(), new Class<?>[] { Transaction.class },
+		(proxy, method, arguments) -> null);
+	GraphDatabaseService graphDB = (GraphDatabaseService) Proxy.newProxyInstance(ZBDDAnalysisTest.class.getClassLoader(),
+		new Class<?>[] { GraphDatabaseService.class }, (proxy, method, arguments) -> {
+		    if (method.getName().equals("beginTx"))
+		    {
+			return transaction;
+		    }
+		    throw new UnsupportedOperationException(method.getName());
+		});
+	Field field = DBConnection.class.getDeclaredField("graphDB");
+	field.setAccessible(true);
+	field.set(null, graphDB);
+    }
+
+    /**
+     * Compares the MCS of the ZBDD with the MCS of the GateSet and the probability of the BDD with the probability of the GateSet.<br>
+     * If an event occurs more than once then the probability of the GateSet is not exact and the probability of the MCS is used instead.<br>
+     *
+     * @param description
+     *            The description of the case.
+     * @param gateSet
+     *            The GateSet.
+     */
+    private static void check(String description, GateSet gateSet)
+    {
+	HashSet<MCS> zbddMCSSet = new ZBDDAnalysis(gateSet).getMCSSet(Integer.MAX_VALUE);
+	double bddProbability = new BDDAnalysis(gateSet).calculateProbability();
+	boolean repeatedEvents = hasRepeatedEvents(gateSet, new HashSet<Node>());
+	double gateSetProbability = repeatedEvents ? 0 : gateSet.calculateBasicFailureProbability();
+	gateSet.createMCSSet();
+	gateSet.combineAllMergedMCS();
+	gateSet.minimizeMCS();
+	HashSet<MCS> mcsSet = gateSet.getMCSSet();
+	String expected = toString(mcsSet);
+	String actual = toString(zbddMCSSet);
+	if (!expected.equals(actual))
+	{
+	    throw new AssertionError(description + ": the ZBDD returned " + actual + " instead of " + expected);
+	}
+	double probability = repeatedEvents ? calculateProbability(mcsSet) : gateSetProbability;
+	if (!(Math.abs(probability - bddProbability) <= TOLERANCE))
+	{
+	    throw new AssertionError(description + ": the BDD returned " + bddProbability + " instead of " + probability);
+	}
+    }
+
+    private static boolean hasRepeatedEvents(GateSet gateSet, HashSet<Node> foundEvents)
+    {
+	for (Node node : gateSet.getNodeSet())
+	{
+	    if (!foundEvents.add(node))
+	    {
+		return true;
+	    }
+	}
+	for (GateSet lowerGateSet : gateSet.getLowerGateSets())
+	{
+	    if (hasRepeatedEvents(lowerGateSet, foundEvents))
+	    {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Calculates the probability that any MCS occurs by evaluating the MCS for every assignment of the events.<br>
+     *
+     * @param mcsSet
+     *            The MCS HashSet.
+     * @return The probability that any MCS occurs.
+     */
+    private static double calculateProbability(HashSet<MCS> mcsSet)
+    {
+	double probability = 0;
+	for (int assignment = 0; assignment < 1 << events.length; assignment++)
+	{
+	    HashSet<Node> occurred = new HashSet<Node>();
+	    double assignmentProbability = 1;
+	    for (int i = 0; i < events.length; i++)
+	    {
+		if ((assignment & 1 << i) != 0)
+		{
+		    occurred.add(events[i]);
+		    assignmentProbability *= (Double) events[i].getProperty("Basic Failure Probability");
+		}
+		else
+		{
+		    assignmentProbability *= 1 - (Double) events[i].getProperty("Basic Failure Probability");
+		}
+	    }
+	    for (MCS mcs : mcsSet)
+	    {
+		if (occurs(mcs, occurred))
+		{
+		    probability += assignmentProbability;
+		    break;
+		}
+	    }
+	}
+	return probability;
+    }
+
+    private static boolean occurs(MCS mcs, HashSet<Node> occurred)
+    {
+	if (mcs.isAlwaysFalse())
+	{
+	    return false;
+	}
+	for (MCSNode mcsNode : mcs.getMCSNodeSet())
+	{
+	    if (occurred.contains(mcsNode.getNode()) == mcsNode.isNegated())
+	    {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Returns the sorted MCS with the ids of their events. Negated events have negative ids.<br>
+     *
+     * @param mcsSet
+     *            The MCS HashSet.
+     * @return The sorted MCS.
+     */
+    private static String toString(HashSet<MCS> mcsSet)
+    {
+	TreeSet<String> mcsStrings = new TreeSet<String>();
+	for (MCS mcs : mcsSet)
+	{
+	    if (mcs.isAlwaysTrue())
+	    {
+		mcsStrings.add("ALWAYSTRUE");
+	    }
+	    else if (mcs.isAlwaysFalse())
+	    {
+		mcsStrings.add("ALWAYSFALSE");
+	    }
+	    else
+	    {
+		TreeSet<Long> ids = new TreeSet<Long>();
+		for (MCSNode mcsNode : mcs.getMCSNodeSet())
+		{
+		    ids.add(mcsNode.isNegated() ? -mcsNode.getNode().getId() : mcsNode.getNode().getId());
+		}
+		mcsStrings.add(ids.toString());
+	    }
+	}
+	return mcsStrings.toString();
+    }
+
+    private static GateSet and(Object... inputs)
+    {
+	return addInputs(new ANDSet(createNode(nextId++, null, null)), inputs);
+    }
+
+    private static GateSet or(Object... inputs)
+    {
+	return addInputs(new ORSet(createNode(nextId++, null, null)), inputs);
+    }
+
+    private static GateSet not(Object... inputs)
+    {
+	return addInputs(new NOTSet(createNode(nextId++, null, null)), inputs);
+    }
+
+    private static GateSet xor(Object... inputs)
+    {
+	return addInputs(new XORSet(createNode(nextId++, null, null)), inputs);
+    }
+
+    private static GateSet moon(int moonNumber, Object... inputs)
+    {
+	return addInputs(new MOONSet(createNode(nextId++, moonNumber, null)), inputs);
+    }
+
+    private static GateSet addInputs(GateSet gateSet, Object... inputs)
+    {
+	for (Object input : inputs)
+	{
+	    if (input instanceof Node)
+	    {
+		gateSet.addNode((Node) input);
+	    }
+	    else
+	    {
+		gateSet.addLowerGateSet((GateSet) input);
+	    }
+	}
+	return gateSet;
+    }
+
+    /**
+     * Creates a proxy Node that only has an id and optionally a MOONNumber or a probability.<br>
+     *
+     * @param id
+     *            The id of the Node.
+     * @param moonNumber
+     *            The MOONNumber of the Node or null.
+     * @param probability
+     *            The probability of the Node or null.
+     * @return The Node.
+     */
+    private static Node createNode(long id, Integer moonNumber, Double probability)
+    {
+	return (Node) Proxy.newProxyInstance(ZBDDAnalysisTest.class.getClassLoader(), new Class<?>[] { Node.class }, (proxy, method, arguments) -> {
+	    switch (method.getName())
+	    {
+		case "getId":
+		    return id;
+		case "hashCode":
+		    return Long.hashCode(id);
+		case "equals":
+		    return arguments[0] instanceof Node && ((Node) arguments[0]).getId() == id;
+		case "toString":
+		    return "Node[" + id + "]";
+		case "hasProperty":
+		    return moonNumber != null && "MOONNumber".equals(arguments[0]);
+		case "getProperty":
+		    return "MOONNumber".equals(arguments[0]) ? (Object) moonNumber : (Object) probability;
+		default:
+		    throw new UnsupportedOperationException(method.getName());
+	    }
+	});
+    }
+
+}